@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.apache.hyracks.api.comm.NetworkAddress;
 import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
 import org.apache.hyracks.api.job.JobFlag;
 import org.apache.hyracks.api.job.JobId;
@@ -183,6 +184,52 @@ public interface IHyracksClientConnection {
     public JobId startJob(DeploymentId deploymentId, IActivityClusterGraphGeneratorFactory acggf,
             EnumSet<JobFlag> jobFlags) throws Exception;
 
+    /**
+     * Deploys the specified Job so that it is compiled once on the cluster and can then be started repeatedly by id.
+     * 
+     * @param jobSpec
+     *            Job Specification
+     * @return the id of the deployed job specification
+     * @throws Exception
+     */
+    public DeployedJobSpecId deployJobSpec(JobSpecification jobSpec) throws Exception;
+
+    /**
+     * Deploys the specified Job so that it is compiled once on the cluster and can then be started repeatedly by id.
+     * 
+     * @param deploymentId
+     *            the id of the specific deployment
+     * @param jobSpec
+     *            Job Specification
+     * @param jobFlags
+     *            Flags
+     * @return the id of the deployed job specification
+     * @throws Exception
+     */
+    public DeployedJobSpecId deployJobSpec(DeploymentId deploymentId, JobSpecification jobSpec,
+            EnumSet<JobFlag> jobFlags) throws Exception;
+
+    /**
+     * Start a previously deployed Job.
+     * 
+     * @param deployedJobSpecId
+     *            the id of the deployed job specification
+     * @param jobParameters
+     *            values made available to the operators through
+     *            {@link org.apache.hyracks.api.context.IHyracksJobletContext#getJobParameter(String)}
+     * @throws Exception
+     */
+    public JobId startJob(DeployedJobSpecId deployedJobSpecId, Map<String, byte[]> jobParameters) throws Exception;
+
+    /**
+     * Removes a deployed Job from the cluster.
+     * 
+     * @param deployedJobSpecId
+     *            the id of the deployed job specification
+     * @throws Exception
+     */
+    public void undeployJobSpec(DeployedJobSpecId deployedJobSpecId) throws Exception;
+
     /**
      * Shuts down all NCs and then the CC.
      */
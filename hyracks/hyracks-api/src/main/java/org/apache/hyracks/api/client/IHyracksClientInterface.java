@@ -25,6 +25,7 @@ import java.util.Map;
 
 import org.apache.hyracks.api.comm.NetworkAddress;
 import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobFlag;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.job.JobInfo;
@@ -56,4 +57,11 @@ public interface IHyracksClientInterface {
 
     public void stopCluster() throws Exception;
 
+    public DeployedJobSpecId deployJobSpec(DeploymentId deploymentId, byte[] acggfBytes, EnumSet<JobFlag> jobFlags)
+            throws Exception;
+
+    public JobId startJob(DeployedJobSpecId deployedJobSpecId, Map<String, byte[]> jobParameters) throws Exception;
+
+    public void undeployJobSpec(DeployedJobSpecId deployedJobSpecId) throws Exception;
+
 }
\ No newline at end of file
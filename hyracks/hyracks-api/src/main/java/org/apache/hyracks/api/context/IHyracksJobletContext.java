@@ -36,4 +36,16 @@ public interface IHyracksJobletContext extends IWorkspaceFileFactory, IDeallocat
     public Class<?> loadClass(String className);
 
     public ClassLoader getClassLoader();
+
+    /**
+     * Gets a parameter bound when a deployed job specification was started.
+     * Contexts that do not run deployed jobs do not need to override this method.
+     * 
+     * @param name
+     *            - the name of the parameter
+     * @return the value of the parameter or null if it was not bound
+     */
+    public default byte[] getJobParameter(String name) {
+        return null;
+    }
 }
\ No newline at end of file
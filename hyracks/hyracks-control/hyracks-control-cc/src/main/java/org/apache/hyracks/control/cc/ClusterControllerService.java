@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -44,6 +46,7 @@ import org.apache.hyracks.api.context.ICCContext;
 import org.apache.hyracks.api.dataset.DatasetDirectoryRecord;
 import org.apache.hyracks.api.dataset.DatasetJobRecord.Status;
 import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.job.JobInfo;
 import org.apache.hyracks.api.job.JobStatus;
@@ -52,12 +55,15 @@ import org.apache.hyracks.api.topology.TopologyDefinitionParser;
 import org.apache.hyracks.control.cc.application.CCApplicationContext;
 import org.apache.hyracks.control.cc.dataset.DatasetDirectoryService;
 import org.apache.hyracks.control.cc.dataset.IDatasetDirectoryService;
+import org.apache.hyracks.control.cc.job.DeployedJobSpec;
 import org.apache.hyracks.control.cc.job.JobRun;
+import org.apache.hyracks.control.cc.scheduler.ITaskPlacementPolicy;
 import org.apache.hyracks.control.cc.web.WebServer;
 import org.apache.hyracks.control.cc.work.ApplicationMessageWork;
 import org.apache.hyracks.control.cc.work.CliDeployBinaryWork;
 import org.apache.hyracks.control.cc.work.CliUnDeployBinaryWork;
 import org.apache.hyracks.control.cc.work.ClusterShutdownWork;
+import org.apache.hyracks.control.cc.work.DeployJobSpecWork;
 import org.apache.hyracks.control.cc.work.GatherStateDumpsWork.StateDumpRun;
 import org.apache.hyracks.control.cc.work.GetDatasetDirectoryServiceInfoWork;
 import org.apache.hyracks.control.cc.work.GetIpAddressNodeNameMapWork;
@@ -80,8 +86,11 @@ import org.apache.hyracks.control.cc.work.RemoveDeadNodesWork;
 import org.apache.hyracks.control.cc.work.ReportProfilesWork;
 import org.apache.hyracks.control.cc.work.ReportResultPartitionFailureWork;
 import org.apache.hyracks.control.cc.work.ReportResultPartitionWriteCompletionWork;
+import org.apache.hyracks.control.cc.work.SpeculateStragglersWork;
+import org.apache.hyracks.control.cc.work.TaskCompleteBatchWork;
 import org.apache.hyracks.control.cc.work.TaskCompleteWork;
 import org.apache.hyracks.control.cc.work.TaskFailureWork;
+import org.apache.hyracks.control.cc.work.UndeployJobSpecWork;
 import org.apache.hyracks.control.cc.work.UnregisterNodeWork;
 import org.apache.hyracks.control.cc.work.WaitForJobCompletionWork;
 import org.apache.hyracks.control.common.AbstractRemoteService;
@@ -96,6 +105,7 @@ import org.apache.hyracks.control.common.logs.LogFile;
 import org.apache.hyracks.control.common.shutdown.ShutdownRun;
 import org.apache.hyracks.control.common.work.IPCResponder;
 import org.apache.hyracks.control.common.work.IResultCallback;
+import org.apache.hyracks.control.common.work.ShardedWorkQueue;
 import org.apache.hyracks.control.common.work.WorkQueue;
 import org.apache.hyracks.ipc.api.IIPCHandle;
 import org.apache.hyracks.ipc.api.IIPCI;
@@ -143,6 +153,8 @@ public class ClusterControllerService extends AbstractRemoteService {
 
     private final DeadNodeSweeper sweeper;
 
+    private final StragglerSpeculator speculator;
+
     private final IDatasetDirectoryService datasetDirectoryService;
 
     private long jobCounter;
@@ -151,6 +163,12 @@ public class ClusterControllerService extends AbstractRemoteService {
 
     private final Map<String, StateDumpRun> stateDumpRunMap;
 
+    private final Map<DeployedJobSpecId, DeployedJobSpec> deployedJobSpecMap;
+
+    private long deployedJobSpecCounter;
+
+    private final ITaskPlacementPolicy taskPlacementPolicy;
+
     private ShutdownRun shutdownCallback;
 
     public ClusterControllerService(final CCConfig ccConfig) throws Exception {
@@ -167,16 +185,16 @@ public class ClusterControllerService extends AbstractRemoteService {
         clientIPC = new IPCSystem(new InetSocketAddress(ccConfig.clientNetIpAddress, ccConfig.clientNetPort), ciIPCI,
                 new JavaSerializationBasedPayloadSerializerDeserializer());
         webServer = new WebServer(this);
-        activeRunMap = new HashMap<JobId, JobRun>();
-        runMapArchive = new LinkedHashMap<JobId, JobRun>() {
+        activeRunMap = new ConcurrentHashMap<JobId, JobRun>();
+        runMapArchive = Collections.synchronizedMap(new LinkedHashMap<JobId, JobRun>() {
             private static final long serialVersionUID = 1L;
 
             @Override
             protected boolean removeEldestEntry(Map.Entry<JobId, JobRun> eldest) {
                 return size() > ccConfig.jobHistorySize;
             }
-        };
-        runMapHistory = new LinkedHashMap<JobId, List<Exception>>() {
+        });
+        runMapHistory = Collections.synchronizedMap(new LinkedHashMap<JobId, List<Exception>>() {
             private static final long serialVersionUID = 1L;
             /** history size + 1 is for the case when history size = 0 */
             private int allowedSize = 100 * (ccConfig.jobHistorySize + 1);
@@ -185,8 +203,10 @@ public class ClusterControllerService extends AbstractRemoteService {
             protected boolean removeEldestEntry(Map.Entry<JobId, List<Exception>> eldest) {
                 return size() > allowedSize;
             }
-        };
-        workQueue = new WorkQueue(Thread.MAX_PRIORITY); // WorkQueue is in charge of heartbeat as well as other events.
+        });
+        // WorkQueue is in charge of heartbeat as well as other events.
+        workQueue = ccConfig.jobWorkThreads > 0 ? new ShardedWorkQueue(Thread.MAX_PRIORITY, ccConfig.jobWorkThreads)
+                : new WorkQueue(Thread.MAX_PRIORITY);
         this.timer = new Timer(true);
         final ClusterTopology topology = computeClusterTopology(ccConfig);
         ccContext = new ICCContext() {
@@ -207,11 +227,16 @@ public class ClusterControllerService extends AbstractRemoteService {
             }
         };
         sweeper = new DeadNodeSweeper();
+        speculator = new StragglerSpeculator();
         datasetDirectoryService = new DatasetDirectoryService(ccConfig.resultTTL, ccConfig.resultSweepThreshold);
         jobCounter = 0;
 
         deploymentRunMap = new HashMap<DeploymentId, DeploymentRun>();
         stateDumpRunMap = new HashMap<>();
+        deployedJobSpecMap = new ConcurrentHashMap<DeployedJobSpecId, DeployedJobSpec>();
+        deployedJobSpecCounter = 0;
+        taskPlacementPolicy = ccConfig.taskPlacementPolicyClass == null ? null
+                : (ITaskPlacementPolicy) Class.forName(ccConfig.taskPlacementPolicyClass).newInstance();
     }
 
     private static ClusterTopology computeClusterTopology(CCConfig ccConfig) throws Exception {
@@ -237,6 +262,9 @@ public class ClusterControllerService extends AbstractRemoteService {
         info = new ClusterControllerInfo(ccConfig.clientNetIpAddress, ccConfig.clientNetPort,
                 webServer.getListeningPort());
         timer.schedule(sweeper, 0, ccConfig.heartbeatPeriod);
+        if (ccConfig.taskSpeculationPeriod > 0) {
+            timer.schedule(speculator, ccConfig.taskSpeculationPeriod, ccConfig.taskSpeculationPeriod);
+        }
         jobLog.open();
         startApplication();
 
@@ -264,6 +292,7 @@ public class ClusterControllerService extends AbstractRemoteService {
         LOGGER.log(Level.INFO, "Stopping ClusterControllerService");
         webServer.stop();
         sweeper.cancel();
+        speculator.cancel();
         workQueue.stop();
         executor.shutdownNow();
         clusterIPC.stop();
@@ -324,6 +353,21 @@ public class ClusterControllerService extends AbstractRemoteService {
         return new JobId(jobCounter++);
     }
 
+    private DeployedJobSpecId createDeployedJobSpecId() {
+        return new DeployedJobSpecId(deployedJobSpecCounter++);
+    }
+
+    public Map<DeployedJobSpecId, DeployedJobSpec> getDeployedJobSpecMap() {
+        return deployedJobSpecMap;
+    }
+
+    /**
+     * @return the policy placing tasks whose location is not fixed by constraints, or null to place them randomly
+     */
+    public ITaskPlacementPolicy getTaskPlacementPolicy() {
+        return taskPlacementPolicy;
+    }
+
     public ClusterControllerInfo getClusterControllerInfo() {
         return info;
     }
@@ -347,6 +391,14 @@ public class ClusterControllerService extends AbstractRemoteService {
         }
     }
 
+    private class StragglerSpeculator extends TimerTask {
+        @Override
+        public void run() {
+            workQueue.schedule(new SpeculateStragglersWork(ClusterControllerService.this,
+                    ccConfig.taskSpeculationSlowdown));
+        }
+    }
+
     public IDatasetDirectoryService getDatasetDirectoryService() {
         return datasetDirectoryService;
     }
@@ -448,6 +500,29 @@ public class ClusterControllerService extends AbstractRemoteService {
                             new IPCResponder<Boolean>(handle, mid)));
                     return;
                 }
+
+                case DEPLOY_JOB_SPEC: {
+                    HyracksClientInterfaceFunctions.DeployJobSpecFunction djsf = (HyracksClientInterfaceFunctions.DeployJobSpecFunction) fn;
+                    workQueue.schedule(new DeployJobSpecWork(ClusterControllerService.this, djsf.getDeploymentId(),
+                            djsf.getACGGFBytes(), djsf.getJobFlags(), createJobId(), createDeployedJobSpecId(),
+                            new IPCResponder<DeployedJobSpecId>(handle, mid)));
+                    return;
+                }
+
+                case START_DEPLOYED_JOB: {
+                    HyracksClientInterfaceFunctions.StartDeployedJobFunction sdjf = (HyracksClientInterfaceFunctions.StartDeployedJobFunction) fn;
+                    JobId jobId = createJobId();
+                    workQueue.schedule(new JobStartWork(ClusterControllerService.this, sdjf.getDeployedJobSpecId(),
+                            sdjf.getJobParameters(), jobId, new IPCResponder<JobId>(handle, mid)));
+                    return;
+                }
+
+                case UNDEPLOY_JOB_SPEC: {
+                    HyracksClientInterfaceFunctions.UndeployJobSpecFunction ujsf = (HyracksClientInterfaceFunctions.UndeployJobSpecFunction) fn;
+                    workQueue.schedule(new UndeployJobSpecWork(ClusterControllerService.this, ujsf
+                            .getDeployedJobSpecId(), new IPCResponder<DeployedJobSpecId>(handle, mid)));
+                    return;
+                }
             }
             try {
                 handle.send(mid, null, new IllegalArgumentException("Unknown function " + fn.getFunctionId()));
@@ -508,6 +583,14 @@ public class ClusterControllerService extends AbstractRemoteService {
                             .getTaskId(), ntcf.getNodeId(), ntcf.getStatistics()));
                     return;
                 }
+                case NOTIFY_TASK_COMPLETE_BATCH: {
+                    CCNCFunctions.NotifyTaskCompleteBatchFunction ntcbf = (CCNCFunctions.NotifyTaskCompleteBatchFunction) fn;
+                    for (TaskCompleteBatchWork w : TaskCompleteBatchWork.createWorks(ClusterControllerService.this,
+                            ntcbf.getNodeId(), ntcbf.getTaskCompletions(), ntcbf.getPartitionDescriptors())) {
+                        workQueue.schedule(w);
+                    }
+                    return;
+                }
                 case NOTIFY_TASK_FAILURE: {
                     CCNCFunctions.NotifyTaskFailureFunction ntff = (CCNCFunctions.NotifyTaskFailureFunction) fn;
                     workQueue.schedule(new TaskFailureWork(ClusterControllerService.this, ntff.getJobId(), ntff
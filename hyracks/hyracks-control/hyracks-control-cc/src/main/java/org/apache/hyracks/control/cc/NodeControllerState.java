@@ -18,16 +18,19 @@
  */
 package org.apache.hyracks.control.cc;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import org.apache.hyracks.api.comm.NetworkAddress;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.common.base.INodeController;
 import org.apache.hyracks.control.common.controllers.NCConfig;
@@ -49,6 +52,8 @@ public class NodeControllerState {
 
     private final Set<JobId> activeJobIds;
 
+    private final Set<DeployedJobSpecId> cachedDeployedJobSpecIds;
+
     private final String osName;
 
     private final String arch;
@@ -137,12 +142,16 @@ public class NodeControllerState {
 
     private int lastHeartbeatDuration;
 
+    private final AtomicInteger runningTaskCount;
+
     public NodeControllerState(INodeController nodeController, NodeRegistration reg) {
         this.nodeController = nodeController;
         ncConfig = reg.getNCConfig();
         dataPort = reg.getDataPort();
         datasetPort = reg.getDatasetPort();
-        activeJobIds = new HashSet<JobId>();
+        activeJobIds = Collections.synchronizedSet(new HashSet<JobId>());
+        cachedDeployedJobSpecIds = Collections.synchronizedSet(new HashSet<DeployedJobSpecId>());
+        runningTaskCount = new AtomicInteger();
 
         osName = reg.getOSName();
         arch = reg.getArch();
@@ -198,7 +207,7 @@ public class NodeControllerState {
         rrdPtr = 0;
     }
 
-    public void notifyHeartbeat(HeartbeatData hbData) {
+    public synchronized void notifyHeartbeat(HeartbeatData hbData) {
         lastHeartbeatDuration = 0;
         hbTime[rrdPtr] = System.currentTimeMillis();
         if (hbData != null) {
@@ -236,14 +245,54 @@ public class NodeControllerState {
         }
     }
 
-    public int incrementLastHeartbeatDuration() {
+    public synchronized int incrementLastHeartbeatDuration() {
         return lastHeartbeatDuration++;
     }
 
-    public int getLastHeartbeatDuration() {
+    public synchronized int getLastHeartbeatDuration() {
         return lastHeartbeatDuration;
     }
 
+    public int getNProcessors() {
+        return nProcessors;
+    }
+
+    private int getLastHeartbeatIndex() {
+        return (rrdPtr + RRD_SIZE - 1) % RRD_SIZE;
+    }
+
+    /**
+     * @return the system load average reported by the most recent heartbeat (0 before the first heartbeat, negative
+     *         if the node cannot report it)
+     */
+    public synchronized double getLastSystemLoadAverage() {
+        return systemLoadAverage[getLastHeartbeatIndex()];
+    }
+
+    /**
+     * @return the fraction of the maximum heap in use as reported by the most recent heartbeat (0 before the first
+     *         heartbeat)
+     */
+    public synchronized double getLastHeapUsage() {
+        int i = getLastHeartbeatIndex();
+        return heapMaxSize[i] <= 0 ? 0 : (double) heapUsedSize[i] / heapMaxSize[i];
+    }
+
+    /**
+     * @return the number of task attempts the cluster controller has started on this node that have not yet finished
+     */
+    public int getRunningTaskCount() {
+        return runningTaskCount.get();
+    }
+
+    public void incrementRunningTaskCount() {
+        runningTaskCount.incrementAndGet();
+    }
+
+    public void decrementRunningTaskCount() {
+        runningTaskCount.decrementAndGet();
+    }
+
     public INodeController getNodeController() {
         return nodeController;
     }
@@ -256,6 +305,13 @@ public class NodeControllerState {
         return activeJobIds;
     }
 
+    /**
+     * @return the deployed job specifications whose activity cluster graph has already been shipped to this node
+     */
+    public Set<DeployedJobSpecId> getCachedDeployedJobSpecIds() {
+        return cachedDeployedJobSpecIds;
+    }
+
     public NetworkAddress getDataPort() {
         return dataPort;
     }
@@ -264,7 +320,7 @@ public class NodeControllerState {
         return datasetPort;
     }
 
-    public JSONObject toSummaryJSON() throws JSONException {
+    public synchronized JSONObject toSummaryJSON() throws JSONException {
         JSONObject o = new JSONObject();
         o.put("node-id", ncConfig.nodeId);
         o.put("heap-used", heapUsedSize[(rrdPtr + RRD_SIZE - 1) % RRD_SIZE]);
@@ -273,7 +329,7 @@ public class NodeControllerState {
         return o;
     }
 
-    public JSONObject toDetailedJSON() throws JSONException {
+    public synchronized JSONObject toDetailedJSON() throws JSONException {
         JSONObject o = new JSONObject();
 
         o.put("node-id", ncConfig.nodeId);
@@ -20,6 +20,7 @@ package org.apache.hyracks.control.cc.dataset;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -190,18 +191,18 @@ public class DatasetDirectoryService implements IDatasetDirectoryService {
     }
 
     @Override
-    public Set<JobId> getJobIds() {
-        return jobResultLocations.keySet();
+    public synchronized Set<JobId> getJobIds() {
+        return new HashSet<JobId>(jobResultLocations.keySet());
     }
 
     @Override
-    public IDatasetStateRecord getState(JobId jobId) {
+    public synchronized IDatasetStateRecord getState(JobId jobId) {
         return jobResultLocations.get(jobId).record;
     }
 
     @Override
-    public void deinitState(JobId jobId) {
-        jobResultLocations.remove(jobResultLocations.get(jobId));
+    public synchronized void deinitState(JobId jobId) {
+        jobResultLocations.remove(jobId);
     }
 
     @Override
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.job;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hyracks.api.constraints.Constraint;
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.ConnectorDescriptorId;
+import org.apache.hyracks.api.dataflow.connectors.IConnectorPolicy;
+import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.job.ActivityCluster;
+import org.apache.hyracks.api.job.ActivityClusterGraph;
+import org.apache.hyracks.api.job.ActivityClusterId;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
+import org.apache.hyracks.api.job.IActivityClusterGraphGenerator;
+import org.apache.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
+import org.apache.hyracks.api.job.JobFlag;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.api.partitions.PartitionId;
+
+/**
+ * A job specification that has been compiled once and is kept on the cluster controller so that it can be started
+ * repeatedly without deserializing the specification, building and rewriting the activity cluster graph, planning
+ * its activity clusters or serializing the graph for the node controllers again.
+ * The compiled graph is kept as an immutable template. Every run gets a copy of the graph structure whose activity
+ * cluster ids carry the job id of the run; the activities and connectors, which the cluster controller only reads,
+ * are shared. The plans of the activity clusters are recorded from the first run that builds them and copied for
+ * later runs, with the partitions rebound to the job id of the run and without any scheduling state.
+ */
+public class DeployedJobSpec {
+    private final DeployedJobSpecId deployedJobSpecId;
+
+    private final DeploymentId deploymentId;
+
+    private final IActivityClusterGraphGeneratorFactory acggf;
+
+    private final JobId compileJobId;
+
+    private final ActivityClusterGraph acg;
+
+    private final Set<Constraint> constraints;
+
+    private final EnumSet<JobFlag> jobFlags;
+
+    private final byte[] acgBytes;
+
+    // Plans of the activity clusters of the template graph, keyed by the ids of its activity clusters.
+    private final Map<ActivityClusterId, ActivityClusterPlan> planTemplates;
+
+    private final Map<ActivityClusterId, Map<ConnectorDescriptorId, IConnectorPolicy>> connectorPolicyTemplates;
+
+    public DeployedJobSpec(DeployedJobSpecId deployedJobSpecId, DeploymentId deploymentId,
+            IActivityClusterGraphGeneratorFactory acggf, JobId compileJobId, ActivityClusterGraph acg,
+            Set<Constraint> constraints, EnumSet<JobFlag> jobFlags, byte[] acgBytes) {
+        this.deployedJobSpecId = deployedJobSpecId;
+        this.deploymentId = deploymentId;
+        this.acggf = acggf;
+        this.compileJobId = compileJobId;
+        this.acg = acg;
+        this.constraints = constraints;
+        this.jobFlags = jobFlags;
+        this.acgBytes = acgBytes;
+        planTemplates = new HashMap<ActivityClusterId, ActivityClusterPlan>();
+        connectorPolicyTemplates = new HashMap<ActivityClusterId, Map<ConnectorDescriptorId, IConnectorPolicy>>();
+    }
+
+    public DeployedJobSpecId getDeployedJobSpecId() {
+        return deployedJobSpecId;
+    }
+
+    public DeploymentId getDeploymentId() {
+        return deploymentId;
+    }
+
+    public IActivityClusterGraphGeneratorFactory getActivityClusterGraphGeneratorFactory() {
+        return acggf;
+    }
+
+    public EnumSet<JobFlag> getJobFlags() {
+        return jobFlags;
+    }
+
+    public byte[] getActivityClusterGraphBytes() {
+        return acgBytes;
+    }
+
+    /**
+     * Creates a generator handing out a copy of the pre-built (and already rewritten) activity cluster graph bound to
+     * one run of the job.
+     * 
+     * @param jobId
+     *            - the id of the run
+     * @return the generator for the run
+     */
+    public IActivityClusterGraphGenerator createActivityClusterGraphGenerator(JobId jobId) {
+        final ActivityClusterGraph runAcg = copyActivityClusterGraph(jobId);
+        return new IActivityClusterGraphGenerator() {
+            @Override
+            public ActivityClusterGraph initialize() {
+                return runAcg;
+            }
+
+            @Override
+            public Set<Constraint> getConstraints() {
+                return constraints;
+            }
+        };
+    }
+
+    /**
+     * Copies the recorded plan of an activity cluster for a run, if a previous run recorded it.
+     * 
+     * @param ac
+     *            - the activity cluster of the run to plan
+     * @param planMap
+     *            - the plans of the run, which hold the plans of the activity clusters ac depends on
+     * @param connectorPolicyMap
+     *            - the connector policies of the run, which receive the policies of the connectors of ac
+     * @return the plan or null if no run recorded it yet
+     */
+    public synchronized ActivityClusterPlan copyActivityClusterPlan(ActivityCluster ac,
+            Map<ActivityClusterId, ActivityClusterPlan> planMap,
+            Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicyMap) {
+        ActivityClusterId templateId = new ActivityClusterId(compileJobId, ac.getId().getId());
+        ActivityClusterPlan template = planTemplates.get(templateId);
+        if (template == null) {
+            return null;
+        }
+        connectorPolicyMap.putAll(connectorPolicyTemplates.get(templateId));
+        return copyActivityClusterPlan(template, ac, planMap);
+    }
+
+    /**
+     * Records the plan a run built for one of its activity clusters, so that later runs copy it instead of planning.
+     * 
+     * @param ac
+     *            - the planned activity cluster of the run
+     * @param plan
+     *            - its plan, before any of its task clusters was scheduled
+     * @param connectorPolicyMap
+     *            - the connector policies of the run
+     */
+    public synchronized void addActivityClusterPlan(ActivityCluster ac, ActivityClusterPlan plan,
+            Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicyMap) {
+        ActivityClusterId templateId = new ActivityClusterId(compileJobId, ac.getId().getId());
+        if (planTemplates.containsKey(templateId)) {
+            return;
+        }
+        Map<ConnectorDescriptorId, IConnectorPolicy> policies = new HashMap<ConnectorDescriptorId, IConnectorPolicy>();
+        for (ConnectorDescriptorId cdId : ac.getConnectorMap().keySet()) {
+            IConnectorPolicy policy = connectorPolicyMap.get(cdId);
+            if (policy != null) {
+                policies.put(cdId, policy);
+            }
+        }
+        planTemplates.put(templateId, copyActivityClusterPlan(plan, acg.getActivityClusterMap().get(templateId),
+                planTemplates));
+        connectorPolicyTemplates.put(templateId, policies);
+    }
+
+    private ActivityClusterGraph copyActivityClusterGraph(JobId jobId) {
+        ActivityClusterGraph copy = new ActivityClusterGraph();
+        copy.setFrameSize(acg.getFrameSize());
+        copy.setMaxReattempts(acg.getMaxReattempts());
+        copy.setJobletEventListenerFactory(acg.getJobletEventListenerFactory());
+        copy.setGlobalJobDataFactory(acg.getGlobalJobDataFactory());
+        copy.setConnectorPolicyAssignmentPolicy(acg.getConnectorPolicyAssignmentPolicy());
+        copy.setUseConnectorPolicyForScheduling(acg.isUseConnectorPolicyForScheduling());
+        copy.setReportTaskDetails(acg.isReportTaskDetails());
+        Map<ActivityClusterId, ActivityCluster> acCopies = new HashMap<ActivityClusterId, ActivityCluster>();
+        for (ActivityCluster ac : acg.getActivityClusterMap().values()) {
+            ActivityCluster acCopy = new ActivityCluster(copy, new ActivityClusterId(jobId, ac.getId().getId()));
+            acCopy.getRoots().addAll(ac.getRoots());
+            acCopy.getActivityMap().putAll(ac.getActivityMap());
+            acCopy.getConnectorMap().putAll(ac.getConnectorMap());
+            acCopy.getConnectorRecordDescriptorMap().putAll(ac.getConnectorRecordDescriptorMap());
+            acCopy.getConnectorActivityMap().putAll(ac.getConnectorActivityMap());
+            acCopy.getActivityInputMap().putAll(ac.getActivityInputMap());
+            acCopy.getActivityOutputMap().putAll(ac.getActivityOutputMap());
+            acCopy.getBlocked2BlockerMap().putAll(ac.getBlocked2BlockerMap());
+            acCopy.setConnectorPolicyAssignmentPolicy(ac.getConnectorPolicyAssignmentPolicy());
+            acCopies.put(ac.getId(), acCopy);
+        }
+        for (ActivityCluster ac : acg.getActivityClusterMap().values()) {
+            for (ActivityCluster dep : ac.getDependencies()) {
+                acCopies.get(ac.getId()).getDependencies().add(acCopies.get(dep.getId()));
+            }
+        }
+        copy.addActivityClusters(acCopies.values());
+        return copy;
+    }
+
+    /**
+     * Copies a plan onto the activity cluster ac of another graph. Task clusters of the activity clusters the plan
+     * depends on are looked up in planMap, which belongs to the same graph as ac.
+     */
+    private static ActivityClusterPlan copyActivityClusterPlan(ActivityClusterPlan plan, ActivityCluster ac,
+            Map<ActivityClusterId, ActivityClusterPlan> planMap) {
+        JobId jobId = ac.getId().getJobId();
+        Map<ActivityId, ActivityPlan> activityPlanMap = new HashMap<ActivityId, ActivityPlan>();
+        for (Map.Entry<ActivityId, ActivityPlan> e : plan.getActivityPlanMap().entrySet()) {
+            ActivityPlan activityPlan = new ActivityPlan(e.getValue().getActivityPartitionDetails());
+            Task[] tasks = e.getValue().getTasks();
+            Task[] taskCopies = new Task[tasks.length];
+            for (int i = 0; i < tasks.length; ++i) {
+                taskCopies[i] = new Task(tasks[i].getTaskId(), activityPlan);
+                taskCopies[i].getDependencies().addAll(tasks[i].getDependencies());
+                taskCopies[i].getDependents().addAll(tasks[i].getDependents());
+            }
+            activityPlan.setTasks(taskCopies);
+            activityPlanMap.put(e.getKey(), activityPlan);
+        }
+        TaskCluster[] taskClusters = plan.getTaskClusters();
+        TaskCluster[] tcCopies = new TaskCluster[taskClusters.length];
+        for (int i = 0; i < taskClusters.length; ++i) {
+            TaskCluster tc = taskClusters[i];
+            Task[] tasks = new Task[tc.getTasks().length];
+            for (int j = 0; j < tasks.length; ++j) {
+                ActivityId aid = tc.getTasks()[j].getTaskId().getActivityId();
+                tasks[j] = activityPlanMap.get(aid).getTasks()[tc.getTasks()[j].getTaskId().getPartition()];
+            }
+            tcCopies[i] = new TaskCluster(new TaskClusterId(ac.getId(), tc.getTaskClusterId().getId()), ac, tasks);
+            for (Task task : tasks) {
+                task.setTaskCluster(tcCopies[i]);
+            }
+            for (PartitionId pid : tc.getProducedPartitions()) {
+                tcCopies[i].getProducedPartitions().add(rebind(pid, jobId));
+            }
+            for (PartitionId pid : tc.getRequiredPartitions()) {
+                tcCopies[i].getRequiredPartitions().add(rebind(pid, jobId));
+            }
+        }
+        for (int i = 0; i < taskClusters.length; ++i) {
+            for (TaskCluster dTC : taskClusters[i].getDependencyTaskClusters()) {
+                TaskCluster dTCCopy;
+                int acId = dTC.getTaskClusterId().getActivityClusterId().getId();
+                if (acId == ac.getId().getId()) {
+                    dTCCopy = findTaskCluster(tcCopies, dTC.getTaskClusterId().getId());
+                } else {
+                    ActivityClusterPlan dPlan = planMap.get(new ActivityClusterId(jobId, acId));
+                    dTCCopy = findTaskCluster(dPlan.getTaskClusters(), dTC.getTaskClusterId().getId());
+                }
+                tcCopies[i].getDependencyTaskClusters().add(dTCCopy);
+                dTCCopy.getDependentTaskClusters().add(tcCopies[i]);
+            }
+        }
+        return new ActivityClusterPlan(tcCopies, activityPlanMap);
+    }
+
+    private static TaskCluster findTaskCluster(TaskCluster[] taskClusters, int id) {
+        for (TaskCluster tc : taskClusters) {
+            if (tc.getTaskClusterId().getId() == id) {
+                return tc;
+            }
+        }
+        throw new IllegalStateException("No task cluster " + id + " in the plan");
+    }
+
+    private static PartitionId rebind(PartitionId pid, JobId jobId) {
+        return new PartitionId(jobId, pid.getConnectorDescriptorId(), pid.getSenderIndex(), pid.getReceiverIndex());
+    }
+}
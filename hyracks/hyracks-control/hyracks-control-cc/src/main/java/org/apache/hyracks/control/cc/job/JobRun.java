@@ -21,6 +21,7 @@ package org.apache.hyracks.control.cc.job;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +36,7 @@ import org.json.JSONObject;
 import org.apache.hyracks.api.dataflow.ActivityId;
 import org.apache.hyracks.api.dataflow.ConnectorDescriptorId;
 import org.apache.hyracks.api.dataflow.OperatorDescriptorId;
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
 import org.apache.hyracks.api.dataflow.TaskId;
 import org.apache.hyracks.api.dataflow.connectors.IConnectorPolicy;
 import org.apache.hyracks.api.deployment.DeploymentId;
@@ -52,6 +54,8 @@ import org.apache.hyracks.control.cc.partitions.PartitionMatchMaker;
 import org.apache.hyracks.control.cc.scheduler.ActivityPartitionDetails;
 import org.apache.hyracks.control.cc.scheduler.JobScheduler;
 import org.apache.hyracks.control.common.job.profiling.om.JobProfile;
+import org.apache.hyracks.control.common.job.profiling.om.JobletProfile;
+import org.apache.hyracks.control.common.job.profiling.om.TaskProfile;
 import org.apache.hyracks.control.common.utils.ExceptionUtils;
 
 public class JobRun implements IJobStatusConditionVariable {
@@ -67,6 +71,10 @@ public class JobRun implements IJobStatusConditionVariable {
 
     private final EnumSet<JobFlag> jobFlags;
 
+    private final DeployedJobSpec deployedJobSpec;
+
+    private final Map<String, byte[]> jobParameters;
+
     private final Map<ActivityClusterId, ActivityClusterPlan> activityClusterPlanMap;
 
     private final PartitionMatchMaker pmm;
@@ -97,12 +105,26 @@ public class JobRun implements IJobStatusConditionVariable {
 
     public JobRun(ClusterControllerService ccs, DeploymentId deploymentId, JobId jobId,
             IActivityClusterGraphGenerator acgg, EnumSet<JobFlag> jobFlags) {
+        this(ccs, deploymentId, jobId, acgg, jobFlags, null, Collections.<String, byte[]> emptyMap());
+    }
+
+    public JobRun(ClusterControllerService ccs, JobId jobId, DeployedJobSpec deployedJobSpec,
+            IActivityClusterGraphGenerator acgg, Map<String, byte[]> jobParameters) {
+        this(ccs, deployedJobSpec.getDeploymentId(), jobId, acgg, deployedJobSpec.getJobFlags(), deployedJobSpec,
+                jobParameters);
+    }
+
+    private JobRun(ClusterControllerService ccs, DeploymentId deploymentId, JobId jobId,
+            IActivityClusterGraphGenerator acgg, EnumSet<JobFlag> jobFlags, DeployedJobSpec deployedJobSpec,
+            Map<String, byte[]> jobParameters) {
         this.deploymentId = deploymentId;
         this.jobId = jobId;
         this.acgg = acgg;
         this.acg = acgg.initialize();
         this.scheduler = new JobScheduler(ccs, this, acgg.getConstraints());
         this.jobFlags = jobFlags;
+        this.deployedJobSpec = deployedJobSpec;
+        this.jobParameters = jobParameters;
         activityClusterPlanMap = new HashMap<ActivityClusterId, ActivityClusterPlan>();
         pmm = new PartitionMatchMaker();
         participatingNodeIds = new HashSet<String>();
@@ -128,6 +150,18 @@ public class JobRun implements IJobStatusConditionVariable {
         return jobFlags;
     }
 
+    /**
+     * @return the deployed job specification this job was started from, or null for a job submitted with its
+     *         specification
+     */
+    public DeployedJobSpec getDeployedJobSpec() {
+        return deployedJobSpec;
+    }
+
+    public Map<String, byte[]> getJobParameters() {
+        return jobParameters;
+    }
+
     public Map<ActivityClusterId, ActivityClusterPlan> getActivityClusterPlanMap() {
         return activityClusterPlanMap;
     }
@@ -228,6 +262,16 @@ public class JobRun implements IJobStatusConditionVariable {
         return profile;
     }
 
+    public void addTaskProfile(String nodeId, TaskAttemptId taId, TaskProfile taskProfile) {
+        Map<String, JobletProfile> jobletProfiles = profile.getJobletProfiles();
+        JobletProfile jobletProfile = jobletProfiles.get(nodeId);
+        if (jobletProfile == null) {
+            jobletProfile = new JobletProfile(nodeId);
+            jobletProfiles.put(nodeId, jobletProfile);
+        }
+        jobletProfile.getTaskProfiles().put(taId, taskProfile);
+    }
+
     public JobScheduler getScheduler() {
         return scheduler;
     }
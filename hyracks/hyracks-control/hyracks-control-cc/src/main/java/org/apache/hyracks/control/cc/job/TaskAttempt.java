@@ -39,6 +39,8 @@ public class TaskAttempt {
 
     private String nodeId;
 
+    private String speculativeNodeId;
+
     private TaskStatus status;
 
     private List<Exception> exceptions;
@@ -75,6 +77,47 @@ public class TaskAttempt {
         this.nodeId = nodeId;
     }
 
+    /**
+     * @return the node running a speculative copy of this task attempt, or null if there is none
+     */
+    public String getSpeculativeNodeId() {
+        return speculativeNodeId;
+    }
+
+    public void setSpeculativeNodeId(String speculativeNodeId) {
+        this.speculativeNodeId = speculativeNodeId;
+    }
+
+    /**
+     * @return whether the given node runs this task attempt, either as the node it is bound to or as the node running
+     *         its speculative copy
+     */
+    public boolean isExecutedAt(String nodeId) {
+        return nodeId != null && (nodeId.equals(this.nodeId) || nodeId.equals(speculativeNodeId));
+    }
+
+    /**
+     * Decides which execution of this task attempt survives a notification from one of the nodes running it. When
+     * there is a speculative copy, the first execution to succeed wins and the failure of one execution leaves the
+     * other one. Otherwise the node the attempt is bound to is the only one.
+     *
+     * @param nodeId
+     *            - the node sending the notification, one of the nodes running this task attempt
+     * @param succeeded
+     *            - whether the notification reports progress (a completion or a produced partition) rather than a
+     *            failure
+     * @return the node whose execution survives
+     */
+    public String getSurvivingNodeId(String nodeId, boolean succeeded) {
+        if (speculativeNodeId == null || status != TaskStatus.RUNNING) {
+            return this.nodeId;
+        }
+        if (succeeded) {
+            return nodeId;
+        }
+        return nodeId.equals(this.nodeId) ? speculativeNodeId : this.nodeId;
+    }
+
     public TaskStatus getStatus() {
         return status;
     }
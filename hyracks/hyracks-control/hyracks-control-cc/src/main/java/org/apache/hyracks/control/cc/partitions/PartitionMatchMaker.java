@@ -130,6 +130,18 @@ public class PartitionMatchMaker {
         return PartitionState.STARTED;
     }
 
+    /**
+     * @return the node on which the given partition has been made available, or null if no producer has registered it
+     *         yet
+     */
+    public String getProducerNodeId(PartitionId pid) {
+        List<PartitionDescriptor> descriptors = partitionDescriptors.get(pid);
+        if (descriptors == null || descriptors.isEmpty()) {
+            return null;
+        }
+        return descriptors.get(0).getNodeId();
+    }
+
     private interface IEntryFilter<T> {
         public boolean matches(T o);
     }
@@ -190,6 +202,28 @@ public class PartitionMatchMaker {
         }
     }
 
+    /**
+     * Removes the partitions produced by a task attempt at the given node, whatever their state. Used to forget the
+     * output of one of several copies of the same task attempt.
+     */
+    public void removeProducerPartitions(Set<PartitionId> partitionIds, final TaskAttemptId taId, final String nodeId) {
+        IEntryFilter<PartitionDescriptor> filter = new IEntryFilter<PartitionDescriptor>() {
+            @Override
+            public boolean matches(PartitionDescriptor o) {
+                return taId.equals(o.getProducingTaskAttemptId()) && nodeId.equals(o.getNodeId());
+            }
+        };
+        for (PartitionId pid : partitionIds) {
+            List<PartitionDescriptor> descriptors = partitionDescriptors.get(pid);
+            if (descriptors != null) {
+                removeEntries(descriptors, filter);
+                if (descriptors.isEmpty()) {
+                    partitionDescriptors.remove(pid);
+                }
+            }
+        }
+    }
+
     public void removePartitionRequests(Set<PartitionId> partitionIds, final Set<TaskAttemptId> taIds) {
         LOGGER.info("Removing partition requests: " + partitionIds);
         IEntryFilter<PartitionRequest> filter = new IEntryFilter<PartitionRequest>() {
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.scheduler;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.control.cc.NodeControllerState;
+
+/**
+ * Chooses the node controller a task is started on when its location is not constrained. The policy is not consulted
+ * for tasks with a location constraint, whether it pins them to a single node or lists choices in order of
+ * preference, nor for tasks co-located with the task blocking them.
+ */
+public interface ITaskPlacementPolicy {
+    /**
+     * @param tid
+     *            - the task to place
+     * @param candidateNodes
+     *            - live nodes the task may run on; never empty
+     * @param nodeMap
+     *            - state of the live nodes, including their latest heartbeat data
+     * @param inputPartitionCounts
+     *            - for each node, the number of input partitions of the task produced on that node
+     * @param scheduledTaskCounts
+     *            - for each node, the number of tasks already placed on that node in the current scheduling round
+     * @return the chosen node, one of the candidate nodes
+     */
+    public String chooseNode(TaskId tid, List<String> candidateNodes, Map<String, NodeControllerState> nodeMap,
+            Map<String, Integer> inputPartitionCounts, Map<String, Integer> scheduledTaskCounts);
+}
@@ -49,6 +49,7 @@ import org.apache.hyracks.api.deployment.DeploymentId;
 import org.apache.hyracks.api.exceptions.HyracksException;
 import org.apache.hyracks.api.job.ActivityCluster;
 import org.apache.hyracks.api.job.ActivityClusterGraph;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.job.JobStatus;
 import org.apache.hyracks.api.partitions.PartitionId;
@@ -57,6 +58,7 @@ import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.NodeControllerState;
 import org.apache.hyracks.control.cc.application.CCApplicationContext;
 import org.apache.hyracks.control.cc.job.ActivityClusterPlan;
+import org.apache.hyracks.control.cc.job.DeployedJobSpec;
 import org.apache.hyracks.control.cc.job.JobRun;
 import org.apache.hyracks.control.cc.job.Task;
 import org.apache.hyracks.control.cc.job.TaskAttempt;
@@ -66,6 +68,8 @@ import org.apache.hyracks.control.cc.partitions.PartitionMatchMaker;
 import org.apache.hyracks.control.cc.work.JobCleanupWork;
 import org.apache.hyracks.control.common.job.PartitionState;
 import org.apache.hyracks.control.common.job.TaskAttemptDescriptor;
+import org.apache.hyracks.control.common.job.profiling.om.JobletProfile;
+import org.apache.hyracks.control.common.job.profiling.om.TaskProfile;
 
 public class JobScheduler {
     private static final Logger LOGGER = Logger.getLogger(JobScheduler.class.getName());
@@ -135,10 +139,7 @@ public class JobScheduler {
         }
         if (depsComplete) {
             if (!isPlanned(candidate)) {
-                ActivityClusterPlanner acp = new ActivityClusterPlanner(this);
-                ActivityClusterPlan acPlan = acp.planActivityCluster(candidate);
-                jobRun.getActivityClusterPlanMap().put(candidate.getId(), acPlan);
-                partitionProducingTaskClusterMap.putAll(acp.getPartitionProducingTaskClusterMap());
+                planActivityCluster(candidate);
             }
             for (TaskCluster tc : getActivityClusterPlan(candidate).getTaskClusters()) {
                 if (tc.getProducedPartitions().isEmpty()) {
@@ -151,6 +152,31 @@ public class JobScheduler {
         }
     }
 
+    /**
+     * Plans an activity cluster of the job, or copies its plan from an earlier run of the same deployed job.
+     */
+    private void planActivityCluster(ActivityCluster ac) throws HyracksException {
+        DeployedJobSpec deployedJobSpec = jobRun.getDeployedJobSpec();
+        ActivityClusterPlan acPlan = deployedJobSpec == null ? null : deployedJobSpec.copyActivityClusterPlan(ac,
+                jobRun.getActivityClusterPlanMap(), jobRun.getConnectorPolicyMap());
+        if (acPlan != null) {
+            jobRun.getActivityClusterPlanMap().put(ac.getId(), acPlan);
+            for (TaskCluster tc : acPlan.getTaskClusters()) {
+                for (PartitionId pid : tc.getProducedPartitions()) {
+                    partitionProducingTaskClusterMap.put(pid, tc);
+                }
+            }
+            return;
+        }
+        ActivityClusterPlanner acp = new ActivityClusterPlanner(this);
+        acPlan = acp.planActivityCluster(ac);
+        jobRun.getActivityClusterPlanMap().put(ac.getId(), acPlan);
+        partitionProducingTaskClusterMap.putAll(acp.getPartitionProducingTaskClusterMap());
+        if (deployedJobSpec != null) {
+            deployedJobSpec.addActivityClusterPlan(ac, acPlan, jobRun.getConnectorPolicyMap());
+        }
+    }
+
     private ActivityClusterPlan getActivityClusterPlan(ActivityCluster ac) {
         return jobRun.getActivityClusterPlanMap().get(ac.getId());
     }
@@ -325,9 +351,9 @@ public class JobScheduler {
             Task ts = tasks[i];
             TaskId tid = ts.getTaskId();
             TaskAttempt taskAttempt = taskAttempts.get(tid);
-            String nodeId = assignLocation(acg, locationMap, tid, taskAttempt);
+            String nodeId = assignLocation(acg, locationMap, tid, taskAttempt, ts, taskAttemptMap);
             taskAttempt.setNodeId(nodeId);
-            taskAttempt.setStatus(TaskAttempt.TaskStatus.RUNNING, null);
+            setTaskAttemptStatus(taskAttempt, TaskAttempt.TaskStatus.RUNNING, null);
             taskAttempt.setStartTime(System.currentTimeMillis());
             List<TaskAttemptDescriptor> tads = taskAttemptMap.get(nodeId);
             if (tads == null) {
@@ -352,35 +378,7 @@ public class JobScheduler {
         for (Map.Entry<String, List<TaskAttemptDescriptor>> e : taskAttemptMap.entrySet()) {
             List<TaskAttemptDescriptor> tads = e.getValue();
             for (TaskAttemptDescriptor tad : tads) {
-                TaskAttemptId taid = tad.getTaskAttemptId();
-                int attempt = taid.getAttempt();
-                TaskId tid = taid.getTaskId();
-                ActivityId aid = tid.getActivityId();
-                List<IConnectorDescriptor> inConnectors = acg.getActivityInputs(aid);
-                int[] inPartitionCounts = tad.getInputPartitionCounts();
-                if (inPartitionCounts != null) {
-                    NetworkAddress[][] partitionLocations = new NetworkAddress[inPartitionCounts.length][];
-                    for (int i = 0; i < inPartitionCounts.length; ++i) {
-                        ConnectorDescriptorId cdId = inConnectors.get(i).getConnectorId();
-                        IConnectorPolicy policy = jobRun.getConnectorPolicyMap().get(cdId);
-                        /**
-                         * carry sender location information into a task
-                         * when it is not the case that it is an re-attempt and the send-side
-                         * is materialized blocking.
-                         */
-                        if (!(attempt > 0 && policy.materializeOnSendSide() && policy
-                                .consumerWaitsForProducerToFinish())) {
-                            ActivityId producerAid = acg.getProducerActivity(cdId);
-                            partitionLocations[i] = new NetworkAddress[inPartitionCounts[i]];
-                            for (int j = 0; j < inPartitionCounts[i]; ++j) {
-                                TaskId producerTaskId = new TaskId(producerAid, j);
-                                String nodeId = findTaskLocation(producerTaskId);
-                                partitionLocations[i][j] = ccs.getNodeMap().get(nodeId).getDataPort();
-                            }
-                        }
-                    }
-                    tad.setInputPartitionLocations(partitionLocations);
-                }
+                setInputPartitionLocations(acg, tad);
             }
         }
 
@@ -389,8 +387,40 @@ public class JobScheduler {
         inProgressTaskClusters.add(tc);
     }
 
+    private void setInputPartitionLocations(ActivityClusterGraph acg, TaskAttemptDescriptor tad) {
+        TaskAttemptId taid = tad.getTaskAttemptId();
+        int attempt = taid.getAttempt();
+        TaskId tid = taid.getTaskId();
+        ActivityId aid = tid.getActivityId();
+        List<IConnectorDescriptor> inConnectors = acg.getActivityInputs(aid);
+        int[] inPartitionCounts = tad.getInputPartitionCounts();
+        if (inPartitionCounts != null) {
+            NetworkAddress[][] partitionLocations = new NetworkAddress[inPartitionCounts.length][];
+            for (int i = 0; i < inPartitionCounts.length; ++i) {
+                ConnectorDescriptorId cdId = inConnectors.get(i).getConnectorId();
+                IConnectorPolicy policy = jobRun.getConnectorPolicyMap().get(cdId);
+                /**
+                 * carry sender location information into a task
+                 * when it is not the case that it is an re-attempt and the send-side
+                 * is materialized blocking.
+                 */
+                if (!(attempt > 0 && policy.materializeOnSendSide() && policy.consumerWaitsForProducerToFinish())) {
+                    ActivityId producerAid = acg.getProducerActivity(cdId);
+                    partitionLocations[i] = new NetworkAddress[inPartitionCounts[i]];
+                    for (int j = 0; j < inPartitionCounts[i]; ++j) {
+                        TaskId producerTaskId = new TaskId(producerAid, j);
+                        String nodeId = findTaskLocation(producerTaskId);
+                        partitionLocations[i][j] = ccs.getNodeMap().get(nodeId).getDataPort();
+                    }
+                }
+            }
+            tad.setInputPartitionLocations(partitionLocations);
+        }
+    }
+
     private String assignLocation(ActivityClusterGraph acg, Map<TaskId, LValueConstraintExpression> locationMap,
-            TaskId tid, TaskAttempt taskAttempt) throws HyracksException {
+            TaskId tid, TaskAttempt taskAttempt, Task task, Map<String, List<TaskAttemptDescriptor>> taskAttemptMap)
+            throws HyracksException {
         ActivityId aid = tid.getActivityId();
         ActivityCluster ac = acg.getActivityMap().get(aid);
         Set<ActivityId> blockers = ac.getBlocked2BlockerMap().get(aid);
@@ -404,16 +434,22 @@ public class JobScheduler {
             }
         }
         Set<String> liveNodes = ccs.getNodeMap().keySet();
+        ITaskPlacementPolicy placementPolicy = ccs.getTaskPlacementPolicy();
         if (nodeId == null) {
             LValueConstraintExpression pLocationExpr = locationMap.get(tid);
             Object location = solver.getValue(pLocationExpr);
             if (location == null) {
-                // pick any
-                nodeId = liveNodes.toArray(new String[liveNodes.size()])[Math.abs(new Random().nextInt())
-                        % liveNodes.size()];
+                if (placementPolicy != null && !liveNodes.isEmpty()) {
+                    nodeId = placeTask(placementPolicy, tid, task, new ArrayList<String>(liveNodes), taskAttemptMap);
+                } else {
+                    // pick any
+                    nodeId = liveNodes.toArray(new String[liveNodes.size()])[Math.abs(new Random().nextInt())
+                            % liveNodes.size()];
+                }
             } else if (location instanceof String) {
                 nodeId = (String) location;
             } else if (location instanceof String[]) {
+                // The choices are in order of preference, which the placement policy must not override.
                 for (String choice : (String[]) location) {
                     if (liveNodes.contains(choice)) {
                         nodeId = choice;
@@ -437,6 +473,115 @@ public class JobScheduler {
         return nodeId;
     }
 
+    private String placeTask(ITaskPlacementPolicy placementPolicy, TaskId tid, Task task, List<String> candidates,
+            Map<String, List<TaskAttemptDescriptor>> taskAttemptMap) {
+        Map<String, Integer> scheduledTaskCounts = new HashMap<String, Integer>();
+        for (Map.Entry<String, List<TaskAttemptDescriptor>> e : taskAttemptMap.entrySet()) {
+            scheduledTaskCounts.put(e.getKey(), e.getValue().size());
+        }
+        String nodeId = placementPolicy.chooseNode(tid, candidates, ccs.getNodeMap(),
+                getInputPartitionLocations(tid, task), scheduledTaskCounts);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Placed " + tid + " on " + nodeId + " out of " + candidates);
+        }
+        return nodeId;
+    }
+
+    /**
+     * Counts, per node, the input partitions of a task that have been (or are being) produced there. Producer locations
+     * come from the partitions registered with the job's partition match maker and fall back to the location of the
+     * producing task.
+     */
+    private Map<String, Integer> getInputPartitionLocations(TaskId tid, Task task) {
+        Map<String, Integer> inputPartitionCounts = new HashMap<String, Integer>();
+        ActivityClusterGraph acg = jobRun.getActivityClusterGraph();
+        List<IConnectorDescriptor> inConnectors = acg.getActivityInputs(tid.getActivityId());
+        int[] inPartitionCounts = task.getActivityPlan().getActivityPartitionDetails().getInputPartitionCounts();
+        if (inConnectors == null || inPartitionCounts == null) {
+            return inputPartitionCounts;
+        }
+        PartitionMatchMaker pmm = jobRun.getPartitionMatchMaker();
+        for (int i = 0; i < inPartitionCounts.length; ++i) {
+            ConnectorDescriptorId cdId = inConnectors.get(i).getConnectorId();
+            ActivityId producerAid = acg.getProducerActivity(cdId);
+            for (int j = 0; j < inPartitionCounts[i]; ++j) {
+                String nodeId = pmm.getProducerNodeId(new PartitionId(jobRun.getJobId(), cdId, j, tid.getPartition()));
+                if (nodeId == null) {
+                    nodeId = findTaskLocation(new TaskId(producerAid, j));
+                }
+                if (nodeId != null) {
+                    Integer count = inputPartitionCounts.get(nodeId);
+                    inputPartitionCounts.put(nodeId, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        return inputPartitionCounts;
+    }
+
+    /**
+     * Changes the status of a task attempt, keeping the running task counts of its nodes up to date.
+     */
+    private void setTaskAttemptStatus(TaskAttempt ta, TaskAttempt.TaskStatus status, List<Exception> exceptions) {
+        TaskAttempt.TaskStatus oldStatus = ta.getStatus();
+        String oldNodeId = ta.getNodeId();
+        String oldSpeculativeNodeId = ta.getSpeculativeNodeId();
+        ta.setStatus(status, exceptions);
+        updateRunningTaskCounts(ta, oldStatus, oldNodeId, oldSpeculativeNodeId);
+    }
+
+    /**
+     * Changes the nodes a task attempt runs on, keeping their running task counts up to date.
+     *
+     * @param nodeId
+     *            - the node the attempt is bound to
+     * @param speculativeNodeId
+     *            - the node running a speculative copy of the attempt, or null
+     */
+    private void setTaskAttemptNodes(TaskAttempt ta, String nodeId, String speculativeNodeId) {
+        String oldNodeId = ta.getNodeId();
+        String oldSpeculativeNodeId = ta.getSpeculativeNodeId();
+        ta.setNodeId(nodeId);
+        ta.setSpeculativeNodeId(speculativeNodeId);
+        updateRunningTaskCounts(ta, ta.getStatus(), oldNodeId, oldSpeculativeNodeId);
+    }
+
+    /**
+     * The only place the running task counts of the nodes are changed. A running task attempt counts once on the node
+     * it is bound to and once on the node running its speculative copy.
+     */
+    private void updateRunningTaskCounts(TaskAttempt ta, TaskAttempt.TaskStatus oldStatus, String oldNodeId,
+            String oldSpeculativeNodeId) {
+        boolean wasRunning = oldStatus == TaskAttempt.TaskStatus.RUNNING;
+        boolean isRunning = ta.getStatus() == TaskAttempt.TaskStatus.RUNNING;
+        String[] oldNodeIds = wasRunning ? new String[] { oldNodeId, oldSpeculativeNodeId } : new String[0];
+        String[] newNodeIds = isRunning ? new String[] { ta.getNodeId(), ta.getSpeculativeNodeId() } : new String[0];
+        for (String nodeId : oldNodeIds) {
+            if (nodeId != null && !contains(newNodeIds, nodeId)) {
+                NodeControllerState node = ccs.getNodeMap().get(nodeId);
+                if (node != null) {
+                    node.decrementRunningTaskCount();
+                }
+            }
+        }
+        for (String nodeId : newNodeIds) {
+            if (nodeId != null && !contains(oldNodeIds, nodeId)) {
+                NodeControllerState node = ccs.getNodeMap().get(nodeId);
+                if (node != null) {
+                    node.incrementRunningTaskCount();
+                }
+            }
+        }
+    }
+
+    private static boolean contains(String[] nodeIds, String nodeId) {
+        for (String id : nodeIds) {
+            if (nodeId.equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String findTaskLocation(TaskId tid) {
         ActivityId aid = tid.getActivityId();
         ActivityCluster ac = jobRun.getActivityClusterGraph().getActivityMap().get(aid);
@@ -464,8 +609,14 @@ public class JobScheduler {
         final ActivityClusterGraph acg = jobRun.getActivityClusterGraph();
         final Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies = new HashMap<ConnectorDescriptorId, IConnectorPolicy>(
                 jobRun.getConnectorPolicyMap());
+        final DeployedJobSpec deployedJobSpec = jobRun.getDeployedJobSpec();
+        // a job spec undeployed while this job runs is shipped to new nodes without being cached there
+        final DeployedJobSpecId deployedJobSpecId = deployedJobSpec != null
+                && ccs.getDeployedJobSpecMap().containsKey(deployedJobSpec.getDeployedJobSpecId()) ? deployedJobSpec
+                .getDeployedJobSpecId() : null;
         try {
-            byte[] acgBytes = JavaSerializationUtils.serialize(acg);
+            byte[] acgBytes = deployedJobSpec != null ? deployedJobSpec.getActivityClusterGraphBytes()
+                    : JavaSerializationUtils.serialize(acg);
             for (Map.Entry<String, List<TaskAttemptDescriptor>> entry : taskAttemptMap.entrySet()) {
                 String nodeId = entry.getKey();
                 final List<TaskAttemptDescriptor> taskDescriptors = entry.getValue();
@@ -476,9 +627,14 @@ public class JobScheduler {
                     if (LOGGER.isLoggable(Level.FINE)) {
                         LOGGER.fine("Starting: " + taskDescriptors + " at " + entry.getKey());
                     }
-                    byte[] jagBytes = changed ? acgBytes : null;
+                    byte[] jagBytes = null;
+                    if (changed
+                            && (deployedJobSpecId == null || node.getCachedDeployedJobSpecIds().add(deployedJobSpecId))) {
+                        jagBytes = acgBytes;
+                    }
                     node.getNodeController().startTasks(deploymentId, jobId, jagBytes, taskDescriptors,
-                            connectorPolicies, jobRun.getFlags());
+                            connectorPolicies, jobRun.getFlags(), deployedJobSpecId,
+                            changed ? jobRun.getJobParameters() : null);
                 }
             }
         } catch (Exception e) {
@@ -505,8 +661,19 @@ public class JobScheduler {
             TaskAttempt.TaskStatus status = ta.getStatus();
             abortTaskIds.add(taId);
             LOGGER.fine("Checking " + taId + ": " + ta.getStatus());
+            if (status == TaskAttempt.TaskStatus.RUNNING && ta.getSpeculativeNodeId() != null) {
+                String speculativeNodeId = ta.getSpeculativeNodeId();
+                List<TaskAttemptId> abortTaskAttempts = abortTaskAttemptMap.get(speculativeNodeId);
+                if (abortTaskAttempts == null) {
+                    abortTaskAttempts = new ArrayList<TaskAttemptId>();
+                    abortTaskAttemptMap.put(speculativeNodeId, abortTaskAttempts);
+                }
+                abortTaskAttempts.add(taId);
+                setTaskAttemptNodes(ta, ta.getNodeId(), null);
+                dropSpeculativeCopy(ta, speculativeNodeId);
+            }
             if (status == TaskAttempt.TaskStatus.RUNNING || status == TaskAttempt.TaskStatus.COMPLETED) {
-                ta.setStatus(TaskAttempt.TaskStatus.ABORTED, null);
+                setTaskAttemptStatus(ta, TaskAttempt.TaskStatus.ABORTED, null);
                 ta.setEndTime(System.currentTimeMillis());
                 List<TaskAttemptId> abortTaskAttempts = abortTaskAttemptMap.get(ta.getNodeId());
                 if (status == TaskAttempt.TaskStatus.RUNNING && abortTaskAttempts == null) {
@@ -602,19 +769,44 @@ public class JobScheduler {
     }
 
     public void notifyTaskComplete(TaskAttempt ta) throws HyracksException {
+        if (completeTaskAttempt(ta)) {
+            startRunnableActivityClusters();
+        }
+    }
+
+    /**
+     * Indicates that a batch of task attempts of this job has completed.
+     * Scheduling of newly runnable task clusters is performed once for the whole batch.
+     *
+     * @param tas
+     *            - Completed Task Attempts
+     */
+    public void notifyTasksComplete(List<TaskAttempt> tas) throws HyracksException {
+        boolean taskClusterCompleted = false;
+        for (TaskAttempt ta : tas) {
+            if (completeTaskAttempt(ta)) {
+                taskClusterCompleted = true;
+            }
+        }
+        if (taskClusterCompleted) {
+            startRunnableActivityClusters();
+        }
+    }
+
+    private boolean completeTaskAttempt(TaskAttempt ta) {
         TaskAttemptId taId = ta.getTaskAttemptId();
         TaskCluster tc = ta.getTask().getTaskCluster();
         TaskClusterAttempt lastAttempt = findLastTaskClusterAttempt(tc);
         if (lastAttempt != null && taId.getAttempt() == lastAttempt.getAttempt()) {
             TaskAttempt.TaskStatus taStatus = ta.getStatus();
             if (taStatus == TaskAttempt.TaskStatus.RUNNING) {
-                ta.setStatus(TaskAttempt.TaskStatus.COMPLETED, null);
+                setTaskAttemptStatus(ta, TaskAttempt.TaskStatus.COMPLETED, null);
                 ta.setEndTime(System.currentTimeMillis());
                 if (lastAttempt.decrementPendingTasksCounter() == 0) {
                     lastAttempt.setStatus(TaskClusterAttempt.TaskClusterStatus.COMPLETED);
                     lastAttempt.setEndTime(System.currentTimeMillis());
                     inProgressTaskClusters.remove(tc);
-                    startRunnableActivityClusters();
+                    return true;
                 }
             } else {
                 LOGGER.warning("Spurious task complete notification: " + taId + " Current state = " + taStatus);
@@ -622,6 +814,7 @@ public class JobScheduler {
         } else {
             LOGGER.warning("Ignoring task complete notification: " + taId + " -- Current last attempt = " + lastAttempt);
         }
+        return false;
     }
 
     /**
@@ -642,7 +835,7 @@ public class JobScheduler {
             TaskClusterAttempt lastAttempt = findLastTaskClusterAttempt(tc);
             if (lastAttempt != null && taId.getAttempt() == lastAttempt.getAttempt()) {
                 LOGGER.fine("Marking TaskAttempt " + ta.getTaskAttemptId() + " as failed");
-                ta.setStatus(TaskAttempt.TaskStatus.FAILED, exceptions);
+                setTaskAttemptStatus(ta, TaskAttempt.TaskStatus.FAILED, exceptions);
                 abortTaskCluster(lastAttempt, TaskClusterAttempt.TaskClusterStatus.FAILED);
                 abortDoomedTaskClusters();
                 if (lastAttempt.getAttempt() >= jobRun.getActivityClusterGraph().getMaxReattempts()) {
@@ -686,11 +879,19 @@ public class JobScheduler {
                                 boolean abort = false;
                                 for (TaskAttempt ta : lastTaskClusterAttempt.getTaskAttempts().values()) {
                                     assert (ta.getStatus() == TaskAttempt.TaskStatus.COMPLETED || ta.getStatus() == TaskAttempt.TaskStatus.RUNNING);
+                                    String speculativeNodeId = ta.getSpeculativeNodeId();
+                                    if (speculativeNodeId != null && !deadNodes.contains(speculativeNodeId)) {
+                                        if (deadNodes.contains(ta.getNodeId())) {
+                                            // the speculative copy takes over from the lost one
+                                            promoteSpeculativeCopy(ta);
+                                        }
+                                    } else if (speculativeNodeId != null) {
+                                        setTaskAttemptNodes(ta, ta.getNodeId(), null);
+                                    }
                                     if (deadNodes.contains(ta.getNodeId())) {
-                                        ta.setStatus(
-                                                TaskAttempt.TaskStatus.FAILED,
-                                                Collections.singletonList(new Exception("Node " + ta.getNodeId()
-                                                        + " failed")));
+                                        setTaskAttemptStatus(ta, TaskAttempt.TaskStatus.FAILED,
+                                                Collections.<Exception> singletonList(new Exception("Node "
+                                                        + ta.getNodeId() + " failed")));
                                         ta.setEndTime(System.currentTimeMillis());
                                         abort = true;
                                     }
@@ -711,6 +912,261 @@ public class JobScheduler {
         }
     }
 
+    /**
+     * Starts speculative copies of straggling tasks. A task is considered a straggler when at least half of the tasks
+     * of the same activity in its task cluster attempt have completed, it has been running for longer than the median
+     * duration of its completed siblings and its expected duration exceeds that median by the given factor.
+     * The expected duration is extrapolated from the counters reported in the task profiles, when available, and is the
+     * elapsed time otherwise.
+     * Only tasks that read and write materialized partitions exclusively are re-executed. The copy reuses the task
+     * attempt id on another node, so partitions and notifications are told apart by the node sending them: the first
+     * copy to register a partition or to complete wins, the other copy is aborted and anything it registered or
+     * registers later is dropped.
+     *
+     * @param slowdown
+     *            - Factor by which a task must be slower than its completed siblings
+     */
+    public void speculateStragglers(double slowdown) throws HyracksException {
+        if (jobRun.getPendingStatus() != null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        ActivityClusterGraph acg = jobRun.getActivityClusterGraph();
+        Map<String, List<TaskAttemptDescriptor>> taskAttemptMap = new HashMap<String, List<TaskAttemptDescriptor>>();
+        Map<TaskAttempt, String> speculativeCopies = new HashMap<TaskAttempt, String>();
+        StragglerDetector detector = new StragglerDetector(slowdown);
+        for (TaskCluster tc : inProgressTaskClusters) {
+            TaskClusterAttempt tcAttempt = findLastTaskClusterAttempt(tc);
+            if (tcAttempt == null || tcAttempt.getStatus() != TaskClusterAttempt.TaskClusterStatus.RUNNING) {
+                continue;
+            }
+            Map<ActivityId, List<TaskAttempt>> activityTaskAttempts = new HashMap<ActivityId, List<TaskAttempt>>();
+            for (TaskAttempt ta : tcAttempt.getTaskAttempts().values()) {
+                ActivityId aid = ta.getTaskAttemptId().getTaskId().getActivityId();
+                List<TaskAttempt> tas = activityTaskAttempts.get(aid);
+                if (tas == null) {
+                    tas = new ArrayList<TaskAttempt>();
+                    activityTaskAttempts.put(aid, tas);
+                }
+                tas.add(ta);
+            }
+            for (Map.Entry<ActivityId, List<TaskAttempt>> e : activityTaskAttempts.entrySet()) {
+                if (!isSpeculatable(acg, e.getKey())) {
+                    continue;
+                }
+                List<TaskAttempt> tas = e.getValue();
+                Map<TaskAttemptId, Long> work = new HashMap<TaskAttemptId, Long>();
+                for (TaskAttempt ta : tas) {
+                    work.put(ta.getTaskAttemptId(), getTaskWork(ta, ta.getNodeId()));
+                }
+                for (TaskAttempt ta : detector.findStragglers(tas, work, now)) {
+                    String nodeId = chooseSpeculativeLocation(ta, taskAttemptMap);
+                    if (nodeId == null) {
+                        continue;
+                    }
+                    if (LOGGER.isLoggable(Level.INFO)) {
+                        LOGGER.info("Speculatively re-executing straggler " + ta.getTaskAttemptId() + " of "
+                                + ta.getNodeId() + " on " + nodeId + " (running for " + (now - ta.getStartTime())
+                                + " ms)");
+                    }
+                    List<TaskAttemptDescriptor> tads = taskAttemptMap.get(nodeId);
+                    if (tads == null) {
+                        tads = new ArrayList<TaskAttemptDescriptor>();
+                        taskAttemptMap.put(nodeId, tads);
+                    }
+                    ActivityPartitionDetails apd = ta.getTask().getActivityPlan().getActivityPartitionDetails();
+                    TaskAttemptDescriptor tad = new TaskAttemptDescriptor(ta.getTaskAttemptId(),
+                            apd.getPartitionCount(), apd.getInputPartitionCounts(), apd.getOutputPartitionCounts());
+                    setInputPartitionLocations(acg, tad);
+                    tads.add(tad);
+                    speculativeCopies.put(ta, nodeId);
+                }
+            }
+        }
+        if (taskAttemptMap.isEmpty()) {
+            return;
+        }
+        startTasks(taskAttemptMap);
+        for (Map.Entry<TaskAttempt, String> e : speculativeCopies.entrySet()) {
+            TaskAttempt ta = e.getKey();
+            setTaskAttemptNodes(ta, ta.getNodeId(), e.getValue());
+        }
+    }
+
+    /**
+     * An activity can be re-executed while its first execution is still running only if all of its inputs and outputs
+     * are materialized partitions that are consumed after they have been completely produced, it does not share state
+     * with blocking or blocked activities, and it is not a sink (which may have side effects).
+     */
+    private boolean isSpeculatable(ActivityClusterGraph acg, ActivityId aid) {
+        ActivityCluster ac = acg.getActivityMap().get(aid);
+        List<IConnectorDescriptor> outConnectors = ac.getActivityOutputMap().get(aid);
+        if (outConnectors == null || outConnectors.isEmpty()) {
+            return false;
+        }
+        List<IConnectorDescriptor> inConnectors = acg.getActivityInputs(aid);
+        List<IConnectorDescriptor> connectors = new ArrayList<IConnectorDescriptor>(outConnectors);
+        if (inConnectors != null) {
+            connectors.addAll(inConnectors);
+        }
+        for (IConnectorDescriptor conn : connectors) {
+            IConnectorPolicy policy = jobRun.getConnectorPolicyMap().get(conn.getConnectorId());
+            if (policy == null || !policy.materializeOnSendSide() || !policy.consumerWaitsForProducerToFinish()) {
+                return false;
+            }
+        }
+        Map<ActivityId, Set<ActivityId>> blocked2BlockerMap = ac.getBlocked2BlockerMap();
+        if (blocked2BlockerMap.containsKey(aid)) {
+            return false;
+        }
+        for (Set<ActivityId> blockers : blocked2BlockerMap.values()) {
+            if (blockers.contains(aid)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String chooseSpeculativeLocation(TaskAttempt ta, Map<String, List<TaskAttemptDescriptor>> taskAttemptMap) {
+        TaskId tid = ta.getTaskAttemptId().getTaskId();
+        Object location = solver.getValue(new PartitionLocationExpression(tid.getActivityId().getOperatorDescriptorId(),
+                tid.getPartition()));
+        Map<String, NodeControllerState> nodeMap = ccs.getNodeMap();
+        List<String> candidates = new ArrayList<String>();
+        if (location == null) {
+            candidates.addAll(nodeMap.keySet());
+        } else if (location instanceof String[]) {
+            for (String choice : (String[]) location) {
+                if (nodeMap.containsKey(choice)) {
+                    candidates.add(choice);
+                }
+            }
+        }
+        candidates.remove(ta.getNodeId());
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        ITaskPlacementPolicy placementPolicy = ccs.getTaskPlacementPolicy();
+        if (placementPolicy != null && location == null) {
+            return placeTask(placementPolicy, tid, ta.getTask(), candidates, taskAttemptMap);
+        }
+        String nodeId = null;
+        int minLoad = Integer.MAX_VALUE;
+        for (String candidate : candidates) {
+            List<TaskAttemptDescriptor> tads = taskAttemptMap.get(candidate);
+            int load = nodeMap.get(candidate).getRunningTaskCount() + (tads == null ? 0 : tads.size());
+            if (load < minLoad) {
+                minLoad = load;
+                nodeId = candidate;
+            }
+        }
+        return nodeId;
+    }
+
+    /**
+     * @return the sum of the counters reported in the profile of the task attempt at the given node, 0 if none
+     */
+    private long getTaskWork(TaskAttempt ta, String nodeId) {
+        JobletProfile jobletProfile = jobRun.getJobProfile().getJobletProfiles().get(nodeId);
+        if (jobletProfile == null) {
+            return 0;
+        }
+        TaskProfile taskProfile = jobletProfile.getTaskProfiles().get(ta.getTaskAttemptId());
+        if (taskProfile == null) {
+            return 0;
+        }
+        long work = 0;
+        for (Long value : taskProfile.getCounters().values()) {
+            work += value;
+        }
+        return work;
+    }
+
+    /**
+     * Reconciles a completion or failure notification of a task attempt with its speculative copy, if any.
+     * On completion the other copy is aborted and the task attempt is bound to the node that completed it. The failure
+     * of one copy is ignored as long as the other one is still running. Notifications from a node that does not run
+     * the task attempt (anymore) are ignored.
+     *
+     * @param ta
+     *            - Task Attempt the notification is about
+     * @param nodeId
+     *            - Node that sent the notification
+     * @param completed
+     *            - Whether the notification reports a completion (true) or a failure (false)
+     * @return true if the notification must be processed, false if it has to be ignored
+     */
+    public boolean reconcileSpeculativeCopy(TaskAttempt ta, String nodeId, boolean completed) {
+        if (nodeId != null && ta.getNodeId() != null && !ta.isExecutedAt(nodeId)) {
+            // late notification of a copy that lost the race
+            LOGGER.fine("Ignoring notification of " + ta.getTaskAttemptId() + " from " + nodeId);
+            return false;
+        }
+        String speculativeNodeId = ta.getSpeculativeNodeId();
+        if (speculativeNodeId == null || ta.getStatus() != TaskAttempt.TaskStatus.RUNNING) {
+            return true;
+        }
+        String primaryNodeId = ta.getNodeId();
+        String survivorNodeId = ta.getSurvivingNodeId(nodeId, completed);
+        String droppedNodeId = survivorNodeId.equals(primaryNodeId) ? speculativeNodeId : primaryNodeId;
+        if (completed) {
+            NodeControllerState node = ccs.getNodeMap().get(droppedNodeId);
+            if (node != null) {
+                try {
+                    node.getNodeController().abortTasks(jobRun.getJobId(),
+                            Collections.singletonList(ta.getTaskAttemptId()));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info((completed ? "Completed " : "Failed ") + ta.getTaskAttemptId() + " at " + nodeId
+                    + ", dropping copy at " + droppedNodeId);
+        }
+        if (survivorNodeId.equals(speculativeNodeId)) {
+            promoteSpeculativeCopy(ta);
+        } else {
+            setTaskAttemptNodes(ta, primaryNodeId, null);
+        }
+        dropSpeculativeCopy(ta, droppedNodeId);
+        return completed;
+    }
+
+    /**
+     * Decides whether a partition registered by a node is published to the consumers. Only the nodes running the
+     * producing task attempt may register its partitions. The first copy of a speculatively re-executed attempt to
+     * register a partition wins the race: the other copy is aborted and its partitions are dropped.
+     *
+     * @param ta
+     *            - Task Attempt that produced the partition
+     * @param nodeId
+     *            - Node that registered the partition
+     * @return true if the partition must be registered, false if it has to be ignored
+     */
+    public boolean acceptPartition(TaskAttempt ta, String nodeId) {
+        return reconcileSpeculativeCopy(ta, nodeId, true);
+    }
+
+    /**
+     * Makes the speculative copy of a task attempt its only execution.
+     */
+    private void promoteSpeculativeCopy(TaskAttempt ta) {
+        TaskId tid = ta.getTaskAttemptId().getTaskId();
+        setTaskAttemptNodes(ta, ta.getSpeculativeNodeId(), null);
+        jobRun.registerOperatorLocation(tid.getActivityId().getOperatorDescriptorId(), tid.getPartition(),
+                ta.getNodeId());
+    }
+
+    /**
+     * Forgets the partitions produced by a task attempt at the given node, which is not one of the nodes the attempt
+     * runs on anymore.
+     */
+    private void dropSpeculativeCopy(TaskAttempt ta, String nodeId) {
+        jobRun.getPartitionMatchMaker().removeProducerPartitions(ta.getTask().getTaskCluster().getProducedPartitions(),
+                ta.getTaskAttemptId(), nodeId);
+    }
+
     private void finishJob(final JobRun run) {
         JobId jobId = run.getJobId();
         CCApplicationContext appCtx = ccs.getApplicationContext();
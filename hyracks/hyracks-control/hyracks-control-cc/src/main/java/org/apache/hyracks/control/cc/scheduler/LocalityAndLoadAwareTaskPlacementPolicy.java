@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.scheduler;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.control.cc.NodeControllerState;
+
+/**
+ * Places a task on the candidate node with the best combination of input locality and spare capacity.
+ * The locality of a node is the fraction of the task's input partitions produced on it. Its load is the number of
+ * running and just-placed tasks per processor, plus the reported system load average per processor, plus the heap
+ * usage. Ties go to the earlier candidate.
+ */
+public class LocalityAndLoadAwareTaskPlacementPolicy implements ITaskPlacementPolicy {
+    private static final double LOCALITY_WEIGHT = 2.0;
+
+    private static final double TASK_LOAD_WEIGHT = 1.0;
+
+    private static final double SYSTEM_LOAD_WEIGHT = 0.5;
+
+    private static final double HEAP_USAGE_WEIGHT = 0.5;
+
+    @Override
+    public String chooseNode(TaskId tid, List<String> candidateNodes, Map<String, NodeControllerState> nodeMap,
+            Map<String, Integer> inputPartitionCounts, Map<String, Integer> scheduledTaskCounts) {
+        int totalInputs = 0;
+        for (Integer count : inputPartitionCounts.values()) {
+            totalInputs += count;
+        }
+        String bestNode = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (String nodeId : candidateNodes) {
+            NodeControllerState state = nodeMap.get(nodeId);
+            if (state == null) {
+                continue;
+            }
+            double score = 0;
+            if (totalInputs > 0) {
+                Integer local = inputPartitionCounts.get(nodeId);
+                score += LOCALITY_WEIGHT * (local == null ? 0 : local) / totalInputs;
+            }
+            score -= load(state, scheduledTaskCounts.get(nodeId));
+            if (score > bestScore) {
+                bestScore = score;
+                bestNode = nodeId;
+            }
+        }
+        return bestNode == null ? candidateNodes.get(0) : bestNode;
+    }
+
+    private static double load(NodeControllerState state, Integer scheduledTasks) {
+        int processors = Math.max(1, state.getNProcessors());
+        int tasks = state.getRunningTaskCount() + (scheduledTasks == null ? 0 : scheduledTasks);
+        double load = TASK_LOAD_WEIGHT * tasks / processors;
+        double systemLoad = state.getLastSystemLoadAverage();
+        if (systemLoad > 0) {
+            load += SYSTEM_LOAD_WEIGHT * systemLoad / processors;
+        }
+        load += HEAP_USAGE_WEIGHT * state.getLastHeapUsage();
+        return load;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
+import org.apache.hyracks.control.cc.job.TaskAttempt;
+
+/**
+ * Finds the stragglers among the task attempts of one activity in a task cluster attempt. A running attempt is a
+ * straggler when at least half of its siblings have completed, it has been running for longer than their median
+ * duration and its expected duration exceeds that median by the given factor. The expected duration is extrapolated
+ * from the work reported by the attempts, when available, and is the elapsed time otherwise.
+ */
+public class StragglerDetector {
+    private final double slowdown;
+
+    /**
+     * @param slowdown
+     *            - Factor by which a task must be slower than its completed siblings
+     */
+    public StragglerDetector(double slowdown) {
+        this.slowdown = slowdown;
+    }
+
+    /**
+     * @param tas
+     *            - the task attempts of one activity in a task cluster attempt
+     * @param work
+     *            - the work reported so far by each task attempt, e.g. the sum of its profile counters; attempts
+     *            without a positive value are not extrapolated
+     * @param now
+     *            - the current time
+     * @return the running task attempts that should get a speculative copy, not including attempts that already
+     *         have one
+     */
+    public List<TaskAttempt> findStragglers(List<TaskAttempt> tas, Map<TaskAttemptId, Long> work, long now) {
+        List<Long> durations = new ArrayList<Long>();
+        List<Long> completedWork = new ArrayList<Long>();
+        for (TaskAttempt ta : tas) {
+            if (ta.getStatus() == TaskAttempt.TaskStatus.COMPLETED) {
+                durations.add(ta.getEndTime() - ta.getStartTime());
+                long taskWork = getWork(work, ta);
+                if (taskWork > 0) {
+                    completedWork.add(taskWork);
+                }
+            }
+        }
+        if (durations.isEmpty() || durations.size() * 2 < tas.size()) {
+            return Collections.emptyList();
+        }
+        long medianDuration = median(durations);
+        long medianWork = completedWork.isEmpty() ? 0 : median(completedWork);
+        List<TaskAttempt> stragglers = new ArrayList<TaskAttempt>();
+        for (TaskAttempt ta : tas) {
+            if (ta.getStatus() != TaskAttempt.TaskStatus.RUNNING || ta.getSpeculativeNodeId() != null) {
+                continue;
+            }
+            long elapsed = now - ta.getStartTime();
+            if (elapsed <= medianDuration) {
+                continue;
+            }
+            long taskWork = getWork(work, ta);
+            if (medianWork > 0 && taskWork > 0) {
+                long expected = (long) (elapsed * ((double) medianWork / taskWork));
+                // a copy only helps if it can finish before the straggler
+                if (expected <= slowdown * medianDuration || expected - elapsed <= medianDuration) {
+                    continue;
+                }
+            } else if (elapsed <= slowdown * medianDuration) {
+                continue;
+            }
+            stragglers.add(ta);
+        }
+        return stragglers;
+    }
+
+    private static long getWork(Map<TaskAttemptId, Long> work, TaskAttempt ta) {
+        Long value = work.get(ta.getTaskAttemptId());
+        return value == null ? 0 : value;
+    }
+
+    private static long median(List<Long> values) {
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+}
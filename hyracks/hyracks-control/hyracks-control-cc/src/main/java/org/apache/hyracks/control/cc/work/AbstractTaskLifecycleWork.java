@@ -33,8 +33,9 @@ import org.apache.hyracks.control.cc.job.Task;
 import org.apache.hyracks.control.cc.job.TaskAttempt;
 import org.apache.hyracks.control.cc.job.TaskCluster;
 import org.apache.hyracks.control.cc.job.TaskClusterAttempt;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public abstract class AbstractTaskLifecycleWork extends AbstractHeartbeatWork {
+public abstract class AbstractTaskLifecycleWork extends AbstractHeartbeatWork implements IJobScopedWork {
     protected final ClusterControllerService ccs;
     protected final JobId jobId;
     protected final TaskAttemptId taId;
@@ -48,31 +49,50 @@ public abstract class AbstractTaskLifecycleWork extends AbstractHeartbeatWork {
         this.nodeId = nodeId;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public final void runWork() {
         JobRun run = ccs.getActiveRunMap().get(jobId);
         if (run != null) {
-            TaskId tid = taId.getTaskId();
-            Map<ActivityId, ActivityCluster> activityClusterMap = run.getActivityClusterGraph().getActivityMap();
-            ActivityCluster ac = activityClusterMap.get(tid.getActivityId());
-            if (ac != null) {
-                Map<ActivityId, ActivityPlan> taskStateMap = run.getActivityClusterPlanMap().get(ac.getId())
-                        .getActivityPlanMap();
-                Task[] taskStates = taskStateMap.get(tid.getActivityId()).getTasks();
-                if (taskStates != null && taskStates.length > tid.getPartition()) {
-                    Task ts = taskStates[tid.getPartition()];
-                    TaskCluster tc = ts.getTaskCluster();
-                    List<TaskClusterAttempt> taskClusterAttempts = tc.getAttempts();
-                    if (taskClusterAttempts != null && taskClusterAttempts.size() > taId.getAttempt()) {
-                        TaskClusterAttempt tca = taskClusterAttempts.get(taId.getAttempt());
-                        TaskAttempt ta = tca.getTaskAttempts().get(tid);
-                        if (ta != null) {
-                            performEvent(ta);
-                        }
-                    }
+            TaskAttempt ta = findTaskAttempt(run, taId);
+            if (ta != null) {
+                performEvent(ta);
+            }
+        }
+    }
+
+    /**
+     * Looks up the task attempt identified by the given id in the given job run.
+     *
+     * @param run
+     *            - the job run that owns the task attempt
+     * @param taId
+     *            - the task attempt id
+     * @return the task attempt or null if it is not known to the job run
+     */
+    public static TaskAttempt findTaskAttempt(JobRun run, TaskAttemptId taId) {
+        TaskId tid = taId.getTaskId();
+        Map<ActivityId, ActivityCluster> activityClusterMap = run.getActivityClusterGraph().getActivityMap();
+        ActivityCluster ac = activityClusterMap.get(tid.getActivityId());
+        if (ac != null) {
+            Map<ActivityId, ActivityPlan> taskStateMap = run.getActivityClusterPlanMap().get(ac.getId())
+                    .getActivityPlanMap();
+            Task[] taskStates = taskStateMap.get(tid.getActivityId()).getTasks();
+            if (taskStates != null && taskStates.length > tid.getPartition()) {
+                Task ts = taskStates[tid.getPartition()];
+                TaskCluster tc = ts.getTaskCluster();
+                List<TaskClusterAttempt> taskClusterAttempts = tc.getAttempts();
+                if (taskClusterAttempts != null && taskClusterAttempts.size() > taId.getAttempt()) {
+                    TaskClusterAttempt tca = taskClusterAttempts.get(taId.getAttempt());
+                    return tca.getTaskAttempts().get(tid);
                 }
             }
         }
+        return null;
     }
 
     protected abstract void performEvent(TaskAttempt ta);
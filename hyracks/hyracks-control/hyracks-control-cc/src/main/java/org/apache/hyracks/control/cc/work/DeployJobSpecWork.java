@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.work;
+
+import java.util.EnumSet;
+
+import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.job.ActivityClusterGraph;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
+import org.apache.hyracks.api.job.IActivityClusterGraphGenerator;
+import org.apache.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
+import org.apache.hyracks.api.job.JobFlag;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.api.util.JavaSerializationUtils;
+import org.apache.hyracks.control.cc.ClusterControllerService;
+import org.apache.hyracks.control.cc.application.CCApplicationContext;
+import org.apache.hyracks.control.cc.job.DeployedJobSpec;
+import org.apache.hyracks.control.common.deployment.DeploymentUtils;
+import org.apache.hyracks.control.common.work.IResultCallback;
+import org.apache.hyracks.control.common.work.SynchronizableWork;
+
+/**
+ * Compiles a job specification once and caches the activity cluster graph, its serialized form and its scheduling
+ * constraints on the cluster controller, so that the job can later be started by id. The job id only serves to
+ * compile the graph; each run rebinds the graph to its own job id.
+ */
+public class DeployJobSpecWork extends SynchronizableWork {
+    private final ClusterControllerService ccs;
+    private final DeploymentId deploymentId;
+    private final byte[] acggfBytes;
+    private final EnumSet<JobFlag> jobFlags;
+    private final JobId jobId;
+    private final DeployedJobSpecId deployedJobSpecId;
+    private final IResultCallback<DeployedJobSpecId> callback;
+
+    public DeployJobSpecWork(ClusterControllerService ccs, DeploymentId deploymentId, byte[] acggfBytes,
+            EnumSet<JobFlag> jobFlags, JobId jobId, DeployedJobSpecId deployedJobSpecId,
+            IResultCallback<DeployedJobSpecId> callback) {
+        this.ccs = ccs;
+        this.deploymentId = deploymentId;
+        this.acggfBytes = acggfBytes;
+        this.jobFlags = jobFlags == null ? EnumSet.noneOf(JobFlag.class) : jobFlags;
+        this.jobId = jobId;
+        this.deployedJobSpecId = deployedJobSpecId;
+        this.callback = callback;
+    }
+
+    @Override
+    protected void doRun() throws Exception {
+        try {
+            final CCApplicationContext appCtx = ccs.getApplicationContext();
+            IActivityClusterGraphGeneratorFactory acggf = (IActivityClusterGraphGeneratorFactory) DeploymentUtils
+                    .deserialize(acggfBytes, deploymentId, appCtx);
+            IActivityClusterGraphGenerator acgg = acggf.createActivityClusterGraphGenerator(jobId, appCtx, jobFlags);
+            ActivityClusterGraph acg = acgg.initialize();
+            byte[] acgBytes = JavaSerializationUtils.serialize(acg);
+            ccs.getDeployedJobSpecMap().put(
+                    deployedJobSpecId,
+                    new DeployedJobSpec(deployedJobSpecId, deploymentId, acggf, jobId, acg,
+                            acgg.getConstraints(), jobFlags, acgBytes));
+            callback.setValue(deployedJobSpecId);
+        } catch (Exception e) {
+            callback.setException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName() + ": " + deployedJobSpecId;
+    }
+}
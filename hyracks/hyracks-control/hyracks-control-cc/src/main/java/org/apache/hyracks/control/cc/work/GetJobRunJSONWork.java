@@ -23,9 +23,10 @@ import org.json.JSONObject;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.job.JobRun;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 import org.apache.hyracks.control.common.work.SynchronizableWork;
 
-public class GetJobRunJSONWork extends SynchronizableWork {
+public class GetJobRunJSONWork extends SynchronizableWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
     private final JobId jobId;
     private JSONObject json;
@@ -35,6 +36,11 @@ public class GetJobRunJSONWork extends SynchronizableWork {
         this.jobId = jobId;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     protected void doRun() throws Exception {
         JobRun run = ccs.getActiveRunMap().get(jobId);
@@ -26,10 +26,11 @@ import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.dataset.IDatasetDirectoryService;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 import org.apache.hyracks.control.common.work.IResultCallback;
 import org.apache.hyracks.control.common.work.SynchronizableWork;
 
-public class GetResultPartitionLocationsWork extends SynchronizableWork {
+public class GetResultPartitionLocationsWork extends SynchronizableWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
 
     private final JobId jobId;
@@ -49,6 +50,11 @@ public class GetResultPartitionLocationsWork extends SynchronizableWork {
         this.callback = callback;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public void doRun() {
         final IDatasetDirectoryService dds = ccs.getDatasetDirectoryService();
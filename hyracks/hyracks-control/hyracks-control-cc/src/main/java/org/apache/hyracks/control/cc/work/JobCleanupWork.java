@@ -35,8 +35,9 @@ import org.apache.hyracks.control.cc.NodeControllerState;
 import org.apache.hyracks.control.cc.application.CCApplicationContext;
 import org.apache.hyracks.control.cc.job.JobRun;
 import org.apache.hyracks.control.common.work.AbstractWork;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class JobCleanupWork extends AbstractWork {
+public class JobCleanupWork extends AbstractWork implements IJobScopedWork {
     private static final Logger LOGGER = Logger.getLogger(JobCleanupWork.class.getName());
 
     private ClusterControllerService ccs;
@@ -51,6 +52,11 @@ public class JobCleanupWork extends AbstractWork {
         this.exceptions = exceptions;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public void run() {
         LOGGER.info("Cleanup for JobRun with id: " + jobId);
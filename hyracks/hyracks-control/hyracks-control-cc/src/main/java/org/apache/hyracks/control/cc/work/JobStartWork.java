@@ -20,8 +20,11 @@ package org.apache.hyracks.control.cc.work;
 
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Map;
 
 import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.IActivityClusterGraphGenerator;
 import org.apache.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
 import org.apache.hyracks.api.job.JobFlag;
@@ -29,18 +32,22 @@ import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.job.JobStatus;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.application.CCApplicationContext;
+import org.apache.hyracks.control.cc.job.DeployedJobSpec;
 import org.apache.hyracks.control.cc.job.JobRun;
 import org.apache.hyracks.control.common.deployment.DeploymentUtils;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 import org.apache.hyracks.control.common.work.IResultCallback;
 import org.apache.hyracks.control.common.work.SynchronizableWork;
 
-public class JobStartWork extends SynchronizableWork {
+public class JobStartWork extends SynchronizableWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
     private final byte[] acggfBytes;
     private final EnumSet<JobFlag> jobFlags;
     private final DeploymentId deploymentId;
     private final JobId jobId;
     private final IResultCallback<JobId> callback;
+    private final DeployedJobSpecId deployedJobSpecId;
+    private final Map<String, byte[]> jobParameters;
 
     public JobStartWork(ClusterControllerService ccs, DeploymentId deploymentId, byte[] acggfBytes,
             EnumSet<JobFlag> jobFlags, JobId jobId, IResultCallback<JobId> callback) {
@@ -50,16 +57,49 @@ public class JobStartWork extends SynchronizableWork {
         this.acggfBytes = acggfBytes;
         this.jobFlags = jobFlags;
         this.callback = callback;
+        this.deployedJobSpecId = null;
+        this.jobParameters = null;
+    }
+
+    public JobStartWork(ClusterControllerService ccs, DeployedJobSpecId deployedJobSpecId,
+            Map<String, byte[]> jobParameters, JobId jobId, IResultCallback<JobId> callback) {
+        this.deploymentId = null;
+        this.jobId = jobId;
+        this.ccs = ccs;
+        this.acggfBytes = null;
+        this.jobFlags = null;
+        this.callback = callback;
+        this.deployedJobSpecId = deployedJobSpecId;
+        this.jobParameters = jobParameters;
+    }
+
+    @Override
+    public JobId getJobId() {
+        return jobId;
     }
 
     @Override
     protected void doRun() throws Exception {
         try {
             final CCApplicationContext appCtx = ccs.getApplicationContext();
-            IActivityClusterGraphGeneratorFactory acggf = (IActivityClusterGraphGeneratorFactory) DeploymentUtils
-                    .deserialize(acggfBytes, deploymentId, appCtx);
-            IActivityClusterGraphGenerator acgg = acggf.createActivityClusterGraphGenerator(jobId, appCtx, jobFlags);
-            JobRun run = new JobRun(ccs, deploymentId, jobId, acgg, jobFlags);
+            IActivityClusterGraphGeneratorFactory acggf;
+            JobRun run;
+            if (deployedJobSpecId != null) {
+                DeployedJobSpec deployedJobSpec = ccs.getDeployedJobSpecMap().get(deployedJobSpecId);
+                if (deployedJobSpec == null) {
+                    throw new HyracksException("Unknown deployed job specification: " + deployedJobSpecId);
+                }
+                acggf = deployedJobSpec.getActivityClusterGraphGeneratorFactory();
+                IActivityClusterGraphGenerator acgg = deployedJobSpec.createActivityClusterGraphGenerator(jobId);
+                run = new JobRun(ccs, jobId, deployedJobSpec, acgg, jobParameters == null ? Collections
+                        .<String, byte[]> emptyMap() : jobParameters);
+            } else {
+                acggf = (IActivityClusterGraphGeneratorFactory) DeploymentUtils.deserialize(acggfBytes, deploymentId,
+                        appCtx);
+                IActivityClusterGraphGenerator acgg = acggf.createActivityClusterGraphGenerator(jobId, appCtx,
+                        jobFlags);
+                run = new JobRun(ccs, deploymentId, jobId, acgg, jobFlags);
+            }
             run.setStatus(JobStatus.INITIALIZED, null);
             ccs.getActiveRunMap().put(jobId, run);
             appCtx.notifyJobCreation(jobId, acggf);
@@ -28,8 +28,9 @@ import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.NodeControllerState;
 import org.apache.hyracks.control.cc.application.CCApplicationContext;
 import org.apache.hyracks.control.cc.job.JobRun;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class JobletCleanupNotificationWork extends AbstractHeartbeatWork {
+public class JobletCleanupNotificationWork extends AbstractHeartbeatWork implements IJobScopedWork {
     private static final Logger LOGGER = Logger.getLogger(JobletCleanupNotificationWork.class.getName());
 
     private ClusterControllerService ccs;
@@ -43,6 +44,11 @@ public class JobletCleanupNotificationWork extends AbstractHeartbeatWork {
         this.nodeId = nodeId;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public void runWork() {
         final JobRun run = ccs.getActiveRunMap().get(jobId);
@@ -22,16 +22,19 @@ import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.partitions.PartitionId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.job.JobRun;
+import org.apache.hyracks.control.cc.job.TaskAttempt;
 import org.apache.hyracks.control.cc.partitions.PartitionMatchMaker;
 import org.apache.hyracks.control.cc.partitions.PartitionUtils;
 import org.apache.hyracks.control.common.job.PartitionDescriptor;
 import org.apache.hyracks.control.common.job.PartitionRequest;
 import org.apache.hyracks.control.common.work.AbstractWork;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class RegisterPartitionAvailibilityWork extends AbstractWork {
+public class RegisterPartitionAvailibilityWork extends AbstractWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
     private final PartitionDescriptor partitionDescriptor;
 
@@ -40,6 +43,11 @@ public class RegisterPartitionAvailibilityWork extends AbstractWork {
         this.partitionDescriptor = partitionDescriptor;
     }
 
+    @Override
+    public JobId getJobId() {
+        return partitionDescriptor.getPartitionId().getJobId();
+    }
+
     @Override
     public void run() {
         final PartitionId pid = partitionDescriptor.getPartitionId();
@@ -47,6 +55,12 @@ public class RegisterPartitionAvailibilityWork extends AbstractWork {
         if (run == null) {
             return;
         }
+        TaskAttempt ta = AbstractTaskLifecycleWork.findTaskAttempt(run,
+                partitionDescriptor.getProducingTaskAttemptId());
+        if (ta != null && !run.getScheduler().acceptPartition(ta, partitionDescriptor.getNodeId())) {
+            // the partition of a speculative copy that lost the race
+            return;
+        }
         PartitionMatchMaker pmm = run.getPartitionMatchMaker();
         List<Pair<PartitionDescriptor, PartitionRequest>> matches = pmm
                 .registerPartitionDescriptor(partitionDescriptor);
@@ -20,6 +20,7 @@ package org.apache.hyracks.control.cc.work;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.partitions.PartitionId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.job.JobRun;
@@ -28,8 +29,9 @@ import org.apache.hyracks.control.cc.partitions.PartitionUtils;
 import org.apache.hyracks.control.common.job.PartitionDescriptor;
 import org.apache.hyracks.control.common.job.PartitionRequest;
 import org.apache.hyracks.control.common.work.AbstractWork;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class RegisterPartitionRequestWork extends AbstractWork {
+public class RegisterPartitionRequestWork extends AbstractWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
     private final PartitionRequest partitionRequest;
 
@@ -38,6 +40,11 @@ public class RegisterPartitionRequestWork extends AbstractWork {
         this.partitionRequest = partitionRequest;
     }
 
+    @Override
+    public JobId getJobId() {
+        return partitionRequest.getPartitionId().getJobId();
+    }
+
     @Override
     public void run() {
         PartitionId pid = partitionRequest.getPartitionId();
@@ -23,8 +23,9 @@ import org.apache.hyracks.api.dataset.ResultSetId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.common.work.AbstractWork;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class RegisterResultPartitionLocationWork extends AbstractWork {
+public class RegisterResultPartitionLocationWork extends AbstractWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
 
     private final JobId jobId;
@@ -53,6 +54,11 @@ public class RegisterResultPartitionLocationWork extends AbstractWork {
         this.networkAddress = networkAddress;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public void run() {
         ccs.getDatasetDirectoryService().registerResultPartitionLocation(jobId, rsId, orderedResult, emptyResult,
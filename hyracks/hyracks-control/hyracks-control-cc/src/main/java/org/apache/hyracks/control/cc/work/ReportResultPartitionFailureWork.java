@@ -22,8 +22,9 @@ import org.apache.hyracks.api.dataset.ResultSetId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.common.work.AbstractWork;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class ReportResultPartitionFailureWork extends AbstractWork {
+public class ReportResultPartitionFailureWork extends AbstractWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
 
     private final JobId jobId;
@@ -39,6 +40,11 @@ public class ReportResultPartitionFailureWork extends AbstractWork {
         this.partition = partition;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public void run() {
         ccs.getDatasetDirectoryService().reportResultPartitionFailure(jobId, rsId, partition);
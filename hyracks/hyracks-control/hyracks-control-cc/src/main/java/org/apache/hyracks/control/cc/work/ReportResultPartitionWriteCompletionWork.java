@@ -22,8 +22,9 @@ import org.apache.hyracks.api.dataset.ResultSetId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.common.work.AbstractWork;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 
-public class ReportResultPartitionWriteCompletionWork extends AbstractWork {
+public class ReportResultPartitionWriteCompletionWork extends AbstractWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
 
     private final JobId jobId;
@@ -40,6 +41,11 @@ public class ReportResultPartitionWriteCompletionWork extends AbstractWork {
         this.partition = partition;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public void run() {
         ccs.getDatasetDirectoryService().reportResultPartitionWriteCompletion(jobId, rsId, partition);
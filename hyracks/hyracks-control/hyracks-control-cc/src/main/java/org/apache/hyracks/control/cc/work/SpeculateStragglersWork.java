@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.work;
+
+import java.util.ArrayList;
+import java.util.logging.Level;
+
+import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.control.cc.ClusterControllerService;
+import org.apache.hyracks.control.cc.job.JobRun;
+import org.apache.hyracks.control.common.work.AbstractWork;
+
+/**
+ * Periodically looks for straggling tasks in the active jobs and starts speculative copies of them on other nodes.
+ */
+public class SpeculateStragglersWork extends AbstractWork {
+    private final ClusterControllerService ccs;
+
+    private final double slowdown;
+
+    public SpeculateStragglersWork(ClusterControllerService ccs, double slowdown) {
+        this.ccs = ccs;
+        this.slowdown = slowdown;
+    }
+
+    @Override
+    public void run() {
+        for (JobRun run : new ArrayList<JobRun>(ccs.getActiveRunMap().values())) {
+            try {
+                run.getScheduler().speculateStragglers(slowdown);
+            } catch (HyracksException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public Level logLevel() {
+        return Level.FINEST;
+    }
+}
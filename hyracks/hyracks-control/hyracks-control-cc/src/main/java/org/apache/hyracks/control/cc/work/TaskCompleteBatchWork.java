@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.work;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
+import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.control.cc.ClusterControllerService;
+import org.apache.hyracks.control.cc.job.JobRun;
+import org.apache.hyracks.control.cc.job.TaskAttempt;
+import org.apache.hyracks.control.common.job.PartitionDescriptor;
+import org.apache.hyracks.control.common.job.profiling.om.TaskProfile;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
+
+/**
+ * Processes the partition availability and task completion notifications of one job contained in a batch sent by one
+ * node controller. Partitions are registered first, then the completed tasks are handed to the job's scheduler at once
+ * so that the job state is updated (and newly runnable task clusters are started) only once per batch.
+ */
+public class TaskCompleteBatchWork extends AbstractHeartbeatWork implements IJobScopedWork {
+    private final ClusterControllerService ccs;
+    private final String nodeId;
+    private final JobId jobId;
+    private final List<TaskProfile> taskCompletions;
+    private final List<PartitionDescriptor> partitionDescriptors;
+
+    public TaskCompleteBatchWork(ClusterControllerService ccs, String nodeId, JobId jobId,
+            List<TaskProfile> taskCompletions, List<PartitionDescriptor> partitionDescriptors) {
+        super(ccs, nodeId, null);
+        this.ccs = ccs;
+        this.nodeId = nodeId;
+        this.jobId = jobId;
+        this.taskCompletions = taskCompletions;
+        this.partitionDescriptors = partitionDescriptors;
+    }
+
+    /**
+     * Splits a batch of notifications received from a node controller into one work item per job.
+     */
+    public static List<TaskCompleteBatchWork> createWorks(ClusterControllerService ccs, String nodeId,
+            Map<JobId, List<TaskProfile>> taskCompletions, List<PartitionDescriptor> partitionDescriptors) {
+        Map<JobId, List<PartitionDescriptor>> jobPartitionDescriptors = new LinkedHashMap<JobId, List<PartitionDescriptor>>();
+        for (PartitionDescriptor pd : partitionDescriptors) {
+            JobId jobId = pd.getPartitionId().getJobId();
+            List<PartitionDescriptor> pds = jobPartitionDescriptors.get(jobId);
+            if (pds == null) {
+                pds = new ArrayList<PartitionDescriptor>();
+                jobPartitionDescriptors.put(jobId, pds);
+            }
+            pds.add(pd);
+        }
+        List<TaskCompleteBatchWork> works = new ArrayList<TaskCompleteBatchWork>();
+        for (Map.Entry<JobId, List<PartitionDescriptor>> e : jobPartitionDescriptors.entrySet()) {
+            List<TaskProfile> completions = taskCompletions.get(e.getKey());
+            works.add(new TaskCompleteBatchWork(ccs, nodeId, e.getKey(), completions == null ? Collections
+                    .<TaskProfile> emptyList() : completions, e.getValue()));
+        }
+        for (Map.Entry<JobId, List<TaskProfile>> e : taskCompletions.entrySet()) {
+            if (!jobPartitionDescriptors.containsKey(e.getKey())) {
+                works.add(new TaskCompleteBatchWork(ccs, nodeId, e.getKey(), e.getValue(), Collections
+                        .<PartitionDescriptor> emptyList()));
+            }
+        }
+        return works;
+    }
+
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public void runWork() {
+        for (PartitionDescriptor pd : partitionDescriptors) {
+            new RegisterPartitionAvailibilityWork(ccs, pd).run();
+        }
+        JobRun run = ccs.getActiveRunMap().get(jobId);
+        if (run == null) {
+            return;
+        }
+        List<TaskAttempt> tas = new ArrayList<TaskAttempt>(taskCompletions.size());
+        for (TaskProfile statistics : taskCompletions) {
+            TaskAttemptId taId = statistics.getTaskId();
+            TaskAttempt ta = AbstractTaskLifecycleWork.findTaskAttempt(run, taId);
+            if (ta != null && run.getScheduler().reconcileSpeculativeCopy(ta, nodeId, true)) {
+                run.addTaskProfile(nodeId, taId, statistics);
+                tas.add(ta);
+            }
+        }
+        try {
+            run.getScheduler().notifyTasksComplete(tas);
+        } catch (HyracksException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName() + ": [" + nodeId + "[" + jobId + ": " + partitionDescriptors.size() + " partitions, "
+                + taskCompletions.size() + " tasks]";
+    }
+}
@@ -18,16 +18,12 @@
  */
 package org.apache.hyracks.control.cc.work;
 
-import java.util.Map;
-
 import org.apache.hyracks.api.dataflow.TaskAttemptId;
 import org.apache.hyracks.api.exceptions.HyracksException;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.job.JobRun;
 import org.apache.hyracks.control.cc.job.TaskAttempt;
-import org.apache.hyracks.control.common.job.profiling.om.JobProfile;
-import org.apache.hyracks.control.common.job.profiling.om.JobletProfile;
 import org.apache.hyracks.control.common.job.profiling.om.TaskProfile;
 
 public class TaskCompleteWork extends AbstractTaskLifecycleWork {
@@ -43,15 +39,11 @@ public class TaskCompleteWork extends AbstractTaskLifecycleWork {
     protected void performEvent(TaskAttempt ta) {
         try {
             JobRun run = ccs.getActiveRunMap().get(jobId);
+            if (!run.getScheduler().reconcileSpeculativeCopy(ta, nodeId, true)) {
+                return;
+            }
             if (statistics != null) {
-                JobProfile jobProfile = run.getJobProfile();
-                Map<String, JobletProfile> jobletProfiles = jobProfile.getJobletProfiles();
-                JobletProfile jobletProfile = jobletProfiles.get(nodeId);
-                if (jobletProfile == null) {
-                    jobletProfile = new JobletProfile(nodeId);
-                    jobletProfiles.put(nodeId, jobletProfile);
-                }
-                jobletProfile.getTaskProfiles().put(taId, statistics);
+                run.addTaskProfile(nodeId, taId, statistics);
             }
             run.getScheduler().notifyTaskComplete(ta);
         } catch (HyracksException e) {
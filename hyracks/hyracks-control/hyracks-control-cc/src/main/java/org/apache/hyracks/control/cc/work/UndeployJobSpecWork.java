@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.work;
+
+import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
+import org.apache.hyracks.control.cc.ClusterControllerService;
+import org.apache.hyracks.control.cc.NodeControllerState;
+import org.apache.hyracks.control.cc.job.DeployedJobSpec;
+import org.apache.hyracks.control.common.work.IResultCallback;
+import org.apache.hyracks.control.common.work.SynchronizableWork;
+
+/**
+ * Removes a deployed job specification from the cluster controller and tells the node controllers that cached its
+ * activity cluster graph to drop it. Jobs already started from it are not affected.
+ */
+public class UndeployJobSpecWork extends SynchronizableWork {
+    private final ClusterControllerService ccs;
+    private final DeployedJobSpecId deployedJobSpecId;
+    private final IResultCallback<DeployedJobSpecId> callback;
+
+    public UndeployJobSpecWork(ClusterControllerService ccs, DeployedJobSpecId deployedJobSpecId,
+            IResultCallback<DeployedJobSpecId> callback) {
+        this.ccs = ccs;
+        this.deployedJobSpecId = deployedJobSpecId;
+        this.callback = callback;
+    }
+
+    @Override
+    protected void doRun() throws Exception {
+        try {
+            DeployedJobSpec deployedJobSpec = ccs.getDeployedJobSpecMap().remove(deployedJobSpecId);
+            if (deployedJobSpec == null) {
+                throw new HyracksException("Unknown deployed job specification: " + deployedJobSpecId);
+            }
+            for (NodeControllerState ncs : ccs.getNodeMap().values()) {
+                if (ncs.getCachedDeployedJobSpecIds().remove(deployedJobSpecId)) {
+                    ncs.getNodeController().undeployJobSpec(deployedJobSpecId);
+                }
+            }
+            callback.setValue(deployedJobSpecId);
+        } catch (Exception e) {
+            callback.setException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName() + ": " + deployedJobSpecId;
+    }
+}
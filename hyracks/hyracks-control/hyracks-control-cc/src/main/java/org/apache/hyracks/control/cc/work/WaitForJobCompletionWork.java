@@ -23,10 +23,11 @@ import java.util.List;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.control.cc.ClusterControllerService;
 import org.apache.hyracks.control.cc.job.IJobStatusConditionVariable;
+import org.apache.hyracks.control.common.work.IJobScopedWork;
 import org.apache.hyracks.control.common.work.IResultCallback;
 import org.apache.hyracks.control.common.work.SynchronizableWork;
 
-public class WaitForJobCompletionWork extends SynchronizableWork {
+public class WaitForJobCompletionWork extends SynchronizableWork implements IJobScopedWork {
     private final ClusterControllerService ccs;
     private final JobId jobId;
     private final IResultCallback<Object> callback;
@@ -37,6 +38,11 @@ public class WaitForJobCompletionWork extends SynchronizableWork {
         this.callback = callback;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     protected void doRun() throws Exception {
         final IJobStatusConditionVariable cRunningVar = ccs.getActiveRunMap().get(jobId);
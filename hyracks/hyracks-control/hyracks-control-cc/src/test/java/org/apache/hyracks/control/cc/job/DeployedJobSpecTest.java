@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.job;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.constraints.Constraint;
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.ConnectorDescriptorId;
+import org.apache.hyracks.api.dataflow.OperatorDescriptorId;
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.api.dataflow.connectors.IConnectorPolicy;
+import org.apache.hyracks.api.job.ActivityCluster;
+import org.apache.hyracks.api.job.ActivityClusterGraph;
+import org.apache.hyracks.api.job.ActivityClusterId;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
+import org.apache.hyracks.api.job.JobFlag;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.api.partitions.PartitionId;
+import org.apache.hyracks.api.util.JavaSerializationUtils;
+import org.apache.hyracks.control.cc.scheduler.ActivityPartitionDetails;
+
+public class DeployedJobSpecTest {
+    private static final JobId COMPILE_JOB_ID = new JobId(7);
+
+    @Test
+    public void testEachRunGetsItsOwnGraph() throws Exception {
+        DeployedJobSpec spec = createDeployedJobSpec();
+        ActivityClusterGraph acg1 = spec.createActivityClusterGraphGenerator(new JobId(100)).initialize();
+        ActivityClusterGraph acg2 = spec.createActivityClusterGraphGenerator(new JobId(101)).initialize();
+        Assert.assertNotSame(acg1, acg2);
+        Assert.assertEquals(2, acg1.getActivityClusterMap().size());
+        Assert.assertEquals(2, acg2.getActivityClusterMap().size());
+        acg1.setFrameSize(1024);
+        Assert.assertEquals(4096, acg2.getFrameSize());
+    }
+
+    @Test
+    public void testGraphIsBoundToTheRunJobId() throws Exception {
+        DeployedJobSpec spec = createDeployedJobSpec();
+        JobId runJobId = new JobId(100);
+        ActivityClusterGraph acg = spec.createActivityClusterGraphGenerator(runJobId).initialize();
+        for (int i = 0; i < 2; ++i) {
+            ActivityClusterId acid = new ActivityClusterId(runJobId, i);
+            ActivityCluster ac = acg.getActivityClusterMap().get(acid);
+            Assert.assertNotNull(ac);
+            Assert.assertEquals(acid, ac.getId());
+            Assert.assertSame(acg, ac.getActivityClusterGraph());
+        }
+        Assert.assertNull(acg.getActivityClusterMap().get(new ActivityClusterId(COMPILE_JOB_ID, 0)));
+    }
+
+    @Test
+    public void testPlansAreCopiedForLaterRuns() throws Exception {
+        DeployedJobSpec spec = createDeployedJobSpec();
+        JobId firstJobId = new JobId(100);
+        ActivityClusterGraph firstAcg = spec.createActivityClusterGraphGenerator(firstJobId).initialize();
+        ActivityCluster firstAc0 = firstAcg.getActivityClusterMap().get(new ActivityClusterId(firstJobId, 0));
+        ActivityCluster firstAc1 = firstAcg.getActivityClusterMap().get(new ActivityClusterId(firstJobId, 1));
+        Map<ActivityClusterId, ActivityClusterPlan> firstPlans = new HashMap<ActivityClusterId, ActivityClusterPlan>();
+        Map<ConnectorDescriptorId, IConnectorPolicy> firstPolicies;
+        firstPolicies = new HashMap<ConnectorDescriptorId, IConnectorPolicy>();
+        Assert.assertNull(spec.copyActivityClusterPlan(firstAc0, firstPlans, firstPolicies));
+
+        // The first run plans both activity clusters; the task cluster of the second one depends on the first and
+        // produces a partition.
+        ActivityClusterPlan plan0 = createPlan(firstAc0, 0);
+        firstPlans.put(firstAc0.getId(), plan0);
+        spec.addActivityClusterPlan(firstAc0, plan0, firstPolicies);
+        ActivityClusterPlan plan1 = createPlan(firstAc1, 1);
+        TaskCluster tc0 = plan0.getTaskClusters()[0];
+        TaskCluster tc1 = plan1.getTaskClusters()[0];
+        tc1.getProducedPartitions().add(new PartitionId(firstJobId, new ConnectorDescriptorId(0), 0, 0));
+        tc1.getDependencyTaskClusters().add(tc0);
+        tc0.getDependentTaskClusters().add(tc1);
+        firstPlans.put(firstAc1.getId(), plan1);
+        spec.addActivityClusterPlan(firstAc1, plan1, firstPolicies);
+        // Scheduling state of the first run is not carried over.
+        tc1.getAttempts().add(null);
+
+        JobId runJobId = new JobId(101);
+        ActivityClusterGraph acg = spec.createActivityClusterGraphGenerator(runJobId).initialize();
+        Map<ActivityClusterId, ActivityClusterPlan> plans = new HashMap<ActivityClusterId, ActivityClusterPlan>();
+        Map<ConnectorDescriptorId, IConnectorPolicy> policies = new HashMap<ConnectorDescriptorId, IConnectorPolicy>();
+        ActivityCluster ac0 = acg.getActivityClusterMap().get(new ActivityClusterId(runJobId, 0));
+        ActivityCluster ac1 = acg.getActivityClusterMap().get(new ActivityClusterId(runJobId, 1));
+        ActivityClusterPlan copy0 = spec.copyActivityClusterPlan(ac0, plans, policies);
+        plans.put(ac0.getId(), copy0);
+        ActivityClusterPlan copy1 = spec.copyActivityClusterPlan(ac1, plans, policies);
+        plans.put(ac1.getId(), copy1);
+
+        TaskCluster runTc0 = copy0.getTaskClusters()[0];
+        TaskCluster runTc1 = copy1.getTaskClusters()[0];
+        Assert.assertNotSame(tc1, runTc1);
+        Assert.assertSame(ac1, runTc1.getActivityCluster());
+        Assert.assertEquals(new TaskClusterId(ac1.getId(), 0), runTc1.getTaskClusterId());
+        Assert.assertTrue(runTc1.getAttempts().isEmpty());
+        PartitionId runPid = new PartitionId(runJobId, new ConnectorDescriptorId(0), 0, 0);
+        Assert.assertEquals(Collections.singleton(runPid), runTc1.getProducedPartitions());
+        Assert.assertEquals(Collections.singleton(runTc0), runTc1.getDependencyTaskClusters());
+        Assert.assertEquals(Collections.singleton(runTc1), runTc0.getDependentTaskClusters());
+        Task task = copy1.getActivityPlanMap().get(activity(1)).getTasks()[1];
+        Assert.assertSame(runTc1, task.getTaskCluster());
+        Assert.assertEquals(new TaskId(activity(1), 1), task.getTaskId());
+    }
+
+    /**
+     * Creates a plan with one activity of two partitions whose tasks form a single task cluster.
+     */
+    private static ActivityClusterPlan createPlan(ActivityCluster ac, int activity) {
+        ActivityPlan activityPlan = new ActivityPlan(new ActivityPartitionDetails(2, null, null));
+        Task[] tasks = new Task[2];
+        for (int i = 0; i < tasks.length; ++i) {
+            tasks[i] = new Task(new TaskId(activity(activity), i), activityPlan);
+        }
+        activityPlan.setTasks(tasks);
+        TaskCluster tc = new TaskCluster(new TaskClusterId(ac.getId(), 0), ac, tasks);
+        for (Task task : tasks) {
+            task.setTaskCluster(tc);
+        }
+        Map<ActivityId, ActivityPlan> activityPlanMap = new HashMap<ActivityId, ActivityPlan>();
+        activityPlanMap.put(activity(activity), activityPlan);
+        return new ActivityClusterPlan(new TaskCluster[] { tc }, activityPlanMap);
+    }
+
+    private static ActivityId activity(int activity) {
+        return new ActivityId(new OperatorDescriptorId(activity), 0);
+    }
+
+    private static DeployedJobSpec createDeployedJobSpec() throws Exception {
+        ActivityClusterGraph acg = new ActivityClusterGraph();
+        acg.setFrameSize(4096);
+        acg.addActivityClusters(Arrays.asList(new ActivityCluster(acg, new ActivityClusterId(COMPILE_JOB_ID, 0)),
+                new ActivityCluster(acg, new ActivityClusterId(COMPILE_JOB_ID, 1))));
+        return new DeployedJobSpec(new DeployedJobSpecId(1), null, null, COMPILE_JOB_ID, acg,
+                Collections.<Constraint> emptySet(), EnumSet.noneOf(JobFlag.class),
+                JavaSerializationUtils.serialize(acg));
+    }
+}
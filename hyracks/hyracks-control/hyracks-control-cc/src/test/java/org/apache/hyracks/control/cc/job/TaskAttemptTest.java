@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.job;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.OperatorDescriptorId;
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
+import org.apache.hyracks.api.dataflow.TaskId;
+
+public class TaskAttemptTest {
+    @Test
+    public void testWithoutCopyTheBoundNodeSurvives() {
+        TaskAttempt ta = create(null);
+        Assert.assertTrue(ta.isExecutedAt("nc1"));
+        Assert.assertFalse(ta.isExecutedAt("nc2"));
+        Assert.assertEquals("nc1", ta.getSurvivingNodeId("nc1", true));
+        Assert.assertEquals("nc1", ta.getSurvivingNodeId("nc1", false));
+    }
+
+    @Test
+    public void testFirstCopyToSucceedWins() {
+        TaskAttempt ta = create("nc2");
+        Assert.assertTrue(ta.isExecutedAt("nc1"));
+        Assert.assertTrue(ta.isExecutedAt("nc2"));
+        Assert.assertFalse(ta.isExecutedAt("nc3"));
+        Assert.assertEquals("nc2", ta.getSurvivingNodeId("nc2", true));
+        Assert.assertEquals("nc1", ta.getSurvivingNodeId("nc1", true));
+    }
+
+    @Test
+    public void testFailedCopyLeavesTheOther() {
+        TaskAttempt ta = create("nc2");
+        Assert.assertEquals("nc1", ta.getSurvivingNodeId("nc2", false));
+        Assert.assertEquals("nc2", ta.getSurvivingNodeId("nc1", false));
+    }
+
+    @Test
+    public void testLoserIsNotExecutedAfterTheRace() {
+        TaskAttempt ta = create("nc2");
+        // what the scheduler does once the copy won
+        ta.setNodeId(ta.getSurvivingNodeId("nc2", true));
+        ta.setSpeculativeNodeId(null);
+        Assert.assertFalse(ta.isExecutedAt("nc1"));
+        Assert.assertTrue(ta.isExecutedAt("nc2"));
+        Assert.assertEquals("nc2", ta.getSurvivingNodeId("nc2", true));
+    }
+
+    @Test
+    public void testCopyOfAFinishedAttemptIsIgnored() {
+        TaskAttempt ta = create("nc2");
+        ta.setStatus(TaskAttempt.TaskStatus.COMPLETED, null);
+        Assert.assertEquals("nc1", ta.getSurvivingNodeId("nc2", true));
+    }
+
+    private static TaskAttempt create(String speculativeNodeId) {
+        TaskId tid = new TaskId(new ActivityId(new OperatorDescriptorId(0), 0), 0);
+        TaskAttempt ta = new TaskAttempt(null, new TaskAttemptId(tid, 0), null);
+        ta.setNodeId("nc1");
+        ta.setSpeculativeNodeId(speculativeNodeId);
+        ta.setStatus(TaskAttempt.TaskStatus.RUNNING, null);
+        return ta;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.scheduler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.OperatorDescriptorId;
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.control.cc.NodeControllerState;
+import org.apache.hyracks.control.common.controllers.NCConfig;
+import org.apache.hyracks.control.common.controllers.NodeRegistration;
+import org.apache.hyracks.control.common.heartbeat.HeartbeatData;
+import org.apache.hyracks.control.common.heartbeat.HeartbeatSchema;
+
+public class LocalityAndLoadAwareTaskPlacementPolicyTest {
+    private static final TaskId TASK_ID = new TaskId(new ActivityId(new OperatorDescriptorId(0), 0), 0);
+
+    private static final List<String> CANDIDATES = Arrays.asList("nc1", "nc2", "nc3");
+
+    private final ITaskPlacementPolicy policy = new LocalityAndLoadAwareTaskPlacementPolicy();
+
+    private final Map<String, NodeControllerState> nodeMap = new HashMap<String, NodeControllerState>();
+
+    @Test
+    public void testTieGoesToFirstCandidate() {
+        addNodes(4);
+        Assert.assertEquals("nc1", choose(noCounts(), noCounts()));
+    }
+
+    @Test
+    public void testPrefersNodeProducingMostInputs() {
+        addNodes(4);
+        Map<String, Integer> inputs = new HashMap<String, Integer>();
+        inputs.put("nc1", 1);
+        inputs.put("nc3", 3);
+        Assert.assertEquals("nc3", choose(inputs, noCounts()));
+    }
+
+    @Test
+    public void testAvoidsNodesRunningMoreTasks() {
+        addNodes(4);
+        running("nc1", 4);
+        running("nc2", 2);
+        running("nc3", 3);
+        Assert.assertEquals("nc2", choose(noCounts(), noCounts()));
+    }
+
+    @Test
+    public void testCountsTasksPlacedInTheSameRound() {
+        addNodes(4);
+        Map<String, Integer> scheduled = new HashMap<String, Integer>();
+        scheduled.put("nc1", 2);
+        scheduled.put("nc2", 1);
+        Assert.assertEquals("nc3", choose(noCounts(), scheduled));
+    }
+
+    @Test
+    public void testSpreadsTasksOverRounds() {
+        addNodes(1);
+        Map<String, Integer> scheduled = new HashMap<String, Integer>();
+        for (int i = 0; i < 9; ++i) {
+            String nodeId = choose(noCounts(), scheduled);
+            Integer count = scheduled.get(nodeId);
+            scheduled.put(nodeId, count == null ? 1 : count + 1);
+        }
+        for (String nodeId : CANDIDATES) {
+            Assert.assertEquals(Integer.valueOf(3), scheduled.get(nodeId));
+        }
+    }
+
+    @Test
+    public void testLoadIsRelativeToProcessors() {
+        addNode("nc1", 16);
+        addNode("nc2", 2);
+        addNode("nc3", 2);
+        running("nc1", 8);
+        running("nc2", 2);
+        running("nc3", 2);
+        Assert.assertEquals("nc1", choose(noCounts(), noCounts()));
+    }
+
+    @Test
+    public void testOverloadedLocalNodeIsAvoided() {
+        addNodes(1);
+        running("nc1", 6);
+        Map<String, Integer> inputs = new HashMap<String, Integer>();
+        inputs.put("nc1", 4);
+        Assert.assertEquals("nc2", choose(inputs, noCounts()));
+    }
+
+    @Test
+    public void testLocalityOutweighsSmallLoadDifference() {
+        addNodes(4);
+        running("nc2", 1);
+        Map<String, Integer> inputs = new HashMap<String, Integer>();
+        inputs.put("nc2", 4);
+        Assert.assertEquals("nc2", choose(inputs, noCounts()));
+    }
+
+    @Test
+    public void testReportedSystemLoadAndHeapUsage() {
+        addNodes(2);
+        heartbeat("nc1", 4.0, 0.1);
+        heartbeat("nc2", 0.5, 0.9);
+        heartbeat("nc3", 0.5, 0.2);
+        Assert.assertEquals("nc3", choose(noCounts(), noCounts()));
+    }
+
+    @Test
+    public void testOnlyCandidatesAreChosen() {
+        addNodes(4);
+        running("nc1", 4);
+        running("nc2", 4);
+        Assert.assertEquals("nc2",
+                policy.chooseNode(TASK_ID, Collections.singletonList("nc2"), nodeMap, noCounts(), noCounts()));
+    }
+
+    private String choose(Map<String, Integer> inputPartitionCounts, Map<String, Integer> scheduledTaskCounts) {
+        return policy.chooseNode(TASK_ID, CANDIDATES, nodeMap, inputPartitionCounts, scheduledTaskCounts);
+    }
+
+    private static Map<String, Integer> noCounts() {
+        return Collections.emptyMap();
+    }
+
+    private void addNodes(int nProcessors) {
+        for (String nodeId : CANDIDATES) {
+            addNode(nodeId, nProcessors);
+        }
+    }
+
+    private void addNode(String nodeId, int nProcessors) {
+        NCConfig ncConfig = new NCConfig();
+        ncConfig.nodeId = nodeId;
+        NodeRegistration reg = new NodeRegistration(null, nodeId, ncConfig, null, null, "os", "arch", "1",
+                nProcessors, "vm", "1", "vendor", "", "", "", Collections.<String> emptyList(),
+                Collections.<String, String> emptyMap(), new HeartbeatSchema(
+                        new HeartbeatSchema.GarbageCollectorInfo[0]));
+        nodeMap.put(nodeId, new NodeControllerState(null, reg));
+    }
+
+    private void running(String nodeId, int nTasks) {
+        for (int i = 0; i < nTasks; ++i) {
+            nodeMap.get(nodeId).incrementRunningTaskCount();
+        }
+    }
+
+    private void heartbeat(String nodeId, double systemLoadAverage, double heapUsage) {
+        HeartbeatData hbData = new HeartbeatData();
+        hbData.systemLoadAverage = systemLoadAverage;
+        hbData.heapMaxSize = 1000;
+        hbData.heapUsedSize = (long) (heapUsage * 1000);
+        hbData.gcCollectionCounts = new long[0];
+        hbData.gcCollectionTimes = new long[0];
+        nodeMap.get(nodeId).notifyHeartbeat(hbData);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.cc.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.OperatorDescriptorId;
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.control.cc.job.TaskAttempt;
+
+public class StragglerDetectorTest {
+    private static final long NOW = 100000;
+
+    private final StragglerDetector detector = new StragglerDetector(2.0);
+
+    private final List<TaskAttempt> tas = new ArrayList<TaskAttempt>();
+
+    private final Map<TaskAttemptId, Long> work = new HashMap<TaskAttemptId, Long>();
+
+    @Test
+    public void testSlowTaskIsAStraggler() {
+        completed(1000);
+        completed(1100);
+        completed(1200);
+        TaskAttempt slow = running(5000);
+        running(500);
+        Assert.assertEquals(Collections.singletonList(slow), detector.findStragglers(tas, work, NOW));
+    }
+
+    @Test
+    public void testNoStragglersBeforeHalfOfTheSiblingsCompleted() {
+        completed(1000);
+        running(5000);
+        running(5000);
+        Assert.assertTrue(detector.findStragglers(tas, work, NOW).isEmpty());
+        completed(1000);
+        Assert.assertEquals(2, detector.findStragglers(tas, work, NOW).size());
+    }
+
+    @Test
+    public void testTaskWithinSlowdownIsNoStraggler() {
+        completed(1000);
+        completed(1000);
+        running(1900);
+        Assert.assertTrue(detector.findStragglers(tas, work, NOW).isEmpty());
+    }
+
+    @Test
+    public void testTaskWithACopyIsNoStraggler() {
+        completed(1000);
+        completed(1000);
+        TaskAttempt slow = running(5000);
+        slow.setSpeculativeNodeId("nc2");
+        Assert.assertTrue(detector.findStragglers(tas, work, NOW).isEmpty());
+    }
+
+    @Test
+    public void testSlowTaskAboutToFinishIsNoStraggler() {
+        // it has done 90% of the work of its siblings and will finish before a copy could
+        work.put(completed(1000).getTaskAttemptId(), 100L);
+        work.put(completed(1000).getTaskAttemptId(), 100L);
+        work.put(running(5000).getTaskAttemptId(), 90L);
+        Assert.assertTrue(detector.findStragglers(tas, work, NOW).isEmpty());
+    }
+
+    @Test
+    public void testTaskWithLittleProgressIsAStraggler() {
+        work.put(completed(1000).getTaskAttemptId(), 100L);
+        work.put(completed(1000).getTaskAttemptId(), 100L);
+        TaskAttempt slow = running(1500);
+        work.put(slow.getTaskAttemptId(), 10L);
+        // only 1.5 times the median so far, but expected to take 15 times as long
+        Assert.assertEquals(Collections.singletonList(slow), detector.findStragglers(tas, work, NOW));
+    }
+
+    private TaskAttempt completed(long duration) {
+        TaskAttempt ta = create(TaskAttempt.TaskStatus.COMPLETED);
+        ta.setStartTime(NOW - 10000);
+        ta.setEndTime(NOW - 10000 + duration);
+        return ta;
+    }
+
+    private TaskAttempt running(long elapsed) {
+        TaskAttempt ta = create(TaskAttempt.TaskStatus.RUNNING);
+        ta.setStartTime(NOW - elapsed);
+        return ta;
+    }
+
+    private TaskAttempt create(TaskAttempt.TaskStatus status) {
+        TaskId tid = new TaskId(new ActivityId(new OperatorDescriptorId(0), 0), tas.size());
+        TaskAttempt ta = new TaskAttempt(null, new TaskAttemptId(tid, 0), null);
+        ta.setNodeId("nc1");
+        ta.setStatus(status, null);
+        tas.add(ta);
+        return ta;
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.hyracks.control.common.base;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hyracks.api.comm.NetworkAddress;
 import org.apache.hyracks.api.dataflow.TaskAttemptId;
@@ -41,6 +42,9 @@ public interface IClusterController {
     public void notifyTaskComplete(JobId jobId, TaskAttemptId taskId, String nodeId, TaskProfile statistics)
             throws Exception;
 
+    public void notifyTaskCompleteBatch(String nodeId, Map<JobId, List<TaskProfile>> taskCompletions,
+            List<PartitionDescriptor> partitionDescriptors) throws Exception;
+
     public void notifyTaskFailure(JobId jobId, TaskAttemptId taskId, String nodeId, List<Exception> exceptions)
             throws Exception;
 
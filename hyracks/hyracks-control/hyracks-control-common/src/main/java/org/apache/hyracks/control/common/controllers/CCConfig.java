@@ -62,6 +62,18 @@ public class CCConfig {
     @Option(name = "-result-sweep-threshold", usage = "The duration within which an instance of the result cleanup should be invoked in milliseconds. (default: 1 minute)")
     public long resultSweepThreshold = 60000;
 
+    @Option(name = "-job-work-threads", usage = "Sets the number of threads that process work items of individual jobs. Work items of the same job are processed in order; cluster-wide work is always processed exclusively. 0 processes all work on a single thread. (default: 0)")
+    public int jobWorkThreads = 0;
+
+    @Option(name = "-task-placement-policy", required = false, usage = "Sets the class (implementing org.apache.hyracks.control.cc.scheduler.ITaskPlacementPolicy) that places tasks whose location is not fixed by constraints, e.g. org.apache.hyracks.control.cc.scheduler.LocalityAndLoadAwareTaskPlacementPolicy. (default: null, places such tasks randomly)")
+    public String taskPlacementPolicyClass = null;
+
+    @Option(name = "-task-speculation-period", usage = "Sets the period in milliseconds at which running tasks are checked for stragglers that are speculatively re-executed on another node. Only tasks whose inputs and outputs are materialized are re-executed. 0 disables speculative execution. (default: 0)")
+    public int taskSpeculationPeriod = 0;
+
+    @Option(name = "-task-speculation-slowdown", usage = "Sets how many times slower than the median of its completed sibling tasks a task is expected to be before it is speculatively re-executed. (default: 1.5)")
+    public double taskSpeculationSlowdown = 1.5;
+
     @Option(name = "-cc-root", usage = "Sets the root folder used for file operations. (default: ClusterControllerService)")
     public String ccRoot = "ClusterControllerService";
 
@@ -100,12 +112,22 @@ public class CCConfig {
         cList.add(String.valueOf(resultTTL));
         cList.add("-result-sweep-threshold");
         cList.add(String.valueOf(resultSweepThreshold));
+        cList.add("-job-work-threads");
+        cList.add(String.valueOf(jobWorkThreads));
+        cList.add("-task-speculation-period");
+        cList.add(String.valueOf(taskSpeculationPeriod));
+        cList.add("-task-speculation-slowdown");
+        cList.add(String.valueOf(taskSpeculationSlowdown));
         cList.add("-cc-root");
         cList.add(ccRoot);
         if (clusterTopologyDefinition != null) {
             cList.add("-cluster-topology");
             cList.add(clusterTopologyDefinition.getAbsolutePath());
         }
+        if (taskPlacementPolicyClass != null) {
+            cList.add("-task-placement-policy");
+            cList.add(taskPlacementPolicyClass);
+        }
         if (appCCMainClass != null) {
             cList.add("-app-cc-main-class");
             cList.add(appCCMainClass);
@@ -95,6 +95,9 @@ public class NCConfig implements Serializable {
     @Option(name = "-result-manager-memory", usage = "Memory usable for result caching at this Node Controller in bytes (default: -1 auto)")
     public int resultManagerMemory = -1;
 
+    @Option(name = "-task-notification-batch-window", usage = "Time in milliseconds during which task completion and partition availability notifications are coalesced before being sent to the Cluster Controller; 0 disables batching (default: 0)")
+    public int taskNotificationBatchWindow = 0;
+
     @Option(name = "-app-nc-main-class", usage = "Application NC Main Class")
     public String appNCMainClass;
 
@@ -147,6 +150,8 @@ public class NCConfig implements Serializable {
         cList.add(String.valueOf(resultSweepThreshold));
         cList.add("-result-manager-memory");
         cList.add(String.valueOf(resultManagerMemory));
+        cList.add("-task-notification-batch-window");
+        cList.add(String.valueOf(taskNotificationBatchWindow));
 
         if (appNCMainClass != null) {
             cList.add("-app-nc-main-class");
@@ -183,6 +188,7 @@ public class NCConfig implements Serializable {
         configuration.put("result-time-to-live", String.valueOf(resultTTL));
         configuration.put("result-sweep-threshold", String.valueOf(resultSweepThreshold));
         configuration.put("result-manager-memory", String.valueOf(resultManagerMemory));
+        configuration.put("task-notification-batch-window", String.valueOf(taskNotificationBatchWindow));
 
         if (appNCMainClass != null) {
             configuration.put("app-nc-main-class", appNCMainClass);
@@ -47,6 +47,7 @@ import org.apache.hyracks.api.dataflow.connectors.ConnectorPolicyFactory;
 import org.apache.hyracks.api.dataflow.connectors.IConnectorPolicy;
 import org.apache.hyracks.api.dataset.ResultSetId;
 import org.apache.hyracks.api.deployment.DeploymentId;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobFlag;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.job.JobStatus;
@@ -74,6 +75,7 @@ public class CCNCFunctions {
         UNREGISTER_NODE,
         NOTIFY_JOBLET_CLEANUP,
         NOTIFY_TASK_COMPLETE,
+        NOTIFY_TASK_COMPLETE_BATCH,
         NOTIFY_TASK_FAILURE,
         NODE_HEARTBEAT,
         REPORT_PROFILE,
@@ -95,6 +97,7 @@ public class CCNCFunctions {
         DEPLOY_BINARY,
         NOTIFY_DEPLOY_BINARY,
         UNDEPLOY_BINARY,
+        UNDEPLOY_JOB_SPEC,
         SHUTDOWN_REQUEST,
         SHUTDOWN_RESPONSE,
 
@@ -240,6 +243,80 @@ public class CCNCFunctions {
         }
     }
 
+    public static class NotifyTaskCompleteBatchFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final String nodeId;
+        private final Map<JobId, List<TaskProfile>> taskCompletions;
+        private final List<PartitionDescriptor> partitionDescriptors;
+
+        public NotifyTaskCompleteBatchFunction(String nodeId, Map<JobId, List<TaskProfile>> taskCompletions,
+                List<PartitionDescriptor> partitionDescriptors) {
+            this.nodeId = nodeId;
+            this.taskCompletions = taskCompletions;
+            this.partitionDescriptors = partitionDescriptors;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.NOTIFY_TASK_COMPLETE_BATCH;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public Map<JobId, List<TaskProfile>> getTaskCompletions() {
+            return taskCompletions;
+        }
+
+        public List<PartitionDescriptor> getPartitionDescriptors() {
+            return partitionDescriptors;
+        }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            String nodeId = dis.readUTF();
+            int nPartitions = dis.readInt();
+            List<PartitionDescriptor> partitionDescriptors = new ArrayList<PartitionDescriptor>(nPartitions);
+            for (int i = 0; i < nPartitions; ++i) {
+                partitionDescriptors.add(readPartitionDescriptor(dis));
+            }
+            int nJobs = dis.readInt();
+            Map<JobId, List<TaskProfile>> taskCompletions = new HashMap<JobId, List<TaskProfile>>();
+            for (int i = 0; i < nJobs; ++i) {
+                JobId jobId = JobId.create(dis);
+                int nTasks = dis.readInt();
+                List<TaskProfile> taskProfiles = new ArrayList<TaskProfile>(nTasks);
+                for (int j = 0; j < nTasks; ++j) {
+                    taskProfiles.add(TaskProfile.create(dis));
+                }
+                taskCompletions.put(jobId, taskProfiles);
+            }
+            return new NotifyTaskCompleteBatchFunction(nodeId, taskCompletions, partitionDescriptors);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            NotifyTaskCompleteBatchFunction fn = (NotifyTaskCompleteBatchFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(fn.nodeId);
+            dos.writeInt(fn.partitionDescriptors.size());
+            for (PartitionDescriptor pd : fn.partitionDescriptors) {
+                writePartitionDescriptor(dos, pd);
+            }
+            dos.writeInt(fn.taskCompletions.size());
+            for (Entry<JobId, List<TaskProfile>> e : fn.taskCompletions.entrySet()) {
+                e.getKey().writeFields(dos);
+                dos.writeInt(e.getValue().size());
+                for (TaskProfile taskProfile : e.getValue()) {
+                    taskProfile.writeFields(dos);
+                }
+            }
+        }
+    }
+
     public static class NotifyTaskFailureFunction extends Function {
         private static final long serialVersionUID = 1L;
 
@@ -408,23 +485,7 @@ public class CCNCFunctions {
             ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
             DataInputStream dis = new DataInputStream(bais);
 
-            // Read PartitionId
-            PartitionId pid = readPartitionId(dis);
-
-            // Read nodeId
-            String nodeId = dis.readUTF();
-
-            // Read TaskAttemptId
-            TaskAttemptId taId = readTaskAttemptId(dis);
-
-            // Read reusable flag
-            boolean reusable = dis.readBoolean();
-
-            // Read Partition State
-            PartitionState state = readPartitionState(dis);
-
-            PartitionDescriptor pd = new PartitionDescriptor(pid, nodeId, taId, reusable);
-            pd.setState(state);
+            PartitionDescriptor pd = readPartitionDescriptor(dis);
             return new RegisterPartitionProviderFunction(pd);
         }
 
@@ -433,22 +494,7 @@ public class CCNCFunctions {
 
             DataOutputStream dos = new DataOutputStream(out);
 
-            PartitionDescriptor pd = fn.getPartitionDescriptor();
-
-            // Write PartitionId
-            writePartitionId(dos, pd.getPartitionId());
-
-            // Write nodeId
-            dos.writeUTF(pd.getNodeId());
-
-            // Write TaskAttemptId
-            writeTaskAttemptId(dos, pd.getProducingTaskAttemptId());
-
-            // Write reusable flag
-            dos.writeBoolean(pd.isReusable());
-
-            // Write Partition State
-            writePartitionState(dos, pd.getState());
+            writePartitionDescriptor(dos, fn.getPartitionDescriptor());
         }
     }
 
@@ -674,16 +720,21 @@ public class CCNCFunctions {
         private final List<TaskAttemptDescriptor> taskDescriptors;
         private final Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies;
         private final EnumSet<JobFlag> flags;
+        private final DeployedJobSpecId deployedJobSpecId;
+        private final Map<String, byte[]> jobParameters;
 
         public StartTasksFunction(DeploymentId deploymentId, JobId jobId, byte[] planBytes,
                 List<TaskAttemptDescriptor> taskDescriptors,
-                Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies, EnumSet<JobFlag> flags) {
+                Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies, EnumSet<JobFlag> flags,
+                DeployedJobSpecId deployedJobSpecId, Map<String, byte[]> jobParameters) {
             this.deploymentId = deploymentId;
             this.jobId = jobId;
             this.planBytes = planBytes;
             this.taskDescriptors = taskDescriptors;
             this.connectorPolicies = connectorPolicies;
             this.flags = flags;
+            this.deployedJobSpecId = deployedJobSpecId;
+            this.jobParameters = jobParameters;
         }
 
         @Override
@@ -715,6 +766,14 @@ public class CCNCFunctions {
             return flags;
         }
 
+        public DeployedJobSpecId getDeployedJobSpecId() {
+            return deployedJobSpecId;
+        }
+
+        public Map<String, byte[]> getJobParameters() {
+            return jobParameters;
+        }
+
         public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
             ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
             DataInputStream dis = new DataInputStream(bais);
@@ -759,7 +818,24 @@ public class CCNCFunctions {
                 flags.add(JobFlag.values()[(dis.readInt())]);
             }
 
-            return new StartTasksFunction(deploymentId, jobId, planBytes, taskDescriptors, connectorPolicies, flags);
+            // read deployed job spec id
+            DeployedJobSpecId deployedJobSpecId = null;
+            if (dis.readBoolean()) {
+                deployedJobSpecId = DeployedJobSpecId.create(dis);
+            }
+
+            // read job parameters
+            int paramSize = dis.readInt();
+            Map<String, byte[]> jobParameters = new HashMap<String, byte[]>();
+            for (int i = 0; i < paramSize; i++) {
+                String name = dis.readUTF();
+                byte[] value = new byte[dis.readInt()];
+                dis.readFully(value);
+                jobParameters.put(name, value);
+            }
+
+            return new StartTasksFunction(deploymentId, jobId, planBytes, taskDescriptors, connectorPolicies, flags,
+                    deployedJobSpecId, jobParameters);
         }
 
         public static void serialize(OutputStream out, Object object) throws Exception {
@@ -797,6 +873,22 @@ public class CCNCFunctions {
             for (JobFlag flag : fn.flags) {
                 dos.writeInt(flag.ordinal());
             }
+
+            //write deployed job spec id
+            dos.writeBoolean(fn.deployedJobSpecId != null);
+            if (fn.deployedJobSpecId != null) {
+                fn.deployedJobSpecId.writeFields(dos);
+            }
+
+            //write job parameters
+            dos.writeInt(fn.jobParameters == null ? 0 : fn.jobParameters.size());
+            if (fn.jobParameters != null) {
+                for (Entry<String, byte[]> entry : fn.jobParameters.entrySet()) {
+                    dos.writeUTF(entry.getKey());
+                    dos.writeInt(entry.getValue().length);
+                    dos.write(entry.getValue());
+                }
+            }
         }
     }
 
@@ -989,6 +1081,25 @@ public class CCNCFunctions {
         }
     }
 
+    public static class UndeployJobSpecFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final DeployedJobSpecId deployedJobSpecId;
+
+        public UndeployJobSpecFunction(DeployedJobSpecId deployedJobSpecId) {
+            this.deployedJobSpecId = deployedJobSpecId;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.UNDEPLOY_JOB_SPEC;
+        }
+
+        public DeployedJobSpecId getDeployedJobSpecId() {
+            return deployedJobSpecId;
+        }
+    }
+
     public static class RequestShutdownFunction extends Function {
         private static final long serialVersionUID = 1L;
 
@@ -1213,6 +1324,10 @@ public class CCNCFunctions {
                     NotifyTaskCompleteFunction.serialize(out, object);
                     return;
 
+                case NOTIFY_TASK_COMPLETE_BATCH:
+                    NotifyTaskCompleteBatchFunction.serialize(out, object);
+                    return;
+
                 case NOTIFY_JOBLET_CLEANUP:
                     NotifyJobletCleanupFunction.serialize(out, object);
                     return;
@@ -1243,6 +1358,9 @@ public class CCNCFunctions {
                 case NOTIFY_TASK_COMPLETE:
                     return NotifyTaskCompleteFunction.deserialize(buffer, length);
 
+                case NOTIFY_TASK_COMPLETE_BATCH:
+                    return NotifyTaskCompleteBatchFunction.deserialize(buffer, length);
+
                 case NOTIFY_JOBLET_CLEANUP:
                     return NotifyJobletCleanupFunction.deserialize(buffer, length);
 
@@ -1299,6 +1417,44 @@ public class CCNCFunctions {
         dos.writeInt(state.ordinal());
     }
 
+    private static PartitionDescriptor readPartitionDescriptor(DataInputStream dis) throws IOException {
+        // Read PartitionId
+        PartitionId pid = readPartitionId(dis);
+
+        // Read nodeId
+        String nodeId = dis.readUTF();
+
+        // Read TaskAttemptId
+        TaskAttemptId taId = readTaskAttemptId(dis);
+
+        // Read reusable flag
+        boolean reusable = dis.readBoolean();
+
+        // Read Partition State
+        PartitionState state = readPartitionState(dis);
+
+        PartitionDescriptor pd = new PartitionDescriptor(pid, nodeId, taId, reusable);
+        pd.setState(state);
+        return pd;
+    }
+
+    private static void writePartitionDescriptor(DataOutputStream dos, PartitionDescriptor pd) throws IOException {
+        // Write PartitionId
+        writePartitionId(dos, pd.getPartitionId());
+
+        // Write nodeId
+        dos.writeUTF(pd.getNodeId());
+
+        // Write TaskAttemptId
+        writeTaskAttemptId(dos, pd.getProducingTaskAttemptId());
+
+        // Write reusable flag
+        dos.writeBoolean(pd.isReusable());
+
+        // Write Partition State
+        writePartitionState(dos, pd.getState());
+    }
+
     private static NetworkAddress readNetworkAddress(DataInputStream dis) throws IOException {
         String address = dis.readUTF();
         int port = dis.readInt();
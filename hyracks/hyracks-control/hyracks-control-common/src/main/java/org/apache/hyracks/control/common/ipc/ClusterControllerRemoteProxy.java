@@ -19,6 +19,7 @@
 package org.apache.hyracks.control.common.ipc;
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hyracks.api.comm.NetworkAddress;
 import org.apache.hyracks.api.dataflow.TaskAttemptId;
@@ -62,6 +63,14 @@ public class ClusterControllerRemoteProxy implements IClusterController {
         ipcHandle.send(-1, fn, null);
     }
 
+    @Override
+    public void notifyTaskCompleteBatch(String nodeId, Map<JobId, List<TaskProfile>> taskCompletions,
+            List<PartitionDescriptor> partitionDescriptors) throws Exception {
+        CCNCFunctions.NotifyTaskCompleteBatchFunction fn = new CCNCFunctions.NotifyTaskCompleteBatchFunction(nodeId,
+                taskCompletions, partitionDescriptors);
+        ipcHandle.send(-1, fn, null);
+    }
+
     @Override
     public void notifyTaskFailure(JobId jobId, TaskAttemptId taskId, String nodeId, List<Exception> exceptions)
             throws Exception {
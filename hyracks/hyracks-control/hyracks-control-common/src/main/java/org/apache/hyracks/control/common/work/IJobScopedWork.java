@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.common.work;
+
+import org.apache.hyracks.api.job.JobId;
+
+/**
+ * Marks a work item that only touches the state of a single job.
+ * A {@link ShardedWorkQueue} executes such work items on the shard owning the job, in submission order with respect
+ * to the other work items of the same job, and concurrently with work items of other jobs.
+ */
+public interface IJobScopedWork {
+    /**
+     * @return the id of the job the work item belongs to, or null if the work item is not bound to a job and has to
+     *         be executed exclusively.
+     */
+    public JobId getJobId();
+}
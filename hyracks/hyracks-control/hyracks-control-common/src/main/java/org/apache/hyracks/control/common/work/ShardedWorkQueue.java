@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.common.work;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.api.job.JobId;
+
+/**
+ * A work queue that executes {@link IJobScopedWork}s on a fixed number of shard threads selected by the job id, and
+ * all other work on the single worker thread of {@link WorkQueue}.
+ * Work items of the same job are executed in the order they were scheduled. Work items that are not scoped to a job
+ * are executed exclusively, i.e. no job-scoped work runs at the same time, so they can safely access the state of
+ * all jobs.
+ */
+public class ShardedWorkQueue extends WorkQueue {
+    private static final Logger LOGGER = Logger.getLogger(ShardedWorkQueue.class.getName());
+
+    private static final AbstractWork STOP_WORK = new AbstractWork() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final ReadWriteLock lock;
+
+    private final ShardThread[] shards;
+
+    public ShardedWorkQueue(int threadPriority, int nShards) {
+        super(threadPriority);
+        if (nShards <= 0) {
+            throw new IllegalArgumentException("Number of shards must be positive: " + nShards);
+        }
+        lock = new ReentrantReadWriteLock();
+        shards = new ShardThread[nShards];
+        for (int i = 0; i < nShards; ++i) {
+            shards[i] = new ShardThread(i, threadPriority);
+        }
+    }
+
+    @Override
+    public void start() throws HyracksException {
+        super.start();
+        for (ShardThread shard : shards) {
+            shard.start();
+        }
+    }
+
+    @Override
+    public void stop() throws HyracksException {
+        for (ShardThread shard : shards) {
+            shard.queue.offer(STOP_WORK);
+        }
+        try {
+            for (ShardThread shard : shards) {
+                shard.join();
+            }
+        } catch (InterruptedException e) {
+            throw new HyracksException(e);
+        }
+        super.stop();
+    }
+
+    @Override
+    public void schedule(AbstractWork work) {
+        if (work instanceof IJobScopedWork) {
+            JobId jobId = ((IJobScopedWork) work).getJobId();
+            if (jobId != null) {
+                if (LOGGER.isLoggable(Level.FINER)) {
+                    LOGGER.finer("Scheduling: " + work + " on shard of " + jobId);
+                }
+                shards[(jobId.hashCode() & Integer.MAX_VALUE) % shards.length].queue.offer(work);
+                return;
+            }
+        }
+        super.schedule(new ExclusiveWork(work));
+    }
+
+    private class ExclusiveWork extends AbstractWork {
+        private final AbstractWork work;
+
+        ExclusiveWork(AbstractWork work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            lock.writeLock().lock();
+            try {
+                work.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Level logLevel() {
+            return work.logLevel();
+        }
+
+        @Override
+        public String toString() {
+            return work.toString();
+        }
+    }
+
+    private class ShardThread extends Thread {
+        private final LinkedBlockingQueue<AbstractWork> queue;
+
+        ShardThread(int shard, int threadPriority) {
+            super("JobWorkShard-" + shard);
+            queue = new LinkedBlockingQueue<AbstractWork>();
+            setDaemon(true);
+            setPriority(threadPriority);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                AbstractWork r;
+                try {
+                    r = queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (r == STOP_WORK) {
+                    return;
+                }
+                lock.readLock().lock();
+                try {
+                    if (LOGGER.isLoggable(r.logLevel())) {
+                        LOGGER.log(r.logLevel(), "Executing: " + r);
+                    }
+                    r.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        }
+    }
+}
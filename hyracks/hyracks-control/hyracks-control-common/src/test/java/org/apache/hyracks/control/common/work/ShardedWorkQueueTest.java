@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.common.work;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.job.JobId;
+
+public class ShardedWorkQueueTest {
+    private static final int N_SHARDS = 4;
+
+    private ShardedWorkQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        queue = new ShardedWorkQueue(Thread.NORM_PRIORITY, N_SHARDS);
+        queue.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.stop();
+    }
+
+    @Test
+    public void testWorkOfAJobRunsInScheduleOrder() throws Exception {
+        int nJobs = 2 * N_SHARDS;
+        int nWorks = 200;
+        List<List<Integer>> executed = new ArrayList<List<Integer>>();
+        for (int j = 0; j < nJobs; ++j) {
+            executed.add(Collections.synchronizedList(new ArrayList<Integer>()));
+        }
+        for (int i = 0; i < nWorks; ++i) {
+            for (int j = 0; j < nJobs; ++j) {
+                queue.schedule(new RecordingWork(new JobId(j), executed.get(j), i));
+            }
+        }
+        for (int j = 0; j < nJobs; ++j) {
+            queue.scheduleAndSync(new JobSyncWork(new JobId(j)));
+        }
+        for (int j = 0; j < nJobs; ++j) {
+            List<Integer> list = executed.get(j);
+            Assert.assertEquals(nWorks, list.size());
+            for (int i = 0; i < nWorks; ++i) {
+                Assert.assertEquals(Integer.valueOf(i), list.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testJobsOnDifferentShardsRunConcurrently() throws Exception {
+        // job 0 waits for a signal that only job 1 can give, so this only completes if both run at the same time
+        final CountDownLatch signal = new CountDownLatch(1);
+        final AtomicBoolean released = new AtomicBoolean();
+        JobSyncWork waiter = new JobSyncWork(new JobId(0)) {
+            @Override
+            protected void doRun() throws Exception {
+                released.set(signal.await(10, TimeUnit.SECONDS));
+            }
+        };
+        queue.schedule(waiter);
+        queue.scheduleAndSync(new JobSyncWork(new JobId(1)) {
+            @Override
+            protected void doRun() throws Exception {
+                signal.countDown();
+            }
+        });
+        waiter.sync();
+        Assert.assertTrue(released.get());
+    }
+
+    @Test
+    public void testExclusiveWorkIsIsolatedFromJobWork() throws Exception {
+        final AtomicInteger runningJobWork = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        int nJobs = 2 * N_SHARDS;
+        for (int i = 0; i < 20; ++i) {
+            for (int j = 0; j < nJobs; ++j) {
+                queue.schedule(new JobSyncWork(new JobId(j)) {
+                    @Override
+                    protected void doRun() throws Exception {
+                        runningJobWork.incrementAndGet();
+                        Thread.sleep(1);
+                        runningJobWork.decrementAndGet();
+                    }
+                });
+            }
+            queue.schedule(new AbstractWork() {
+                @Override
+                public void run() {
+                    if (runningJobWork.get() != 0) {
+                        overlaps.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (int j = 0; j < nJobs; ++j) {
+            queue.scheduleAndSync(new JobSyncWork(new JobId(j)));
+        }
+        queue.scheduleAndSync(new SynchronizableWork() {
+            @Override
+            protected void doRun() throws Exception {
+            }
+        });
+        Assert.assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    public void testWorkWithoutJobIdRunsExclusively() throws Exception {
+        final AtomicBoolean exclusive = new AtomicBoolean();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        JobSyncWork blocker = new JobSyncWork(new JobId(0)) {
+            @Override
+            protected void doRun() throws Exception {
+                started.countDown();
+                finish.await(10, TimeUnit.SECONDS);
+            }
+        };
+        queue.schedule(blocker);
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        JobSyncWork unscoped = new JobSyncWork(null) {
+            @Override
+            protected void doRun() throws Exception {
+                exclusive.set(finish.getCount() == 0);
+            }
+        };
+        queue.schedule(unscoped);
+        Thread.sleep(50);
+        finish.countDown();
+        unscoped.sync();
+        blocker.sync();
+        Assert.assertTrue(exclusive.get());
+    }
+
+    private static class RecordingWork extends AbstractWork implements IJobScopedWork {
+        private final JobId jobId;
+        private final List<Integer> executed;
+        private final int seq;
+
+        RecordingWork(JobId jobId, List<Integer> executed, int seq) {
+            this.jobId = jobId;
+            this.executed = executed;
+            this.seq = seq;
+        }
+
+        @Override
+        public JobId getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public void run() {
+            executed.add(seq);
+        }
+    }
+
+    private static class JobSyncWork extends SynchronizableWork implements IJobScopedWork {
+        private final JobId jobId;
+
+        JobSyncWork(JobId jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public JobId getJobId() {
+            return jobId;
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+        }
+    }
+}
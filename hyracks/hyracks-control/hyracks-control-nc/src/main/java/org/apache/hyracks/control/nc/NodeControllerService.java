@@ -50,6 +50,7 @@ import org.apache.hyracks.api.context.IHyracksRootContext;
 import org.apache.hyracks.api.dataset.IDatasetPartitionManager;
 import org.apache.hyracks.api.deployment.DeploymentId;
 import org.apache.hyracks.api.io.IODeviceHandle;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.lifecycle.ILifeCycleComponentManager;
 import org.apache.hyracks.api.lifecycle.LifeCycleComponentManager;
@@ -87,6 +88,7 @@ import org.apache.hyracks.control.nc.work.ShutdownWork;
 import org.apache.hyracks.control.nc.work.StartTasksWork;
 import org.apache.hyracks.control.nc.work.StateDumpWork;
 import org.apache.hyracks.control.nc.work.UnDeployBinaryWork;
+import org.apache.hyracks.control.nc.work.UndeployJobSpecWork;
 import org.apache.hyracks.ipc.api.IIPCHandle;
 import org.apache.hyracks.ipc.api.IIPCI;
 import org.apache.hyracks.ipc.api.IPCPerformanceCounters;
@@ -126,12 +128,19 @@ public class NodeControllerService extends AbstractRemoteService {
 
     private final Map<JobId, Joblet> jobletMap;
 
+    private final Map<DeployedJobSpecId, byte[]> deployedJobSpecActivityClusterGraphMap;
+
     private ExecutorService executor;
 
     private NodeParameters nodeParameters;
 
     private HeartbeatTask heartbeatTask;
 
+    private TaskNotificationBatcher taskNotificationBatcher;
+
+    // Sends the batched task notifications, so that a slow batch does not delay the heartbeats of the main timer.
+    private Timer taskNotificationTimer;
+
     private final ServerContext serverCtx;
 
     private NCApplicationContext appCtx;
@@ -176,6 +185,7 @@ public class NodeControllerService extends AbstractRemoteService {
         lccm = new LifeCycleComponentManager();
         queue = new WorkQueue(Thread.NORM_PRIORITY); // Reserves MAX_PRIORITY of the heartbeat thread.
         jobletMap = new Hashtable<JobId, Joblet>();
+        deployedJobSpecActivityClusterGraphMap = new Hashtable<DeployedJobSpecId, byte[]>();
         timer = new Timer(true);
         serverCtx = new ServerContext(ServerContext.ServerType.NODE_CONTROLLER, new File(new File(
                 NodeControllerService.class.getName()), id));
@@ -262,6 +272,7 @@ public class NodeControllerService extends AbstractRemoteService {
         datasetNetworkManager.start();
         IIPCHandle ccIPCHandle = ipc.getHandle(new InetSocketAddress(ncConfig.ccHost, ncConfig.ccPort), -1);
         this.ccs = new ClusterControllerRemoteProxy(ccIPCHandle);
+        taskNotificationBatcher = new TaskNotificationBatcher(id, ccs, ncConfig.taskNotificationBatchWindow);
         HeartbeatSchema.GarbageCollectorInfo[] gcInfos = new HeartbeatSchema.GarbageCollectorInfo[gcMXBeans.size()];
         for (int i = 0; i < gcInfos.length; ++i) {
             gcInfos[i] = new HeartbeatSchema.GarbageCollectorInfo(gcMXBeans.get(i).getName());
@@ -301,6 +312,13 @@ public class NodeControllerService extends AbstractRemoteService {
         // Schedule heartbeat generator.
         timer.schedule(heartbeatTask, 0, nodeParameters.getHeartbeatPeriod());
 
+        if (taskNotificationBatcher.isBatching()) {
+            // Schedule flushing of batched task notifications.
+            taskNotificationTimer = new Timer("Task notification batcher", true);
+            taskNotificationTimer.schedule(taskNotificationBatcher, ncConfig.taskNotificationBatchWindow,
+                    ncConfig.taskNotificationBatchWindow);
+        }
+
         if (nodeParameters.getProfileDumpPeriod() > 0) {
             // Schedule profile dump generator.
             timer.schedule(new ProfileDumpTask(ccs), 0, nodeParameters.getProfileDumpPeriod());
@@ -336,6 +354,10 @@ public class NodeControllerService extends AbstractRemoteService {
             partitionManager.close();
             datasetPartitionManager.close();
             heartbeatTask.cancel();
+            taskNotificationBatcher.cancel();
+            if (taskNotificationTimer != null) {
+                taskNotificationTimer.cancel();
+            }
             netManager.stop();
             datasetNetworkManager.stop();
             queue.stop();
@@ -358,6 +380,14 @@ public class NodeControllerService extends AbstractRemoteService {
         return jobletMap;
     }
 
+    /**
+     * @return the serialized activity cluster graphs of the deployed job specifications shipped to this node; each
+     *         joblet deserializes its own copy
+     */
+    public Map<DeployedJobSpecId, byte[]> getDeployedJobSpecActivityClusterGraphMap() {
+        return deployedJobSpecActivityClusterGraphMap;
+    }
+
     public NetworkManager getNetworkManager() {
         return netManager;
     }
@@ -374,6 +404,10 @@ public class NodeControllerService extends AbstractRemoteService {
         return ccs;
     }
 
+    public TaskNotificationBatcher getTaskNotificationBatcher() {
+        return taskNotificationBatcher;
+    }
+
     public NodeParameters getNodeParameters() {
         return nodeParameters;
     }
@@ -493,7 +527,7 @@ public class NodeControllerService extends AbstractRemoteService {
                     CCNCFunctions.StartTasksFunction stf = (CCNCFunctions.StartTasksFunction) fn;
                     queue.schedule(new StartTasksWork(NodeControllerService.this, stf.getDeploymentId(),
                             stf.getJobId(), stf.getPlanBytes(), stf.getTaskDescriptors(), stf.getConnectorPolicies(),
-                            stf.getFlags()));
+                            stf.getFlags(), stf.getDeployedJobSpecId(), stf.getJobParameters()));
                     return;
                 }
 
@@ -541,6 +575,12 @@ public class NodeControllerService extends AbstractRemoteService {
                     return;
                 }
 
+                case UNDEPLOY_JOB_SPEC: {
+                    CCNCFunctions.UndeployJobSpecFunction ujsf = (CCNCFunctions.UndeployJobSpecFunction) fn;
+                    queue.schedule(new UndeployJobSpecWork(NodeControllerService.this, ujsf.getDeployedJobSpecId()));
+                    return;
+                }
+
                 case STATE_DUMP_REQUEST: {
                     final CCNCFunctions.StateDumpRequestFunction dsrf = (StateDumpRequestFunction) fn;
                     queue.schedule(new StateDumpWork(NodeControllerService.this, dsrf.getStateDumpId()));
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.nc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.control.common.base.IClusterController;
+import org.apache.hyracks.control.common.job.PartitionDescriptor;
+import org.apache.hyracks.control.common.job.profiling.om.TaskProfile;
+
+/**
+ * Coalesces the task completion and partition availability notifications of a node controller so that they reach the
+ * cluster controller as a single message per batch window instead of one message per event.
+ * The batch is flushed before any notification that is sent directly (task failures, joblet cleanup) to preserve the
+ * original ordering. Batches are sent outside the lock that guards the pending notifications, so tasks reporting
+ * their completion do not wait for the cluster controller, and they are sent in the order they were taken.
+ * A non-positive batch window disables batching and forwards every notification immediately.
+ */
+public class TaskNotificationBatcher extends TimerTask {
+    private static final Logger LOGGER = Logger.getLogger(TaskNotificationBatcher.class.getName());
+
+    private final String nodeId;
+
+    private final IClusterController ccs;
+
+    private final boolean batching;
+
+    // Serializes the sending of batches and direct notifications; taken before the monitor of this batcher.
+    private final Object sendLock = new Object();
+
+    private Map<JobId, List<TaskProfile>> taskCompletions;
+
+    private List<PartitionDescriptor> partitionDescriptors;
+
+    public TaskNotificationBatcher(String nodeId, IClusterController ccs, int batchWindow) {
+        this.nodeId = nodeId;
+        this.ccs = ccs;
+        batching = batchWindow > 0;
+        taskCompletions = new HashMap<JobId, List<TaskProfile>>();
+        partitionDescriptors = new ArrayList<PartitionDescriptor>();
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    public synchronized void notifyTaskComplete(JobId jobId, TaskAttemptId taId, TaskProfile statistics)
+            throws Exception {
+        if (!batching) {
+            ccs.notifyTaskComplete(jobId, taId, nodeId, statistics);
+            return;
+        }
+        List<TaskProfile> profiles = taskCompletions.get(jobId);
+        if (profiles == null) {
+            profiles = new ArrayList<TaskProfile>();
+            taskCompletions.put(jobId, profiles);
+        }
+        profiles.add(statistics);
+    }
+
+    public synchronized void registerPartitionProvider(PartitionDescriptor partitionDescriptor) throws Exception {
+        if (!batching) {
+            ccs.registerPartitionProvider(partitionDescriptor);
+            return;
+        }
+        partitionDescriptors.add(partitionDescriptor);
+    }
+
+    /**
+     * Sends the pending notifications and then the failure, so that the cluster controller sees the completions that
+     * happened before the failure first.
+     */
+    public void notifyTaskFailure(JobId jobId, TaskAttemptId taId, List<Exception> exceptions) throws Exception {
+        synchronized (sendLock) {
+            flush();
+            ccs.notifyTaskFailure(jobId, taId, nodeId, exceptions);
+        }
+    }
+
+    /**
+     * Sends all pending notifications to the cluster controller.
+     */
+    public void flush() throws Exception {
+        synchronized (sendLock) {
+            Map<JobId, List<TaskProfile>> completions;
+            List<PartitionDescriptor> descriptors;
+            synchronized (this) {
+                if (taskCompletions.isEmpty() && partitionDescriptors.isEmpty()) {
+                    return;
+                }
+                completions = taskCompletions;
+                descriptors = partitionDescriptors;
+                taskCompletions = new HashMap<JobId, List<TaskProfile>>();
+                partitionDescriptors = new ArrayList<PartitionDescriptor>();
+            }
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Sending batch of " + descriptors.size() + " partition(s) and task completions for "
+                        + completions.size() + " job(s)");
+            }
+            ccs.notifyTaskCompleteBatch(nodeId, completions, descriptors);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to send batched task notifications", e);
+        }
+    }
+}
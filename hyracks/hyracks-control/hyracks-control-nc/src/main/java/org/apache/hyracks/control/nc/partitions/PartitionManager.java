@@ -147,7 +147,7 @@ public class PartitionManager {
         PartitionDescriptor desc = new PartitionDescriptor(pid, ncs.getId(), taId, partition.isReusable());
         desc.setState(state);
         try {
-            ncs.getClusterController().registerPartitionProvider(desc);
+            ncs.getTaskNotificationBatcher().registerPartitionProvider(desc);
         } catch (Exception e) {
             throw new HyracksDataException(e);
         }
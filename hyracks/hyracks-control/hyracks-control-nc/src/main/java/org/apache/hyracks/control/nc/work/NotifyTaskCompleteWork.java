@@ -37,8 +37,8 @@ public class NotifyTaskCompleteWork extends AbstractWork {
         TaskProfile taskProfile = new TaskProfile(task.getTaskAttemptId(), task.getPartitionSendProfile());
         task.dumpProfile(taskProfile);
         try {
-            ncs.getClusterController().notifyTaskComplete(task.getJobletContext().getJobId(), task.getTaskAttemptId(),
-                    ncs.getId(), taskProfile);
+            ncs.getTaskNotificationBatcher().notifyTaskComplete(task.getJobletContext().getJobId(),
+                    task.getTaskAttemptId(), taskProfile);
         } catch (Exception e) {
             e.printStackTrace();
         }
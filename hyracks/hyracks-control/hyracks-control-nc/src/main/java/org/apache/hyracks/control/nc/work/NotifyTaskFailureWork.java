@@ -46,7 +46,7 @@ public class NotifyTaskFailureWork extends AbstractWork {
             if (dpm != null) {
                 dpm.abortReader(jobId);
             }
-            ncs.getClusterController().notifyTaskFailure(jobId, task.getTaskAttemptId(), ncs.getId(), exceptions);
+            ncs.getTaskNotificationBatcher().notifyTaskFailure(jobId, task.getTaskAttemptId(), exceptions);
             //exceptions.get(0).printStackTrace();
         } catch (Exception e) {
             e.printStackTrace();
@@ -49,6 +49,7 @@ import org.apache.hyracks.api.deployment.DeploymentId;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.job.ActivityCluster;
 import org.apache.hyracks.api.job.ActivityClusterGraph;
+import org.apache.hyracks.api.job.DeployedJobSpecId;
 import org.apache.hyracks.api.job.JobFlag;
 import org.apache.hyracks.api.job.JobId;
 import org.apache.hyracks.api.partitions.PartitionId;
@@ -83,9 +84,14 @@ public class StartTasksWork extends AbstractWork {
 
     private final EnumSet<JobFlag> flags;
 
+    private final DeployedJobSpecId deployedJobSpecId;
+
+    private final Map<String, byte[]> jobParameters;
+
     public StartTasksWork(NodeControllerService ncs, DeploymentId deploymentId, JobId jobId, byte[] acgBytes,
             List<TaskAttemptDescriptor> taskDescriptors,
-            Map<ConnectorDescriptorId, IConnectorPolicy> connectorPoliciesMap, EnumSet<JobFlag> flags) {
+            Map<ConnectorDescriptorId, IConnectorPolicy> connectorPoliciesMap, EnumSet<JobFlag> flags,
+            DeployedJobSpecId deployedJobSpecId, Map<String, byte[]> jobParameters) {
         this.ncs = ncs;
         this.deploymentId = deploymentId;
         this.jobId = jobId;
@@ -93,6 +99,8 @@ public class StartTasksWork extends AbstractWork {
         this.taskDescriptors = taskDescriptors;
         this.connectorPoliciesMap = connectorPoliciesMap;
         this.flags = flags;
+        this.deployedJobSpecId = deployedJobSpecId;
+        this.jobParameters = jobParameters;
     }
 
     @Override
@@ -183,12 +191,22 @@ public class StartTasksWork extends AbstractWork {
         Map<JobId, Joblet> jobletMap = ncs.getJobletMap();
         Joblet ji = jobletMap.get(jobId);
         if (ji == null) {
-            if (acgBytes == null) {
+            Map<DeployedJobSpecId, byte[]> deployedAcgMap = ncs.getDeployedJobSpecActivityClusterGraphMap();
+            byte[] bytes = acgBytes;
+            if (bytes != null) {
+                if (deployedJobSpecId != null) {
+                    // keep the serialized graph so that later runs of the deployed job are not shipped the graph
+                    deployedAcgMap.put(deployedJobSpecId, bytes);
+                }
+            } else if (deployedJobSpecId != null) {
+                bytes = deployedAcgMap.get(deployedJobSpecId);
+            }
+            if (bytes == null) {
                 throw new NullPointerException("JobActivityGraph was null");
             }
-            ActivityClusterGraph acg = (ActivityClusterGraph) DeploymentUtils.deserialize(acgBytes, deploymentId,
-                    appCtx);
-            ji = new Joblet(ncs, deploymentId, jobId, appCtx, acg);
+            // every joblet gets its own copy, runs of the same deployed job must not share activity state
+            ActivityClusterGraph acg = (ActivityClusterGraph) DeploymentUtils.deserialize(bytes, deploymentId, appCtx);
+            ji = new Joblet(ncs, deploymentId, jobId, appCtx, acg, jobParameters);
             jobletMap.put(jobId, ji);
         }
         return ji;
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.control.nc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.ConnectorDescriptorId;
+import org.apache.hyracks.api.dataflow.OperatorDescriptorId;
+import org.apache.hyracks.api.dataflow.TaskAttemptId;
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.api.partitions.PartitionId;
+import org.apache.hyracks.control.common.ipc.ClusterControllerRemoteProxy;
+import org.apache.hyracks.control.common.job.PartitionDescriptor;
+import org.apache.hyracks.control.common.job.profiling.om.PartitionProfile;
+import org.apache.hyracks.control.common.job.profiling.om.TaskProfile;
+
+public class TaskNotificationBatcherTest {
+    private static final String NODE_ID = "nc1";
+    private static final JobId JOB_ID = new JobId(1);
+
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void testCompletionsWaitForTheWindow() throws Exception {
+        TaskNotificationBatcher batcher = new TaskNotificationBatcher(NODE_ID, new RecordingClusterController(), 10);
+        batcher.notifyTaskComplete(JOB_ID, attempt(0), profile(0));
+        batcher.notifyTaskComplete(JOB_ID, attempt(1), profile(1));
+        Assert.assertTrue(calls.isEmpty());
+        batcher.run();
+        Assert.assertEquals(Collections.singletonList("batch completions=2 partitions=0"), calls);
+        batcher.run();
+        Assert.assertEquals(1, calls.size());
+    }
+
+    @Test
+    public void testPartitionRegistrationsAreBatched() throws Exception {
+        TaskNotificationBatcher batcher = new TaskNotificationBatcher(NODE_ID, new RecordingClusterController(), 10);
+        batcher.notifyTaskComplete(JOB_ID, attempt(0), profile(0));
+        batcher.registerPartitionProvider(partition(1));
+        batcher.registerPartitionProvider(partition(2));
+        Assert.assertTrue(calls.isEmpty());
+        batcher.run();
+        Assert.assertEquals(Collections.singletonList("batch completions=1 partitions=2"), calls);
+    }
+
+    @Test
+    public void testNotificationsDoNotWaitForTheSend() throws Exception {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TaskNotificationBatcher batcher = new TaskNotificationBatcher(NODE_ID, new RecordingClusterController() {
+            @Override
+            public void notifyTaskCompleteBatch(String nodeId, Map<JobId, List<TaskProfile>> taskCompletions,
+                    List<PartitionDescriptor> partitionDescriptors) throws Exception {
+                sending.countDown();
+                release.await();
+                super.notifyTaskCompleteBatch(nodeId, taskCompletions, partitionDescriptors);
+            }
+        }, 10);
+        batcher.notifyTaskComplete(JOB_ID, attempt(0), profile(0));
+        Thread sender = new Thread(batcher);
+        sender.start();
+        Assert.assertTrue(sending.await(10, TimeUnit.SECONDS));
+        // The first batch is being sent; new notifications are still accepted.
+        batcher.notifyTaskComplete(JOB_ID, attempt(1), profile(1));
+        batcher.registerPartitionProvider(partition(1));
+        release.countDown();
+        sender.join();
+        batcher.run();
+        Assert.assertEquals(2, calls.size());
+        Assert.assertEquals("batch completions=1 partitions=0", calls.get(0));
+        Assert.assertEquals("batch completions=1 partitions=1", calls.get(1));
+    }
+
+    @Test
+    public void testBatchIsFlushedBeforeFailure() throws Exception {
+        TaskNotificationBatcher batcher = new TaskNotificationBatcher(NODE_ID, new RecordingClusterController(), 10);
+        batcher.notifyTaskComplete(JOB_ID, attempt(0), profile(0));
+        batcher.notifyTaskFailure(JOB_ID, attempt(1), Collections.<Exception> emptyList());
+        Assert.assertEquals(2, calls.size());
+        Assert.assertEquals("batch completions=1 partitions=0", calls.get(0));
+        Assert.assertEquals("failure " + attempt(1), calls.get(1));
+    }
+
+    @Test
+    public void testNoBatching() throws Exception {
+        TaskNotificationBatcher batcher = new TaskNotificationBatcher(NODE_ID, new RecordingClusterController(), 0);
+        batcher.notifyTaskComplete(JOB_ID, attempt(0), profile(0));
+        batcher.registerPartitionProvider(partition(0));
+        batcher.notifyTaskFailure(JOB_ID, attempt(1), Collections.<Exception> emptyList());
+        batcher.run();
+        Assert.assertEquals(3, calls.size());
+        Assert.assertEquals("complete " + attempt(0), calls.get(0));
+        Assert.assertEquals("partition " + attempt(0), calls.get(1));
+        Assert.assertEquals("failure " + attempt(1), calls.get(2));
+    }
+
+    private static TaskAttemptId attempt(int partition) {
+        return new TaskAttemptId(new TaskId(new ActivityId(new OperatorDescriptorId(0), 0), partition), 0);
+    }
+
+    private static TaskProfile profile(int partition) {
+        return new TaskProfile(attempt(partition), Collections.<PartitionId, PartitionProfile> emptyMap());
+    }
+
+    private static PartitionDescriptor partition(int sender) {
+        PartitionId pid = new PartitionId(JOB_ID, new ConnectorDescriptorId(0), sender, 0);
+        return new PartitionDescriptor(pid, NODE_ID, attempt(0), false);
+    }
+
+    /**
+     * Records the notifications that reach the cluster controller, in order.
+     */
+    private class RecordingClusterController extends ClusterControllerRemoteProxy {
+        RecordingClusterController() {
+            super(null);
+        }
+
+        @Override
+        public void notifyTaskComplete(JobId jobId, TaskAttemptId taskId, String nodeId, TaskProfile statistics) {
+            calls.add("complete " + taskId);
+        }
+
+        @Override
+        public void notifyTaskCompleteBatch(String nodeId, Map<JobId, List<TaskProfile>> taskCompletions,
+                List<PartitionDescriptor> partitionDescriptors) throws Exception {
+            int completions = 0;
+            for (List<TaskProfile> profiles : taskCompletions.values()) {
+                completions += profiles.size();
+            }
+            calls.add("batch completions=" + completions + " partitions=" + partitionDescriptors.size());
+        }
+
+        @Override
+        public void registerPartitionProvider(PartitionDescriptor partitionDescriptor) {
+            calls.add("partition " + partitionDescriptor.getProducingTaskAttemptId());
+        }
+
+        @Override
+        public void notifyTaskFailure(JobId jobId, TaskAttemptId taskId, String nodeId, List<Exception> exceptions) {
+            calls.add("failure " + taskId);
+        }
+    }
+}
@@ -31,6 +31,12 @@ import org.apache.hyracks.storage.common.buffercache.ICachedPage;
 import org.apache.hyracks.storage.common.file.BufferedFileHandle;
 import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
+/**
+ * A paged Bloom filter. In the default layout the bits of a key are spread over the whole filter, so a probe may pin
+ * up to numHashes pages. In the blocked layout all bits of a key fall into one cache-line-sized block, so a probe pins
+ * a single page and touches a single cache line, at the price of a slightly higher false positive rate for the same
+ * number of bits. The layout is chosen when the filter is built and recorded in its metadata page.
+ */
 public class BloomFilter {
 
     private final static int METADATA_PAGE_ID = 0;
@@ -38,11 +44,18 @@ public class BloomFilter {
     private final static int NUM_HASHES_USED_OFFSET = NUM_PAGES_OFFSET + 4; // 4
     private final static int NUM_ELEMENTS_OFFSET = NUM_HASHES_USED_OFFSET + 4; // 8
     private final static int NUM_BITS_OFFSET = NUM_ELEMENTS_OFFSET + 8; // 12
+    private final static int LAYOUT_OFFSET = NUM_BITS_OFFSET + 8; // 20
+
+    // Filters written before the layout was recorded may hold any value at LAYOUT_OFFSET, hence a magic number.
+    private final static int BLOCKED_LAYOUT = 0x424C4F43;
+    private final static int BLOCK_SIZE = 64; // bytes, one cache line
+    private final static int BLOCK_BITS = BLOCK_SIZE * Byte.SIZE;
 
     private final IBufferCache bufferCache;
     private final IFileMapProvider fileMapProvider;
     private final FileReference file;
     private final int[] keyFields;
+    private final boolean buildBlocked;
     private int fileId = -1;
     private boolean isActivated = false;
 
@@ -50,17 +63,32 @@ public class BloomFilter {
     private int numHashes;
     private long numElements;
     private long numBits;
+    private boolean blocked;
+    private long numBlocks;
     private final int numBitsPerPage;
+    private final int numBlocksPerPage;
     private final static byte[] ZERO_BUFFER = new byte[131072]; // 128kb
     private final static long SEED = 0L;
 
     public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file, int[] keyFields)
             throws HyracksDataException {
+        this(bufferCache, fileMapProvider, file, keyFields, false);
+    }
+
+    /**
+     * @param buildBlocked
+     *            - whether filters built through this instance use the blocked layout. Existing filters are read in
+     *            the layout they were built with.
+     */
+    public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file,
+            int[] keyFields, boolean buildBlocked) throws HyracksDataException {
         this.bufferCache = bufferCache;
         this.fileMapProvider = fileMapProvider;
         this.file = file;
         this.keyFields = keyFields;
+        this.buildBlocked = buildBlocked;
         this.numBitsPerPage = bufferCache.getPageSize() * Byte.SIZE;
+        this.numBlocksPerPage = bufferCache.getPageSize() / BLOCK_SIZE;
     }
 
     public int getFileId() {
@@ -85,11 +113,38 @@ public class BloomFilter {
         return numElements;
     }
 
+    public boolean isBlocked() {
+        return blocked;
+    }
+
     public boolean contains(ITupleReference tuple, long[] hashes) throws HyracksDataException {
+        computeHashes(tuple, hashes);
+        return contains(hashes);
+    }
+
+    /**
+     * Computes the hashes of the key fields of a tuple for {@link #contains(long[])}. The hashes only depend on the
+     * key, so a caller probing several filters on the same key fields, such as the disk components of an LSM index,
+     * computes them once for all of them.
+     *
+     * @param hashes
+     *            - an array of length 2 receiving the hashes
+     */
+    public void computeHashes(ITupleReference tuple, long[] hashes) throws HyracksDataException {
+        MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+    }
+
+    /**
+     * @param hashes
+     *            - hashes computed by {@link #computeHashes(ITupleReference, long[])} of a filter on the same key fields
+     */
+    public boolean contains(long[] hashes) throws HyracksDataException {
         if (numPages == 0) {
             return false;
         }
-        MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+        if (blocked) {
+            return containsBlocked(hashes);
+        }
         for (int i = 0; i < numHashes; ++i) {
             long hash = Math.abs((hashes[0] + i * hashes[1]) % numBits);
 
@@ -115,6 +170,46 @@ public class BloomFilter {
         return true;
     }
 
+    private boolean containsBlocked(long[] hashes) throws HyracksDataException {
+        long block = getBlock(hashes);
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, getBlockPageId(block)), false);
+        page.acquireReadLatch();
+        try {
+            ByteBuffer buffer = page.getBuffer();
+            int blockOff = getBlockOffset(block);
+            for (int i = 0; i < numHashes; ++i) {
+                int bit = getBitInBlock(hashes, i);
+                byte b = buffer.get(blockOff + (bit >> 3));
+                if ((b & (1 << (bit & 0x07))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            page.releaseReadLatch();
+            bufferCache.unpin(page);
+        }
+    }
+
+    private long getBlock(long[] hashes) {
+        return (hashes[0] & Long.MAX_VALUE) % numBlocks;
+    }
+
+    private int getBlockPageId(long block) {
+        // we increment the page id by one, since the metadata page id of the filter is 0.
+        return (int) (block / numBlocksPerPage) + 1;
+    }
+
+    private int getBlockOffset(long block) {
+        return (int) (block % numBlocksPerPage) * BLOCK_SIZE;
+    }
+
+    private static int getBitInBlock(long[] hashes, int i) {
+        // An odd step visits distinct bits of the block for up to BLOCK_BITS hash functions.
+        long step = (hashes[1] >>> 32) | 1L;
+        return (int) ((hashes[1] + i * step) & (BLOCK_BITS - 1));
+    }
+
     private void prepareFile() throws HyracksDataException {
         boolean fileIsMapped = false;
         synchronized (fileMapProvider) {
@@ -148,6 +243,7 @@ public class BloomFilter {
             metaPage.getBuffer().putInt(NUM_HASHES_USED_OFFSET, 0);
             metaPage.getBuffer().putLong(NUM_ELEMENTS_OFFSET, 0L);
             metaPage.getBuffer().putLong(NUM_BITS_OFFSET, 0L);
+            metaPage.getBuffer().putInt(LAYOUT_OFFSET, 0);
         } finally {
             metaPage.releaseWriteLatch(true);
             bufferCache.unpin(metaPage);
@@ -173,6 +269,8 @@ public class BloomFilter {
             numHashes = metaPage.getBuffer().getInt(NUM_HASHES_USED_OFFSET);
             numElements = metaPage.getBuffer().getLong(NUM_ELEMENTS_OFFSET);
             numBits = metaPage.getBuffer().getLong(NUM_BITS_OFFSET);
+            blocked = metaPage.getBuffer().getInt(LAYOUT_OFFSET) == BLOCKED_LAYOUT;
+            numBlocks = numBits / BLOCK_BITS;
         } finally {
             metaPage.releaseReadLatch();
             bufferCache.unpin(metaPage);
@@ -219,8 +317,15 @@ public class BloomFilter {
 
             this.numElements = numElements;
             this.numHashes = numHashes;
-            numBits = this.numElements * numBitsPerElement;
-            long tmp = (long) Math.ceil(numBits / (double) numBitsPerPage);
+            long tmp;
+            if (buildBlocked) {
+                long numBlocks = (this.numElements * numBitsPerElement + BLOCK_BITS - 1) / BLOCK_BITS;
+                numBits = numBlocks * BLOCK_BITS;
+                tmp = (numBlocks + numBlocksPerPage - 1) / numBlocksPerPage;
+            } else {
+                numBits = this.numElements * numBitsPerElement;
+                tmp = (long) Math.ceil(numBits / (double) numBitsPerPage);
+            }
             if (tmp > Integer.MAX_VALUE) {
                 throw new HyracksDataException("Cannot create a bloom filter with his huge number of pages.");
             }
@@ -262,6 +367,7 @@ public class BloomFilter {
                 metaPage.getBuffer().putInt(NUM_HASHES_USED_OFFSET, numHashes);
                 metaPage.getBuffer().putLong(NUM_ELEMENTS_OFFSET, numElements);
                 metaPage.getBuffer().putLong(NUM_BITS_OFFSET, numBits);
+                metaPage.getBuffer().putInt(LAYOUT_OFFSET, buildBlocked ? BLOCKED_LAYOUT : 0);
             } finally {
                 metaPage.releaseWriteLatch(true);
                 bufferCache.unpin(metaPage);
@@ -275,6 +381,10 @@ public class BloomFilter {
                         "Cannot add elements to this filter since it is supposed to be empty (number of elements hint passed to the filter during construction was 0).");
             }
             MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+            if (blocked) {
+                addBlocked();
+                return;
+            }
             for (int i = 0; i < numHashes; ++i) {
                 long hash = Math.abs((hashes[0] + i * hashes[1]) % numBits);
 
@@ -296,6 +406,23 @@ public class BloomFilter {
             }
         }
 
+        private void addBlocked() throws HyracksDataException {
+            long block = getBlock(hashes);
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, getBlockPageId(block)), false);
+            page.acquireWriteLatch();
+            try {
+                byte[] array = page.getBuffer().array();
+                int blockOff = getBlockOffset(block);
+                for (int i = 0; i < numHashes; ++i) {
+                    int bit = getBitInBlock(hashes, i);
+                    array[blockOff + (bit >> 3)] |= (byte) (1 << (bit & 0x07));
+                }
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+
         @Override
         public void end() throws HyracksDataException, IndexException {
         }
@@ -28,15 +28,26 @@ public class BloomFilterFactory {
     private final IBufferCache bufferCache;
     private final IFileMapProvider fileMapProvider;
     private final int[] bloomFilterKeyFields;
+    private final boolean blocked;
 
     public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields) {
+        this(bufferCache, fileMapProvider, bloomFilterKeyFields, false);
+    }
+
+    /**
+     * @param blocked
+     *            - whether the created filters are built with the blocked (one cache line per key) layout
+     */
+    public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields,
+            boolean blocked) {
         this.bufferCache = bufferCache;
         this.fileMapProvider = fileMapProvider;
         this.bloomFilterKeyFields = bloomFilterKeyFields;
+        this.blocked = blocked;
     }
 
     public BloomFilter createBloomFiltertInstance(FileReference file) throws HyracksDataException {
-        return new BloomFilter(bufferCache, fileMapProvider, file, bloomFilterKeyFields);
+        return new BloomFilter(bufferCache, fileMapProvider, file, bloomFilterKeyFields, blocked);
     }
 
     public int[] getBloomFilterKeyFields() {
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.api;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.TreeIndexException;
+
+/**
+ * Accessor of an ordered index with BTree upsert semantics. Implemented by the BTree itself and by in-memory indexes
+ * that can stand in for it, e.g., as the memory component of an LSM BTree.
+ */
+public interface IBTreeAccessor extends ITreeIndexAccessor {
+    /**
+     * Replaces the tuple with the same key if the acceptor accepts it, and inserts the tuple otherwise.
+     * The acceptor is passed null if no tuple with the same key exists.
+     *
+     * @param tuple
+     *            - the tuple to upsert
+     * @param acceptor
+     *            - decides whether an existing tuple may be replaced
+     * @throws TreeIndexException
+     *             if a tuple with the same key exists and the acceptor rejects it
+     */
+    public void upsertIfConditionElseInsert(ITupleReference tuple, ITupleAcceptor acceptor)
+            throws HyracksDataException, TreeIndexException;
+}
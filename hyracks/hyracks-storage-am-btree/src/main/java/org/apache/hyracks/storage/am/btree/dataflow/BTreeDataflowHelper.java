@@ -20,6 +20,7 @@
 package org.apache.hyracks.storage.am.btree.dataflow;
 
 import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeException;
 import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
@@ -31,18 +32,25 @@ import org.apache.hyracks.storage.am.common.dataflow.TreeIndexDataflowHelper;
 
 public class BTreeDataflowHelper extends TreeIndexDataflowHelper {
 
+    private INormalizedKeyComputerFactory normalizedKeyComputerFactory = null;
+
     public BTreeDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
             boolean durable) {
         super(opDesc, ctx, partition, durable);
     }
 
+    public void setNormalizedKeyComputerFactory(INormalizedKeyComputerFactory normalizedKeyComputerFactory) {
+        this.normalizedKeyComputerFactory = normalizedKeyComputerFactory;
+    }
+
     @Override
     public ITreeIndex createIndexInstance() throws HyracksDataException {
         AbstractTreeIndexOperatorDescriptor treeOpDesc = (AbstractTreeIndexOperatorDescriptor) opDesc;
         try {
             return BTreeUtils.createBTree(opDesc.getStorageManager().getBufferCache(ctx), opDesc.getStorageManager()
                     .getFileMapProvider(ctx), treeOpDesc.getTreeIndexTypeTraits(), treeOpDesc
-                    .getTreeIndexComparatorFactories(), BTreeLeafFrameType.REGULAR_NSM, file);
+                    .getTreeIndexComparatorFactories(), BTreeLeafFrameType.REGULAR_NSM, file,
+                    normalizedKeyComputerFactory);
         } catch (BTreeException e) {
             throw new HyracksDataException(e);
         }
@@ -20,6 +20,7 @@
 package org.apache.hyracks.storage.am.btree.dataflow;
 
 import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexDataflowHelperFactory;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IndexDataflowHelper;
@@ -29,14 +30,26 @@ public class BTreeDataflowHelperFactory implements IIndexDataflowHelperFactory {
     private static final long serialVersionUID = 1L;
 
     private final boolean durable;
+    private final INormalizedKeyComputerFactory normalizedKeyComputerFactory;
 
     public BTreeDataflowHelperFactory(boolean durable) {
+        this(durable, null);
+    }
+
+    /**
+     * @param normalizedKeyComputerFactory
+     *            - the normalized keys of the first key field that the interior frames keep in their slots, or null
+     */
+    public BTreeDataflowHelperFactory(boolean durable, INormalizedKeyComputerFactory normalizedKeyComputerFactory) {
         this.durable = durable;
+        this.normalizedKeyComputerFactory = normalizedKeyComputerFactory;
     }
 
     @Override
     public IndexDataflowHelper createIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition) {
-        return new BTreeDataflowHelper(opDesc, ctx, partition, durable);
+        BTreeDataflowHelper helper = new BTreeDataflowHelper(opDesc, ctx, partition, durable);
+        helper.setNormalizedKeyComputerFactory(normalizedKeyComputerFactory);
+        return helper;
     }
 }
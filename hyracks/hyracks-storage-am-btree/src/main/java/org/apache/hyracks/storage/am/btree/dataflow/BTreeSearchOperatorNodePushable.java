@@ -18,10 +18,18 @@
  */
 package org.apache.hyracks.storage.am.btree.dataflow;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
 import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
+import org.apache.hyracks.storage.am.common.api.IBatchPointSearchAccessor;
+import org.apache.hyracks.storage.am.common.api.IBatchPointSearchConsumer;
 import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.dataflow.AbstractTreeIndexOperatorDescriptor;
@@ -38,12 +46,42 @@ public class BTreeSearchOperatorNodePushable extends IndexSearchOperatorNodePush
     protected MultiComparator lowKeySearchCmp;
     protected MultiComparator highKeySearchCmp;
 
+    private final int[] lowKeyFields;
+    private final int[] highKeyFields;
+    private boolean batchPointSearch;
+    private PermutingFrameTupleReference[] batchKeys;
+    private final IBatchPointSearchConsumer batchConsumer = new IBatchPointSearchConsumer() {
+        @Override
+        public void accept(int keyIndex, ITupleReference tuple) throws HyracksDataException {
+            if (tuple != null) {
+                try {
+                    writeSearchResult(keyIndex, tuple);
+                } catch (IOException e) {
+                    throw new HyracksDataException(e);
+                }
+            } else if (retainInput && retainNull) {
+                writeNullResult(keyIndex);
+            }
+        }
+    };
+
     public BTreeSearchOperatorNodePushable(AbstractTreeIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition, IRecordDescriptorProvider recordDescProvider, int[] lowKeyFields, int[] highKeyFields,
             boolean lowKeyInclusive, boolean highKeyInclusive, int[] minFilterFieldIndexes, int[] maxFilterFieldIndexes) {
-        super(opDesc, ctx, partition, recordDescProvider, minFilterFieldIndexes, maxFilterFieldIndexes);
+        this(opDesc, ctx, partition, recordDescProvider, lowKeyFields, highKeyFields, lowKeyInclusive,
+                highKeyInclusive, minFilterFieldIndexes, maxFilterFieldIndexes, null);
+    }
+
+    public BTreeSearchOperatorNodePushable(AbstractTreeIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
+            int partition, IRecordDescriptorProvider recordDescProvider, int[] lowKeyFields, int[] highKeyFields,
+            boolean lowKeyInclusive, boolean highKeyInclusive, int[] minFilterFieldIndexes,
+            int[] maxFilterFieldIndexes, int[] projectedFields) {
+        super(opDesc, ctx, partition, recordDescProvider, minFilterFieldIndexes, maxFilterFieldIndexes,
+                projectedFields);
         this.lowKeyInclusive = lowKeyInclusive;
         this.highKeyInclusive = highKeyInclusive;
+        this.lowKeyFields = lowKeyFields;
+        this.highKeyFields = highKeyFields;
         if (lowKeyFields != null && lowKeyFields.length > 0) {
             lowKey = new PermutingFrameTupleReference();
             lowKey.setFieldPermutation(lowKeyFields);
@@ -54,6 +92,48 @@ public class BTreeSearchOperatorNodePushable extends IndexSearchOperatorNodePush
         }
     }
 
+    @Override
+    public void open() throws HyracksDataException {
+        super.open();
+        batchPointSearch = useBatchPointSearch();
+    }
+
+    /**
+     * Exact-match searches on a full key are answered one frame at a time if the index supports batched point
+     * searches. Component filters are not used by the batch since its keys share one search operation.
+     */
+    protected boolean useBatchPointSearch() {
+        return indexAccessor instanceof IBatchPointSearchAccessor && lowKey != null && highKey != null
+                && lowKeyInclusive && highKeyInclusive && Arrays.equals(lowKeyFields, highKeyFields)
+                && lowKeyFields.length == ((ITreeIndex) index).getComparatorFactories().length
+                && minFilterKey == null && maxFilterKey == null;
+    }
+
+    @Override
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        if (!batchPointSearch) {
+            super.nextFrame(buffer);
+            return;
+        }
+        accessor.reset(buffer);
+        int tupleCount = accessor.getTupleCount();
+        if (batchKeys == null || batchKeys.length < tupleCount) {
+            batchKeys = new PermutingFrameTupleReference[tupleCount];
+            for (int i = 0; i < tupleCount; i++) {
+                batchKeys[i] = new PermutingFrameTupleReference();
+                batchKeys[i].setFieldPermutation(lowKeyFields);
+            }
+        }
+        for (int i = 0; i < tupleCount; i++) {
+            batchKeys[i].reset(accessor, i);
+        }
+        try {
+            ((IBatchPointSearchAccessor) indexAccessor).batchPointSearch(batchKeys, tupleCount, batchConsumer);
+        } catch (Exception e) {
+            throw new HyracksDataException(e);
+        }
+    }
+
     @Override
     protected void resetSearchPredicate(int tupleIndex) {
         if (lowKey != null) {
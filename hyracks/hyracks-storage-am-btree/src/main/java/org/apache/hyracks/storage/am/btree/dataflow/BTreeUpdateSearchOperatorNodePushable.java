@@ -42,6 +42,12 @@ public class BTreeUpdateSearchOperatorNodePushable extends BTreeSearchOperatorNo
         this.tupleUpdater = tupleUpdater;
     }
 
+    @Override
+    protected boolean useBatchPointSearch() {
+        // Matches are updated in place through the cursor.
+        return false;
+    }
+
     @Override
     protected ITreeIndexCursor createCursor() {
         ITreeIndex treeIndex = (ITreeIndex) index;
@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
@@ -49,11 +50,24 @@ public class BTreeNSMInteriorFrame extends TreeIndexNSMFrame implements IBTreeIn
 
     private final ITreeIndexTupleReference cmpFrameTuple;
     private final ITreeIndexTupleReference previousFt;
+    // Null unless the slots hold normalized keys.
+    private final NormalizedKeySlotManager normalizedKeySlotManager;
 
     private MultiComparator cmp;
 
     public BTreeNSMInteriorFrame(ITreeIndexTupleWriter tupleWriter) {
-        super(tupleWriter, new OrderedSlotManager());
+        this(tupleWriter, null);
+    }
+
+    /**
+     * @param normalizedKeyComputer
+     *            - computes the normalized keys of the first key field that the slots hold to speed up searches, or
+     *            null for plain slots
+     */
+    public BTreeNSMInteriorFrame(ITreeIndexTupleWriter tupleWriter, INormalizedKeyComputer normalizedKeyComputer) {
+        super(tupleWriter, normalizedKeyComputer == null ? new OrderedSlotManager() : new NormalizedKeySlotManager(
+                normalizedKeyComputer));
+        normalizedKeySlotManager = normalizedKeyComputer == null ? null : (NormalizedKeySlotManager) slotManager;
         cmpFrameTuple = tupleWriter.createTupleReference();
         previousFt = tupleWriter.createTupleReference();
     }
@@ -95,6 +109,9 @@ public class BTreeNSMInteriorFrame extends TreeIndexNSMFrame implements IBTreeIn
     @Override
     public void insert(ITupleReference tuple, int tupleIndex) {
         int slotOff = slotManager.insertSlot(tupleIndex, buf.getInt(freeSpaceOff));
+        if (normalizedKeySlotManager != null) {
+            normalizedKeySlotManager.setNormalizedKey(slotOff, tuple);
+        }
         int freeSpace = buf.getInt(freeSpaceOff);
         int bytesWritten = tupleWriter.writeTupleFields(tuple, 0, tuple.getFieldCount(), buf.array(), freeSpace);
         System.arraycopy(tuple.getFieldData(tuple.getFieldCount() - 1), getLeftChildPageOff(tuple), buf.array(),
@@ -181,7 +198,10 @@ public class BTreeNSMInteriorFrame extends TreeIndexNSMFrame implements IBTreeIn
     @Override
     public void insertSorted(ITupleReference tuple) {
         int freeSpace = buf.getInt(freeSpaceOff);
-        slotManager.insertSlot(slotManager.getGreatestKeyIndicator(), freeSpace);
+        int slotOff = slotManager.insertSlot(slotManager.getGreatestKeyIndicator(), freeSpace);
+        if (normalizedKeySlotManager != null) {
+            normalizedKeySlotManager.setNormalizedKey(slotOff, tuple);
+        }
         int bytesWritten = tupleWriter.writeTuple(tuple, buf, freeSpace);
         System.arraycopy(tuple.getFieldData(tuple.getFieldCount() - 1), getLeftChildPageOff(tuple), buf.array(),
                 freeSpace + bytesWritten, childPtrSize);
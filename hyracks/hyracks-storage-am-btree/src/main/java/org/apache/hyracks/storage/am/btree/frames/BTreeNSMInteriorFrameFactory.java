@@ -19,6 +19,7 @@
 
 package org.apache.hyracks.storage.am.btree.frames;
 
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.storage.am.btree.api.IBTreeInteriorFrame;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriterFactory;
@@ -28,14 +29,28 @@ public class BTreeNSMInteriorFrameFactory implements ITreeIndexFrameFactory {
     private static final long serialVersionUID = 1L;
 
     private final ITreeIndexTupleWriterFactory tupleWriterFactory;
+    private final INormalizedKeyComputerFactory normalizedKeyComputerFactory;
 
     public BTreeNSMInteriorFrameFactory(ITreeIndexTupleWriterFactory tupleWriterFactory) {
+        this(tupleWriterFactory, null);
+    }
+
+    /**
+     * @param normalizedKeyComputerFactory
+     *            - the normalized keys of the first key field that the slots of the interior frames hold, or null for
+     *            plain slots; the choice is part of the page format and must not change for an existing index
+     */
+    public BTreeNSMInteriorFrameFactory(ITreeIndexTupleWriterFactory tupleWriterFactory,
+            INormalizedKeyComputerFactory normalizedKeyComputerFactory) {
         this.tupleWriterFactory = tupleWriterFactory;
+        this.normalizedKeyComputerFactory = normalizedKeyComputerFactory;
     }
 
     @Override
     public IBTreeInteriorFrame createFrame() {
-        return new BTreeNSMInteriorFrame(tupleWriterFactory.createTupleWriter());
+        return new BTreeNSMInteriorFrame(tupleWriterFactory.createTupleWriter(),
+                normalizedKeyComputerFactory == null ? null : normalizedKeyComputerFactory
+                        .createNormalizedKeyComputer());
     }
 
     @Override
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree.frames;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.FindTupleMode;
+import org.apache.hyracks.storage.am.common.ophelpers.FindTupleNoExactMatchPolicy;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+
+/**
+ * An ordered slot manager whose slots also hold the normalized key of the first key field of their tuples, so the
+ * slot array doubles as a compact array of fixed-width key prefixes. A search first narrows the slots to those whose
+ * normalized key ties with the search key's, comparing only the fixed-width prefixes, and compares whole tuples only
+ * within that range. A slot holds the tuple offset followed by the normalized key.
+ */
+public class NormalizedKeySlotManager extends OrderedSlotManager {
+
+    private static final int normalizedKeyOff = 4;
+
+    private final INormalizedKeyComputer normalizedKeyComputer;
+
+    public NormalizedKeySlotManager(INormalizedKeyComputer normalizedKeyComputer) {
+        super(8);
+        this.normalizedKeyComputer = normalizedKeyComputer;
+    }
+
+    /**
+     * Stores the normalized key of the tuple in the slot. The frame calls this after it inserted the slot.
+     */
+    public void setNormalizedKey(int slotOff, ITupleReference tuple) {
+        frame.getBuffer().putInt(slotOff + normalizedKeyOff, normalize(tuple));
+    }
+
+    @Override
+    public int findTupleIndex(ITupleReference searchKey, ITreeIndexTupleReference frameTuple, MultiComparator multiCmp,
+            FindTupleMode mode, FindTupleNoExactMatchPolicy matchPolicy) throws HyracksDataException {
+        int tupleCount = frame.getTupleCount();
+        if (tupleCount <= 0) {
+            return GREATEST_KEY_INDICATOR;
+        }
+        // The tuples before the tie range are smaller than the search key and the tuples after it are larger.
+        long searchPrefix = normalize(searchKey) & 0xffffffffL;
+        int begin = findPrefixBound(searchPrefix, 0, tupleCount, false);
+        int end = findPrefixBound(searchPrefix, begin, tupleCount, true) - 1;
+
+        while (begin <= end) {
+            int mid = (begin + end) >>> 1;
+            frameTuple.resetByTupleIndex(frame, mid);
+            int cmp = multiCmp.compare(searchKey, frameTuple);
+            if (cmp < 0) {
+                end = mid - 1;
+            } else if (cmp > 0) {
+                begin = mid + 1;
+            } else {
+                if (mode == FindTupleMode.EXCLUSIVE) {
+                    if (matchPolicy == FindTupleNoExactMatchPolicy.HIGHER_KEY) {
+                        begin = mid + 1;
+                    } else {
+                        end = mid - 1;
+                    }
+                } else {
+                    if (mode == FindTupleMode.EXCLUSIVE_ERROR_IF_EXISTS) {
+                        return ERROR_INDICATOR;
+                    } else {
+                        return mid;
+                    }
+                }
+            }
+        }
+
+        if (mode == FindTupleMode.EXACT) {
+            return ERROR_INDICATOR;
+        }
+        // Every tuple from begin on is larger than the search key and every tuple up to end is smaller.
+        if (matchPolicy == FindTupleNoExactMatchPolicy.HIGHER_KEY) {
+            return begin < tupleCount ? begin : GREATEST_KEY_INDICATOR;
+        } else {
+            return end >= 0 ? end : GREATEST_KEY_INDICATOR;
+        }
+    }
+
+    /**
+     * @return the first tuple index in [begin, end) whose normalized key is not smaller than the prefix, or with
+     *         upper, the first one whose normalized key is larger than it
+     */
+    private int findPrefixBound(long prefix, int begin, int end, boolean upper) {
+        ByteBuffer buf = frame.getBuffer();
+        int slotStartOff = getSlotStartOff() + normalizedKeyOff;
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            long slotPrefix = buf.getInt(slotStartOff - mid * slotSize) & 0xffffffffL;
+            boolean right = upper ? slotPrefix <= prefix : slotPrefix < prefix;
+            begin = right ? mid + 1 : begin;
+            end = right ? end : mid;
+        }
+        return begin;
+    }
+
+    private int normalize(ITupleReference tuple) {
+        return normalizedKeyComputer.normalize(tuple.getFieldData(0), tuple.getFieldStart(0), tuple.getFieldLength(0));
+    }
+}
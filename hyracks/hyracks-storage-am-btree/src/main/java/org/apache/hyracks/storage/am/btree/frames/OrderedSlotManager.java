@@ -29,6 +29,14 @@ import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 
 public class OrderedSlotManager extends AbstractSlotManager {
 
+    public OrderedSlotManager() {
+        super();
+    }
+
+    protected OrderedSlotManager(int slotSize) {
+        super(slotSize);
+    }
+
     @Override
     public int findTupleIndex(ITupleReference searchKey, ITreeIndexTupleReference frameTuple, MultiComparator multiCmp,
             FindTupleMode mode, FindTupleNoExactMatchPolicy matchPolicy) throws HyracksDataException {
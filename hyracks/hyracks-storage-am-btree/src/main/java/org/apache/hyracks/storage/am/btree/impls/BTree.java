@@ -19,8 +19,10 @@
 
 package org.apache.hyracks.storage.am.btree.impls;
 
+import java.nio.BufferUnderflowException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -33,12 +35,14 @@ import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
 import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.api.IBTreeAccessor;
 import org.apache.hyracks.storage.am.btree.api.IBTreeFrame;
 import org.apache.hyracks.storage.am.btree.api.IBTreeInteriorFrame;
 import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import org.apache.hyracks.storage.am.btree.api.ITupleAcceptor;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeException;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeNotUpdateableException;
+import org.apache.hyracks.storage.am.btree.frames.BTreeFieldPrefixNSMLeafFrame;
 import org.apache.hyracks.storage.am.btree.frames.BTreeNSMInteriorFrame;
 import org.apache.hyracks.storage.am.btree.impls.BTreeOpContext.PageValidationInfo;
 import org.apache.hyracks.storage.am.common.api.IFreePageManager;
@@ -78,10 +82,12 @@ public class BTree extends AbstractTreeIndex {
     private final static long RESTART_OP = Long.MIN_VALUE;
     private final static long FULL_RESTART_OP = Long.MIN_VALUE + 1;
     private final static int MAX_RESTARTS = 10;
+    private final static int MAX_OPTIMISTIC_RESTARTS = 3;
 
     private final AtomicInteger smoCounter;
     private final ReadWriteLock treeLatch;
     private final int maxTupleSize;
+    private boolean optimisticSearch = false;
 
     public BTree(IBufferCache bufferCache, IFileMapProvider fileMapProvider, IFreePageManager freePageManager,
             ITreeIndexFrameFactory interiorFrameFactory, ITreeIndexFrameFactory leafFrameFactory,
@@ -195,9 +201,14 @@ public class BTree extends AbstractTreeIndex {
         if (ctx.pred.getHighKeyComparator() == null) {
             ctx.pred.setHighKeyComparator(ctx.cmp);
         }
+        boolean repeatOp = true;
+        if (optimisticSearch && !cursor.exclusiveLatchNodes()) {
+            for (int i = 0; repeatOp && i < MAX_OPTIMISTIC_RESTARTS; i++) {
+                repeatOp = !optimisticSearch(ctx);
+            }
+        }
         // we use this loop to deal with possibly multiple operation restarts
         // due to ongoing structure modifications during the descent
-        boolean repeatOp = true;
         while (repeatOp && ctx.opRestarts < MAX_RESTARTS) {
             performOp(rootPage, null, true, ctx);
             // if we reach this stage then we need to restart from the (possibly
@@ -212,6 +223,97 @@ public class BTree extends AbstractTreeIndex {
         cursor.setFileId(fileId);
     }
 
+    /**
+     * Descends to the leaf of a search without latching the interior nodes. Each node is read under a version of its
+     * page, and the version is validated before the child pointer read from the node is followed, so a concurrent
+     * writer makes the descent fail instead of following a torn page. Only the leaf is read-latched, before it is
+     * handed to the cursor.
+     *
+     * @return whether the cursor was opened; false if the descent met a concurrent modification or an ongoing
+     *         structure modification, which the latched descent then waits for
+     */
+    private boolean optimisticSearch(BTreeOpContext ctx) throws HyracksDataException, TreeIndexException {
+        int pageId = rootPage;
+        ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+        long version = node.getOptimisticReadVersion();
+        while (true) {
+            boolean isLeaf;
+            boolean smFlag;
+            int childPageId = -1;
+            ctx.interiorFrame.setPage(node);
+            try {
+                isLeaf = ctx.interiorFrame.isLeaf();
+                smFlag = ctx.interiorFrame.getSmFlag();
+                if (!isLeaf && !smFlag) {
+                    childPageId = ctx.interiorFrame.getChildPageId(ctx.pred);
+                }
+            } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+                // A torn read may run past the page or a field. A real error is reported by the latched descent.
+                bufferCache.unpin(node);
+                return false;
+            }
+            if (smFlag || !node.validateOptimisticRead(version)) {
+                bufferCache.unpin(node);
+                return false;
+            }
+            if (isLeaf) {
+                break;
+            }
+            ICachedPage child;
+            try {
+                child = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, childPageId), false);
+            } catch (HyracksDataException e) {
+                bufferCache.unpin(node);
+                throw e;
+            }
+            long childVersion = child.getOptimisticReadVersion();
+            // The child is still a child of the node if the node has not changed since the child's version was taken.
+            boolean isValid = node.validateOptimisticRead(version);
+            bufferCache.unpin(node);
+            if (!isValid) {
+                bufferCache.unpin(child);
+                return false;
+            }
+            pageId = childPageId;
+            node = child;
+            version = childVersion;
+        }
+        node.acquireReadLatch();
+        if (!node.validateOptimisticRead(version)) {
+            node.releaseReadLatch();
+            bufferCache.unpin(node);
+            return false;
+        }
+        ctx.leafFrame.setPage(node);
+        ctx.cursorInitialState.setSearchOperationCallback(ctx.searchCallback);
+        ctx.cursorInitialState.setOriginialKeyComparator(ctx.cmp);
+        ctx.cursorInitialState.setPage(node);
+        ctx.cursorInitialState.setPageId(pageId);
+        try {
+            ctx.cursor.open(ctx.cursorInitialState, ctx.pred);
+        } catch (Exception e) {
+            node.releaseReadLatch();
+            bufferCache.unpin(node);
+            throw new BTreeException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Searches latch every node on their way down unless this is turned on.
+     *
+     * @param optimisticSearch
+     *            - whether searches descend without latching interior nodes and fall back to the latched descent only
+     *            on a conflict with a writer
+     */
+    public void setOptimisticSearch(boolean optimisticSearch) {
+        this.optimisticSearch = optimisticSearch;
+    }
+
+    public boolean isOptimisticSearch() {
+        return optimisticSearch;
+    }
+
     private void unsetSmPages(BTreeOpContext ctx) throws HyracksDataException {
         ICachedPage originalPage = ctx.interiorFrame.getPage();
         for (int i = 0; i < ctx.smPages.size(); i++) {
@@ -861,7 +963,7 @@ public class BTree extends AbstractTreeIndex {
 
     // TODO: Class should be private. But currently we need to expose the
     // setOpContext() API to the LSM Tree for it to work correctly.
-    public class BTreeAccessor implements ITreeIndexAccessor {
+    public class BTreeAccessor implements IBTreeAccessor {
         private BTree btree;
         private BTreeOpContext ctx;
 
@@ -894,6 +996,7 @@ public class BTree extends AbstractTreeIndex {
             upsertIfConditionElseInsert(tuple, UnconditionalTupleAcceptor.INSTANCE);
         }
 
+        @Override
         public void upsertIfConditionElseInsert(ITupleReference tuple, ITupleAcceptor acceptor)
                 throws HyracksDataException, TreeIndexException {
             ctx.setOperation(IndexOperation.UPSERT);
@@ -949,6 +1052,43 @@ public class BTree extends AbstractTreeIndex {
         }
     }
 
+    /**
+     * Creates a bulk loader for sorted input whose leaves are written by tasks on the executor. See
+     * {@link BTreeParallelBulkLoader}.
+     *
+     * @param maxBufferedPages
+     *            - the number of leaves the loader holds in memory before the adding thread waits for them to be
+     *            written
+     * @param executor
+     *            - runs the tasks that write the leaves
+     */
+    public BTreeParallelBulkLoader createParallelBulkLoader(float fillFactor, boolean verifyInput,
+            int maxBufferedPages, Executor executor) throws TreeIndexException {
+        if (maxBufferedPages < 1) {
+            throw new TreeIndexException("A parallel bulk load needs at least one page to buffer tuples in.");
+        }
+        if (!canBulkLoadInParallel()) {
+            throw new TreeIndexException("Field-prefix compressed leaves cannot be bulk loaded in parallel.");
+        }
+        try {
+            return new BTreeParallelBulkLoader(this, fillFactor, verifyInput, maxBufferedPages, executor);
+        } catch (HyracksDataException e) {
+            throw new TreeIndexException(e);
+        }
+    }
+
+    /**
+     * @return whether {@link #createParallelBulkLoader} supports the leaves of this BTree
+     */
+    public boolean canBulkLoadInParallel() {
+        // Compressing a leaf changes where the next leaf starts, which cannot be known before it is written.
+        return !(leafFrameFactory.createFrame() instanceof BTreeFieldPrefixNSMLeafFrame);
+    }
+
+    int getMaxTupleSize() {
+        return maxTupleSize;
+    }
+
     public class BTreeBulkLoader extends AbstractTreeIndex.AbstractTreeIndexBulkLoader {
         protected final ISplitKey splitKey;
         protected final boolean verifyInput;
@@ -1029,6 +1169,11 @@ public class BTree extends AbstractTreeIndex {
 
         protected void verifyInputTuple(ITupleReference tuple, ITupleReference prevTuple) throws IndexException,
                 HyracksDataException {
+            verifyInputTuple(tuple, prevTuple, cmp);
+        }
+
+        protected void verifyInputTuple(ITupleReference tuple, ITupleReference prevTuple, MultiComparator cmp)
+                throws IndexException, HyracksDataException {
             // New tuple should be strictly greater than last tuple.
             int cmpResult = cmp.compare(tuple, prevTuple);
             if (cmpResult < 0) {
@@ -1050,7 +1195,8 @@ public class BTree extends AbstractTreeIndex {
             interiorFrame.setPage(frontier.page);
 
             ITupleReference tuple = splitKey.getTuple();
-            int spaceNeeded = tupleWriter.bytesRequired(tuple, 0, cmp.getKeyFieldCount()) + slotSize + 4;
+            int spaceNeeded = tupleWriter.bytesRequired(tuple, 0, cmp.getKeyFieldCount())
+                    + interiorFrame.getSlotSize() + 4;
             int spaceUsed = interiorFrame.getBuffer().capacity() - interiorFrame.getTotalFreeSpace();
             if (spaceUsed + spaceNeeded > interiorMaxBytes) {
 
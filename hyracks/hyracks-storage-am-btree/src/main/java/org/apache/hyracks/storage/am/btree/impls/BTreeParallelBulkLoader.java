@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.storage.am.btree.impls;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.TreeIndexException;
+import org.apache.hyracks.storage.am.common.impls.NodeFrontier;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Bulk loads sorted input like {@link BTree.BTreeBulkLoader}, but writes the leaves on the threads of an executor.
+ * The adding thread assigns the tuples to leaves and builds the interior levels exactly as the sequential loader
+ * does, allocating the same pages in the same order, so both build the same file. It copies the tuples of the leaf
+ * being filled into a buffer of one page, and hands every full leaf to a task that formats it into its page.
+ * At most maxBufferedPages buffers exist; when all of them are in use, add() waits for a task to return one.
+ * The first and the last leaf are written by the adding thread, which keeps the first leaf latched until end()
+ * like the sequential loader keeps the leaf it fills.
+ */
+public class BTreeParallelBulkLoader extends BTree.BTreeBulkLoader {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final BTree btree;
+    private final int maxBufferedPages;
+    private final Executor executor;
+    private final int emptyLeafBytes;
+    private final Deque<LeafBuffer> freeBuffers = new ArrayDeque<LeafBuffer>();
+    private int numBuffers;
+    private int numWriting;
+    private volatile Throwable failure;
+
+    // The leaf being filled, the bytes it takes and whether it is the first leaf.
+    private LeafBuffer leaf;
+    private int spaceUsed;
+    private boolean firstLeaf = true;
+
+    BTreeParallelBulkLoader(BTree btree, float fillFactor, boolean verifyInput, int maxBufferedPages,
+            Executor executor) throws TreeIndexException, HyracksDataException {
+        btree.super(fillFactor, verifyInput);
+        this.btree = btree;
+        this.maxBufferedPages = maxBufferedPages;
+        this.executor = executor;
+        emptyLeafBytes = leafFrame.getBuffer().capacity() - leafFrame.getTotalFreeSpace();
+        spaceUsed = emptyLeafBytes;
+        numBuffers = 1;
+        leaf = new LeafBuffer();
+    }
+
+    @Override
+    public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+        try {
+            checkFailure();
+            int tupleSize = Math.max(leafFrame.getBytesRequriedToWriteTuple(tuple),
+                    interiorFrame.getBytesRequriedToWriteTuple(tuple));
+            if (tupleSize > btree.getMaxTupleSize()) {
+                throw new TreeIndexException("Space required for record (" + tupleSize
+                        + ") larger than maximum acceptable size (" + btree.getMaxTupleSize() + ")");
+            }
+
+            NodeFrontier leafFrontier = nodeFrontiers.get(0);
+            int tupleBytes = tupleWriter.bytesRequired(tuple);
+            int spaceNeeded = tupleBytes + slotSize;
+            if (spaceUsed + spaceNeeded > leafMaxBytes && leaf.tupleCount > 0) {
+                if (verifyInput) {
+                    verifyInputTuple(tuple, leafFrontier.lastTuple);
+                }
+                int splitKeySize = tupleWriter.bytesRequired(leafFrontier.lastTuple, 0, cmp.getKeyFieldCount());
+                splitKey.initData(splitKeySize);
+                tupleWriter.writeTupleFields(leafFrontier.lastTuple, 0, cmp.getKeyFieldCount(), splitKey
+                        .getBuffer().array(), 0);
+                splitKey.getTuple().resetByTupleOffset(splitKey.getBuffer(), 0);
+                splitKey.setLeftPage(leafFrontier.pageId);
+                int leafPageId = leafFrontier.pageId;
+                leafFrontier.pageId = btree.getFreePageManager().getFreePage(metaFrame);
+                if (firstLeaf) {
+                    // The first leaf is the page the loader keeps latched.
+                    leaf.writeTo(leafFrontier.page, leafFrontier.pageId);
+                    leaf.reset();
+                    firstLeaf = false;
+                } else {
+                    submit(leafPageId, leafFrontier.pageId);
+                }
+
+                splitKey.setRightPage(leafFrontier.pageId);
+                propagateBulk(1);
+
+                if (leaf == null) {
+                    leaf = takeBuffer();
+                }
+                spaceUsed = emptyLeafBytes;
+            } else if (verifyInput && leaf.tupleCount > 0) {
+                verifyInputTuple(tuple, leafFrontier.lastTuple);
+            }
+
+            leaf.append(tuple, tupleBytes);
+            leafFrontier.lastTuple.resetByTupleOffset(leaf.buffer, leaf.tupleOffsets[leaf.tupleCount - 1]);
+            spaceUsed += spaceNeeded;
+        } catch (IndexException e) {
+            handleException();
+            throw e;
+        } catch (HyracksDataException e) {
+            handleException();
+            throw e;
+        } catch (RuntimeException e) {
+            handleException();
+            throw e;
+        }
+    }
+
+    @Override
+    public void end() throws HyracksDataException {
+        try {
+            awaitWriters();
+            checkFailure();
+            NodeFrontier leafFrontier = nodeFrontiers.get(0);
+            if (!firstLeaf) {
+                // Swap the first leaf, which is written, for the last one, which end() turns into the root
+                // when the tree has a single level.
+                IBufferCache bufferCache = btree.getBufferCache();
+                ICachedPage lastPage = bufferCache.pin(
+                        BufferedFileHandle.getDiskPageId(btree.getFileId(), leafFrontier.pageId), true);
+                lastPage.acquireWriteLatch();
+                ICachedPage firstPage = leafFrontier.page;
+                leafFrontier.page = lastPage;
+                firstPage.releaseWriteLatch(true);
+                bufferCache.unpin(firstPage);
+            }
+            leaf.writeTo(leafFrontier.page, -1);
+        } catch (HyracksDataException e) {
+            handleException();
+            throw e;
+        } catch (RuntimeException e) {
+            handleException();
+            throw e;
+        }
+        super.end();
+    }
+
+    @Override
+    protected void handleException() throws HyracksDataException {
+        // The tasks write pages of this tree, so they must finish before the caller may drop it.
+        awaitWriters();
+        super.handleException();
+    }
+
+    private void submit(int pageId, int nextPageId) {
+        LeafWriter writer = new LeafWriter(leaf, pageId, nextPageId);
+        leaf = null;
+        synchronized (this) {
+            numWriting++;
+        }
+        try {
+            executor.execute(writer);
+        } catch (RuntimeException e) {
+            returnBuffer(writer.leaf);
+            throw e;
+        }
+    }
+
+    private synchronized LeafBuffer takeBuffer() throws HyracksDataException {
+        while (freeBuffers.isEmpty() && numBuffers >= maxBufferedPages && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HyracksDataException(e);
+            }
+        }
+        checkFailure();
+        if (!freeBuffers.isEmpty()) {
+            return freeBuffers.poll();
+        }
+        numBuffers++;
+        return new LeafBuffer();
+    }
+
+    private synchronized void returnBuffer(LeafBuffer buffer) {
+        buffer.reset();
+        freeBuffers.push(buffer);
+        numWriting--;
+        notifyAll();
+    }
+
+    private synchronized void fail(Throwable th) {
+        if (failure == null) {
+            failure = th;
+        }
+        notifyAll();
+    }
+
+    private void checkFailure() throws HyracksDataException {
+        Throwable th = failure;
+        if (th != null) {
+            throw new HyracksDataException(th);
+        }
+    }
+
+    /**
+     * Waits for the leaves that were handed to the executor, which a caller that drops the tree without ending or
+     * failing the load must do first. Every task writes a single page, so the wait is short, and it is not cut
+     * short by an interrupt because the pages must not be written after a failed load was cleaned up. The
+     * interrupt status is kept.
+     */
+    public synchronized void awaitWriters() {
+        boolean interrupted = false;
+        while (numWriting > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class LeafBuffer {
+        private final ByteBuffer buffer = ByteBuffer.allocate(btree.getBufferCache().getPageSize());
+        private final IBTreeLeafFrame frame = (IBTreeLeafFrame) btree.getLeafFrameFactory().createFrame();
+        private final ITreeIndexTupleReference tuple = frame.createTupleReference();
+        private int[] tupleOffsets = new int[INITIAL_CAPACITY];
+        private int tupleCount;
+        private int size;
+
+        private LeafBuffer() {
+            frame.setMultiComparator(MultiComparator.create(btree.getComparatorFactories()));
+        }
+
+        private void append(ITupleReference t, int tupleBytes) {
+            if (tupleCount == tupleOffsets.length) {
+                tupleOffsets = Arrays.copyOf(tupleOffsets, tupleCount * 2);
+            }
+            tupleWriter.writeTuple(t, buffer.array(), size);
+            tupleOffsets[tupleCount++] = size;
+            size += tupleBytes;
+        }
+
+        private void writeTo(ICachedPage page, int nextPageId) throws HyracksDataException {
+            frame.setPage(page);
+            frame.initBuffer((byte) 0);
+            for (int i = 0; i < tupleCount; i++) {
+                tuple.resetByTupleOffset(buffer, tupleOffsets[i]);
+                frame.insertSorted(tuple);
+            }
+            if (nextPageId >= 0) {
+                frame.setNextLeaf(nextPageId);
+            }
+        }
+
+        private void reset() {
+            tupleCount = 0;
+            size = 0;
+        }
+    }
+
+    private class LeafWriter implements Runnable {
+        private final LeafBuffer leaf;
+        private final int pageId;
+        private final int nextPageId;
+
+        private LeafWriter(LeafBuffer leaf, int pageId, int nextPageId) {
+            this.leaf = leaf;
+            this.pageId = pageId;
+            this.nextPageId = nextPageId;
+        }
+
+        @Override
+        public void run() {
+            try {
+                IBufferCache bufferCache = btree.getBufferCache();
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(btree.getFileId(), pageId),
+                        true);
+                page.acquireWriteLatch();
+                try {
+                    leaf.writeTo(page, nextPageId);
+                } finally {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpin(page);
+                }
+            } catch (Throwable th) {
+                fail(th);
+            } finally {
+                returnBuffer(leaf);
+            }
+        }
+    }
+}
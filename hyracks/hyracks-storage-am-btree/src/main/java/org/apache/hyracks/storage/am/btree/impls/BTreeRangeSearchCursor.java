@@ -261,8 +261,39 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         page = initialState.getPage();
         isPageDirty = false;
         frame.setPage(page);
+        setPredicate((RangePredicate) searchPred);
+    }
+
+    /**
+     * Repositions an open cursor on a new predicate without descending the tree. This is only done if the low key
+     * sorts after the first and not after the last tuple of the current leaf, so that no qualifying tuple precedes the
+     * leaf and the first one, if any, is in it.
+     *
+     * @return true if the cursor was repositioned, false if the caller has to search the index instead
+     */
+    public boolean reopenInCurrentLeaf(RangePredicate searchPred) throws HyracksDataException {
+        if (page == null || exclusiveLatchNodes || searchPred.getLowKey() == null) {
+            return false;
+        }
+        int tupleCount = frame.getTupleCount();
+        if (tupleCount == 0) {
+            return false;
+        }
+        MultiComparator cmp = searchPred.getLowKeyComparator();
+        frameTuple.resetByTupleIndex(frame, 0);
+        if (cmp.compare(searchPred.getLowKey(), frameTuple) <= 0) {
+            return false;
+        }
+        frameTuple.resetByTupleIndex(frame, tupleCount - 1);
+        if (cmp.compare(searchPred.getLowKey(), frameTuple) > 0) {
+            return false;
+        }
+        setPredicate(searchPred);
+        return true;
+    }
 
-        pred = (RangePredicate) searchPred;
+    private void setPredicate(RangePredicate searchPred) throws HyracksDataException {
+        pred = searchPred;
         lowKeyCmp = pred.getLowKeyComparator();
         highKeyCmp = pred.getHighKeyComparator();
         lowKey = pred.getLowKey();
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.common.api;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+
+/**
+ * An index accessor that can answer a batch of exact-match searches as one search operation, typically the primary
+ * key lookups that follow a secondary index search.
+ */
+public interface IBatchPointSearchAccessor extends IIndexAccessor {
+    /**
+     * Looks up each of the given keys. The index state a batch sees is fixed when the batch starts, and index
+     * structures are walked in key order across keys, so the batch is cheapest when the keys are sorted. Unsorted or
+     * duplicate keys are still answered correctly.
+     * 
+     * @param keys
+     *            - full index keys
+     * @param numKeys
+     *            - the number of keys of the array to look up
+     * @param consumer
+     *            - is passed the result of each key, in the order of the keys
+     * @throws HyracksDataException
+     *             If the BufferCache throws while un/pinning or un/latching.
+     * @throws IndexException
+     */
+    public void batchPointSearch(ITupleReference[] keys, int numKeys, IBatchPointSearchConsumer consumer)
+            throws HyracksDataException, IndexException;
+}
@@ -72,8 +72,20 @@ public abstract class IndexSearchOperatorNodePushable extends AbstractUnaryInput
     protected PermutingFrameTupleReference minFilterKey;
     protected PermutingFrameTupleReference maxFilterKey;
 
+    protected final int[] projectedFields;
+
     public IndexSearchOperatorNodePushable(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
             IRecordDescriptorProvider recordDescProvider, int[] minFilterFieldIndexes, int[] maxFilterFieldIndexes) {
+        this(opDesc, ctx, partition, recordDescProvider, minFilterFieldIndexes, maxFilterFieldIndexes, null);
+    }
+
+    /**
+     * @param projectedFields
+     *            - the index fields written for each result, in output order; null writes all of them
+     */
+    public IndexSearchOperatorNodePushable(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
+            IRecordDescriptorProvider recordDescProvider, int[] minFilterFieldIndexes, int[] maxFilterFieldIndexes,
+            int[] projectedFields) {
         this.opDesc = opDesc;
         this.ctx = ctx;
         this.indexHelper = opDesc.getIndexDataflowHelperFactory().createIndexDataflowHelper(opDesc, ctx, partition);
@@ -93,6 +105,7 @@ public abstract class IndexSearchOperatorNodePushable extends AbstractUnaryInput
             maxFilterKey = new PermutingFrameTupleReference();
             maxFilterKey.setFieldPermutation(maxFilterFieldIndexes);
         }
+        this.projectedFields = projectedFields;
     }
 
     protected abstract ISearchPredicate createSearchPredicate();
@@ -113,7 +126,7 @@ public abstract class IndexSearchOperatorNodePushable extends AbstractUnaryInput
         index = indexHelper.getIndexInstance();
 
         if (retainNull) {
-            int fieldCount = getFieldCount();
+            int fieldCount = projectedFields != null ? projectedFields.length : getFieldCount();
             nullTupleBuild = new ArrayTupleBuilder(fieldCount);
             DataOutput out = nullTupleBuild.getDataOutput();
             for (int i = 0; i < fieldCount; i++) {
@@ -150,28 +163,42 @@ public abstract class IndexSearchOperatorNodePushable extends AbstractUnaryInput
         boolean matched = false;
         while (cursor.hasNext()) {
             matched = true;
-            tb.reset();
             cursor.next();
-            if (retainInput) {
-                frameTuple.reset(accessor, tupleIndex);
-                for (int i = 0; i < frameTuple.getFieldCount(); i++) {
-                    dos.write(frameTuple.getFieldData(i), frameTuple.getFieldStart(i), frameTuple.getFieldLength(i));
-                    tb.addFieldEndOffset();
-                }
+            writeSearchResult(tupleIndex, cursor.getTuple());
+        }
+
+        if (!matched && retainInput && retainNull) {
+            writeNullResult(tupleIndex);
+        }
+    }
+
+    protected void writeSearchResult(int tupleIndex, ITupleReference tuple) throws IOException {
+        tb.reset();
+        if (retainInput) {
+            frameTuple.reset(accessor, tupleIndex);
+            for (int i = 0; i < frameTuple.getFieldCount(); i++) {
+                dos.write(frameTuple.getFieldData(i), frameTuple.getFieldStart(i), frameTuple.getFieldLength(i));
+                tb.addFieldEndOffset();
+            }
+        }
+        if (projectedFields != null) {
+            for (int i = 0; i < projectedFields.length; i++) {
+                int f = projectedFields[i];
+                dos.write(tuple.getFieldData(f), tuple.getFieldStart(f), tuple.getFieldLength(f));
+                tb.addFieldEndOffset();
             }
-            ITupleReference tuple = cursor.getTuple();
+        } else {
             for (int i = 0; i < tuple.getFieldCount(); i++) {
                 dos.write(tuple.getFieldData(i), tuple.getFieldStart(i), tuple.getFieldLength(i));
                 tb.addFieldEndOffset();
             }
-            FrameUtils.appendToWriter(writer, appender, tb.getFieldEndOffsets(), tb.getByteArray(), 0,
-                    tb.getSize());
         }
+        FrameUtils.appendToWriter(writer, appender, tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize());
+    }
 
-        if (!matched && retainInput && retainNull) {
-            FrameUtils.appendConcatToWriter(writer, appender, accessor, tupleIndex,
-                    nullTupleBuild.getFieldEndOffsets(), nullTupleBuild.getByteArray(), 0, nullTupleBuild.getSize());
-        }
+    protected void writeNullResult(int tupleIndex) throws HyracksDataException {
+        FrameUtils.appendConcatToWriter(writer, appender, accessor, tupleIndex, nullTupleBuild.getFieldEndOffsets(),
+                nullTupleBuild.getByteArray(), 0, nullTupleBuild.getSize());
     }
 
     @Override
@@ -27,9 +27,17 @@ public abstract class AbstractSlotManager implements ISlotManager {
 	protected final int GREATEST_KEY_INDICATOR = -1;
     protected final int ERROR_INDICATOR = -2;
 	
-	protected static final int slotSize = 4;
+	protected final int slotSize;
 	protected ITreeIndexFrame frame;
 
+	public AbstractSlotManager() {
+		this(4);
+	}
+
+	protected AbstractSlotManager(int slotSize) {
+		this.slotSize = slotSize;
+	}
+
 	@Override
 	public int getTupleOff(int offset) {
 		return frame.getBuffer().getInt(offset);
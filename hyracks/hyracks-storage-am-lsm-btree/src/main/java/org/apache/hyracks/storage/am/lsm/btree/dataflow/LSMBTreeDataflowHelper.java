@@ -23,11 +23,13 @@ import java.util.List;
 
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.api.dataflow.value.ITypeTraits;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.dataflow.AbstractTreeIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
 import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallbackFactory;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
@@ -40,6 +42,12 @@ public class LSMBTreeDataflowHelper extends AbstractLSMIndexDataflowHelper {
 
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
+    private int mergeParallelism = 1;
+    private boolean skipListMemoryComponents = false;
+    private boolean blockedBloomFilters = false;
+    private INormalizedKeyComputerFactory normalizedKeyComputerFactory = null;
+    private int bulkLoadParallelism = 1;
+    private int bulkLoadBufferPages = 1;
 
     public LSMBTreeDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx, int partition,
             List<IVirtualBufferCache> virtualBufferCaches, ILSMMergePolicy mergePolicy,
@@ -64,14 +72,40 @@ public class LSMBTreeDataflowHelper extends AbstractLSMIndexDataflowHelper {
         this.btreeFields = btreeFields;
     }
 
+    public void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
+    }
+
+    public void setSkipListMemoryComponents(boolean skipListMemoryComponents) {
+        this.skipListMemoryComponents = skipListMemoryComponents;
+    }
+
+    public void setBlockedBloomFilters(boolean blockedBloomFilters) {
+        this.blockedBloomFilters = blockedBloomFilters;
+    }
+
+    public void setNormalizedKeyComputerFactory(INormalizedKeyComputerFactory normalizedKeyComputerFactory) {
+        this.normalizedKeyComputerFactory = normalizedKeyComputerFactory;
+    }
+
+    public void setBulkLoadParallelism(int bulkLoadParallelism, int bulkLoadBufferPages) {
+        this.bulkLoadParallelism = bulkLoadParallelism;
+        this.bulkLoadBufferPages = bulkLoadBufferPages;
+    }
+
     @Override
     public ITreeIndex createIndexInstance() throws HyracksDataException {
         AbstractTreeIndexOperatorDescriptor treeOpDesc = (AbstractTreeIndexOperatorDescriptor) opDesc;
-        return LSMBTreeUtils.createLSMTree(virtualBufferCaches, file, opDesc.getStorageManager().getBufferCache(ctx),
-                opDesc.getStorageManager().getFileMapProvider(ctx), treeOpDesc.getTreeIndexTypeTraits(),
+        LSMBTree lsmBTree = LSMBTreeUtils.createLSMTree(virtualBufferCaches, file, opDesc.getStorageManager()
+                .getBufferCache(ctx), opDesc.getStorageManager().getFileMapProvider(ctx), treeOpDesc.getTreeIndexTypeTraits(),
                 treeOpDesc.getTreeIndexComparatorFactories(), treeOpDesc.getTreeIndexBloomFilterKeyFields(),
                 bloomFilterFalsePositiveRate, mergePolicy, opTrackerFactory.getOperationTracker(ctx), ioScheduler,
                 ioOpCallbackFactory.createIOOperationCallback(), needKeyDupCheck, filterTypeTraits, filterCmpFactories,
-                btreeFields, filterFields, durable);
+                btreeFields, filterFields, durable, skipListMemoryComponents, blockedBloomFilters,
+                normalizedKeyComputerFactory);
+        lsmBTree.setMergeParallelism(mergeParallelism);
+        lsmBTree.setBulkLoadParallelism(bulkLoadParallelism, bulkLoadBufferPages);
+        lsmBTree.setThreadFactory(ctx.getJobletContext().getApplicationContext().getThreadFactory());
+        return lsmBTree;
     }
 }
@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import org.apache.hyracks.api.dataflow.value.ITypeTraits;
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IndexDataflowHelper;
@@ -38,6 +39,12 @@ public class LSMBTreeDataflowHelperFactory extends AbstractLSMIndexDataflowHelpe
     private static final long serialVersionUID = 1L;
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
+    private final int mergeParallelism;
+    private final boolean skipListMemoryComponents;
+    private final boolean blockedBloomFilters;
+    private final INormalizedKeyComputerFactory normalizedKeyComputerFactory;
+    private final int bulkLoadParallelism;
+    private final int bulkLoadBufferPages;
 
     public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
             ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
@@ -45,20 +52,140 @@ public class LSMBTreeDataflowHelperFactory extends AbstractLSMIndexDataflowHelpe
             ILSMIOOperationCallbackFactory ioOpCallbackFactory, double bloomFilterFalsePositiveRate,
             boolean needKeyDupCheck, ITypeTraits[] filterTypeTraits, IBinaryComparatorFactory[] filterCmpFactories,
             int[] btreeFields, int[] filterFields, boolean durable) {
+        this(virtualBufferCacheProvider, mergePolicyFactory, mergePolicyProperties, opTrackerFactory,
+                ioSchedulerProvider, ioOpCallbackFactory, bloomFilterFalsePositiveRate, needKeyDupCheck,
+                filterTypeTraits, filterCmpFactories, btreeFields, filterFields, durable, 1);
+    }
+
+    /**
+     * @param mergeParallelism
+     *            - the number of key-range slices a merge is split into; 1 merges sequentially
+     */
+    public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
+            ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
+            ILSMOperationTrackerProvider opTrackerFactory, ILSMIOOperationSchedulerProvider ioSchedulerProvider,
+            ILSMIOOperationCallbackFactory ioOpCallbackFactory, double bloomFilterFalsePositiveRate,
+            boolean needKeyDupCheck, ITypeTraits[] filterTypeTraits, IBinaryComparatorFactory[] filterCmpFactories,
+            int[] btreeFields, int[] filterFields, boolean durable, int mergeParallelism) {
+        this(virtualBufferCacheProvider, mergePolicyFactory, mergePolicyProperties, opTrackerFactory,
+                ioSchedulerProvider, ioOpCallbackFactory, bloomFilterFalsePositiveRate, needKeyDupCheck,
+                filterTypeTraits, filterCmpFactories, btreeFields, filterFields, durable, mergeParallelism, false);
+    }
+
+    /**
+     * @param mergeParallelism
+     *            - the number of key-range slices a merge is split into; 1 merges sequentially
+     * @param skipListMemoryComponents
+     *            - whether the memory components are lock-free skip lists instead of BTrees
+     */
+    public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
+            ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
+            ILSMOperationTrackerProvider opTrackerFactory, ILSMIOOperationSchedulerProvider ioSchedulerProvider,
+            ILSMIOOperationCallbackFactory ioOpCallbackFactory, double bloomFilterFalsePositiveRate,
+            boolean needKeyDupCheck, ITypeTraits[] filterTypeTraits, IBinaryComparatorFactory[] filterCmpFactories,
+            int[] btreeFields, int[] filterFields, boolean durable, int mergeParallelism,
+            boolean skipListMemoryComponents) {
+        this(virtualBufferCacheProvider, mergePolicyFactory, mergePolicyProperties, opTrackerFactory,
+                ioSchedulerProvider, ioOpCallbackFactory, bloomFilterFalsePositiveRate, needKeyDupCheck,
+                filterTypeTraits, filterCmpFactories, btreeFields, filterFields, durable, mergeParallelism,
+                skipListMemoryComponents, false);
+    }
+
+    /**
+     * @param mergeParallelism
+     *            - the number of key-range slices a merge is split into; 1 merges sequentially
+     * @param skipListMemoryComponents
+     *            - whether the memory components are lock-free skip lists instead of BTrees
+     * @param blockedBloomFilters
+     *            - whether the bloom filters of new disk components keep all bits of a key in one cache line
+     */
+    public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
+            ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
+            ILSMOperationTrackerProvider opTrackerFactory, ILSMIOOperationSchedulerProvider ioSchedulerProvider,
+            ILSMIOOperationCallbackFactory ioOpCallbackFactory, double bloomFilterFalsePositiveRate,
+            boolean needKeyDupCheck, ITypeTraits[] filterTypeTraits, IBinaryComparatorFactory[] filterCmpFactories,
+            int[] btreeFields, int[] filterFields, boolean durable, int mergeParallelism,
+            boolean skipListMemoryComponents, boolean blockedBloomFilters) {
+        this(virtualBufferCacheProvider, mergePolicyFactory, mergePolicyProperties, opTrackerFactory,
+                ioSchedulerProvider, ioOpCallbackFactory, bloomFilterFalsePositiveRate, needKeyDupCheck,
+                filterTypeTraits, filterCmpFactories, btreeFields, filterFields, durable, mergeParallelism,
+                skipListMemoryComponents, blockedBloomFilters, null);
+    }
+
+    /**
+     * @param mergeParallelism
+     *            - the number of key-range slices a merge is split into; 1 merges sequentially
+     * @param skipListMemoryComponents
+     *            - whether the memory components are lock-free skip lists instead of BTrees
+     * @param blockedBloomFilters
+     *            - whether the bloom filters of new disk components keep all bits of a key in one cache line
+     * @param normalizedKeyComputerFactory
+     *            - the normalized keys of the first key field that the interior frames keep in their slots, or null
+     */
+    public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
+            ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
+            ILSMOperationTrackerProvider opTrackerFactory, ILSMIOOperationSchedulerProvider ioSchedulerProvider,
+            ILSMIOOperationCallbackFactory ioOpCallbackFactory, double bloomFilterFalsePositiveRate,
+            boolean needKeyDupCheck, ITypeTraits[] filterTypeTraits, IBinaryComparatorFactory[] filterCmpFactories,
+            int[] btreeFields, int[] filterFields, boolean durable, int mergeParallelism,
+            boolean skipListMemoryComponents, boolean blockedBloomFilters,
+            INormalizedKeyComputerFactory normalizedKeyComputerFactory) {
+        this(virtualBufferCacheProvider, mergePolicyFactory, mergePolicyProperties, opTrackerFactory,
+                ioSchedulerProvider, ioOpCallbackFactory, bloomFilterFalsePositiveRate, needKeyDupCheck,
+                filterTypeTraits, filterCmpFactories, btreeFields, filterFields, durable, mergeParallelism,
+                skipListMemoryComponents, blockedBloomFilters, normalizedKeyComputerFactory, 1, 1);
+    }
+
+    /**
+     * @param mergeParallelism
+     *            - the number of key-range slices a merge is split into; 1 merges sequentially
+     * @param skipListMemoryComponents
+     *            - whether the memory components are lock-free skip lists instead of BTrees
+     * @param blockedBloomFilters
+     *            - whether the bloom filters of new disk components keep all bits of a key in one cache line
+     * @param normalizedKeyComputerFactory
+     *            - the normalized keys of the first key field that the interior frames keep in their slots, or null
+     * @param bulkLoadParallelism
+     *            - the number of threads writing the leaves of flushed, merged and bulk loaded components; 1 writes
+     *            them on the loading thread
+     * @param bulkLoadBufferPages
+     *            - the number of leaves a load holds in memory before it waits for them to be written
+     */
+    public LSMBTreeDataflowHelperFactory(IVirtualBufferCacheProvider virtualBufferCacheProvider,
+            ILSMMergePolicyFactory mergePolicyFactory, Map<String, String> mergePolicyProperties,
+            ILSMOperationTrackerProvider opTrackerFactory, ILSMIOOperationSchedulerProvider ioSchedulerProvider,
+            ILSMIOOperationCallbackFactory ioOpCallbackFactory, double bloomFilterFalsePositiveRate,
+            boolean needKeyDupCheck, ITypeTraits[] filterTypeTraits, IBinaryComparatorFactory[] filterCmpFactories,
+            int[] btreeFields, int[] filterFields, boolean durable, int mergeParallelism,
+            boolean skipListMemoryComponents, boolean blockedBloomFilters,
+            INormalizedKeyComputerFactory normalizedKeyComputerFactory, int bulkLoadParallelism,
+            int bulkLoadBufferPages) {
         super(virtualBufferCacheProvider, mergePolicyFactory, mergePolicyProperties, opTrackerFactory,
                 ioSchedulerProvider, ioOpCallbackFactory, bloomFilterFalsePositiveRate, filterTypeTraits,
                 filterCmpFactories, filterFields, durable);
         this.needKeyDupCheck = needKeyDupCheck;
         this.btreeFields = btreeFields;
+        this.mergeParallelism = mergeParallelism;
+        this.skipListMemoryComponents = skipListMemoryComponents;
+        this.blockedBloomFilters = blockedBloomFilters;
+        this.normalizedKeyComputerFactory = normalizedKeyComputerFactory;
+        this.bulkLoadParallelism = bulkLoadParallelism;
+        this.bulkLoadBufferPages = bulkLoadBufferPages;
     }
 
     @Override
     public IndexDataflowHelper createIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition) {
-        return new LSMBTreeDataflowHelper(opDesc, ctx, partition,
+        LSMBTreeDataflowHelper helper = new LSMBTreeDataflowHelper(opDesc, ctx, partition,
                 virtualBufferCacheProvider.getVirtualBufferCaches(ctx), bloomFilterFalsePositiveRate,
                 mergePolicyFactory.createMergePolicy(mergePolicyProperties, ctx), opTrackerFactory,
                 ioSchedulerProvider.getIOScheduler(ctx), ioOpCallbackFactory, needKeyDupCheck, filterTypeTraits,
                 filterCmpFactories, btreeFields, filterFields, durable);
+        helper.setMergeParallelism(mergeParallelism);
+        helper.setSkipListMemoryComponents(skipListMemoryComponents);
+        helper.setBlockedBloomFilters(blockedBloomFilters);
+        helper.setNormalizedKeyComputerFactory(normalizedKeyComputerFactory);
+        helper.setBulkLoadParallelism(bulkLoadParallelism, bulkLoadBufferPages);
+        return helper;
     }
 }
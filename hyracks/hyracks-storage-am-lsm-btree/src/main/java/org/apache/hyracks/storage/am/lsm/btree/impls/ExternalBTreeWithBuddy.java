@@ -73,6 +73,12 @@ import org.apache.hyracks.storage.am.lsm.common.impls.TreeIndexFactory;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
 import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
+/**
+ * A disk-only LSM BTree whose deleted keys are kept in a buddy BTree of each component, used for external data.
+ * Included (non-key) fields are not supported: the buddy BTree holds only the key fields, and {@link #getFieldCount()}
+ * reports the key fields, which the external search and lookup operators rely on to size their tuples. Covering
+ * searches with included fields use a plain LSM BTree instead.
+ */
 public class ExternalBTreeWithBuddy extends AbstractLSMIndex implements ITreeIndex, ITwoPCIndex {
 
     // For creating merge disk components
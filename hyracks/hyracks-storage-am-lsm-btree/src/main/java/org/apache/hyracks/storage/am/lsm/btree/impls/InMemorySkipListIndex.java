@@ -0,0 +1,574 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.api.IBTreeAccessor;
+import org.apache.hyracks.storage.am.btree.api.ITupleAcceptor;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.btree.impls.UnconditionalTupleAcceptor;
+import org.apache.hyracks.storage.am.common.api.IFreePageManager;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.IModificationOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriter;
+import org.apache.hyracks.storage.am.common.api.TreeIndexException;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexDuplicateKeyException;
+import org.apache.hyracks.storage.am.common.exceptions.TreeIndexNonExistentKeyException;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+import org.apache.hyracks.storage.common.file.IFileMapProvider;
+
+/**
+ * A lock-free skip list that can replace the BTree of an LSM BTree memory component.
+ * Tuples are written with the tuple writer of the leaf frames into pages of the virtual buffer cache, so the memory
+ * budget and the "component is full" accounting are the same as for the BTree. Space is handed out by bumping an
+ * atomic page/offset pointer; only moving to the next page takes a lock. The skip list nodes live on the Java heap and
+ * point at their tuple through a page/offset pair.
+ * Nodes are never unlinked: replacing the tuple of a key swaps the pointer of its node, and a physical delete sets a
+ * flag on the pointer which makes readers skip the node until the key is inserted again. Therefore inserts and upserts
+ * only need compare-and-swap operations and readers never wait.
+ * Tuples must fit into a single page. Space is only reclaimed as a whole by {@link #clear()} or {@link #destroy()}.
+ */
+public class InMemorySkipListIndex implements ITreeIndex {
+
+    private static final int MAX_LEVEL = 24;
+    // Marks the tuple of a node as physically deleted. The remaining bits still locate the (stale) key.
+    private static final long DELETED = Long.MIN_VALUE;
+    private static final long NO_PAGE = -1L << 32;
+
+    private static final AtomicLongFieldUpdater<Node> TUPLE_UPDATER = AtomicLongFieldUpdater.newUpdater(Node.class,
+            "tuple");
+
+    private final IVirtualBufferCache virtualBufferCache;
+    private final IFileMapProvider fileMapProvider;
+    private final ITreeIndexFrameFactory interiorFrameFactory;
+    private final ITreeIndexFrameFactory leafFrameFactory;
+    private final IBinaryComparatorFactory[] cmpFactories;
+    private final int fieldCount;
+    private final FileReference file;
+    private final int pageSize;
+
+    private final Object pageAllocationLock = new Object();
+    // Buffers of the pages handed out so far; only grows (copy on write) while the index is active.
+    private volatile ByteBuffer[] pages;
+    // Page index (upper 32 bits) and offset (lower 32 bits) of the next free byte.
+    private final AtomicLong nextFree;
+    private final AtomicLong numElements;
+    private volatile Node head;
+    private int fileId = -1;
+    private boolean isActivated = false;
+
+    public InMemorySkipListIndex(IVirtualBufferCache virtualBufferCache, IFileMapProvider fileMapProvider,
+            ITreeIndexFrameFactory interiorFrameFactory, ITreeIndexFrameFactory leafFrameFactory,
+            IBinaryComparatorFactory[] cmpFactories, int fieldCount, FileReference file) {
+        this.virtualBufferCache = virtualBufferCache;
+        this.fileMapProvider = fileMapProvider;
+        this.interiorFrameFactory = interiorFrameFactory;
+        this.leafFrameFactory = leafFrameFactory;
+        this.cmpFactories = cmpFactories;
+        this.fieldCount = fieldCount;
+        this.file = file;
+        this.pageSize = virtualBufferCache.getPageSize();
+        this.pages = new ByteBuffer[0];
+        this.nextFree = new AtomicLong(NO_PAGE);
+        this.numElements = new AtomicLong();
+        this.head = new Node(DELETED, MAX_LEVEL);
+    }
+
+    @Override
+    public synchronized void create() throws HyracksDataException {
+        if (isActivated) {
+            throw new HyracksDataException("Failed to create the index since it is activated.");
+        }
+        synchronized (fileMapProvider) {
+            if (!fileMapProvider.isMapped(file)) {
+                virtualBufferCache.createFile(file);
+            }
+            fileId = fileMapProvider.lookupFileId(file);
+        }
+    }
+
+    @Override
+    public synchronized void activate() throws HyracksDataException {
+        if (isActivated) {
+            throw new HyracksDataException("Failed to activate the index since it is already activated.");
+        }
+        synchronized (fileMapProvider) {
+            if (!fileMapProvider.isMapped(file)) {
+                virtualBufferCache.createFile(file);
+            }
+            fileId = fileMapProvider.lookupFileId(file);
+        }
+        initEmptyList();
+        isActivated = true;
+    }
+
+    @Override
+    public synchronized void clear() throws HyracksDataException {
+        if (!isActivated) {
+            throw new HyracksDataException("Failed to clear the index since it is not activated.");
+        }
+        // The pages stay pinned and are reused from the start.
+        initEmptyList();
+    }
+
+    @Override
+    public synchronized void deactivate() throws HyracksDataException {
+        if (!isActivated) {
+            throw new HyracksDataException("Failed to deactivate the index since it is already deactivated.");
+        }
+        isActivated = false;
+    }
+
+    @Override
+    public synchronized void destroy() throws HyracksDataException {
+        if (isActivated) {
+            throw new HyracksDataException("Failed to destroy the index since it is activated.");
+        }
+        if (fileId == -1) {
+            return;
+        }
+        virtualBufferCache.deleteFile(fileId, false);
+        pages = new ByteBuffer[0];
+        fileId = -1;
+    }
+
+    private void initEmptyList() {
+        head = new Node(DELETED, MAX_LEVEL);
+        nextFree.set(NO_PAGE);
+        numElements.set(0);
+    }
+
+    /**
+     * @return the number of keys with a live (matter or antimatter) tuple
+     */
+    public long getNumElements() {
+        return numElements.get();
+    }
+
+    @Override
+    public SkipListAccessor createAccessor(IModificationOperationCallback modificationCallback,
+            ISearchOperationCallback searchCallback) {
+        return new SkipListAccessor(modificationCallback);
+    }
+
+    @Override
+    public void validate() throws HyracksDataException {
+        MultiComparator cmp = MultiComparator.create(cmpFactories);
+        ITreeIndexTupleReference prevTuple = leafFrameFactory.createFrame().createTupleReference();
+        ITreeIndexTupleReference tuple = leafFrameFactory.createFrame().createTupleReference();
+        Node prev = null;
+        for (Node n = head.next(0); n != null; n = n.next(0)) {
+            if (prev != null) {
+                resetTuple(prevTuple, prev.tuple);
+                resetTuple(tuple, n.tuple);
+                if (cmp.compare(prevTuple, tuple) >= 0) {
+                    throw new HyracksDataException("Skip list keys are not in ascending order.");
+                }
+            }
+            prev = n;
+        }
+    }
+
+    @Override
+    public IBufferCache getBufferCache() {
+        return virtualBufferCache;
+    }
+
+    @Override
+    public long getMemoryAllocationSize() {
+        return 0;
+    }
+
+    @Override
+    public IIndexBulkLoader createBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint,
+            boolean checkIfEmptyIndex) {
+        throw new UnsupportedOperationException("Bulk load is not supported by the in-memory skip list.");
+    }
+
+    @Override
+    public boolean hasMemoryComponents() {
+        return true;
+    }
+
+    @Override
+    public ITreeIndexFrameFactory getLeafFrameFactory() {
+        return leafFrameFactory;
+    }
+
+    @Override
+    public ITreeIndexFrameFactory getInteriorFrameFactory() {
+        return interiorFrameFactory;
+    }
+
+    /**
+     * The skip list does not manage free pages, so null is returned.
+     */
+    @Override
+    public IFreePageManager getFreePageManager() {
+        return null;
+    }
+
+    @Override
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * The skip list has no root page; 0 is returned.
+     */
+    @Override
+    public int getRootPageId() {
+        return 0;
+    }
+
+    @Override
+    public int getFileId() {
+        return fileId;
+    }
+
+    @Override
+    public IBinaryComparatorFactory[] getComparatorFactories() {
+        return cmpFactories;
+    }
+
+    void resetTuple(ITreeIndexTupleReference tupleRef, long tuple) {
+        long location = tuple & ~DELETED;
+        tupleRef.resetByTupleOffset(pages[(int) (location >>> 32)], (int) location);
+    }
+
+    Node getHead() {
+        return head;
+    }
+
+    /**
+     * Returns the first node whose key is greater than (or, if inclusive, equal to) the given key.
+     */
+    Node findFirst(ITupleReference key, MultiComparator cmp, boolean inclusive, ITreeIndexTupleReference tupleRef)
+            throws HyracksDataException {
+        Node x = head;
+        Node n = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            n = x.next(level);
+            while (n != null) {
+                resetTuple(tupleRef, n.tuple);
+                int c = cmp.compare(key, tupleRef);
+                if (c < 0 || (c == 0 && inclusive)) {
+                    break;
+                }
+                x = n;
+                n = x.next(level);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Fills preds and succs with the nodes surrounding the given key on every level and returns whether succs[0] has
+     * the given key.
+     */
+    private boolean findNeighbors(ITupleReference key, MultiComparator cmp, ITreeIndexTupleReference tupleRef,
+            Node[] preds, Node[] succs) throws HyracksDataException {
+        Node x = head;
+        boolean found = false;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node n = x.next(level);
+            found = false;
+            while (n != null) {
+                resetTuple(tupleRef, n.tuple);
+                int c = cmp.compare(key, tupleRef);
+                if (c <= 0) {
+                    found = c == 0;
+                    break;
+                }
+                x = n;
+                n = x.next(level);
+            }
+            preds[level] = x;
+            succs[level] = n;
+        }
+        return found;
+    }
+
+    /**
+     * Reserves space for a tuple and returns its location.
+     */
+    private long allocate(int size) throws HyracksDataException {
+        if (size > pageSize) {
+            throw new HyracksDataException("Tuple of " + size + " bytes does not fit into a page of " + pageSize
+                    + " bytes.");
+        }
+        while (true) {
+            long free = nextFree.get();
+            int pageIndex = (int) (free >>> 32);
+            if (pageIndex >= 0 && (int) free + size <= pageSize) {
+                if (nextFree.compareAndSet(free, free + size)) {
+                    return free;
+                }
+                continue;
+            }
+            synchronized (pageAllocationLock) {
+                if (nextFree.get() != free) {
+                    continue;
+                }
+                int nextPageIndex = pageIndex + 1;
+                ByteBuffer[] currentPages = pages;
+                if (nextPageIndex == currentPages.length) {
+                    ICachedPage page = virtualBufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, nextPageIndex),
+                            true);
+                    // Virtual pages stay resident until the file is deleted.
+                    virtualBufferCache.unpin(page);
+                    ByteBuffer[] newPages = new ByteBuffer[nextPageIndex + 1];
+                    System.arraycopy(currentPages, 0, newPages, 0, currentPages.length);
+                    newPages[nextPageIndex] = page.getBuffer();
+                    pages = newPages;
+                }
+                long location = (long) nextPageIndex << 32;
+                nextFree.set(location + size);
+                return location;
+            }
+        }
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        int r = ThreadLocalRandom.current().nextInt();
+        // Each level is promoted with probability 1/4.
+        while (level < MAX_LEVEL && (r & 3) == 0) {
+            level++;
+            r >>>= 2;
+        }
+        return level;
+    }
+
+    static final class Node {
+        volatile long tuple;
+        private final AtomicReferenceArray<Node> next;
+
+        Node(long tuple, int level) {
+            this.tuple = tuple;
+            this.next = new AtomicReferenceArray<Node>(level);
+        }
+
+        Node next(int level) {
+            return level < next.length() ? next.get(level) : null;
+        }
+
+        boolean isDeleted() {
+            return tuple < 0;
+        }
+    }
+
+    public class SkipListAccessor implements IBTreeAccessor {
+        private final IModificationOperationCallback modificationCallback;
+        private final MultiComparator cmp;
+        private final ITreeIndexTupleReference tupleRef;
+        private final ITreeIndexTupleReference beforeTuple;
+        private final Node[] preds = new Node[MAX_LEVEL];
+        private final Node[] succs = new Node[MAX_LEVEL];
+        private ITreeIndexTupleWriter tupleWriter;
+        private long pendingTuple;
+
+        public SkipListAccessor(IModificationOperationCallback modificationCallback) {
+            this.modificationCallback = modificationCallback;
+            this.cmp = MultiComparator.create(cmpFactories);
+            this.tupleRef = leafFrameFactory.createFrame().createTupleReference();
+            this.beforeTuple = leafFrameFactory.createFrame().createTupleReference();
+            this.tupleWriter = leafFrameFactory.getTupleWriterFactory().createTupleWriter();
+        }
+
+        /**
+         * Sets the writer used for new tuples, e.g., to write antimatter tuples. Mirrors switching the leaf frame of a
+         * BTree op context.
+         */
+        public void setTupleWriter(ITreeIndexTupleWriter tupleWriter) {
+            this.tupleWriter = tupleWriter;
+        }
+
+        @Override
+        public void insert(ITupleReference tuple) throws HyracksDataException, TreeIndexException {
+            modificationCallback.before(tuple);
+            put(tuple, false);
+        }
+
+        @Override
+        public void update(ITupleReference tuple) throws HyracksDataException, TreeIndexException {
+            modificationCallback.before(tuple);
+            put(tuple, true);
+        }
+
+        @Override
+        public void upsert(ITupleReference tuple) throws HyracksDataException, TreeIndexException {
+            upsertIfConditionElseInsert(tuple, UnconditionalTupleAcceptor.INSTANCE);
+        }
+
+        @Override
+        public void upsertIfConditionElseInsert(ITupleReference tuple, ITupleAcceptor acceptor)
+                throws HyracksDataException, TreeIndexException {
+            modificationCallback.before(tuple);
+            pendingTuple = DELETED;
+            while (true) {
+                boolean found = findNeighbors(tuple, cmp, tupleRef, preds, succs);
+                long current = found ? succs[0].tuple : DELETED;
+                if (current >= 0) {
+                    resetTuple(beforeTuple, current);
+                    if (!acceptor.accept(beforeTuple)) {
+                        throw new TreeIndexDuplicateKeyException("Trying to insert duplicate key into leaf node.");
+                    }
+                }
+                if (found ? replace(succs[0], current, tuple) : link(tuple)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void delete(ITupleReference tuple) throws HyracksDataException, TreeIndexException {
+            modificationCallback.before(tuple);
+            while (true) {
+                boolean found = findNeighbors(tuple, cmp, tupleRef, preds, succs);
+                long current = found ? succs[0].tuple : DELETED;
+                if (current < 0) {
+                    throw new TreeIndexNonExistentKeyException(
+                            "Trying to delete a tuple with a nonexistent key in leaf node.");
+                }
+                if (TUPLE_UPDATER.compareAndSet(succs[0], current, current | DELETED)) {
+                    resetTuple(beforeTuple, current);
+                    modificationCallback.found(beforeTuple, tuple);
+                    numElements.decrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        private void put(ITupleReference tuple, boolean mustExist) throws HyracksDataException, TreeIndexException {
+            pendingTuple = DELETED;
+            while (true) {
+                boolean found = findNeighbors(tuple, cmp, tupleRef, preds, succs);
+                long current = found ? succs[0].tuple : DELETED;
+                if (current >= 0 && !mustExist) {
+                    throw new TreeIndexDuplicateKeyException("Trying to insert duplicate key into leaf node.");
+                }
+                if (current < 0 && mustExist) {
+                    throw new TreeIndexNonExistentKeyException(
+                            "Trying to update a tuple with a nonexistent key in leaf node.");
+                }
+                if (found ? replace(succs[0], current, tuple) : link(tuple)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Swaps the tuple of an existing node. Fails if the node changed since it was looked up.
+         */
+        private boolean replace(Node node, long expected, ITupleReference tuple) throws HyracksDataException {
+            if (!TUPLE_UPDATER.compareAndSet(node, expected, write(tuple))) {
+                return false;
+            }
+            if (expected >= 0) {
+                resetTuple(beforeTuple, expected);
+                modificationCallback.found(beforeTuple, tuple);
+            } else {
+                modificationCallback.found(null, tuple);
+                numElements.incrementAndGet();
+            }
+            return true;
+        }
+
+        /**
+         * Links a new node between preds and succs. Fails if the bottom level changed since the lookup.
+         */
+        private boolean link(ITupleReference tuple) throws HyracksDataException {
+            int level = randomLevel();
+            Node node = new Node(write(tuple), level);
+            for (int i = 0; i < level; i++) {
+                node.next.lazySet(i, succs[i]);
+            }
+            // The node is part of the list once it is linked on the bottom level.
+            if (!preds[0].next.compareAndSet(0, succs[0], node)) {
+                return false;
+            }
+            numElements.incrementAndGet();
+            modificationCallback.found(null, tuple);
+            for (int i = 1; i < level; i++) {
+                while (!preds[i].next.compareAndSet(i, succs[i], node)) {
+                    // Another node was linked next to the predecessor; search again for the upper levels.
+                    findNeighbors(tuple, cmp, tupleRef, preds, succs);
+                    node.next.set(i, succs[i]);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes the tuple of the current operation once; retries of the operation reuse its location.
+         */
+        private long write(ITupleReference tuple) throws HyracksDataException {
+            if (pendingTuple == DELETED) {
+                long location = allocate(tupleWriter.bytesRequired(tuple));
+                tupleWriter.writeTuple(tuple, pages[(int) (location >>> 32)], (int) location);
+                pendingTuple = location;
+            }
+            return pendingTuple;
+        }
+
+        @Override
+        public ITreeIndexCursor createSearchCursor(boolean exclusive) {
+            return new SkipListRangeSearchCursor(InMemorySkipListIndex.this);
+        }
+
+        @Override
+        public void search(IIndexCursor cursor, ISearchPredicate searchPred) throws HyracksDataException {
+            ((SkipListRangeSearchCursor) cursor).open(null, searchPred);
+        }
+
+        /**
+         * The skip list has no disk order; the scan returns the tuples in key order.
+         */
+        @Override
+        public ITreeIndexCursor createDiskOrderScanCursor() {
+            return createSearchCursor(false);
+        }
+
+        @Override
+        public void diskOrderScan(ITreeIndexCursor cursor) throws HyracksDataException {
+            search(cursor, new RangePredicate(null, null, true, true, null, null));
+        }
+    }
+}
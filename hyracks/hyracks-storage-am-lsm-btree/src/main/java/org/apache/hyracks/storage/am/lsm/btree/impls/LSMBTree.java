@@ -24,7 +24,10 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
@@ -37,8 +40,10 @@ import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeAccessor;
 import org.apache.hyracks.storage.am.btree.impls.BTree.BTreeBulkLoader;
-import org.apache.hyracks.storage.am.btree.impls.BTreeRangeSearchCursor;
+import org.apache.hyracks.storage.am.btree.impls.BTreeParallelBulkLoader;
 import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.IBatchPointSearchAccessor;
+import org.apache.hyracks.storage.am.common.api.IBatchPointSearchConsumer;
 import org.apache.hyracks.storage.am.common.api.IFreePageManager;
 import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
@@ -50,6 +55,7 @@ import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
 import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.common.api.TreeIndexException;
 import org.apache.hyracks.storage.am.common.exceptions.TreeIndexDuplicateKeyException;
@@ -59,6 +65,7 @@ import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.tuples.PermutingTupleReference;
 import org.apache.hyracks.storage.am.lsm.btree.tuples.LSMBTreeTupleReference;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMCardinalityEstimator;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentFilterFactory;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentFilterFrameFactory;
@@ -76,15 +83,19 @@ import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.am.lsm.common.freepage.VirtualFreePageManager;
 import org.apache.hyracks.storage.am.lsm.common.impls.AbstractLSMIndex;
 import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
+import org.apache.hyracks.storage.am.lsm.common.impls.HyperLogLog;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFileReferences;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentStatistics;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexThreadPools;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeThrottle;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMTreeIndexAccessor;
 import org.apache.hyracks.storage.am.lsm.common.impls.TreeIndexFactory;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
 import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
-public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
+public class LSMBTree extends AbstractLSMIndex implements ITreeIndex, ILSMCardinalityEstimator {
 
     // For creating BTree's used in flush and merge.
     protected final LSMBTreeDiskComponentFactory componentFactory;
@@ -100,6 +111,22 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
 
+    // Number of key-range slices a merge is split into; 1 merges sequentially.
+    private int mergeParallelism = 1;
+    // Runs the slices of all merges of this index, with at most mergeParallelism threads.
+    private ExecutorService mergeSliceExecutor;
+    // Whether range searches and merges combine the components with a tournament tree instead of a priority queue.
+    private volatile boolean useTournamentTree;
+    // Number of threads writing the leaves of flushed, merged and bulk loaded components; 1 writes them on the
+    // loading thread.
+    private int bulkLoadParallelism = 1;
+    // Leaves a load may hold in memory ahead of the written ones when bulkLoadParallelism is above 1.
+    private int bulkLoadBufferPages = 1;
+    // Writes the leaves of all loads of this index, with at most bulkLoadParallelism threads.
+    private ExecutorService bulkLoadExecutor;
+    // Creates the threads of the pools above; null uses daemon threads of their own.
+    private ThreadFactory threadFactory;
+
     public LSMBTree(List<IVirtualBufferCache> virtualBufferCaches, ITreeIndexFrameFactory interiorFrameFactory,
             ITreeIndexFrameFactory insertLeafFrameFactory, ITreeIndexFrameFactory deleteLeafFrameFactory,
             ILSMIndexFileManager fileManager, TreeIndexFactory<BTree> diskBTreeFactory,
@@ -110,17 +137,44 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
             ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker, ILSMIOOperationScheduler ioScheduler,
             ILSMIOOperationCallback ioOpCallback, boolean needKeyDupCheck, int[] btreeFields, int[] filterFields,
             boolean durable) {
+        this(virtualBufferCaches, interiorFrameFactory, insertLeafFrameFactory, deleteLeafFrameFactory, fileManager,
+                diskBTreeFactory, bulkLoadBTreeFactory, bloomFilterFactory, filterFactory, filterFrameFactory,
+                filterManager, bloomFilterFalsePositiveRate, diskFileMapProvider, fieldCount, cmpFactories,
+                mergePolicy, opTracker, ioScheduler, ioOpCallback, needKeyDupCheck, btreeFields, filterFields,
+                durable, false);
+    }
+
+    /**
+     * @param skipListMemoryComponents
+     *            - whether the memory components are lock-free skip lists instead of BTrees
+     */
+    public LSMBTree(List<IVirtualBufferCache> virtualBufferCaches, ITreeIndexFrameFactory interiorFrameFactory,
+            ITreeIndexFrameFactory insertLeafFrameFactory, ITreeIndexFrameFactory deleteLeafFrameFactory,
+            ILSMIndexFileManager fileManager, TreeIndexFactory<BTree> diskBTreeFactory,
+            TreeIndexFactory<BTree> bulkLoadBTreeFactory, BloomFilterFactory bloomFilterFactory,
+            ILSMComponentFilterFactory filterFactory, ILSMComponentFilterFrameFactory filterFrameFactory,
+            LSMComponentFilterManager filterManager, double bloomFilterFalsePositiveRate,
+            IFileMapProvider diskFileMapProvider, int fieldCount, IBinaryComparatorFactory[] cmpFactories,
+            ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker, ILSMIOOperationScheduler ioScheduler,
+            ILSMIOOperationCallback ioOpCallback, boolean needKeyDupCheck, int[] btreeFields, int[] filterFields,
+            boolean durable, boolean skipListMemoryComponents) {
         super(virtualBufferCaches, diskBTreeFactory.getBufferCache(), fileManager, diskFileMapProvider,
                 bloomFilterFalsePositiveRate, mergePolicy, opTracker, ioScheduler, ioOpCallback, filterFrameFactory,
                 filterManager, filterFields, durable);
         int i = 0;
         for (IVirtualBufferCache virtualBufferCache : virtualBufferCaches) {
-            LSMBTreeMemoryComponent mutableComponent = new LSMBTreeMemoryComponent(new BTree(virtualBufferCache,
-                    virtualBufferCache.getFileMapProvider(), new VirtualFreePageManager(
-                            virtualBufferCache.getNumPages()), interiorFrameFactory, insertLeafFrameFactory,
-                    cmpFactories, fieldCount, new FileReference(new File(fileManager.getBaseDir() + "_virtual_" + i))),
-                    virtualBufferCache, i == 0 ? true : false, filterFactory == null ? null
-                            : filterFactory.createLSMComponentFilter());
+            FileReference memFile = new FileReference(new File(fileManager.getBaseDir() + "_virtual_" + i));
+            ITreeIndex memIndex;
+            if (skipListMemoryComponents) {
+                memIndex = new InMemorySkipListIndex(virtualBufferCache, virtualBufferCache.getFileMapProvider(),
+                        interiorFrameFactory, insertLeafFrameFactory, cmpFactories, fieldCount, memFile);
+            } else {
+                memIndex = new BTree(virtualBufferCache, virtualBufferCache.getFileMapProvider(),
+                        new VirtualFreePageManager(virtualBufferCache.getNumPages()), interiorFrameFactory,
+                        insertLeafFrameFactory, cmpFactories, fieldCount, memFile);
+            }
+            LSMBTreeMemoryComponent mutableComponent = new LSMBTreeMemoryComponent(memIndex, virtualBufferCache,
+                    i == 0 ? true : false, filterFactory == null ? null : filterFactory.createLSMComponentFilter());
             memoryComponents.add(mutableComponent);
             ++i;
         }
@@ -172,9 +226,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         }
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            ((IVirtualBufferCache) mutableComponent.getBTree().getBufferCache()).open();
-            mutableComponent.getBTree().create();
-            mutableComponent.getBTree().activate();
+            ((IVirtualBufferCache) mutableComponent.getIndex().getBufferCache()).open();
+            mutableComponent.getIndex().create();
+            mutableComponent.getIndex().activate();
         }
         List<ILSMComponent> immutableComponents = diskComponents;
         immutableComponents.clear();
@@ -225,10 +279,11 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         }
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().deactivate();
-            mutableComponent.getBTree().destroy();
-            ((IVirtualBufferCache) mutableComponent.getBTree().getBufferCache()).close();
+            mutableComponent.getIndex().deactivate();
+            mutableComponent.getIndex().destroy();
+            ((IVirtualBufferCache) mutableComponent.getIndex().getBufferCache()).close();
         }
+        shutdownThreadPools();
         isActivated = false;
     }
 
@@ -251,11 +306,31 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         }
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().destroy();
+            mutableComponent.getIndex().destroy();
         }
+        shutdownThreadPools();
         fileManager.deleteDirs();
     }
 
+    /**
+     * Sets the factory of the threads that run merge slices and write the leaves of flushed and merged components,
+     * usually the thread factory of the node controller. Pools created before keep their threads.
+     */
+    public synchronized void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Releases the threads of the merge slice and bulk load pools. Operations that are still running complete on the
+     * old pools, and the pools are created again if the index is used after being reactivated.
+     */
+    private synchronized void shutdownThreadPools() {
+        LSMIndexThreadPools.shutdown(mergeSliceExecutor);
+        mergeSliceExecutor = null;
+        LSMIndexThreadPools.shutdown(bulkLoadExecutor);
+        bulkLoadExecutor = null;
+    }
+
     @Override
     public void clear() throws HyracksDataException {
         if (!isActivated) {
@@ -265,7 +340,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         List<ILSMComponent> immutableComponents = diskComponents;
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().clear();
+            mutableComponent.getIndex().clear();
             mutableComponent.reset();
         }
         for (ILSMComponent c : immutableComponents) {
@@ -379,9 +454,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     private boolean insert(ITupleReference tuple, LSMBTreeOpContext ctx) throws HyracksDataException, IndexException {
         ILSMComponent c = ctx.getComponentHolder().get(0);
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-        MultiComparator comparator = MultiComparator.create(mutableComponent.getBTree().getComparatorFactories());
+        MultiComparator comparator = MultiComparator.create(mutableComponent.getIndex().getComparatorFactories());
         LSMBTreePointSearchCursor searchCursor = new LSMBTreePointSearchCursor(ctx);
-        IIndexCursor memCursor = new BTreeRangeSearchCursor(ctx.currentMutableBTreeOpCtx.leafFrame, false);
+        IIndexCursor memCursor = ctx.currentMutableBTreeAccessor.createSearchCursor(false);
         RangePredicate predicate = new RangePredicate(tuple, tuple, true, true, comparator, comparator);
 
         if (needKeyDupCheck) {
@@ -437,6 +512,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
         LSMBTreeCursorInitialState initialState = new LSMBTreeCursorInitialState(insertLeafFrameFactory, ctx.cmp,
                 ctx.bloomFilterCmp, lsmHarness, pred, ctx.searchCallback, operationalComponents);
+        initialState.setUseTournamentTree(useTournamentTree);
         cursor.open(initialState, pred);
     }
 
@@ -459,21 +535,26 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public ILSMComponent flush(ILSMIOOperation operation) throws HyracksDataException, IndexException {
         LSMBTreeFlushOperation flushOp = (LSMBTreeFlushOperation) operation;
         LSMBTreeMemoryComponent flushingComponent = (LSMBTreeMemoryComponent) flushOp.getFlushingComponent();
-        IIndexAccessor accessor = flushingComponent.getBTree().createAccessor(NoOpOperationCallback.INSTANCE,
+        IIndexAccessor accessor = flushingComponent.getIndex().createAccessor(NoOpOperationCallback.INSTANCE,
                 NoOpOperationCallback.INSTANCE);
 
         RangePredicate nullPred = new RangePredicate(null, null, true, true, null, null);
-        IIndexCursor countingCursor = ((BTreeAccessor) accessor).createCountingSearchCursor();
-        accessor.search(countingCursor, nullPred);
         long numElements = 0L;
-        try {
-            while (countingCursor.hasNext()) {
-                countingCursor.next();
-                ITupleReference countTuple = countingCursor.getTuple();
-                numElements = IntegerPointable.getInteger(countTuple.getFieldData(0), countTuple.getFieldStart(0));
+        if (accessor instanceof BTreeAccessor) {
+            IIndexCursor countingCursor = ((BTreeAccessor) accessor).createCountingSearchCursor();
+            accessor.search(countingCursor, nullPred);
+            try {
+                while (countingCursor.hasNext()) {
+                    countingCursor.next();
+                    ITupleReference countTuple = countingCursor.getTuple();
+                    numElements = IntegerPointable.getInteger(countTuple.getFieldData(0),
+                            countTuple.getFieldStart(0));
+                }
+            } finally {
+                countingCursor.close();
             }
-        } finally {
-            countingCursor.close();
+        } else {
+            numElements = ((InMemorySkipListIndex) flushingComponent.getIndex()).getNumElements();
         }
 
         int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
@@ -482,9 +563,10 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
         LSMBTreeDiskComponent component = createDiskComponent(componentFactory, flushOp.getBTreeFlushTarget(),
                 flushOp.getBloomFilterFlushTarget(), true);
-        IIndexBulkLoader bulkLoader = component.getBTree().createBulkLoader(1.0f, false, numElements, false);
+        IIndexBulkLoader bulkLoader = createComponentBulkLoader(component.getBTree(), 1.0f, false, numElements);
         IIndexBulkLoader builder = component.getBloomFilter().createBuilder(numElements,
                 bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
+        LSMComponentStatistics.Builder statisticsBuilder = createStatisticsBuilder();
 
         IIndexCursor scanCursor = accessor.createSearchCursor(false);
         accessor.search(scanCursor, nullPred);
@@ -493,12 +575,14 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                 scanCursor.next();
                 builder.add(scanCursor.getTuple());
                 bulkLoader.add(scanCursor.getTuple());
+                statisticsBuilder.add(scanCursor.getTuple());
             }
         } finally {
             scanCursor.close();
             builder.end();
         }
         bulkLoader.end();
+        component.setStatistics(statisticsBuilder.build());
 
         if (component.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -507,6 +591,8 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
             filterManager.updateFilterInfo(component.getLSMComponentFilter(), filterTuples);
             filterManager.writeFilterInfo(component.getLSMComponentFilter(), component.getBTree());
         }
+        // Record the key range while the boundary pages of the new component are still cached.
+        component.getKeyRange();
         return component;
     }
 
@@ -537,12 +623,10 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     @Override
     public ILSMComponent merge(ILSMIOOperation operation) throws HyracksDataException, IndexException {
         LSMBTreeMergeOperation mergeOp = (LSMBTreeMergeOperation) operation;
-        ITreeIndexCursor cursor = mergeOp.getCursor();
-        RangePredicate rangePred = new RangePredicate(null, null, true, true, null, null);
-        ILSMIndexOperationContext opCtx = ((LSMIndexSearchCursor) cursor).getOpCtx();
-        opCtx.getComponentHolder().addAll(mergeOp.getMergingComponents());
-        search(opCtx, cursor, rangePred);
         List<ILSMComponent> mergedComponents = mergeOp.getMergingComponents();
+        LSMIndexSearchCursor mergeCursor = (LSMIndexSearchCursor) mergeOp.getCursor();
+        List<ITupleReference> separators = LSMBTreeRangePartitionedMergeCursor.getSeparators(mergedComponents,
+                cmpFactories, getMergeParallelism());
 
         long numElements = 0L;
         for (int i = 0; i < mergedComponents.size(); ++i) {
@@ -555,21 +639,45 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         LSMBTreeDiskComponent mergedComponent = createDiskComponent(componentFactory, mergeOp.getBTreeMergeTarget(),
                 mergeOp.getBloomFilterMergeTarget(), true);
 
-        IIndexBulkLoader bulkLoader = mergedComponent.getBTree().createBulkLoader(1.0f, false, numElements, false);
+        // The harness subsumes the components held by the merge context, whichever cursor performs the merge.
+        ILSMIndexOperationContext opCtx = mergeCursor.getOpCtx();
+        opCtx.getComponentHolder().addAll(mergedComponents);
+        IIndexCursor cursor;
+        if (separators.isEmpty()) {
+            cursor = mergeCursor;
+            RangePredicate rangePred = new RangePredicate(null, null, true, true, null, null);
+            search(opCtx, cursor, rangePred);
+        } else {
+            ITreeIndexTupleReference mergedTuple = mergedComponent.getBTree().getLeafFrameFactory().createFrame()
+                    .createTupleReference();
+            cursor = new LSMBTreeRangePartitionedMergeCursor(this, mergedComponents, separators,
+                    mergeCursor.isReturnDeletedTuples(), mergedTuple, getMergeSliceExecutor());
+            cursor.open(null, null);
+        }
+
+        IIndexBulkLoader bulkLoader = createComponentBulkLoader(mergedComponent.getBTree(), 1.0f, false,
+                numElements);
         IIndexBulkLoader builder = mergedComponent.getBloomFilter().createBuilder(numElements,
                 bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
+        LSMComponentStatistics.Builder statisticsBuilder = createStatisticsBuilder();
         try {
             while (cursor.hasNext()) {
                 cursor.next();
                 ITupleReference frameTuple = cursor.getTuple();
                 builder.add(frameTuple);
                 bulkLoader.add(frameTuple);
+                statisticsBuilder.add(frameTuple);
+                if (cursor == mergeCursor) {
+                    // The slices of a range partitioned merge throttle themselves.
+                    LSMMergeThrottle.throttle(frameTuple);
+                }
             }
         } finally {
             cursor.close();
             builder.end();
         }
         bulkLoader.end();
+        mergedComponent.setStatistics(statisticsBuilder.build());
 
         if (mergedComponent.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -580,10 +688,80 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
             filterManager.updateFilterInfo(mergedComponent.getLSMComponentFilter(), filterTuples);
             filterManager.writeFilterInfo(mergedComponent.getLSMComponentFilter(), mergedComponent.getBTree());
         }
+        mergedComponent.getKeyRange();
 
         return mergedComponent;
     }
 
+    /**
+     * Sets the number of key-range slices merges of this index are split into. Slices are merged concurrently and
+     * written to the merged component in key order. Values below 2 merge sequentially.
+     * The slices of all merges of this index share a pool of mergeParallelism threads.
+     */
+    public synchronized void setMergeParallelism(int mergeParallelism) {
+        this.mergeParallelism = mergeParallelism;
+        // Running slices complete on the old pool.
+        LSMIndexThreadPools.shutdown(mergeSliceExecutor);
+        mergeSliceExecutor = null;
+    }
+
+    private synchronized ExecutorService getMergeSliceExecutor() {
+        if (mergeSliceExecutor == null) {
+            mergeSliceExecutor = LSMIndexThreadPools.create(threadFactory, this + " merge slice", mergeParallelism);
+        }
+        return mergeSliceExecutor;
+    }
+
+    public synchronized int getMergeParallelism() {
+        return mergeParallelism;
+    }
+
+    /**
+     * Sets how flushes, merges and bulk loads of this index load their new component. Above 1, the tuples are
+     * assigned to leaves on the loading thread and the leaves are written by a pool of bulkLoadParallelism threads
+     * shared by all loads of this index; a load holds at most bulkLoadBufferPages leaves in memory and waits for
+     * the pool when it has that many. The component is laid out as with a sequential load. Values below 2 load
+     * sequentially.
+     */
+    public synchronized void setBulkLoadParallelism(int bulkLoadParallelism, int bulkLoadBufferPages) {
+        if (bulkLoadBufferPages < 1) {
+            throw new IllegalArgumentException("A bulk load needs at least one page to buffer tuples in.");
+        }
+        this.bulkLoadParallelism = bulkLoadParallelism;
+        this.bulkLoadBufferPages = bulkLoadBufferPages;
+        // Running leaf writes complete on the old pool.
+        LSMIndexThreadPools.shutdown(bulkLoadExecutor);
+        bulkLoadExecutor = null;
+    }
+
+    public synchronized int getBulkLoadParallelism() {
+        return bulkLoadParallelism;
+    }
+
+    private synchronized BTreeBulkLoader createComponentBulkLoader(BTree btree, float fillFactor, boolean verifyInput,
+            long numElements) throws TreeIndexException {
+        if (bulkLoadParallelism < 2 || !btree.canBulkLoadInParallel()) {
+            return (BTreeBulkLoader) btree.createBulkLoader(fillFactor, verifyInput, numElements, false);
+        }
+        if (bulkLoadExecutor == null) {
+            bulkLoadExecutor = LSMIndexThreadPools.create(threadFactory, this + " bulk load", bulkLoadParallelism);
+        }
+        return btree.createParallelBulkLoader(fillFactor, verifyInput, bulkLoadBufferPages, bulkLoadExecutor);
+    }
+
+    /**
+     * Selects how range searches and merges opened from now on combine the components of this index: with a
+     * {@link org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeTournamentTree}, which needs fewer comparisons
+     * when many components are merged, or with a priority queue, which is the default.
+     */
+    public void setUseTournamentTree(boolean useTournamentTree) {
+        this.useTournamentTree = useTournamentTree;
+    }
+
+    public boolean isUseTournamentTree() {
+        return useTournamentTree;
+    }
+
     protected LSMBTreeDiskComponent createDiskComponent(LSMBTreeDiskComponentFactory factory,
             FileReference btreeFileRef, FileReference bloomFilterFileRef, boolean createComponent)
             throws HyracksDataException, IndexException {
@@ -600,9 +778,75 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         if (component.getLSMComponentFilter() != null) {
             filterManager.readFilterInfo(component.getLSMComponentFilter(), component.getBTree());
         }
+        if (!createComponent) {
+            // Read now, so estimates never touch the files of components that are being merged away.
+            component.loadStatistics();
+        }
         return component;
     }
 
+    protected LSMComponentStatistics.Builder createStatisticsBuilder() {
+        int[] keyFields = new int[cmpFactories.length];
+        for (int i = 0; i < keyFields.length; i++) {
+            keyFields[i] = i;
+        }
+        return new LSMComponentStatistics.Builder(componentFactory.getBloomFilterKeyFields(), keyFields,
+                LSMComponentStatistics.DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * The estimates are drawn from the statistics of the disk components. Tuples that are still in memory
+     * components are not counted, and neither are disk components written without statistics. The cardinality is
+     * estimated from the merged sketches of the index keys, so a key written to several components counts once, less
+     * the antimatter tuples. Antimatter tuples are not subtracted from the estimated distinct keys or ranges.
+     */
+    @Override
+    public long estimateCardinality() throws HyracksDataException {
+        HyperLogLog keys = new HyperLogLog();
+        long antimatterCount = 0;
+        for (LSMComponentStatistics statistics : getDiskComponentStatistics()) {
+            keys.merge(statistics.getKeys());
+            antimatterCount += statistics.getAntimatterCount();
+        }
+        return Math.max(keys.estimate() - antimatterCount, 0);
+    }
+
+    @Override
+    public long estimateDistinctKeys() throws HyracksDataException {
+        HyperLogLog distinctKeys = new HyperLogLog();
+        for (LSMComponentStatistics statistics : getDiskComponentStatistics()) {
+            distinctKeys.merge(statistics.getDistinctKeys());
+        }
+        return distinctKeys.estimate();
+    }
+
+    @Override
+    public long estimateRangeCardinality(ITupleReference lowKey, boolean lowKeyInclusive, ITupleReference highKey,
+            boolean highKeyInclusive) throws HyracksDataException {
+        IBinaryComparator leadingFieldCmp = cmpFactories[0].createBinaryComparator();
+        long cardinality = 0;
+        for (LSMComponentStatistics statistics : getDiskComponentStatistics()) {
+            cardinality += statistics.estimateRangeCardinality(lowKey, lowKeyInclusive, highKey, highKeyInclusive,
+                    leadingFieldCmp);
+        }
+        return cardinality;
+    }
+
+    private List<LSMComponentStatistics> getDiskComponentStatistics() throws HyracksDataException {
+        List<ILSMComponent> components;
+        synchronized (getOperationTracker()) {
+            components = new ArrayList<ILSMComponent>(diskComponents);
+        }
+        List<LSMComponentStatistics> statistics = new ArrayList<LSMComponentStatistics>(components.size());
+        for (ILSMComponent c : components) {
+            LSMComponentStatistics componentStatistics = ((LSMBTreeDiskComponent) c).getStatistics();
+            if (componentStatistics != null) {
+                statistics.add(componentStatistics);
+            }
+        }
+        return statistics;
+    }
+
     @Override
     public IIndexBulkLoader createBulkLoader(float fillLevel, boolean verifyInput, long numElementsHint,
             boolean checkIfEmptyIndex) throws TreeIndexException {
@@ -638,6 +882,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         private final ILSMComponent component;
         private final BTreeBulkLoader bulkLoader;
         private final IIndexBulkLoader builder;
+        private final LSMComponentStatistics.Builder statisticsBuilder;
         private boolean cleanedUpArtifacts = false;
         private boolean isEmptyComponent = true;
         private boolean endedBloomFilterLoad = false;
@@ -655,14 +900,15 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
             } catch (HyracksDataException | IndexException e) {
                 throw new TreeIndexException(e);
             }
-            bulkLoader = (BTreeBulkLoader) ((LSMBTreeDiskComponent) component).getBTree().createBulkLoader(fillFactor,
-                    verifyInput, numElementsHint, false);
+            bulkLoader = createComponentBulkLoader(((LSMBTreeDiskComponent) component).getBTree(), fillFactor,
+                    verifyInput, numElementsHint);
 
             int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(numElementsHint);
             BloomFilterSpecification bloomFilterSpec = BloomCalculations.computeBloomSpec(maxBucketsPerElement,
                     bloomFilterFalsePositiveRate);
             builder = ((LSMBTreeDiskComponent) component).getBloomFilter().createBuilder(numElementsHint,
                     bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
+            statisticsBuilder = createStatisticsBuilder();
 
             if (filterFields != null) {
                 indexTuple = new PermutingTupleReference(btreeFields);
@@ -688,6 +934,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
 
                 bulkLoader.add(t);
                 builder.add(t);
+                statisticsBuilder.add(t);
 
                 if (filterTuple != null) {
                     filterTuple.reset(tuple);
@@ -710,6 +957,10 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                     builder.end();
                     endedBloomFilterLoad = true;
                 }
+                if (bulkLoader instanceof BTreeParallelBulkLoader) {
+                    // Its leaves must not be written to the destroyed tree.
+                    ((BTreeParallelBulkLoader) bulkLoader).awaitWriters();
+                }
                 ((LSMBTreeDiskComponent) component).getBTree().deactivate();
                 ((LSMBTreeDiskComponent) component).getBTree().destroy();
                 ((LSMBTreeDiskComponent) component).getBloomFilter().deactivate();
@@ -734,6 +985,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                 if (isEmptyComponent) {
                     cleanupArtifacts();
                 } else {
+                    ((LSMBTreeDiskComponent) component).setStatistics(statisticsBuilder.build());
                     lsmHarness.addBulkLoadedComponent(component);
                 }
             }
@@ -753,11 +1005,46 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         return new LSMBTreeAccessor(lsmHarness, createOpContext(modificationCallback, searchCallback));
     }
 
-    public class LSMBTreeAccessor extends LSMTreeIndexAccessor {
+    public class LSMBTreeAccessor extends LSMTreeIndexAccessor implements IBatchPointSearchAccessor {
+        private LSMBTreePointSearchCursor batchCursor;
+        private RangePredicate batchPred;
+
         public LSMBTreeAccessor(ILSMHarness lsmHarness, ILSMIndexOperationContext ctx) {
             super(lsmHarness, ctx);
         }
 
+        @Override
+        public void batchPointSearch(ITupleReference[] keys, int numKeys, IBatchPointSearchConsumer consumer)
+                throws HyracksDataException, IndexException {
+            if (numKeys == 0) {
+                return;
+            }
+            if (batchCursor == null) {
+                batchCursor = new LSMBTreePointSearchCursor(ctx);
+                MultiComparator keyCmp = MultiComparator.create(cmpFactories);
+                batchPred = new RangePredicate(null, null, true, true, keyCmp, keyCmp);
+            }
+            // The components are entered once, for the whole batch.
+            batchPred.setLowKey(keys[0], true);
+            batchPred.setHighKey(keys[0], true);
+            search(batchCursor, batchPred);
+            try {
+                for (int i = 0; i < numKeys; i++) {
+                    batchPred.setLowKey(keys[i], true);
+                    batchPred.setHighKey(keys[i], true);
+                    batchCursor.resetForNextKey();
+                    if (batchCursor.hasNext()) {
+                        batchCursor.next();
+                        consumer.accept(i, batchCursor.getTuple());
+                    } else {
+                        consumer.accept(i, null);
+                    }
+                }
+            } finally {
+                batchCursor.close();
+            }
+        }
+
         @Override
         public IIndexCursor createSearchCursor(boolean exclusive) {
             return new LSMBTreeSearchCursor(ctx);
@@ -783,35 +1070,35 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public ITreeIndexFrameFactory getInteriorFrameFactory() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getInteriorFrameFactory();
+        return mutableComponent.getIndex().getInteriorFrameFactory();
     }
 
     @Override
     public int getFieldCount() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getFieldCount();
+        return mutableComponent.getIndex().getFieldCount();
     }
 
     @Override
     public int getFileId() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getFileId();
+        return mutableComponent.getIndex().getFileId();
     }
 
     @Override
     public IFreePageManager getFreePageManager() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getFreePageManager();
+        return mutableComponent.getIndex().getFreePageManager();
     }
 
     @Override
     public ITreeIndexFrameFactory getLeafFrameFactory() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getLeafFrameFactory();
+        return mutableComponent.getIndex().getLeafFrameFactory();
     }
 
     @Override
@@ -819,7 +1106,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         long size = 0;
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            IBufferCache virtualBufferCache = mutableComponent.getBTree().getBufferCache();
+            IBufferCache virtualBufferCache = mutableComponent.getIndex().getBufferCache();
             size += virtualBufferCache.getNumPages() * virtualBufferCache.getPageSize();
         }
         return size;
@@ -829,14 +1116,14 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     public int getRootPageId() {
         LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) memoryComponents
                 .get(currentMutableComponentId.get());
-        return mutableComponent.getBTree().getRootPageId();
+        return mutableComponent.getIndex().getRootPageId();
     }
 
     @Override
     public void validate() throws HyracksDataException {
         for (ILSMComponent c : memoryComponents) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) c;
-            mutableComponent.getBTree().validate();
+            mutableComponent.getIndex().validate();
         }
         List<ILSMComponent> immutableComponents = diskComponents;
         for (ILSMComponent c : immutableComponents) {
@@ -41,6 +41,7 @@ public class LSMBTreeCursorInitialState implements ICursorInitialState {
     private ISearchOperationCallback searchCallback;
 
     private final List<ILSMComponent> operationalComponents;
+    private boolean useTournamentTree;
 
     public LSMBTreeCursorInitialState(ITreeIndexFrameFactory leafFrameFactory, MultiComparator cmp,
             MultiComparator bloomFilterCmp, ILSMHarness lsmHarness, ISearchPredicate predicate,
@@ -89,6 +90,14 @@ public class LSMBTreeCursorInitialState implements ICursorInitialState {
         return predicate;
     }
 
+    public boolean isUseTournamentTree() {
+        return useTournamentTree;
+    }
+
+    public void setUseTournamentTree(boolean useTournamentTree) {
+        this.useTournamentTree = useTournamentTree;
+    }
+
     public MultiComparator getBloomFilterComparator() {
         return bloomFilterCmp;
     }
@@ -19,14 +19,21 @@
 package org.apache.hyracks.storage.am.lsm.btree.impls;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
 import org.apache.hyracks.storage.am.lsm.common.impls.AbstractDiskLSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.impls.AbstractLSMIndexFileManager;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentStatistics;
 
 public class LSMBTreeDiskComponent extends AbstractDiskLSMComponent {
     private final BTree btree;
     private final BloomFilter bloomFilter;
+    // Read lazily from the BTree. Concurrent first reads compute the same range, so no lock is needed.
+    private volatile LSMBTreeKeyRange keyRange;
+    // Read when an existing component is activated, set when a new one is written; null if there are none.
+    private volatile LSMComponentStatistics statistics;
 
     public LSMBTreeDiskComponent(BTree btree, BloomFilter bloomFilter, ILSMComponentFilter filter) {
         super(filter);
@@ -40,12 +47,53 @@ public class LSMBTreeDiskComponent extends AbstractDiskLSMComponent {
         btree.destroy();
         bloomFilter.deactivate();
         bloomFilter.destroy();
+        getStatisticsFileReference().delete();
     }
 
     public BTree getBTree() {
         return btree;
     }
 
+    /**
+     * Returns the smallest and largest key of this component. The BTree must be bulk loaded and activated.
+     */
+    public LSMBTreeKeyRange getKeyRange() throws HyracksDataException {
+        LSMBTreeKeyRange range = keyRange;
+        if (range == null) {
+            range = LSMBTreeKeyRange.read(btree);
+            keyRange = range;
+        }
+        return range;
+    }
+
+    /**
+     * Returns the statistics collected when this component was written, or null if they were not collected, e.g.
+     * for components written before statistics were kept. Never reads the statistics file.
+     */
+    public LSMComponentStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Reads the statistics of an existing component from its statistics file. Called when the component is
+     * activated, before a merge can delete the file.
+     */
+    public void loadStatistics() throws HyracksDataException {
+        statistics = LSMComponentStatistics.read(getStatisticsFileReference());
+    }
+
+    /**
+     * Persists the statistics of this component, which must not be valid yet.
+     */
+    public void setStatistics(LSMComponentStatistics statistics) throws HyracksDataException {
+        statistics.write(getStatisticsFileReference());
+        this.statistics = statistics;
+    }
+
+    private FileReference getStatisticsFileReference() {
+        return AbstractLSMIndexFileManager.getStatisticsFileReference(btree.getFileReference());
+    }
+
     public BloomFilter getBloomFilter() {
         return bloomFilter;
     }
@@ -97,6 +97,9 @@ public class LSMBTreeFileManager extends AbstractLSMIndexFileManager {
             btreeFilesSet.add(cmpFileName.fileName.substring(0, index));
         }
         validateFiles(btreeFilesSet, allBloomFilterFiles, getCompoundFilter(transactionFilter, bloomFilterFilter), null);
+        // Statistics files are optional; only those of components without a valid BTree are deleted.
+        validateFiles(btreeFilesSet, new ArrayList<ComparableFileName>(),
+                getCompoundFilter(transactionFilter, statisticsFilter), null);
 
         // Sanity check.
         if (allBTreeFiles.size() != allBloomFilterFiles.size()) {
@@ -146,6 +149,7 @@ public class LSMBTreeFileManager extends AbstractLSMIndexFileManager {
                 invalidBTreeFile.delete();
                 File invalidBloomFilterFile = new File(currentBloomFilter.fullPath);
                 invalidBloomFilterFile.delete();
+                getStatisticsFileReference(currentBTree.fileRef).delete();
             } else {
                 // This scenario should not be possible.
                 throw new HyracksDataException("Found LSM files with overlapping but not contained timetamp intervals.");
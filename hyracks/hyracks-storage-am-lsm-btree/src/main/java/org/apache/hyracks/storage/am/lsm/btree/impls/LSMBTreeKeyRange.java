@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.api.IBTreeInteriorFrame;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * The smallest and largest key stored in an immutable disk BTree of an LSM BTree, antimatter tuples included.
+ * Range searches use it to skip components that cannot contain any key of the searched range.
+ * The range is read from the first tuple of the leftmost leaf and the last tuple of the rightmost leaf, so it does
+ * not need to be persisted and is available for components that were written before it existed.
+ */
+public class LSMBTreeKeyRange {
+    /** Returned when the boundary leaves could not be read, for example for a BTree that is not bulk loaded. */
+    public static final LSMBTreeKeyRange UNKNOWN = new LSMBTreeKeyRange(null, null, false);
+
+    private static final LSMBTreeKeyRange EMPTY = new LSMBTreeKeyRange(null, null, true);
+
+    private final ITupleReference minKey;
+    private final ITupleReference maxKey;
+    private final boolean known;
+
+    private LSMBTreeKeyRange(ITupleReference minKey, ITupleReference maxKey, boolean known) {
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+        this.known = known;
+    }
+
+    public ITupleReference getMinKey() {
+        return minKey;
+    }
+
+    public ITupleReference getMaxKey() {
+        return maxKey;
+    }
+
+    public boolean isEmpty() {
+        return known && minKey == null;
+    }
+
+    /**
+     * @param pred
+     *            - a range predicate over the index key, possibly a key prefix
+     * @return false if no key of this range can satisfy the predicate, true if some might
+     */
+    public boolean intersects(RangePredicate pred) throws HyracksDataException {
+        if (!known) {
+            return true;
+        }
+        if (minKey == null) {
+            return false;
+        }
+        ITupleReference lowKey = pred.getLowKey();
+        MultiComparator lowKeyCmp = pred.getLowKeyComparator();
+        if (lowKey != null && lowKeyCmp != null) {
+            int c = lowKeyCmp.compare(lowKey, maxKey);
+            if (c > 0 || (c == 0 && !pred.isLowKeyInclusive())) {
+                return false;
+            }
+        }
+        ITupleReference highKey = pred.getHighKey();
+        MultiComparator highKeyCmp = pred.getHighKeyComparator();
+        if (highKey != null && highKeyCmp != null) {
+            int c = highKeyCmp.compare(highKey, minKey);
+            if (c < 0 || (c == 0 && !pred.isHighKeyInclusive())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the key range of a bulk-loaded, activated BTree. Only the pages on the leftmost and rightmost root-to-leaf
+     * paths are pinned.
+     */
+    public static LSMBTreeKeyRange read(BTree btree) throws HyracksDataException {
+        IBinaryComparatorFactory[] cmpFactories = btree.getComparatorFactories();
+        MultiComparator cmp = MultiComparator.create(cmpFactories);
+        ITreeIndexFrame leafFrame = btree.getLeafFrameFactory().createFrame();
+        leafFrame.setMultiComparator(cmp);
+        IBTreeInteriorFrame interiorFrame = (IBTreeInteriorFrame) btree.getInteriorFrameFactory().createFrame();
+        interiorFrame.setMultiComparator(cmp);
+        ITupleReference minKey = readBoundaryKey(btree, interiorFrame, leafFrame, cmpFactories.length, true);
+        if (minKey == null) {
+            return isEmptyRoot(btree, leafFrame) ? EMPTY : UNKNOWN;
+        }
+        ITupleReference maxKey = readBoundaryKey(btree, interiorFrame, leafFrame, cmpFactories.length, false);
+        if (maxKey == null) {
+            return UNKNOWN;
+        }
+        return new LSMBTreeKeyRange(minKey, maxKey, true);
+    }
+
+    private static ITupleReference readBoundaryKey(BTree btree, IBTreeInteriorFrame interiorFrame,
+            ITreeIndexFrame leafFrame, int numKeyFields, boolean leftmost) throws HyracksDataException {
+        IBufferCache bufferCache = btree.getBufferCache();
+        int fileId = btree.getFileId();
+        int pageId = btree.getRootPageId();
+        while (true) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+            page.acquireReadLatch();
+            try {
+                interiorFrame.setPage(page);
+                if (!interiorFrame.isLeaf()) {
+                    if (leftmost && interiorFrame.getTupleCount() > 0) {
+                        pageId = interiorFrame.getLeftmostChildPageId();
+                    } else {
+                        pageId = interiorFrame.getRightmostChildPageId();
+                    }
+                    continue;
+                }
+                leafFrame.setPage(page);
+                int tupleCount = leafFrame.getTupleCount();
+                if (tupleCount == 0) {
+                    return null;
+                }
+                ITreeIndexTupleReference frameTuple = leafFrame.createTupleReference();
+                frameTuple.resetByTupleIndex(leafFrame, leftmost ? 0 : tupleCount - 1);
+                ArrayTupleBuilder tb = new ArrayTupleBuilder(numKeyFields);
+                TupleUtils.copyTuple(tb, frameTuple, numKeyFields);
+                ArrayTupleReference key = new ArrayTupleReference();
+                key.reset(tb.getFieldEndOffsets(), tb.getByteArray());
+                return key;
+            } finally {
+                page.releaseReadLatch();
+                bufferCache.unpin(page);
+            }
+        }
+    }
+
+    private static boolean isEmptyRoot(BTree btree, ITreeIndexFrame leafFrame) throws HyracksDataException {
+        IBufferCache bufferCache = btree.getBufferCache();
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(btree.getFileId(), btree.getRootPageId()),
+                false);
+        page.acquireReadLatch();
+        try {
+            leafFrame.setPage(page);
+            return leafFrame.isLeaf() && leafFrame.getTupleCount() == 0;
+        } finally {
+            page.releaseReadLatch();
+            bufferCache.unpin(page);
+        }
+    }
+}
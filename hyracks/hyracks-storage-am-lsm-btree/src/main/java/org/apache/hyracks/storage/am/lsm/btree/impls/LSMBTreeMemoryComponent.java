@@ -20,31 +20,55 @@
 package org.apache.hyracks.storage.am.lsm.btree.impls;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.btree.api.IBTreeAccessor;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.common.api.IModificationOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.am.lsm.common.impls.AbstractMemoryLSMComponent;
 
 public class LSMBTreeMemoryComponent extends AbstractMemoryLSMComponent {
 
-    private final BTree btree;
+    // Either a BTree or an InMemorySkipListIndex on the virtual buffer cache.
+    private final ITreeIndex index;
 
-    public LSMBTreeMemoryComponent(BTree btree, IVirtualBufferCache vbc, boolean isActive, ILSMComponentFilter filter) {
+    public LSMBTreeMemoryComponent(ITreeIndex index, IVirtualBufferCache vbc, boolean isActive,
+            ILSMComponentFilter filter) {
         super(vbc, isActive, filter);
-        this.btree = btree;
+        this.index = index;
     }
 
+    public ITreeIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Creates an accessor for modifying the component; searches do not need to go through this method.
+     */
+    public IBTreeAccessor createAccessor(IModificationOperationCallback modificationCallback) {
+        if (index instanceof InMemorySkipListIndex) {
+            return ((InMemorySkipListIndex) index).createAccessor(modificationCallback,
+                    NoOpOperationCallback.INSTANCE);
+        }
+        return (IBTreeAccessor) ((BTree) index).createAccessor(modificationCallback, NoOpOperationCallback.INSTANCE);
+    }
+
+    /**
+     * Only valid if the component is backed by a BTree.
+     */
     public BTree getBTree() {
-        return btree;
+        return (BTree) index;
     }
 
     @Override
     protected void reset() throws HyracksDataException {
         super.reset();
-        btree.deactivate();
-        btree.destroy();
-        btree.create();
-        btree.activate();
+        index.deactivate();
+        index.destroy();
+        index.create();
+        index.activate();
     }
 
 }
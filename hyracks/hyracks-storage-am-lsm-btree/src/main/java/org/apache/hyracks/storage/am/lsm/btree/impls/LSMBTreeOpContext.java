@@ -23,14 +23,15 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.storage.am.btree.api.IBTreeAccessor;
 import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.impls.BTreeOpContext;
 import org.apache.hyracks.storage.am.common.api.IModificationOperationCallback;
 import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
 import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexFrameFactory;
-import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
 import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.tuples.PermutingTupleReference;
@@ -43,10 +44,11 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
     public ITreeIndexFrameFactory deleteLeafFrameFactory;
     public IBTreeLeafFrame insertLeafFrame;
     public IBTreeLeafFrame deleteLeafFrame;
-    public final BTree[] mutableBTrees;
-    public BTree.BTreeAccessor[] mutableBTreeAccessors;
+    public final ITreeIndex[] mutableBTrees;
+    public IBTreeAccessor[] mutableBTreeAccessors;
+    // Null for memory components that are not backed by a BTree.
     public BTreeOpContext[] mutableBTreeOpCtxs;
-    public BTree.BTreeAccessor currentMutableBTreeAccessor;
+    public IBTreeAccessor currentMutableBTreeAccessor;
     public BTreeOpContext currentMutableBTreeOpCtx;
     public IndexOperation op;
     public final MultiComparator cmp;
@@ -65,24 +67,25 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
             ITreeIndexFrameFactory deleteLeafFrameFactory, IModificationOperationCallback modificationCallback,
             ISearchOperationCallback searchCallback, int numBloomFilterKeyFields, int[] btreeFields, int[] filterFields) {
         LSMBTreeMemoryComponent c = (LSMBTreeMemoryComponent) mutableComponents.get(0);
-        IBinaryComparatorFactory cmpFactories[] = c.getBTree().getComparatorFactories();
+        IBinaryComparatorFactory cmpFactories[] = c.getIndex().getComparatorFactories();
         if (cmpFactories[0] != null) {
-            this.cmp = MultiComparator.create(c.getBTree().getComparatorFactories());
+            this.cmp = MultiComparator.create(c.getIndex().getComparatorFactories());
         } else {
             this.cmp = null;
         }
 
-        bloomFilterCmp = MultiComparator.create(c.getBTree().getComparatorFactories(), 0, numBloomFilterKeyFields);
+        bloomFilterCmp = MultiComparator.create(c.getIndex().getComparatorFactories(), 0, numBloomFilterKeyFields);
 
-        mutableBTrees = new BTree[mutableComponents.size()];
-        mutableBTreeAccessors = new BTree.BTreeAccessor[mutableComponents.size()];
+        mutableBTrees = new ITreeIndex[mutableComponents.size()];
+        mutableBTreeAccessors = new IBTreeAccessor[mutableComponents.size()];
         mutableBTreeOpCtxs = new BTreeOpContext[mutableComponents.size()];
         for (int i = 0; i < mutableComponents.size(); i++) {
             LSMBTreeMemoryComponent mutableComponent = (LSMBTreeMemoryComponent) mutableComponents.get(i);
-            mutableBTrees[i] = mutableComponent.getBTree();
-            mutableBTreeAccessors[i] = (BTree.BTreeAccessor) mutableBTrees[i].createAccessor(modificationCallback,
-                    NoOpOperationCallback.INSTANCE);
-            mutableBTreeOpCtxs[i] = mutableBTreeAccessors[i].getOpContext();
+            mutableBTrees[i] = mutableComponent.getIndex();
+            mutableBTreeAccessors[i] = mutableComponent.createAccessor(modificationCallback);
+            if (mutableBTreeAccessors[i] instanceof BTree.BTreeAccessor) {
+                mutableBTreeOpCtxs[i] = ((BTree.BTreeAccessor) mutableBTreeAccessors[i]).getOpContext();
+            }
         }
 
         this.insertLeafFrameFactory = insertLeafFrameFactory;
@@ -119,13 +122,23 @@ public final class LSMBTreeOpContext implements ILSMIndexOperationContext {
     }
 
     public void setInsertMode() {
-        currentMutableBTreeOpCtx.leafFrame = insertLeafFrame;
-        currentMutableBTreeOpCtx.leafFrameFactory = insertLeafFrameFactory;
+        if (currentMutableBTreeOpCtx != null) {
+            currentMutableBTreeOpCtx.leafFrame = insertLeafFrame;
+            currentMutableBTreeOpCtx.leafFrameFactory = insertLeafFrameFactory;
+        } else {
+            ((InMemorySkipListIndex.SkipListAccessor) currentMutableBTreeAccessor).setTupleWriter(insertLeafFrame
+                    .getTupleWriter());
+        }
     }
 
     public void setDeleteMode() {
-        currentMutableBTreeOpCtx.leafFrame = deleteLeafFrame;
-        currentMutableBTreeOpCtx.leafFrameFactory = deleteLeafFrameFactory;
+        if (currentMutableBTreeOpCtx != null) {
+            currentMutableBTreeOpCtx.leafFrame = deleteLeafFrame;
+            currentMutableBTreeOpCtx.leafFrameFactory = deleteLeafFrameFactory;
+        } else {
+            ((InMemorySkipListIndex.SkipListAccessor) currentMutableBTreeAccessor).setTupleWriter(deleteLeafFrame
+                    .getTupleWriter());
+        }
     }
 
     @Override
@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.bloomfilter.impls.BloomFilter;
 import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import org.apache.hyracks.storage.am.btree.impls.BTree;
 import org.apache.hyracks.storage.am.btree.impls.BTreeRangeSearchCursor;
@@ -32,6 +33,7 @@ import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
 import org.apache.hyracks.storage.am.common.api.IIndexCursor;
 import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
 import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
 import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.IndexException;
 import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
@@ -40,7 +42,6 @@ import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentTy
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMHarness;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMTreeTupleReference;
-import org.apache.hyracks.storage.am.lsm.common.impls.BloomFilterAwareBTreePointSearchCursor;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
 import org.apache.hyracks.storage.common.buffercache.ICachedPage;
 
@@ -58,6 +59,9 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
     private boolean foundTuple;
     private ITupleReference frameTuple;
     private List<ILSMComponent> operationalComponents;
+    private BloomFilter[] bloomFilters;
+    private final long[] hashes = new long[2];
+    private boolean keepDiskLeaves;
 
     public LSMBTreePointSearchCursor(ILSMIndexOperationContext opCtx) {
         this.opCtx = opCtx;
@@ -71,8 +75,22 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
             return true;
         }
         boolean reconciled = false;
+        boolean hashed = false;
         for (int i = 0; i < numBTrees; ++i) {
-            btreeAccessors[i].search(rangeCursors[i], predicate);
+            if (bloomFilters[i] != null) {
+                // The key is hashed once for all disk components, and probed before descending into the BTree.
+                if (!hashed) {
+                    bloomFilters[i].computeHashes(predicate.getLowKey(), hashes);
+                    hashed = true;
+                }
+                if (!bloomFilters[i].contains(hashes)) {
+                    continue;
+                }
+            }
+            if (!keepDiskLeaves || bloomFilters[i] == null
+                    || !((BTreeRangeSearchCursor) rangeCursors[i]).reopenInCurrentLeaf(predicate)) {
+                btreeAccessors[i].search(rangeCursors[i], predicate);
+            }
             if (rangeCursors[i].hasNext()) {
                 rangeCursors[i].next();
                 // We use the predicate's to lock the key instead of the tuple that we get from cursor to avoid copying the tuple when we do the "unlatch dance"
@@ -80,7 +98,7 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
                     // if proceed is successful, then there's no need for doing the "unlatch dance"
                     if (((ILSMTreeTupleReference) rangeCursors[i].getTuple()).isAntimatter()) {
                         searchCallback.cancel(predicate.getLowKey());
-                        rangeCursors[i].close();
+                        releaseCursor(i);
                         return false;
                     } else {
                         frameTuple = rangeCursors[i].getTuple();
@@ -119,12 +137,35 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
                     return true;
                 }
             } else {
-                rangeCursors[i].close();
+                releaseCursor(i);
             }
         }
         return false;
     }
 
+    private void releaseCursor(int i) throws HyracksDataException {
+        if (!keepDiskLeaves || bloomFilters[i] == null) {
+            rangeCursors[i].close();
+        }
+    }
+
+    /**
+     * Prepares the open cursor for the next key of a batch of point searches. The caller has already set the key into
+     * the search predicate. The operational components stay entered. The leaves last visited in the disk components
+     * stay pinned, so a key that falls into one of them is found there without descending that BTree again.
+     */
+    public void resetForNextKey() throws HyracksDataException {
+        for (int i = 0; i < numBTrees; ++i) {
+            if (bloomFilters[i] == null) {
+                // Writers of a memory component must not wait for its leaves between keys.
+                rangeCursors[i].close();
+            }
+        }
+        keepDiskLeaves = true;
+        nextHasBeenCalled = false;
+        foundTuple = false;
+    }
+
     @Override
     public void reset() throws HyracksDataException, IndexException {
         try {
@@ -153,23 +194,27 @@ public class LSMBTreePointSearchCursor implements ITreeIndexCursor {
         numBTrees = operationalComponents.size();
         rangeCursors = new IIndexCursor[numBTrees];
         btreeAccessors = new IIndexAccessor[numBTrees];
+        bloomFilters = new BloomFilter[numBTrees];
         includeMutableComponent = false;
+        keepDiskLeaves = false;
 
         for (int i = 0; i < numBTrees; i++) {
             ILSMComponent component = operationalComponents.get(i);
-            BTree btree;
-            IBTreeLeafFrame leafFrame = (IBTreeLeafFrame) lsmInitialState.getLeafFrameFactory().createFrame();
             if (component.getType() == LSMComponentType.MEMORY) {
                 includeMutableComponent = true;
-                // No need for a bloom filter for the in-memory BTree.
-                rangeCursors[i] = new BTreeRangeSearchCursor(leafFrame, false);
-                btree = (BTree) ((LSMBTreeMemoryComponent) component).getBTree();
+                // No need for a bloom filter for the in-memory BTree (or skip list).
+                ITreeIndex memIndex = ((LSMBTreeMemoryComponent) component).getIndex();
+                btreeAccessors[i] = memIndex.createAccessor(NoOpOperationCallback.INSTANCE,
+                        NoOpOperationCallback.INSTANCE);
+                rangeCursors[i] = btreeAccessors[i].createSearchCursor(false);
             } else {
-                rangeCursors[i] = new BloomFilterAwareBTreePointSearchCursor(leafFrame, false,
-                        ((LSMBTreeDiskComponent) component).getBloomFilter());
-                btree = (BTree) ((LSMBTreeDiskComponent) component).getBTree();
+                IBTreeLeafFrame leafFrame = (IBTreeLeafFrame) lsmInitialState.getLeafFrameFactory().createFrame();
+                rangeCursors[i] = new BTreeRangeSearchCursor(leafFrame, false);
+                bloomFilters[i] = ((LSMBTreeDiskComponent) component).getBloomFilter();
+                BTree btree = ((LSMBTreeDiskComponent) component).getBTree();
+                btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                        NoOpOperationCallback.INSTANCE);
             }
-            btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
         }
         nextHasBeenCalled = false;
         foundTuple = false;
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.btree.tuples.LSMBTreeTupleReference;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeThrottle;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Merges the disk components of an LSM BTree in several key-range slices at the same time.
+ * The key space is split at separator keys taken from the root of the largest merging component. Every slice runs its
+ * own {@link LSMBTreeRangeSearchCursor} over [lowSeparator, highSeparator) on the merge slice executor of the index
+ * and hands the merged tuples over in blocks. This cursor returns the blocks of slice 0, then slice 1 and so on, so
+ * the caller sees exactly the tuples (including antimatter tuples) a single merge cursor would return, in the same
+ * order. Each slice buffers at most {@link #QUEUED_BLOCKS_PER_SLICE} blocks ahead of the consumer.
+ * The slices are subject to the {@link LSMMergeThrottle} of the thread that creates the cursor and account for the
+ * tuples they read, so the caller must not throttle the tuples it gets from this cursor again.
+ */
+public class LSMBTreeRangePartitionedMergeCursor implements IIndexCursor {
+    private static final Logger LOGGER = Logger.getLogger(LSMBTreeRangePartitionedMergeCursor.class.getName());
+
+    private static final int BLOCK_SIZE = 128 * 1024;
+    private static final int QUEUED_BLOCKS_PER_SLICE = 16;
+    private static final long OFFER_TIMEOUT_MS = 10;
+    private static final ByteBuffer END_OF_SLICE = ByteBuffer.allocate(0);
+
+    private final LSMBTree lsmBTree;
+    private final List<ILSMComponent> mergingComponents;
+    private final boolean returnDeletedTuples;
+    private final ITreeIndexTupleReference tuple;
+    private final MergeSlice[] slices;
+    private final ExecutorService executor;
+    private final LSMMergeThrottle throttle;
+    private volatile boolean closed;
+    private int currentSlice;
+    private ByteBuffer currentBlock;
+
+    /**
+     * @param lsmBTree
+     *            - the index the merging components belong to
+     * @param mergingComponents
+     *            - the components to merge, newest first
+     * @param separators
+     *            - the ascending keys at which the key space is split; n separators give n + 1 slices
+     * @param returnDeletedTuples
+     *            - whether antimatter tuples must be kept in the output
+     * @param tuple
+     *            - a tuple reference of the merge target's leaf frames, used to expose the merged tuples
+     * @param executor
+     *            - the executor running the slices; slices are submitted in key order, so a FIFO executor never
+     *            blocks a merge on slices of a later key range
+     */
+    public LSMBTreeRangePartitionedMergeCursor(LSMBTree lsmBTree, List<ILSMComponent> mergingComponents,
+            List<ITupleReference> separators, boolean returnDeletedTuples, ITreeIndexTupleReference tuple,
+            ExecutorService executor) {
+        this.lsmBTree = lsmBTree;
+        this.executor = executor;
+        throttle = LSMMergeThrottle.getRegistered();
+        this.mergingComponents = mergingComponents;
+        this.returnDeletedTuples = returnDeletedTuples;
+        this.tuple = tuple;
+        slices = new MergeSlice[separators.size() + 1];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = new MergeSlice(i, i == 0 ? null : separators.get(i - 1), i == separators.size() ? null
+                    : separators.get(i));
+        }
+    }
+
+    /**
+     * Picks up to numSlices - 1 evenly spaced separator keys from the root of the largest of the given components.
+     * Returns an empty list if that root is a leaf, in which case the merge is too small to be worth splitting.
+     */
+    public static List<ITupleReference> getSeparators(List<ILSMComponent> mergingComponents,
+            IBinaryComparatorFactory[] cmpFactories, int numSlices) throws HyracksDataException {
+        if (numSlices <= 1 || mergingComponents.isEmpty()) {
+            return Collections.emptyList();
+        }
+        BTree largest = null;
+        long largestNumElements = -1;
+        for (ILSMComponent c : mergingComponents) {
+            LSMBTreeDiskComponent component = (LSMBTreeDiskComponent) c;
+            long numElements = component.getBloomFilter().getNumElements();
+            if (numElements > largestNumElements) {
+                largestNumElements = numElements;
+                largest = component.getBTree();
+            }
+        }
+        List<ITupleReference> separators = new ArrayList<ITupleReference>();
+        IBufferCache bufferCache = largest.getBufferCache();
+        ITreeIndexFrame interiorFrame = largest.getInteriorFrameFactory().createFrame();
+        interiorFrame.setMultiComparator(MultiComparator.create(cmpFactories));
+        ICachedPage root = bufferCache.pin(
+                BufferedFileHandle.getDiskPageId(largest.getFileId(), largest.getRootPageId()), false);
+        root.acquireReadLatch();
+        try {
+            interiorFrame.setPage(root);
+            if (interiorFrame.isLeaf()) {
+                return separators;
+            }
+            int tupleCount = interiorFrame.getTupleCount();
+            int numSeparators = Math.min(numSlices - 1, tupleCount);
+            ITreeIndexTupleReference frameTuple = interiorFrame.createTupleReference();
+            for (int i = 1; i <= numSeparators; i++) {
+                frameTuple.resetByTupleIndex(interiorFrame, (i * (tupleCount + 1)) / (numSeparators + 1) - 1);
+                ArrayTupleBuilder tb = new ArrayTupleBuilder(cmpFactories.length);
+                for (int j = 0; j < cmpFactories.length; j++) {
+                    tb.addField(frameTuple.getFieldData(j), frameTuple.getFieldStart(j), frameTuple.getFieldLength(j));
+                }
+                ArrayTupleReference separator = new ArrayTupleReference();
+                separator.reset(tb.getFieldEndOffsets(), tb.getByteArray());
+                separators.add(separator);
+            }
+        } finally {
+            root.releaseReadLatch();
+            bufferCache.unpin(root);
+        }
+        return separators;
+    }
+
+    public int getNumSlices() {
+        return slices.length;
+    }
+
+    @Override
+    public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws IndexException,
+            HyracksDataException {
+        closed = false;
+        currentSlice = 0;
+        currentBlock = null;
+        for (MergeSlice slice : slices) {
+            slice.future = executor.submit(slice);
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws HyracksDataException, IndexException {
+        while (currentBlock == null || !currentBlock.hasRemaining()) {
+            if (currentSlice >= slices.length) {
+                return false;
+            }
+            MergeSlice slice = slices[currentSlice];
+            try {
+                currentBlock = slice.blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HyracksDataException(e);
+            }
+            if (currentBlock == END_OF_SLICE) {
+                currentBlock = null;
+                slice.checkFailure();
+                ++currentSlice;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void next() throws HyracksDataException {
+        int tupleSize = currentBlock.getInt();
+        int tupleStart = currentBlock.position();
+        tuple.resetByTupleOffset(currentBlock, tupleStart);
+        currentBlock.position(tupleStart + tupleSize);
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return tuple;
+    }
+
+    /**
+     * Stops the slices that are still running and waits for them to close their cursors. Slices that have not started
+     * yet are cancelled.
+     */
+    @Override
+    public void close() throws HyracksDataException {
+        closed = true;
+        boolean interrupted = false;
+        for (MergeSlice slice : slices) {
+            if (slice.future == null) {
+                continue;
+            }
+            if (!slice.future.cancel(false)) {
+                while (!slice.future.isDone()) {
+                    slice.blocks.clear();
+                    try {
+                        slice.future.get(OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException | TimeoutException e) {
+                        // The slice keeps its own failure, and the loop waits until it is done.
+                    }
+                }
+            }
+            slice.future = null;
+            slice.blocks.clear();
+        }
+        currentBlock = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void reset() throws HyracksDataException, IndexException {
+        close();
+    }
+
+    private class MergeSlice implements Runnable {
+        private final int sliceIndex;
+        private final ITupleReference lowKey;
+        private final ITupleReference highKey;
+        private final BlockingQueue<ByteBuffer> blocks;
+        private volatile Throwable failure;
+        private Future<?> future;
+
+        public MergeSlice(int sliceIndex, ITupleReference lowKey, ITupleReference highKey) {
+            this.sliceIndex = sliceIndex;
+            this.lowKey = lowKey;
+            this.highKey = highKey;
+            blocks = new ArrayBlockingQueue<ByteBuffer>(QUEUED_BLOCKS_PER_SLICE);
+        }
+
+        @Override
+        public void run() {
+            if (throttle != null) {
+                LSMMergeThrottle.register(throttle);
+            }
+            try {
+                LSMBTreeOpContext opCtx = lsmBTree.createOpContext(NoOpOperationCallback.INSTANCE,
+                        NoOpOperationCallback.INSTANCE);
+                opCtx.setOperation(IndexOperation.MERGE);
+                opCtx.getComponentHolder().addAll(mergingComponents);
+                LSMBTreeRangeSearchCursor cursor = new LSMBTreeRangeSearchCursor(opCtx, returnDeletedTuples);
+                RangePredicate rangePred = new RangePredicate(lowKey, highKey, true, false, opCtx.cmp, opCtx.cmp);
+                lsmBTree.search(opCtx, cursor, rangePred);
+                try {
+                    ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+                    while (!closed && cursor.hasNext()) {
+                        cursor.next();
+                        LSMBTreeTupleReference frameTuple = (LSMBTreeTupleReference) cursor.getTuple();
+                        LSMMergeThrottle.throttle(frameTuple);
+                        int tupleSize = frameTuple.getTupleSize();
+                        if (block.remaining() < tupleSize + 4) {
+                            block.flip();
+                            if (!enqueue(block)) {
+                                return;
+                            }
+                            block = ByteBuffer.allocate(Math.max(BLOCK_SIZE, tupleSize + 4));
+                        }
+                        block.putInt(tupleSize);
+                        block.put(frameTuple.getFieldData(0), frameTuple.getTupleStart(), tupleSize);
+                    }
+                    if (block.position() > 0) {
+                        block.flip();
+                        enqueue(block);
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } catch (Throwable th) {
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.log(Level.WARNING, "Merge slice " + sliceIndex + " failed", th);
+                }
+                failure = th;
+            } finally {
+                LSMMergeThrottle.unregister();
+                try {
+                    enqueue(END_OF_SLICE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Waits for room in the queue of this slice, giving up once the merge cursor has been closed.
+         */
+        private boolean enqueue(ByteBuffer block) throws InterruptedException {
+            while (!blocks.offer(block, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void checkFailure() throws HyracksDataException, IndexException {
+            if (failure == null) {
+                return;
+            }
+            if (failure instanceof HyracksDataException) {
+                throw (HyracksDataException) failure;
+            }
+            if (failure instanceof IndexException) {
+                throw (IndexException) failure;
+            }
+            throw new HyracksDataException(failure);
+        }
+    }
+}
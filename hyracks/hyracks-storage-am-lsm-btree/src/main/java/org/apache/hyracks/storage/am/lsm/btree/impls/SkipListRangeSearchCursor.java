@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.impls;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.btree.impls.InMemorySkipListIndex.Node;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+
+/**
+ * Range scan over an {@link InMemorySkipListIndex}. Walks the bottom level of the skip list without taking any latch;
+ * tuples inserted concurrently behind the current position may or may not be returned.
+ */
+public class SkipListRangeSearchCursor implements ITreeIndexCursor {
+
+    private final InMemorySkipListIndex index;
+    private final ITreeIndexTupleReference frameTuple;
+    private final MultiComparator cmp;
+
+    private ITupleReference highKey;
+    private boolean highKeyInclusive;
+    private MultiComparator highKeyCmp;
+    private Node nextNode;
+    private boolean hasTuple;
+
+    public SkipListRangeSearchCursor(InMemorySkipListIndex index) {
+        this.index = index;
+        this.frameTuple = index.getLeafFrameFactory().createFrame().createTupleReference();
+        this.cmp = index.getComparatorFactories()[0] != null ? MultiComparator.create(index.getComparatorFactories())
+                : null;
+    }
+
+    @Override
+    public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws HyracksDataException {
+        RangePredicate pred = (RangePredicate) searchPred;
+        ITupleReference lowKey = pred.getLowKey();
+        if (lowKey == null) {
+            nextNode = index.getHead().next(0);
+        } else {
+            MultiComparator lowKeyCmp = pred.getLowKeyComparator() != null ? pred.getLowKeyComparator() : cmp;
+            nextNode = index.findFirst(lowKey, lowKeyCmp, pred.isLowKeyInclusive(), frameTuple);
+        }
+        highKey = pred.getHighKey();
+        highKeyInclusive = pred.isHighKeyInclusive();
+        highKeyCmp = pred.getHighKeyComparator() != null ? pred.getHighKeyComparator() : cmp;
+        hasTuple = false;
+    }
+
+    @Override
+    public boolean hasNext() throws HyracksDataException {
+        if (hasTuple) {
+            return true;
+        }
+        while (nextNode != null) {
+            long tuple = nextNode.tuple;
+            if (tuple < 0) {
+                // Physically deleted.
+                nextNode = nextNode.next(0);
+                continue;
+            }
+            index.resetTuple(frameTuple, tuple);
+            if (highKey != null) {
+                int c = highKeyCmp.compare(highKey, frameTuple);
+                if (c < 0 || (c == 0 && !highKeyInclusive)) {
+                    nextNode = null;
+                    return false;
+                }
+            }
+            hasTuple = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void next() throws HyracksDataException {
+        hasTuple = false;
+        nextNode = nextNode.next(0);
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        nextNode = null;
+        highKey = null;
+        hasTuple = false;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return frameTuple;
+    }
+
+    @Override
+    public ICachedPage getPage() {
+        return null;
+    }
+
+    @Override
+    public void setBufferCache(IBufferCache bufferCache) {
+        // Tuples are read from the pages held by the skip list.
+    }
+
+    @Override
+    public void setFileId(int fileId) {
+        // Tuples are read from the pages held by the skip list.
+    }
+
+    @Override
+    public boolean exclusiveLatchNodes() {
+        return false;
+    }
+
+    @Override
+    public void markCurrentTupleAsUpdated() throws HyracksDataException {
+        throw new UnsupportedOperationException("Updating tuples in place is not supported by the skip list.");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.api;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+
+/**
+ * Cardinality estimates of an LSM index, drawn from the statistics its disk components keep instead of scanning
+ * the index. They are meant for cost-based decisions of a query compiler and are not exact.
+ */
+public interface ILSMCardinalityEstimator {
+    /**
+     * @return the estimated number of live tuples
+     */
+    public long estimateCardinality() throws HyracksDataException;
+
+    /**
+     * @return the estimated number of distinct values of the index's distinct key fields, e.g. the secondary key
+     *         of a secondary index
+     */
+    public long estimateDistinctKeys() throws HyracksDataException;
+
+    /**
+     * @return the estimated number of tuples whose leading key field lies between the leading fields of the given
+     *         keys; a null key leaves its end of the range open
+     */
+    public long estimateRangeCardinality(ITupleReference lowKey, boolean lowKeyInclusive, ITupleReference highKey,
+            boolean highKeyInclusive) throws HyracksDataException;
+}
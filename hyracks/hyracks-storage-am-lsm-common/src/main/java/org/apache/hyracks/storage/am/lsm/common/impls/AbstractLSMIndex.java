@@ -74,6 +74,8 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
     protected final int[] filterFields;
     protected final boolean durable;
 
+    protected final LSMAmplificationCounters amplificationCounters;
+
     protected boolean isActivated;
     protected final AtomicBoolean[] flushRequests;
 
@@ -97,6 +99,7 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         this.inactiveDiskComponents = new LinkedList<ILSMComponent>();
         this.durable = durable;
         lsmHarness = new LSMHarness(this, mergePolicy, opTracker, diskBufferCache.isReplicationEnabled());
+        amplificationCounters = new LSMAmplificationCounters();
         isActivated = false;
         diskComponents = new ArrayList<ILSMComponent>();
         memoryComponents = new ArrayList<ILSMComponent>();
@@ -120,6 +123,7 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         this.ioOpCallback = ioOpCallback;
         this.durable = durable;
         lsmHarness = new ExternalIndexHarness(this, mergePolicy, opTracker, diskBufferCache.isReplicationEnabled());
+        amplificationCounters = new LSMAmplificationCounters();
         isActivated = false;
         diskComponents = new LinkedList<ILSMComponent>();
         this.inactiveDiskComponents = new LinkedList<ILSMComponent>();
@@ -240,6 +244,11 @@ public abstract class AbstractLSMIndex implements ILSMIndexInternal {
         return lsmHarness.getOperationTracker();
     }
 
+    @Override
+    public LSMAmplificationCounters getAmplificationCounters() {
+        return amplificationCounters;
+    }
+
     @Override
     public ILSMIOOperationScheduler getIOScheduler() {
         return ioScheduler;
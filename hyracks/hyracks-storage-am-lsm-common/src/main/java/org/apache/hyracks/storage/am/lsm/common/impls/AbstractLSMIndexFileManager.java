@@ -48,6 +48,7 @@ public abstract class AbstractLSMIndexFileManager implements ILSMIndexFileManage
 
     public static final String SPLIT_STRING = "_";
     protected static final String BLOOM_FILTER_STRING = "f";
+    protected static final String STATISTICS_STRING = "s";
     protected static final String TRANSACTION_PREFIX = ".T";
 
     protected final IFileMapProvider fileMapProvider;
@@ -161,6 +162,23 @@ public abstract class AbstractLSMIndexFileManager implements ILSMIndexFileManage
         }
     };
 
+    protected static FilenameFilter statisticsFilter = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return !name.startsWith(".") && name.endsWith(SPLIT_STRING + STATISTICS_STRING);
+        }
+    };
+
+    /**
+     * @return the file that holds the statistics of the component one of whose files is given. It shares the
+     *         component's timestamp interval, so it is cleaned up along with the component's other files.
+     */
+    public static FileReference getStatisticsFileReference(FileReference componentFileRef) {
+        String path = componentFileRef.getFile().getPath();
+        return new FileReference(new File(path.substring(0, path.lastIndexOf(SPLIT_STRING) + 1)
+                + STATISTICS_STRING));
+    }
+
     protected FileReference createFlushFile(String relFlushFileName) {
         return new FileReference(new File(relFlushFileName));
     }
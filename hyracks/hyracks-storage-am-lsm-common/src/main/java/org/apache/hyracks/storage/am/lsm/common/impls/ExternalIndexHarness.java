@@ -172,6 +172,7 @@ public class ExternalIndexHarness extends LSMHarness {
             throws HyracksDataException, IndexException {
         LSMOperationType opType = LSMOperationType.SEARCH;
         getAndEnterComponents(ctx, opType, false);
+        lsmIndex.getAmplificationCounters().searched(ctx.getComponentHolder().size());
         try {
             lsmIndex.search(ctx, cursor, pred);
         } catch (HyracksDataException | IndexException e) {
@@ -227,6 +228,8 @@ public class ExternalIndexHarness extends LSMHarness {
             newComponent = lsmIndex.merge(operation);
             operation.getCallback().afterOperation(LSMOperationType.MERGE, ctx.getComponentHolder(), newComponent);
             lsmIndex.markAsValid(newComponent);
+            lsmIndex.getAmplificationCounters().componentsMerged(ctx.getComponentHolder().size(),
+                    getComponentSize(newComponent));
         } finally {
             exitComponents(ctx, LSMOperationType.MERGE, newComponent, false);
             operation.getCallback().afterFinalize(LSMOperationType.MERGE, newComponent);
@@ -239,6 +242,7 @@ public class ExternalIndexHarness extends LSMHarness {
     @Override
     public void addBulkLoadedComponent(ILSMComponent c) throws HyracksDataException, IndexException {
         lsmIndex.markAsValid(c);
+        lsmIndex.getAmplificationCounters().componentBulkLoaded(getComponentSize(c));
         synchronized (opTracker) {
             lsmIndex.addComponent(c);
             if (replicationEnabled) {
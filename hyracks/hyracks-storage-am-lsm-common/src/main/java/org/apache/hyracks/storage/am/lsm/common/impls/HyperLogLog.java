@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A HyperLogLog sketch of the number of distinct values in a stream of 64-bit hashes. The first {@link #PRECISION}
+ * bits of a hash select one of 2^PRECISION registers, and each register keeps the longest run of leading zeros seen
+ * in the remaining bits. The estimate has a standard error of about 1.04 / sqrt(2^PRECISION), i.e. 1.6%.
+ * Sketches of different components are combined with {@link #merge(HyperLogLog)}, which yields the sketch of the
+ * union of their values.
+ */
+public class HyperLogLog {
+    public static final int PRECISION = 12;
+    private static final int NUM_REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1.0 + 1.079 / NUM_REGISTERS);
+
+    private final byte[] registers = new byte[NUM_REGISTERS];
+
+    public void add(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // The remaining bits are shifted to the top; the sentinel bit bounds the run of zeros.
+        long remaining = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[register]) {
+            registers[register] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < NUM_REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (int i = 0; i < NUM_REGISTERS; i++) {
+            sum += 1.0 / (1L << registers[i]);
+            if (registers[i] == 0) {
+                zeroRegisters++;
+            }
+        }
+        double estimate = ALPHA * NUM_REGISTERS * NUM_REGISTERS / sum;
+        if (estimate <= 2.5 * NUM_REGISTERS && zeroRegisters > 0) {
+            // Small cardinalities leave registers empty, linear counting is more accurate there.
+            estimate = NUM_REGISTERS * Math.log((double) NUM_REGISTERS / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.write(registers);
+    }
+
+    public void read(DataInput in) throws IOException {
+        in.readFully(registers);
+    }
+}
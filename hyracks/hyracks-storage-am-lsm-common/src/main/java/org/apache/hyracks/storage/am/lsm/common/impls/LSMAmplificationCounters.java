@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write- and read-amplification counters of an LSM index.
+ * Write amplification is the ratio between the number of bytes written to disk components (by flushes, merges and bulk
+ * loads) and the number of bytes that entered the disk components in the first place (by flushes and bulk loads).
+ * Read amplification is the average number of components that a search had to consult.
+ */
+public class LSMAmplificationCounters {
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedBytes = new AtomicLong();
+    private final AtomicLong mergeCount = new AtomicLong();
+    private final AtomicLong mergedComponentCount = new AtomicLong();
+    private final AtomicLong mergedBytes = new AtomicLong();
+    private final AtomicLong bulkLoadedBytes = new AtomicLong();
+    private final AtomicLong searchCount = new AtomicLong();
+    private final AtomicLong searchedComponentCount = new AtomicLong();
+
+    public void componentFlushed(long componentSize) {
+        flushCount.incrementAndGet();
+        flushedBytes.addAndGet(componentSize);
+    }
+
+    public void componentsMerged(int inputComponentCount, long componentSize) {
+        mergeCount.incrementAndGet();
+        mergedComponentCount.addAndGet(inputComponentCount);
+        mergedBytes.addAndGet(componentSize);
+    }
+
+    public void componentBulkLoaded(long componentSize) {
+        bulkLoadedBytes.addAndGet(componentSize);
+    }
+
+    public void searched(int componentCount) {
+        searchCount.incrementAndGet();
+        searchedComponentCount.addAndGet(componentCount);
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedBytes() {
+        return flushedBytes.get();
+    }
+
+    public long getMergeCount() {
+        return mergeCount.get();
+    }
+
+    public long getMergedComponentCount() {
+        return mergedComponentCount.get();
+    }
+
+    public long getMergedBytes() {
+        return mergedBytes.get();
+    }
+
+    public long getBulkLoadedBytes() {
+        return bulkLoadedBytes.get();
+    }
+
+    public long getSearchCount() {
+        return searchCount.get();
+    }
+
+    public long getSearchedComponentCount() {
+        return searchedComponentCount.get();
+    }
+
+    /**
+     * @return the number of bytes written to disk components per byte ingested, 0 if nothing has been ingested yet
+     */
+    public double getWriteAmplification() {
+        long ingestedBytes = flushedBytes.get() + bulkLoadedBytes.get();
+        if (ingestedBytes == 0) {
+            return 0;
+        }
+        return (double) (ingestedBytes + mergedBytes.get()) / ingestedBytes;
+    }
+
+    /**
+     * @return the average number of components consulted per search, 0 if there has not been any search yet
+     */
+    public double getReadAmplification() {
+        long searches = searchCount.get();
+        if (searches == 0) {
+            return 0;
+        }
+        return (double) searchedComponentCount.get() / searches;
+    }
+
+    public void reset() {
+        flushCount.set(0);
+        flushedBytes.set(0);
+        mergeCount.set(0);
+        mergedComponentCount.set(0);
+        mergedBytes.set(0);
+        bulkLoadedBytes.set(0);
+        searchCount.set(0);
+        searchedComponentCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "{ flushes: " + flushCount + ", flushed bytes: " + flushedBytes + ", merges: " + mergeCount
+                + ", merged bytes: " + mergedBytes + ", bulk loaded bytes: " + bulkLoadedBytes + ", searches: "
+                + searchCount + ", write amplification: " + getWriteAmplification() + ", read amplification: "
+                + getReadAmplification() + " }";
+    }
+}
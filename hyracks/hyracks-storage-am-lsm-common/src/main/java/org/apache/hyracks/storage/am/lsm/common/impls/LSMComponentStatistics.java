@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.bloomfilter.impls.MurmurHash128Bit;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMTreeTupleReference;
+
+/**
+ * Statistics of the tuples of one disk component, built while the component is written by a flush, a merge or a
+ * bulk load, and persisted next to the component's files:
+ * - the number of tuples and of antimatter tuples,
+ * - a {@link HyperLogLog} sketch of the distinct values of the key fields given to the {@link Builder}, e.g. the
+ * secondary key of a secondary index,
+ * - a {@link HyperLogLog} sketch of the index keys, which can be merged across components to count a key that was
+ * written to several of them once, and
+ * - an equi-depth histogram of the leading key field, whose buckets hold the same number of tuples each.
+ * Antimatter tuples only count towards the antimatter count.
+ */
+public class LSMComponentStatistics {
+    public static final int DEFAULT_MAX_BUCKETS = 64;
+
+    // Files of the first version, which had no sketch of the index keys, are ignored.
+    private static final int MAGIC = 0x4C534D32;
+    private static final long HASH_SEED = 0L;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Logger LOGGER = Logger.getLogger(LSMComponentStatistics.class.getName());
+
+    private final long tupleCount;
+    private final long antimatterCount;
+    private final HyperLogLog distinctKeys;
+    private final HyperLogLog keys;
+    // Bucket i holds the tuples whose leading field lies after upperBounds[i - 1] and up to upperBounds[i]. The
+    // first bucket starts at minKey.
+    private final byte[] minKey;
+    private final byte[][] upperBounds;
+    private final long[] bucketCounts;
+
+    private LSMComponentStatistics(long tupleCount, long antimatterCount, HyperLogLog distinctKeys, HyperLogLog keys,
+            byte[] minKey, byte[][] upperBounds, long[] bucketCounts) {
+        this.tupleCount = tupleCount;
+        this.antimatterCount = antimatterCount;
+        this.distinctKeys = distinctKeys;
+        this.keys = keys;
+        this.minKey = minKey;
+        this.upperBounds = upperBounds;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * @return the number of tuples of the component, antimatter tuples excluded
+     */
+    public long getTupleCount() {
+        return tupleCount;
+    }
+
+    public long getAntimatterCount() {
+        return antimatterCount;
+    }
+
+    public HyperLogLog getDistinctKeys() {
+        return distinctKeys;
+    }
+
+    public long estimateDistinctKeys() {
+        return distinctKeys.estimate();
+    }
+
+    /**
+     * @return the sketch of the index keys of the tuples of the component, antimatter tuples excluded
+     */
+    public HyperLogLog getKeys() {
+        return keys;
+    }
+
+    public int getNumBuckets() {
+        return bucketCounts.length;
+    }
+
+    /**
+     * Estimates the number of tuples whose leading key field lies between the leading fields of the given keys.
+     * Buckets within the range count fully, and buckets that straddle one of its ends count half.
+     *
+     * @param lowKey
+     *            - the lower end of the range, or null if the range is open at the bottom
+     * @param highKey
+     *            - the upper end of the range, or null if the range is open at the top
+     * @param cmp
+     *            - the comparator of the leading key field
+     */
+    public long estimateRangeCardinality(ITupleReference lowKey, boolean lowKeyInclusive, ITupleReference highKey,
+            boolean highKeyInclusive, IBinaryComparator cmp) throws HyracksDataException {
+        long estimate = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            // The first bucket includes its lower bound, all others exclude it.
+            byte[] lower = i == 0 ? minKey : upperBounds[i - 1];
+            byte[] upper = upperBounds[i];
+            int lowerVsHigh = highKey == null ? -1 : compare(cmp, lower, highKey);
+            if (lowerVsHigh > 0 || (lowerVsHigh == 0 && (i > 0 || !highKeyInclusive))) {
+                break;
+            }
+            int upperVsLow = lowKey == null ? 1 : compare(cmp, upper, lowKey);
+            if (upperVsLow < 0 || (upperVsLow == 0 && !lowKeyInclusive)) {
+                continue;
+            }
+            int lowerVsLow = lowKey == null ? 1 : compare(cmp, lower, lowKey);
+            boolean lowerInside = lowerVsLow > 0 || (lowerVsLow == 0 && (i > 0 || lowKeyInclusive));
+            int upperVsHigh = highKey == null ? -1 : compare(cmp, upper, highKey);
+            boolean upperInside = upperVsHigh < 0 || (upperVsHigh == 0 && highKeyInclusive);
+            estimate += lowerInside && upperInside ? bucketCounts[i] : (bucketCounts[i] + 1) / 2;
+        }
+        return estimate;
+    }
+
+    private static int compare(IBinaryComparator cmp, byte[] bound, ITupleReference key) throws HyracksDataException {
+        return cmp.compare(bound, 0, bound.length, key.getFieldData(0), key.getFieldStart(0), key.getFieldLength(0));
+    }
+
+    /**
+     * Writes the statistics to a hidden file next to the given one, forces it to disk and renames it over the given
+     * file, so a crash leaves either the previous file or the complete new one behind.
+     */
+    public void write(FileReference fileRef) throws HyracksDataException {
+        File file = fileRef.getFile();
+        File tempFile = new File(file.getParentFile(), "." + file.getName() + TEMP_SUFFIX);
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+                out.writeInt(MAGIC);
+                out.writeLong(tupleCount);
+                out.writeLong(antimatterCount);
+                distinctKeys.write(out);
+                keys.write(out);
+                out.writeInt(bucketCounts.length);
+                if (bucketCounts.length > 0) {
+                    writeBytes(out, minKey);
+                    for (int i = 0; i < bucketCounts.length; i++) {
+                        writeBytes(out, upperBounds[i]);
+                        out.writeLong(bucketCounts[i]);
+                    }
+                }
+                out.flush();
+                fileOut.getChannel().force(true);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw new HyracksDataException("Failed to write the component statistics to " + fileRef, e);
+        }
+    }
+
+    /**
+     * @return the statistics persisted in the given file, or null if there is no such file or it is not a complete
+     *         statistics file, e.g. one left behind by an older version
+     */
+    public static LSMComponentStatistics read(FileReference fileRef) throws HyracksDataException {
+        File file = fileRef.getFile();
+        if (!file.exists()) {
+            return null;
+        }
+        long fileLength = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return ignore(fileRef, "not a component statistics file");
+            }
+            long tupleCount = in.readLong();
+            long antimatterCount = in.readLong();
+            HyperLogLog distinctKeys = new HyperLogLog();
+            distinctKeys.read(in);
+            HyperLogLog keys = new HyperLogLog();
+            keys.read(in);
+            int numBuckets = in.readInt();
+            if (numBuckets < 0 || numBuckets > fileLength) {
+                return ignore(fileRef, "bad bucket count " + numBuckets);
+            }
+            byte[] minKey = numBuckets > 0 ? readBytes(in, fileLength) : null;
+            byte[][] upperBounds = new byte[numBuckets][];
+            long[] bucketCounts = new long[numBuckets];
+            for (int i = 0; i < numBuckets; i++) {
+                upperBounds[i] = readBytes(in, fileLength);
+                bucketCounts[i] = in.readLong();
+            }
+            if (in.read() != -1) {
+                return ignore(fileRef, "trailing bytes");
+            }
+            return new LSMComponentStatistics(tupleCount, antimatterCount, distinctKeys, keys, minKey, upperBounds,
+                    bucketCounts);
+        } catch (EOFException e) {
+            return ignore(fileRef, "truncated file");
+        } catch (IOException e) {
+            throw new HyracksDataException("Failed to read the component statistics from " + fileRef, e);
+        }
+    }
+
+    private static LSMComponentStatistics ignore(FileReference fileRef, String reason) {
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning("Ignoring the component statistics in " + fileRef + ": " + reason);
+        }
+        return null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in, long fileLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > fileLength) {
+            // A corrupt length; reported like a truncated file rather than allocated.
+            throw new EOFException("Bad field length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Collects the statistics of a component from its tuples, which must be added in key order.
+     * The histogram records the leading field of every stride-th tuple as a bucket bound. Whenever twice the
+     * maximum number of buckets has been recorded, every other bound is dropped and the stride doubles, so the
+     * buckets stay equally deep without knowing the number of tuples in advance.
+     */
+    public static class Builder {
+        private final int[] distinctKeyFields;
+        private final int[] keyFields;
+        private final int maxBuckets;
+        private final long[] hashes = new long[2];
+        private final HyperLogLog distinctKeys = new HyperLogLog();
+        private final HyperLogLog keys = new HyperLogLog();
+        private final List<byte[]> bounds = new ArrayList<byte[]>();
+        private long stride = 1;
+        private long tupleCount;
+        private long antimatterCount;
+        private byte[] minKey;
+        private byte[] lastKey = new byte[0];
+        private int lastKeyLength;
+
+        public Builder(int[] distinctKeyFields) {
+            this(distinctKeyFields, DEFAULT_MAX_BUCKETS);
+        }
+
+        public Builder(int[] distinctKeyFields, int maxBuckets) {
+            this(distinctKeyFields, distinctKeyFields, maxBuckets);
+        }
+
+        /**
+         * @param distinctKeyFields
+         *            - the fields whose distinct values are counted
+         * @param keyFields
+         *            - the fields that make up the index key
+         * @param maxBuckets
+         *            - the maximum number of histogram buckets
+         */
+        public Builder(int[] distinctKeyFields, int[] keyFields, int maxBuckets) {
+            this.distinctKeyFields = distinctKeyFields;
+            this.keyFields = keyFields;
+            this.maxBuckets = maxBuckets;
+        }
+
+        public void add(ITupleReference tuple) {
+            if (tuple instanceof ILSMTreeTupleReference && ((ILSMTreeTupleReference) tuple).isAntimatter()) {
+                antimatterCount++;
+                return;
+            }
+            MurmurHash128Bit.hash3_x64_128(tuple, distinctKeyFields, HASH_SEED, hashes);
+            distinctKeys.add(hashes[0]);
+            if (keyFields != distinctKeyFields) {
+                MurmurHash128Bit.hash3_x64_128(tuple, keyFields, HASH_SEED, hashes);
+            }
+            keys.add(hashes[0]);
+
+            byte[] data = tuple.getFieldData(0);
+            int start = tuple.getFieldStart(0);
+            int length = tuple.getFieldLength(0);
+            if (tupleCount == 0) {
+                minKey = Arrays.copyOfRange(data, start, start + length);
+            }
+            tupleCount++;
+            if (tupleCount % stride == 0) {
+                bounds.add(Arrays.copyOfRange(data, start, start + length));
+                lastKeyLength = -1;
+                if (bounds.size() == 2 * maxBuckets) {
+                    for (int i = 0; i < maxBuckets; i++) {
+                        bounds.set(i, bounds.get(2 * i + 1));
+                    }
+                    bounds.subList(maxBuckets, bounds.size()).clear();
+                    stride *= 2;
+                }
+            } else {
+                // Remembered for the last bucket, which ends at the last tuple.
+                if (lastKey.length < length) {
+                    lastKey = new byte[Math.max(length, 2 * lastKey.length)];
+                }
+                System.arraycopy(data, start, lastKey, 0, length);
+                lastKeyLength = length;
+            }
+        }
+
+        public LSMComponentStatistics build() {
+            int numBuckets = bounds.size() + (lastKeyLength >= 0 && tupleCount % stride != 0 ? 1 : 0);
+            byte[][] upperBounds = new byte[numBuckets][];
+            long[] bucketCounts = new long[numBuckets];
+            for (int i = 0; i < bounds.size(); i++) {
+                upperBounds[i] = bounds.get(i);
+                bucketCounts[i] = stride;
+            }
+            if (numBuckets > bounds.size()) {
+                upperBounds[numBuckets - 1] = Arrays.copyOf(lastKey, lastKeyLength);
+                bucketCounts[numBuckets - 1] = tupleCount % stride;
+            }
+            return new LSMComponentStatistics(tupleCount, antimatterCount, distinctKeys, keys, minKey, upperBounds,
+                    bucketCounts);
+        }
+    }
+}
@@ -353,6 +353,7 @@ public class LSMHarness implements ILSMHarness {
         LSMOperationType opType = LSMOperationType.SEARCH;
         ctx.setSearchPredicate(pred);
         getAndEnterComponents(ctx, opType, false);
+        lsmIndex.getAmplificationCounters().searched(ctx.getComponentHolder().size());
         try {
             lsmIndex.search(ctx, cursor, pred);
         } catch (HyracksDataException | IndexException e) {
@@ -394,6 +395,7 @@ public class LSMHarness implements ILSMHarness {
             newComponent = lsmIndex.flush(operation);
             operation.getCallback().afterOperation(LSMOperationType.FLUSH, null, newComponent);
             lsmIndex.markAsValid(newComponent);
+            lsmIndex.getAmplificationCounters().componentFlushed(getComponentSize(newComponent));
         } catch (Throwable e) {
             e.printStackTrace();
             throw e;
@@ -442,6 +444,8 @@ public class LSMHarness implements ILSMHarness {
             newComponent = lsmIndex.merge(operation);
             operation.getCallback().afterOperation(LSMOperationType.MERGE, ctx.getComponentHolder(), newComponent);
             lsmIndex.markAsValid(newComponent);
+            lsmIndex.getAmplificationCounters().componentsMerged(ctx.getComponentHolder().size(),
+                    getComponentSize(newComponent));
         } catch (Throwable e) {
             e.printStackTrace();
             throw e;
@@ -457,6 +461,7 @@ public class LSMHarness implements ILSMHarness {
     @Override
     public void addBulkLoadedComponent(ILSMComponent c) throws HyracksDataException, IndexException {
         lsmIndex.markAsValid(c);
+        lsmIndex.getAmplificationCounters().componentBulkLoaded(getComponentSize(c));
         synchronized (opTracker) {
             lsmIndex.addComponent(c);
             if (replicationEnabled) {
@@ -473,6 +478,10 @@ public class LSMHarness implements ILSMHarness {
         return opTracker;
     }
 
+    protected static long getComponentSize(ILSMComponent c) {
+        return c instanceof AbstractDiskLSMComponent ? ((AbstractDiskLSMComponent) c).getComponentSize() : 0;
+    }
+
     protected void triggerReplication(List<ILSMComponent> lsmComponents, boolean bulkload, LSMOperationType opType)
             throws HyracksDataException {
         ILSMIndexAccessorInternal accessor = lsmIndex.createAccessor(NoOpOperationCallback.INSTANCE,
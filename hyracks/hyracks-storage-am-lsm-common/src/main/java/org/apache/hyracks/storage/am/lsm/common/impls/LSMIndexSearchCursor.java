@@ -22,6 +22,7 @@ package org.apache.hyracks.storage.am.lsm.common.impls;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.Queue;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
@@ -39,7 +40,7 @@ import org.apache.hyracks.storage.common.buffercache.ICachedPage;
 public abstract class LSMIndexSearchCursor implements ITreeIndexCursor {
     protected PriorityQueueElement outputElement;
     protected IIndexCursor[] rangeCursors;
-    protected PriorityQueue<PriorityQueueElement> outputPriorityQueue;
+    protected Queue<PriorityQueueElement> outputPriorityQueue;
     protected PriorityQueueComparator pqCmp;
     protected MultiComparator cmp;
     protected boolean needPush;
@@ -47,6 +48,8 @@ public abstract class LSMIndexSearchCursor implements ITreeIndexCursor {
     protected ILSMHarness lsmHarness;
     protected final ILSMIndexOperationContext opCtx;
     protected final boolean returnDeletedTuples;
+    // Whether component cursors are merged with a LSMMergeTournamentTree rather than a PriorityQueue.
+    protected boolean useTournamentTree;
 
     protected List<ILSMComponent> operationalComponents;
 
@@ -61,9 +64,29 @@ public abstract class LSMIndexSearchCursor implements ITreeIndexCursor {
         return opCtx;
     }
 
+    public boolean isReturnDeletedTuples() {
+        return returnDeletedTuples;
+    }
+
+    /**
+     * Selects the structure this cursor merges its component cursors with the next time it is opened. The priority
+     * queue is the default. LSM BTree range search cursors take this option from the index they search.
+     */
+    public void setUseTournamentTree(boolean useTournamentTree) {
+        this.useTournamentTree = useTournamentTree;
+    }
+
+    public boolean isUseTournamentTree() {
+        return useTournamentTree;
+    }
+
     public void initPriorityQueue() throws HyracksDataException, IndexException {
         int pqInitSize = (rangeCursors.length > 0) ? rangeCursors.length : 1;
-        outputPriorityQueue = new PriorityQueue<PriorityQueueElement>(pqInitSize, pqCmp);
+        if (useTournamentTree) {
+            outputPriorityQueue = new LSMMergeTournamentTree(rangeCursors.length, pqCmp);
+        } else {
+            outputPriorityQueue = new PriorityQueue<PriorityQueueElement>(pqInitSize, pqCmp);
+        }
         for (int i = 0; i < rangeCursors.length; i++) {
             pushIntoPriorityQueue(new PriorityQueueElement(i));
         }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the bounded thread pools LSM indexes use to split up their flushes, merges and bulk loads. The threads come
+ * from the thread factory of the node controller when there is one and are daemon threads otherwise. Idle threads go
+ * away after a minute, and the owner shuts its pool down when it no longer needs it, e.g. an index when it is
+ * deactivated or destroyed.
+ */
+public class LSMIndexThreadPools {
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private LSMIndexThreadPools() {
+    }
+
+    /**
+     * @param threadFactory
+     *            - the thread factory of the node controller, or null
+     * @param name
+     *            - the name of the threads if no thread factory is given
+     * @param numThreads
+     *            - the maximum number of threads, tasks beyond it are queued
+     */
+    public static ExecutorService create(ThreadFactory threadFactory, final String name, int numThreads) {
+        if (threadFactory == null) {
+            threadFactory = new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Lets the running tasks of the given pool complete and releases its threads; does nothing if the pool is null.
+     */
+    public static void shutdown(ExecutorService executor) {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
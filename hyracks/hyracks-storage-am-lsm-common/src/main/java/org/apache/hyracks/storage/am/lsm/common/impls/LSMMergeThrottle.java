@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+
+/**
+ * Limits the bandwidth of the merges run by a {@link PrioritizedIOOperationScheduler} and holds them while merges are
+ * paused. Merge loops report the tuples they write through {@link #throttle(ITupleReference)}, which only has an effect
+ * on threads that are running a merge on behalf of a throttling scheduler. The bandwidth is configured through the
+ * "max-merge-mb-per-second" property of {@link PrioritizedIOOperationSchedulerProvider}.
+ */
+public class LSMMergeThrottle {
+    // Number of bytes a merge thread writes between two acquisitions of bandwidth.
+    private static final long ACQUIRE_GRANULARITY = 64 * 1024;
+
+    private static final ThreadLocal<ThreadState> THREAD_STATE = new ThreadLocal<ThreadState>();
+
+    private final long maxBytesPerSecond;
+    private boolean paused;
+    private double availableBytes;
+    private long lastRefillTime;
+
+    /**
+     * @param maxBytesPerSecond
+     *            - Maximum number of bytes per second written by all throttled merges together, a non-positive value
+     *            does not limit the bandwidth
+     */
+    public LSMMergeThrottle(long maxBytesPerSecond) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        lastRefillTime = System.nanoTime();
+    }
+
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Blocks until merges are not paused and the given number of bytes may be written without exceeding the bandwidth.
+     */
+    public void acquire(long bytes) throws HyracksDataException {
+        long waitMillis = 0;
+        synchronized (this) {
+            try {
+                while (paused) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                throw new HyracksDataException(e);
+            }
+            if (maxBytesPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            availableBytes = Math.min(maxBytesPerSecond, availableBytes + (now - lastRefillTime) * maxBytesPerSecond
+                    / 1e9);
+            lastRefillTime = now;
+            availableBytes -= bytes;
+            if (availableBytes < 0) {
+                waitMillis = (long) (-availableBytes * 1000 / maxBytesPerSecond);
+            }
+        }
+        if (waitMillis > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                throw new HyracksDataException(e);
+            }
+        }
+    }
+
+    /**
+     * Subjects the merge running on the current thread to the given throttle.
+     */
+    public static void register(LSMMergeThrottle throttle) {
+        THREAD_STATE.set(new ThreadState(throttle));
+    }
+
+    public static void unregister() {
+        THREAD_STATE.remove();
+    }
+
+    /**
+     * Returns the throttle the merge running on the current thread is subject to, or null. Merges that hand work to
+     * other threads register it on those threads as well.
+     */
+    public static LSMMergeThrottle getRegistered() {
+        ThreadState state = THREAD_STATE.get();
+        return state == null ? null : state.throttle;
+    }
+
+    /**
+     * Accounts for a tuple written by the merge running on the current thread, blocking if needed.
+     */
+    public static void throttle(ITupleReference tuple) throws HyracksDataException {
+        ThreadState state = THREAD_STATE.get();
+        if (state == null) {
+            return;
+        }
+        int fieldCount = tuple.getFieldCount();
+        for (int i = 0; i < fieldCount; i++) {
+            state.pendingBytes += tuple.getFieldLength(i);
+        }
+        if (state.pendingBytes >= ACQUIRE_GRANULARITY) {
+            state.throttle.acquire(state.pendingBytes);
+            state.pendingBytes = 0;
+        }
+    }
+
+    private static class ThreadState {
+        private final LSMMergeThrottle throttle;
+        private long pendingBytes;
+
+        private ThreadState(LSMMergeThrottle throttle) {
+            this.throttle = throttle;
+        }
+    }
+}
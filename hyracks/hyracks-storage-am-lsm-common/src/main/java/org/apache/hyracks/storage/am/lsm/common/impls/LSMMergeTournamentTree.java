@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor.PriorityQueueElement;
+
+/**
+ * A replacement for the priority queue LSM search cursors use to merge the outputs of their component cursors.
+ * Every component cursor owns one leaf of a tournament tree, addressed by the element's cursor index, and every inner
+ * node caches the leaf that wins its subtree, so the head is known without comparing anything and re-inserting an
+ * element only replays the comparisons on the path of its own leaf.
+ * Merge cursors almost always poll the head, advance its component cursor and insert it again. The tree keeps the
+ * polled leaf in place until it comes back, and it remembers the runner-up, i.e. the best element of all other
+ * components. As long as the re-inserted element still sorts before the runner-up, which is the case while one
+ * component contributes a run of consecutive keys, the head is confirmed with a single comparison and the tree is
+ * left untouched.
+ * The queue holds at most one element per cursor index and iterates its elements in cursor index order.
+ */
+public class LSMMergeTournamentTree extends AbstractQueue<PriorityQueueElement> {
+    private static final int UNKNOWN = -1;
+    private static final int NONE = -2;
+
+    private final Comparator<PriorityQueueElement> comparator;
+    private final int numLeaves;
+    // tree[1] is the root, tree[numLeaves + i] is the leaf of cursor i, inner nodes hold the winning leaf.
+    private final int[] tree;
+    private final PriorityQueueElement[] elements;
+    private int size;
+    // The leaf polled last, still recorded as the winner along its path until it is re-inserted or settled.
+    private int pendingLeaf;
+    // The leaf that wins once the current head is gone, NONE if there is none, UNKNOWN if it has not been computed.
+    private int runnerUp;
+
+    public LSMMergeTournamentTree(int numCursors, Comparator<PriorityQueueElement> comparator) {
+        this.comparator = comparator;
+        numLeaves = Math.max(1, numCursors);
+        tree = new int[2 * numLeaves];
+        for (int i = 0; i < numLeaves; i++) {
+            tree[numLeaves + i] = i;
+        }
+        elements = new PriorityQueueElement[numLeaves];
+        pendingLeaf = -1;
+        runnerUp = UNKNOWN;
+    }
+
+    @Override
+    public boolean offer(PriorityQueueElement e) {
+        int leaf = e.getCursorIndex();
+        if (leaf == pendingLeaf) {
+            pendingLeaf = -1;
+            elements[leaf] = e;
+            ++size;
+            if (runnerUp == NONE || (runnerUp >= 0 && comparator.compare(e, elements[runnerUp]) < 0)) {
+                // Still ahead of every other component: the winners recorded along its path remain valid.
+                return true;
+            }
+            if (runnerUp >= 0) {
+                replayBehind(leaf, runnerUp);
+            } else {
+                replay(leaf);
+            }
+            return true;
+        }
+        settle();
+        if (elements[leaf] != null) {
+            throw new IllegalStateException("Cursor " + leaf + " already has an element in the queue");
+        }
+        elements[leaf] = e;
+        ++size;
+        replay(leaf);
+        return true;
+    }
+
+    @Override
+    public PriorityQueueElement poll() {
+        settle();
+        if (size == 0) {
+            return null;
+        }
+        int winner = tree[1];
+        pendingLeaf = winner;
+        --size;
+        return elements[winner];
+    }
+
+    @Override
+    public PriorityQueueElement peek() {
+        if (size == 0) {
+            return null;
+        }
+        if (pendingLeaf >= 0) {
+            if (runnerUp == UNKNOWN) {
+                runnerUp = computeRunnerUp(pendingLeaf);
+            }
+            return elements[runnerUp];
+        }
+        return elements[tree[1]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, null);
+        size = 0;
+        pendingLeaf = -1;
+        runnerUp = UNKNOWN;
+    }
+
+    @Override
+    public Iterator<PriorityQueueElement> iterator() {
+        settle();
+        return new Iterator<PriorityQueueElement>() {
+            private int next = advance(0);
+            private int last = -1;
+
+            private int advance(int from) {
+                while (from < numLeaves && elements[from] == null) {
+                    ++from;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < numLeaves;
+            }
+
+            @Override
+            public PriorityQueueElement next() {
+                if (next >= numLeaves) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance(next + 1);
+                return elements[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                settle();
+                elements[last] = null;
+                --size;
+                replay(last);
+                last = -1;
+            }
+        };
+    }
+
+    /**
+     * Removes the polled leaf from the tree if it has not been re-inserted.
+     */
+    private void settle() {
+        if (pendingLeaf >= 0) {
+            int leaf = pendingLeaf;
+            pendingLeaf = -1;
+            elements[leaf] = null;
+            replay(leaf);
+        }
+    }
+
+    private void replay(int leaf) {
+        for (int node = (numLeaves + leaf) >> 1; node >= 1; node >>= 1) {
+            tree[node] = winner(tree[2 * node], tree[2 * node + 1]);
+        }
+        runnerUp = UNKNOWN;
+    }
+
+    /**
+     * Replays the path of a leaf that has fallen behind the given leaf, which is known to beat every other leaf. Once
+     * the path reaches a subtree containing that leaf, it wins all remaining nodes without comparing.
+     */
+    private void replayBehind(int leaf, int best) {
+        int bestNode = numLeaves + best;
+        int node = (numLeaves + leaf) >> 1;
+        for (; node >= 1; node >>= 1) {
+            while (bestNode > node) {
+                bestNode >>= 1;
+            }
+            if (bestNode == node) {
+                break;
+            }
+            tree[node] = winner(tree[2 * node], tree[2 * node + 1]);
+        }
+        for (; node >= 1; node >>= 1) {
+            tree[node] = best;
+        }
+        runnerUp = UNKNOWN;
+    }
+
+    /**
+     * Finds the best leaf of the subtrees hanging off the path of the given leaf without modifying the tree.
+     */
+    private int computeRunnerUp(int leaf) {
+        int best = NONE;
+        for (int node = numLeaves + leaf; node > 1; node >>= 1) {
+            int candidate = tree[node ^ 1];
+            if (isPresent(candidate)) {
+                best = best == NONE ? candidate : winner(best, candidate);
+            }
+        }
+        return best;
+    }
+
+    private boolean isPresent(int leaf) {
+        return leaf != pendingLeaf && elements[leaf] != null;
+    }
+
+    private int winner(int leafA, int leafB) {
+        if (!isPresent(leafA)) {
+            return leafB;
+        }
+        if (!isPresent(leafB)) {
+            return leafA;
+        }
+        return comparator.compare(elements[leafA], elements[leafB]) <= 0 ? leafA : leafB;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+
+/**
+ * Leveled merge policy. Every disk component is a level that must be at least "size-ratio" times bigger than the next
+ * newer one. Whenever a component violates this, it is merged into the next older component, starting with the
+ * newest violation, so that each level keeps a single component.
+ * A search consults about log_{size-ratio}(index size / flushed component size) components at the price of rewriting
+ * every byte up to "size-ratio" times per level. The size ratio defaults to 10.
+ */
+public class LeveledMergePolicy implements ILSMMergePolicy {
+    private static final double DEFAULT_SIZE_RATIO = 10.0;
+
+    private double sizeRatio;
+
+    @Override
+    public void diskComponentAdded(final ILSMIndex index, boolean fullMergeIsRequested) throws HyracksDataException,
+            IndexException {
+        // The components are ordered from the newest to the oldest.
+        List<ILSMComponent> immutableComponents = index.getImmutableComponents();
+        for (ILSMComponent c : immutableComponents) {
+            if (c.getState() != ComponentState.READABLE_UNWRITABLE) {
+                return;
+            }
+        }
+        if (fullMergeIsRequested) {
+            ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+            accessor.scheduleFullMerge(index.getIOOperationCallback());
+            return;
+        }
+        for (int i = 0; i + 1 < immutableComponents.size(); i++) {
+            long newerSize = ((AbstractDiskLSMComponent) immutableComponents.get(i)).getComponentSize();
+            long olderSize = ((AbstractDiskLSMComponent) immutableComponents.get(i + 1)).getComponentSize();
+            if (olderSize < sizeRatio * newerSize) {
+                List<ILSMComponent> mergableComponents = new ArrayList<ILSMComponent>(2);
+                mergableComponents.add(immutableComponents.get(i));
+                mergableComponents.add(immutableComponents.get(i + 1));
+                ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                        NoOpOperationCallback.INSTANCE);
+                accessor.scheduleMerge(index.getIOOperationCallback(), mergableComponents);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void configure(Map<String, String> properties) {
+        sizeRatio = MergePolicyProperties.getDouble(properties, LeveledMergePolicyFactory.SIZE_RATIO,
+                DEFAULT_SIZE_RATIO);
+        if (!(sizeRatio > 1)) {
+            throw new IllegalArgumentException("The size ratio of the leveled merge policy must be greater than 1: "
+                    + sizeRatio);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IODeviceHandle;
+import org.apache.hyracks.api.lifecycle.ILifeCycleComponent;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation.LSMIOOpertionType;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+
+/**
+ * An asynchronous scheduler that keeps merges from starving flushes and queries:
+ * - flushes are started right away (serially per index, like {@link AsynchronousScheduler}),
+ * - merges wait in a queue and are only started on devices that no flush is writing to and that run less than the
+ * maximum number of concurrent merges; a merge that has waited for the maximum merge delay no longer gives way to
+ * flushes, so a steady stream of flushes cannot starve it,
+ * - the bandwidth of all running merges is limited and merges can be paused and resumed, e.g. under query pressure.
+ * Waiting merges are checked whenever an operation is scheduled or completes.
+ * Indexes get the scheduler of their node controller through {@link PrioritizedIOOperationSchedulerProvider}, which
+ * registers it with the life cycle component manager of the node controller. Once the scheduler is stopped, waiting
+ * merges are dropped and new merges are ignored. Flushes keep running until none is left, after which the threads of
+ * the scheduler are released and flushes, e.g. those of indexes deactivated later during the shutdown, run on the
+ * calling thread.
+ */
+public class PrioritizedIOOperationScheduler implements ILSMIOOperationScheduler, ILifeCycleComponent {
+    private static final Logger LOGGER = Logger.getLogger(PrioritizedIOOperationScheduler.class.getName());
+
+    private final ExecutorService executor;
+    private final int maxConcurrentMergesPerDevice;
+    private final long maxMergeDelayMillis;
+    private final LSMMergeThrottle mergeThrottle;
+
+    private final Map<String, ILSMIOOperation> runningFlushOperations = new HashMap<String, ILSMIOOperation>();
+    private final Map<String, PriorityQueue<ILSMIOOperation>> waitingFlushOperations = new HashMap<String, PriorityQueue<ILSMIOOperation>>();
+    private final LinkedList<WaitingMerge> waitingMergeOperations = new LinkedList<WaitingMerge>();
+    private final Map<IODeviceHandle, Integer> runningFlushCounts = new HashMap<IODeviceHandle, Integer>();
+    private final Map<IODeviceHandle, Integer> runningMergeCounts = new HashMap<IODeviceHandle, Integer>();
+    private boolean mergesPaused;
+    private boolean stopped;
+
+    /**
+     * @param threadFactory
+     *            - Factory of the threads running the operations
+     * @param maxConcurrentMergesPerDevice
+     *            - Maximum number of merges reading from or writing to the same device at the same time
+     * @param maxMergeMBPerSecond
+     *            - Maximum merge bandwidth in MB/s shared by all merges, a non-positive value does not limit it
+     * @param maxMergeDelayMillis
+     *            - Time after which a waiting merge is started even if a flush is writing to one of its devices
+     */
+    public PrioritizedIOOperationScheduler(ThreadFactory threadFactory, int maxConcurrentMergesPerDevice,
+            double maxMergeMBPerSecond, long maxMergeDelayMillis) {
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+        this.maxConcurrentMergesPerDevice = Math.max(1, maxConcurrentMergesPerDevice);
+        this.maxMergeDelayMillis = Math.max(0, maxMergeDelayMillis);
+        this.mergeThrottle = new LSMMergeThrottle((long) (maxMergeMBPerSecond * 1024 * 1024));
+    }
+
+    @Override
+    public void scheduleOperation(ILSMIOOperation operation) throws HyracksDataException {
+        synchronized (this) {
+            if (operation.getIOOpertionType() == LSMIOOpertionType.MERGE && stopped) {
+                if (LOGGER.isLoggable(Level.INFO)) {
+                    LOGGER.info("Ignoring merge of " + operation.getIndexUniqueIdentifier() + " after shutdown");
+                }
+                return;
+            }
+            if (!executor.isShutdown()) {
+                scheduleOperationAsync(operation);
+                return;
+            }
+        }
+        try {
+            operation.call();
+        } catch (IndexException e) {
+            throw new HyracksDataException(e);
+        }
+    }
+
+    private void scheduleOperationAsync(ILSMIOOperation operation) {
+        if (operation.getIOOpertionType() == LSMIOOpertionType.MERGE) {
+            waitingMergeOperations.add(new WaitingMerge(operation));
+        } else {
+            scheduleFlush(operation);
+        }
+        startMergeOperations();
+    }
+
+    private void scheduleFlush(ILSMIOOperation operation) {
+        String id = operation.getIndexUniqueIdentifier();
+        if (runningFlushOperations.containsKey(id)) {
+            PriorityQueue<ILSMIOOperation> q = waitingFlushOperations.get(id);
+            if (q == null) {
+                q = new PriorityQueue<ILSMIOOperation>();
+                waitingFlushOperations.put(id, q);
+            }
+            q.offer(operation);
+        } else {
+            runningFlushOperations.put(id, operation);
+            startOperation(operation);
+        }
+    }
+
+    /**
+     * Keeps waiting merges from starting and blocks running merges until {@link #resumeMerges()} is called.
+     */
+    public synchronized void pauseMerges() {
+        if (stopped) {
+            return;
+        }
+        mergesPaused = true;
+        mergeThrottle.pause();
+    }
+
+    public synchronized void resumeMerges() {
+        mergesPaused = false;
+        mergeThrottle.resume();
+        startMergeOperations();
+    }
+
+    public synchronized boolean areMergesPaused() {
+        return mergesPaused;
+    }
+
+    public synchronized int getWaitingMergeCount() {
+        return waitingMergeOperations.size();
+    }
+
+    /**
+     * Drops the waiting merges and releases the threads of the scheduler once the running operations and the waiting
+     * flushes have completed.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            stopped = true;
+            if (!waitingMergeOperations.isEmpty() && LOGGER.isLoggable(Level.INFO)) {
+                LOGGER.info("Dropping " + waitingMergeOperations.size() + " waiting merges at shutdown");
+            }
+            waitingMergeOperations.clear();
+            shutdownExecutorIfNoFlushIsLeft();
+        }
+        mergeThrottle.resume();
+    }
+
+    private void shutdownExecutorIfNoFlushIsLeft() {
+        if (stopped && runningFlushOperations.isEmpty()) {
+            // Running merges complete on the executor.
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop(boolean dumpState, OutputStream outputStream) throws IOException {
+        if (dumpState) {
+            dumpState(outputStream);
+        }
+        shutdown();
+    }
+
+    @Override
+    public synchronized void dumpState(OutputStream os) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Running flushes = ").append(runningFlushOperations.size()).append('\n');
+        sb.append("Waiting merges = ").append(waitingMergeOperations.size()).append('\n');
+        sb.append("Running merges by device = ").append(runningMergeCounts).append('\n');
+        sb.append("Merges paused = ").append(mergesPaused).append('\n');
+        os.write(sb.toString().getBytes());
+    }
+
+    private void startMergeOperations() {
+        if (mergesPaused || stopped) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<WaitingMerge> i = waitingMergeOperations.iterator();
+        while (i.hasNext()) {
+            WaitingMerge merge = i.next();
+            if (canStartMerge(merge.operation, now - merge.enqueueTime >= maxMergeDelayMillis)) {
+                i.remove();
+                startOperation(merge.operation);
+            }
+        }
+    }
+
+    private boolean canStartMerge(ILSMIOOperation operation, boolean delayed) {
+        if (!delayed) {
+            for (IODeviceHandle device : operation.getWriteDevices()) {
+                if (getCount(runningFlushCounts, device) > 0) {
+                    return false;
+                }
+            }
+        }
+        for (IODeviceHandle device : getDevices(operation)) {
+            if (getCount(runningMergeCounts, device) >= maxConcurrentMergesPerDevice) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void startOperation(final ILSMIOOperation operation) {
+        final boolean merge = operation.getIOOpertionType() == LSMIOOpertionType.MERGE;
+        if (merge) {
+            updateCounts(runningMergeCounts, getDevices(operation), 1);
+        } else {
+            updateCounts(runningFlushCounts, operation.getWriteDevices(), 1);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (merge) {
+                        LSMMergeThrottle.register(mergeThrottle);
+                    }
+                    operation.call();
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Failed to run " + operation.getIOOpertionType() + " operation for "
+                            + operation.getIndexUniqueIdentifier(), e);
+                } finally {
+                    if (merge) {
+                        LSMMergeThrottle.unregister();
+                    }
+                    completeOperation(operation);
+                }
+            }
+        });
+    }
+
+    private synchronized void completeOperation(ILSMIOOperation operation) {
+        if (operation.getIOOpertionType() == LSMIOOpertionType.MERGE) {
+            updateCounts(runningMergeCounts, getDevices(operation), -1);
+        } else {
+            updateCounts(runningFlushCounts, operation.getWriteDevices(), -1);
+            String id = operation.getIndexUniqueIdentifier();
+            runningFlushOperations.remove(id);
+            PriorityQueue<ILSMIOOperation> q = waitingFlushOperations.get(id);
+            if (q != null) {
+                ILSMIOOperation op = q.poll();
+                if (q.isEmpty()) {
+                    waitingFlushOperations.remove(id);
+                }
+                if (op != null) {
+                    runningFlushOperations.put(id, op);
+                    startOperation(op);
+                }
+            }
+        }
+        startMergeOperations();
+        shutdownExecutorIfNoFlushIsLeft();
+    }
+
+    private static Set<IODeviceHandle> getDevices(ILSMIOOperation operation) {
+        Set<IODeviceHandle> devices = new HashSet<IODeviceHandle>(operation.getReadDevices());
+        devices.addAll(operation.getWriteDevices());
+        return devices;
+    }
+
+    private static int getCount(Map<IODeviceHandle, Integer> counts, IODeviceHandle device) {
+        Integer count = counts.get(device);
+        return count == null ? 0 : count;
+    }
+
+    private static void updateCounts(Map<IODeviceHandle, Integer> counts, Set<IODeviceHandle> devices, int delta) {
+        for (IODeviceHandle device : devices) {
+            int count = getCount(counts, device) + delta;
+            if (count <= 0) {
+                counts.remove(device);
+            } else {
+                counts.put(device, count);
+            }
+        }
+    }
+
+    private static class WaitingMerge {
+        private final ILSMIOOperation operation;
+        private final long enqueueTime;
+
+        private WaitingMerge(ILSMIOOperation operation) {
+            this.operation = operation;
+            this.enqueueTime = System.currentTimeMillis();
+        }
+    }
+}
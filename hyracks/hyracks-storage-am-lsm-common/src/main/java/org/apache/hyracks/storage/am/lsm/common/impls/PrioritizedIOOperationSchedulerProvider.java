@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.hyracks.api.application.INCApplicationContext;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.lifecycle.ILifeCycleComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationSchedulerProvider;
+
+/**
+ * Provides a {@link PrioritizedIOOperationScheduler} that is shared by all indexes of a node controller that use the
+ * same configuration. The configuration is given by the properties
+ * - "max-concurrent-merges-per-device" (default 1),
+ * - "max-merge-mb-per-second" (default 0, i.e., merges are not throttled) and
+ * - "max-merge-delay-ms" (default 10000), the time after which a merge no longer gives way to flushes.
+ * The schedulers of a node controller are stopped with the life cycle components of the node controller.
+ */
+public class PrioritizedIOOperationSchedulerProvider implements ILSMIOOperationSchedulerProvider {
+    private static final long serialVersionUID = 1L;
+
+    public static final String MAX_CONCURRENT_MERGES_PER_DEVICE = "max-concurrent-merges-per-device";
+    public static final String MAX_MERGE_MB_PER_SECOND = "max-merge-mb-per-second";
+    public static final String MAX_MERGE_DELAY_MS = "max-merge-delay-ms";
+
+    private static final String[] SET_VALUES = new String[] { MAX_CONCURRENT_MERGES_PER_DEVICE,
+            MAX_MERGE_MB_PER_SECOND, MAX_MERGE_DELAY_MS };
+    private static final Set<String> PROPERTIES_NAMES = Collections.unmodifiableSet(new HashSet<String>(Arrays
+            .asList(SET_VALUES)));
+
+    // Schedulers by node controller. Entries are removed when the node controller stops its life cycle components.
+    private static final Map<INCApplicationContext, NodeSchedulers> SCHEDULERS =
+            new WeakHashMap<INCApplicationContext, NodeSchedulers>();
+
+    private final int maxConcurrentMergesPerDevice;
+    private final double maxMergeMBPerSecond;
+    private final long maxMergeDelayMillis;
+
+    public PrioritizedIOOperationSchedulerProvider(int maxConcurrentMergesPerDevice, double maxMergeMBPerSecond,
+            long maxMergeDelayMillis) {
+        if (maxConcurrentMergesPerDevice < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of concurrent merges per device: "
+                    + maxConcurrentMergesPerDevice);
+        }
+        this.maxConcurrentMergesPerDevice = maxConcurrentMergesPerDevice;
+        this.maxMergeMBPerSecond = Math.max(0, maxMergeMBPerSecond);
+        this.maxMergeDelayMillis = Math.max(0, maxMergeDelayMillis);
+    }
+
+    public PrioritizedIOOperationSchedulerProvider(Map<String, String> properties) {
+        this(Integer.parseInt(getProperty(properties, MAX_CONCURRENT_MERGES_PER_DEVICE, "1")), Double
+                .parseDouble(getProperty(properties, MAX_MERGE_MB_PER_SECOND, "0")), Long.parseLong(getProperty(
+                properties, MAX_MERGE_DELAY_MS, "10000")));
+    }
+
+    public static Set<String> getPropertiesNames() {
+        return PROPERTIES_NAMES;
+    }
+
+    public int getMaxConcurrentMergesPerDevice() {
+        return maxConcurrentMergesPerDevice;
+    }
+
+    public double getMaxMergeMBPerSecond() {
+        return maxMergeMBPerSecond;
+    }
+
+    public long getMaxMergeDelayMillis() {
+        return maxMergeDelayMillis;
+    }
+
+    @Override
+    public ILSMIOOperationScheduler getIOScheduler(IHyracksTaskContext ctx) {
+        return getIOScheduler(ctx.getJobletContext().getApplicationContext());
+    }
+
+    public ILSMIOOperationScheduler getIOScheduler(INCApplicationContext appCtx) {
+        String key = maxConcurrentMergesPerDevice + "/" + maxMergeMBPerSecond + "/" + maxMergeDelayMillis;
+        synchronized (SCHEDULERS) {
+            NodeSchedulers nodeSchedulers = SCHEDULERS.get(appCtx);
+            if (nodeSchedulers == null) {
+                nodeSchedulers = new NodeSchedulers();
+                SCHEDULERS.put(appCtx, nodeSchedulers);
+                appCtx.getLifeCycleComponentManager().register(nodeSchedulers);
+            }
+            PrioritizedIOOperationScheduler scheduler = nodeSchedulers.schedulers.get(key);
+            if (scheduler == null) {
+                scheduler = new PrioritizedIOOperationScheduler(appCtx.getThreadFactory(),
+                        maxConcurrentMergesPerDevice, maxMergeMBPerSecond, maxMergeDelayMillis);
+                nodeSchedulers.schedulers.put(key, scheduler);
+            }
+            return scheduler;
+        }
+    }
+
+    private static String getProperty(Map<String, String> properties, String name, String defaultValue) {
+        for (String key : properties.keySet()) {
+            if (!PROPERTIES_NAMES.contains(key)) {
+                throw new IllegalArgumentException("Unknown I/O scheduler property: " + key);
+            }
+        }
+        String value = properties.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * The schedulers of a node controller, stopped together with the other life cycle components of the node
+     * controller.
+     */
+    private static class NodeSchedulers implements ILifeCycleComponent {
+        // The schedulers do not refer to the application context, which would keep it in SCHEDULERS.
+        private final Map<String, PrioritizedIOOperationScheduler> schedulers =
+                new HashMap<String, PrioritizedIOOperationScheduler>();
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void dumpState(OutputStream os) throws IOException {
+            for (PrioritizedIOOperationScheduler scheduler : getSchedulers()) {
+                scheduler.dumpState(os);
+            }
+        }
+
+        @Override
+        public void stop(boolean dumpState, OutputStream outputStream) throws IOException {
+            synchronized (SCHEDULERS) {
+                SCHEDULERS.values().remove(this);
+            }
+            for (PrioritizedIOOperationScheduler scheduler : getSchedulers()) {
+                scheduler.stop(dumpState, outputStream);
+            }
+        }
+
+        private List<PrioritizedIOOperationScheduler> getSchedulers() {
+            synchronized (SCHEDULERS) {
+                return new ArrayList<PrioritizedIOOperationScheduler>(schedulers.values());
+            }
+        }
+    }
+}
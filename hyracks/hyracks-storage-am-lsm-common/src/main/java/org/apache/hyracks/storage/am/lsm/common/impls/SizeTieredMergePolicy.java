@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+
+/**
+ * Size-tiered merge policy. Adjacent disk components whose sizes are within a factor of "size-ratio" of each other
+ * form a tier. As soon as a tier holds "min-merge-component-count" components, at most "max-merge-component-count" of
+ * its newest components are merged into a single component that then belongs to a bigger tier.
+ * Every byte is rewritten about once per tier it goes through, which keeps write amplification low at the price of
+ * up to "min-merge-component-count" components per tier that a search has to consult.
+ * Missing properties take their default values: a size ratio of 2, and between 4 and 10 components per merge.
+ */
+public class SizeTieredMergePolicy implements ILSMMergePolicy {
+    private static final double DEFAULT_SIZE_RATIO = 2.0;
+    private static final int DEFAULT_MIN_MERGE_COMPONENT_COUNT = 4;
+    private static final int DEFAULT_MAX_MERGE_COMPONENT_COUNT = 10;
+
+    private double sizeRatio;
+    private int minMergeComponentCount;
+    private int maxMergeComponentCount;
+
+    @Override
+    public void diskComponentAdded(final ILSMIndex index, boolean fullMergeIsRequested) throws HyracksDataException,
+            IndexException {
+        // The components are ordered from the newest to the oldest.
+        List<ILSMComponent> immutableComponents = index.getImmutableComponents();
+        for (ILSMComponent c : immutableComponents) {
+            if (c.getState() != ComponentState.READABLE_UNWRITABLE) {
+                return;
+            }
+        }
+        if (fullMergeIsRequested) {
+            ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+            accessor.scheduleFullMerge(index.getIOOperationCallback());
+            return;
+        }
+        int size = immutableComponents.size();
+        for (int start = 0; start + minMergeComponentCount <= size; start++) {
+            // Grow the tier starting at the given component as long as its sizes are within the size ratio.
+            long minSize = Long.MAX_VALUE;
+            long maxSize = 0;
+            int end = start;
+            while (end < size && end - start < maxMergeComponentCount) {
+                long componentSize = Math.max(1, ((AbstractDiskLSMComponent) immutableComponents.get(end))
+                        .getComponentSize());
+                long newMinSize = Math.min(minSize, componentSize);
+                long newMaxSize = Math.max(maxSize, componentSize);
+                if (newMaxSize > sizeRatio * newMinSize) {
+                    break;
+                }
+                minSize = newMinSize;
+                maxSize = newMaxSize;
+                end++;
+            }
+            if (end - start >= minMergeComponentCount) {
+                List<ILSMComponent> mergableComponents = new ArrayList<ILSMComponent>(immutableComponents.subList(
+                        start, end));
+                ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                        NoOpOperationCallback.INSTANCE);
+                accessor.scheduleMerge(index.getIOOperationCallback(), mergableComponents);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void configure(Map<String, String> properties) {
+        sizeRatio = MergePolicyProperties.getDouble(properties, SizeTieredMergePolicyFactory.SIZE_RATIO,
+                DEFAULT_SIZE_RATIO);
+        if (!(sizeRatio >= 1)) {
+            throw new IllegalArgumentException("The size ratio of the size-tiered merge policy must be at least 1: "
+                    + sizeRatio);
+        }
+        minMergeComponentCount = Math.max(2, MergePolicyProperties.getInt(properties,
+                SizeTieredMergePolicyFactory.MIN_MERGE_COMPONENT_COUNT, DEFAULT_MIN_MERGE_COMPONENT_COUNT));
+        maxMergeComponentCount = Math.max(minMergeComponentCount, MergePolicyProperties.getInt(properties,
+                SizeTieredMergePolicyFactory.MAX_MERGE_COMPONENT_COUNT, DEFAULT_MAX_MERGE_COMPONENT_COUNT));
+    }
+}
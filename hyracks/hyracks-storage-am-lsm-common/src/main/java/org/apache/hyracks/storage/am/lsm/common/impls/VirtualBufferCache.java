@@ -21,9 +21,9 @@ package org.apache.hyracks.storage.am.lsm.common.impls;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.api.io.FileReference;
@@ -305,13 +305,17 @@ public class VirtualBufferCache implements IVirtualBufferCache {
 
     private class VirtualPage implements ICachedPage {
         final ByteBuffer buffer;
-        final ReadWriteLock latch;
+        final ReentrantReadWriteLock latch;
+        // Versions the page for optimistic readers; writers hold it while they hold the write latch.
+        final StampedLock versionLock;
+        long writeStamp;
         volatile long dpid;
         VirtualPage next;
 
         public VirtualPage(ByteBuffer buffer) {
             this.buffer = buffer;
             latch = new ReentrantReadWriteLock(true);
+            versionLock = new StampedLock();
             dpid = -1;
             next = null;
         }
@@ -339,13 +343,29 @@ public class VirtualBufferCache implements IVirtualBufferCache {
         @Override
         public void acquireWriteLatch() {
             latch.writeLock().lock();
+            if (latch.getWriteHoldCount() == 1) {
+                writeStamp = versionLock.writeLock();
+            }
         }
 
         @Override
         public void releaseWriteLatch(boolean markDirty) {
+            if (latch.getWriteHoldCount() == 1) {
+                versionLock.unlockWrite(writeStamp);
+            }
             latch.writeLock().unlock();
         }
 
+        @Override
+        public long getOptimisticReadVersion() {
+            return versionLock.tryOptimisticRead();
+        }
+
+        @Override
+        public boolean validateOptimisticRead(long version) {
+            return versionLock.validate(version);
+        }
+
     }
 
     //These 4 methods aren't applicable here.
@@ -28,6 +28,10 @@ public interface IInvertedListBuilder {
     // returns false if not enough space in targetBuf
     public boolean appendElement(ITupleReference tuple, int numTokenFields, int numElementFields);
 
+    // writes out the elements the builder still holds back for the current list
+    // returns false if not enough space in targetBuf
+    public boolean endList();
+
     public void setTargetBuffer(byte[] targetBuf, int startPos);
 
     public int getListSize();
@@ -48,6 +48,11 @@ public interface IInvertedListCursor extends Comparable<IInvertedListCursor> {
     public int getStartOff();
 
     public boolean containsKey(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException, IndexException;
+
+    // Moves forward to the first element that is not smaller than the search key and makes it the current element.
+    // Keys must be sought in ascending order. Returns false if no such element is left.
+    public boolean seek(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException,
+            IndexException;
     
     // for debugging
     @SuppressWarnings("rawtypes")
@@ -0,0 +1,421 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.dataflow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.util.GrowableArray;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import org.apache.hyracks.dataflow.common.comm.util.FrameUtils;
+import org.apache.hyracks.dataflow.common.data.accessors.FrameTupleReference;
+import org.apache.hyracks.dataflow.std.sort.Algorithm;
+import org.apache.hyracks.dataflow.std.sort.ExternalSortRunGenerator;
+import org.apache.hyracks.dataflow.std.sort.ExternalSortRunMerger;
+import org.apache.hyracks.dataflow.std.sort.ISorter;
+import org.apache.hyracks.dataflow.std.sort.RunAndMaxFrameSizePair;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexThreadPools;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.IBinaryTokenizer;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.IBinaryTokenizerFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.IToken;
+
+/**
+ * Bulk loads an inverted index straight from documents, without a tokenizer operator and a sort operator in front of
+ * it. A pool of worker threads, created with the thread factory of the node controller, tokenizes the incoming
+ * frames. Every worker sorts its (token, key) tuples in its share
+ * of the sort memory and writes them out as a sorted run whenever that share is full. {@link #end()} merges the runs
+ * of all workers into the bulk loader of the index, which writes the BTree and the inverted lists in one pass.
+ * The tokenized tuples have the layout [token, number of tokens (only if addNumTokensKey), key fields].
+ */
+public class InvertedIndexTokenizingBulkLoader {
+    private static final Logger LOGGER = Logger.getLogger(InvertedIndexTokenizingBulkLoader.class.getName());
+
+    private static final int QUEUED_FRAMES_PER_WORKER = 2;
+    private static final long OFFER_TIMEOUT_MS = 10;
+    private static final ByteBuffer END_OF_INPUT = ByteBuffer.allocate(0);
+
+    private final IHyracksTaskContext ctx;
+    private final IIndexBulkLoader bulkLoader;
+    private final RecordDescriptor inputRecDesc;
+    private final RecordDescriptor tokenizedRecDesc;
+    private final IBinaryTokenizerFactory tokenizerFactory;
+    private final int docField;
+    private final int[] keyFields;
+    private final boolean addNumTokensKey;
+    private final IBinaryComparatorFactory[] cmpFactories;
+    private final int[] sortFields;
+    private final int framesLimit;
+    private final TokenizerWorker[] workers;
+    private final BlockingQueue<ByteBuffer> inputFrames;
+    private final BlockingQueue<ByteBuffer> freeFrames;
+    private ExecutorService executor;
+    private volatile boolean stopped;
+
+    /**
+     * @param bulkLoader
+     *            - the bulk loader of the index; it receives the tokenized tuples in sorted order
+     * @param inputRecDesc
+     *            - the record descriptor of the documents
+     * @param docField
+     *            - the field of the documents that is tokenized
+     * @param keyFields
+     *            - the fields of the documents that make up the inverted-list elements
+     * @param addNumTokensKey
+     *            - whether the number of tokens of a document follows the token, as in partitioned indexes
+     * @param tokenCmpFactories
+     *            - the comparators of the token fields, the number of tokens included
+     * @param invListCmpFactories
+     *            - the comparators of the inverted-list elements
+     * @param parallelism
+     *            - the number of tokenizer threads
+     * @param framesLimit
+     *            - the number of frames the workers share for sorting, and the merge uses afterwards
+     */
+    public InvertedIndexTokenizingBulkLoader(IHyracksTaskContext ctx, IIndexBulkLoader bulkLoader,
+            RecordDescriptor inputRecDesc, IBinaryTokenizerFactory tokenizerFactory, int docField, int[] keyFields,
+            boolean addNumTokensKey, IBinaryComparatorFactory[] tokenCmpFactories,
+            IBinaryComparatorFactory[] invListCmpFactories, int parallelism, int framesLimit)
+            throws HyracksDataException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The tokenizer parallelism must be at least 1.");
+        }
+        int numFields = tokenCmpFactories.length + invListCmpFactories.length;
+        if (framesLimit < 2 * parallelism + 1 || invListCmpFactories.length != keyFields.length) {
+            throw new HyracksDataException("Cannot tokenize with " + parallelism + " threads in " + framesLimit
+                    + " frames for " + keyFields.length + " key fields.");
+        }
+        this.ctx = ctx;
+        this.bulkLoader = bulkLoader;
+        this.inputRecDesc = inputRecDesc;
+        // Only the number of fields matters to sort and merge the tokenized tuples.
+        this.tokenizedRecDesc = new RecordDescriptor(new ISerializerDeserializer[numFields]);
+        this.tokenizerFactory = tokenizerFactory;
+        this.docField = docField;
+        this.keyFields = keyFields;
+        this.addNumTokensKey = addNumTokensKey;
+        this.cmpFactories = new IBinaryComparatorFactory[numFields];
+        System.arraycopy(tokenCmpFactories, 0, cmpFactories, 0, tokenCmpFactories.length);
+        System.arraycopy(invListCmpFactories, 0, cmpFactories, tokenCmpFactories.length, invListCmpFactories.length);
+        this.sortFields = new int[numFields];
+        for (int i = 0; i < numFields; i++) {
+            sortFields[i] = i;
+        }
+        this.framesLimit = framesLimit;
+        this.workers = new TokenizerWorker[parallelism];
+        this.inputFrames = new ArrayBlockingQueue<ByteBuffer>(QUEUED_FRAMES_PER_WORKER * parallelism);
+        this.freeFrames = new ArrayBlockingQueue<ByteBuffer>(QUEUED_FRAMES_PER_WORKER * parallelism + parallelism);
+    }
+
+    public void open() throws HyracksDataException {
+        stopped = false;
+        // A single worker keeps its last run in memory; the merge then reads it without a run file.
+        int sortFramesPerWorker = framesLimit / workers.length;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new TokenizerWorker(i, sortFramesPerWorker, workers.length == 1);
+        }
+        executor = LSMIndexThreadPools.create(ctx.getJobletContext().getApplicationContext().getThreadFactory(),
+                "Inverted-index tokenizer", workers.length);
+        for (TokenizerWorker worker : workers) {
+            worker.future = executor.submit(worker);
+        }
+    }
+
+    /**
+     * Hands a copy of the frame to the workers. Blocks while all of them are busy.
+     */
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        ByteBuffer copy = freeFrames.poll();
+        if (copy == null || copy.capacity() != buffer.capacity()) {
+            copy = ByteBuffer.allocate(buffer.capacity());
+        }
+        FrameUtils.copyWholeFrame(buffer, copy);
+        enqueue(copy);
+    }
+
+    /**
+     * Waits for the workers to tokenize all frames, then merges their runs into the bulk loader and ends it.
+     * If the calling thread is interrupted, e.g. because the task is cancelled, the workers are stopped and the
+     * interruption is reported as a failure.
+     */
+    public void end() throws HyracksDataException, IndexException {
+        for (int i = 0; i < workers.length; i++) {
+            enqueue(END_OF_INPUT);
+        }
+        joinWorkers();
+        List<RunAndMaxFrameSizePair> runs = new ArrayList<RunAndMaxFrameSizePair>();
+        ISorter sorter = null;
+        for (TokenizerWorker worker : workers) {
+            worker.checkFailure();
+            runs.addAll(worker.runGenerator.getRuns());
+            if (workers.length == 1) {
+                sorter = worker.runGenerator.getSorter();
+            }
+        }
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Merging " + runs.size() + " runs of " + workers.length + " tokenizer threads");
+        }
+        IBinaryComparator[] comparators = new IBinaryComparator[cmpFactories.length];
+        for (int i = 0; i < cmpFactories.length; i++) {
+            comparators[i] = cmpFactories[i].createBinaryComparator();
+        }
+        ExternalSortRunMerger merger = new ExternalSortRunMerger(ctx, sorter, runs, sortFields, comparators, null,
+                tokenizedRecDesc, framesLimit, new BulkLoadFrameWriter());
+        merger.process();
+        bulkLoader.end();
+    }
+
+    /**
+     * Stops the workers without loading anything.
+     */
+    public void abort() throws HyracksDataException {
+        stopped = true;
+        inputFrames.clear();
+        joinWorkers();
+    }
+
+    private void enqueue(ByteBuffer frame) throws HyracksDataException {
+        try {
+            while (!inputFrames.offer(frame, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    // A worker failed and no longer takes frames.
+                    for (TokenizerWorker worker : workers) {
+                        worker.checkFailure();
+                    }
+                    throw new HyracksDataException("The tokenizer threads have been stopped.");
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelWorkers();
+            Thread.currentThread().interrupt();
+            throw new HyracksDataException(e);
+        }
+    }
+
+    /**
+     * Waits for all workers to complete and releases their threads. Workers record their own failures.
+     */
+    private void joinWorkers() throws HyracksDataException {
+        try {
+            for (TokenizerWorker worker : workers) {
+                if (worker != null && worker.future != null) {
+                    worker.future.get();
+                    worker.future = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelWorkers();
+            Thread.currentThread().interrupt();
+            throw new HyracksDataException(e);
+        } catch (ExecutionException | CancellationException e) {
+            cancelWorkers();
+            throw new HyracksDataException(e);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Stops the workers, interrupting those that are blocked, and releases their threads without waiting for them.
+     */
+    private void cancelWorkers() {
+        stopped = true;
+        inputFrames.clear();
+        for (TokenizerWorker worker : workers) {
+            if (worker != null && worker.future != null) {
+                worker.future.cancel(true);
+                worker.future = null;
+            }
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private class TokenizerWorker implements Runnable {
+        private final int workerIndex;
+        private final TokenRunGenerator runGenerator;
+        private final IBinaryTokenizer tokenizer;
+        private final FrameTupleAccessor accessor;
+        private final ArrayTupleBuilder builder;
+        private final GrowableArray builderData;
+        private final FrameTupleAppender appender;
+        private volatile Throwable failure;
+        private Future<?> future;
+
+        public TokenizerWorker(int workerIndex, int sortFrames, boolean keepLastRunInMemory)
+                throws HyracksDataException {
+            this.workerIndex = workerIndex;
+            runGenerator = new TokenRunGenerator(ctx, sortFields, cmpFactories, tokenizedRecDesc, sortFrames,
+                    keepLastRunInMemory);
+            tokenizer = tokenizerFactory.createTokenizer();
+            accessor = new FrameTupleAccessor(inputRecDesc);
+            builder = new ArrayTupleBuilder(tokenizedRecDesc.getFieldCount());
+            builderData = builder.getFieldData();
+            appender = new FrameTupleAppender(new VSizeFrame(ctx), true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                runGenerator.open();
+                while (!stopped) {
+                    ByteBuffer frame = inputFrames.poll(OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (frame == null) {
+                        continue;
+                    }
+                    if (frame == END_OF_INPUT) {
+                        break;
+                    }
+                    tokenize(frame);
+                    freeFrames.offer(frame);
+                }
+                if (!stopped) {
+                    appender.flush(runGenerator, true);
+                    runGenerator.close();
+                }
+            } catch (Throwable th) {
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.log(Level.WARNING, "Tokenizer thread " + workerIndex + " failed", th);
+                }
+                failure = th;
+                stopped = true;
+            }
+        }
+
+        private void tokenize(ByteBuffer frame) throws HyracksDataException {
+            accessor.reset(frame);
+            int tupleCount = accessor.getTupleCount();
+            for (int i = 0; i < tupleCount; i++) {
+                tokenizer.reset(frame.array(), accessor.getTupleStartOffset(i) + accessor.getFieldSlotsLength()
+                        + accessor.getFieldStartOffset(i, docField), accessor.getFieldLength(i, docField));
+                short numTokens = 0;
+                if (addNumTokensKey) {
+                    numTokens = tokenizer.getTokensCount();
+                }
+                while (tokenizer.hasNext()) {
+                    tokenizer.next();
+                    builder.reset();
+                    try {
+                        IToken token = tokenizer.getToken();
+                        token.serializeToken(builderData);
+                        builder.addFieldEndOffset();
+                        if (addNumTokensKey) {
+                            builder.getDataOutput().writeShort(numTokens);
+                            builder.addFieldEndOffset();
+                        }
+                    } catch (IOException e) {
+                        throw new HyracksDataException(e);
+                    }
+                    for (int k = 0; k < keyFields.length; k++) {
+                        builder.addField(accessor, i, keyFields[k]);
+                    }
+                    FrameUtils.appendToWriter(runGenerator, appender, builder.getFieldEndOffsets(),
+                            builder.getByteArray(), 0, builder.getSize());
+                }
+            }
+        }
+
+        private void checkFailure() throws HyracksDataException {
+            if (failure == null) {
+                return;
+            }
+            if (failure instanceof HyracksDataException) {
+                throw (HyracksDataException) failure;
+            }
+            throw new HyracksDataException(failure);
+        }
+    }
+
+    /**
+     * Sorts the tuples of one worker. Unless it is the only worker, the tuples left in memory at the end are written
+     * out as a run as well, so that the runs of all workers can be merged together.
+     */
+    private static class TokenRunGenerator extends ExternalSortRunGenerator {
+        private final boolean keepLastRunInMemory;
+
+        public TokenRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+                IBinaryComparatorFactory[] comparatorFactories, RecordDescriptor recordDesc, int framesLimit,
+                boolean keepLastRunInMemory) throws HyracksDataException {
+            super(ctx, sortFields, null, comparatorFactories, recordDesc, Algorithm.MERGE_SORT, framesLimit);
+            this.keepLastRunInMemory = keepLastRunInMemory;
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            if (keepLastRunInMemory) {
+                super.close();
+            } else if (getSorter().hasRemaining()) {
+                flushFramesToRun();
+            }
+        }
+    }
+
+    private class BulkLoadFrameWriter implements IFrameWriter {
+        private final FrameTupleAccessor accessor = new FrameTupleAccessor(tokenizedRecDesc);
+        private final FrameTupleReference tuple = new FrameTupleReference();
+
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            accessor.reset(buffer);
+            int tupleCount = accessor.getTupleCount();
+            for (int i = 0; i < tupleCount; i++) {
+                tuple.reset(accessor, i);
+                try {
+                    bulkLoader.add(tuple);
+                } catch (IndexException e) {
+                    throw new HyracksDataException(e);
+                }
+            }
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+        }
+    }
+}
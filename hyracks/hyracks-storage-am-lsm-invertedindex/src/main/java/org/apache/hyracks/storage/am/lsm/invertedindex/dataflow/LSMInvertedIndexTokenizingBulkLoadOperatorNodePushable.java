@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.dataflow;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.comm.util.FrameUtils;
+import org.apache.hyracks.dataflow.std.base.AbstractUnaryInputUnaryOutputOperatorNodePushable;
+import org.apache.hyracks.storage.am.common.api.IIndex;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexDataflowHelper;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IPartitionedInvertedIndex;
+import org.apache.hyracks.storage.am.lsm.invertedindex.impls.PartitionedLSMInvertedIndex;
+
+public class LSMInvertedIndexTokenizingBulkLoadOperatorNodePushable extends
+        AbstractUnaryInputUnaryOutputOperatorNodePushable {
+    private final AbstractLSMInvertedIndexOperatorDescriptor opDesc;
+    private final IHyracksTaskContext ctx;
+    private final int docField;
+    private final int[] keyFields;
+    private final int tokenizerParallelism;
+    private final int framesLimit;
+    private final boolean verifyInput;
+    private final long numElementsHint;
+    private final boolean checkIfEmptyIndex;
+    private final IIndexDataflowHelper indexHelper;
+    private final IRecordDescriptorProvider recDescProvider;
+    private InvertedIndexTokenizingBulkLoader loader;
+
+    public LSMInvertedIndexTokenizingBulkLoadOperatorNodePushable(AbstractLSMInvertedIndexOperatorDescriptor opDesc,
+            IHyracksTaskContext ctx, int partition, int docField, int[] keyFields, int tokenizerParallelism,
+            int framesLimit, boolean verifyInput, long numElementsHint, boolean checkIfEmptyIndex,
+            IRecordDescriptorProvider recordDescProvider) {
+        this.opDesc = opDesc;
+        this.ctx = ctx;
+        this.indexHelper = opDesc.getIndexDataflowHelperFactory().createIndexDataflowHelper(opDesc, ctx, partition);
+        this.docField = docField;
+        this.keyFields = keyFields;
+        this.tokenizerParallelism = tokenizerParallelism;
+        this.framesLimit = framesLimit;
+        this.verifyInput = verifyInput;
+        this.numElementsHint = numElementsHint;
+        this.checkIfEmptyIndex = checkIfEmptyIndex;
+        this.recDescProvider = recordDescProvider;
+    }
+
+    @Override
+    public void open() throws HyracksDataException {
+        RecordDescriptor recDesc = recDescProvider.getInputRecordDescriptor(opDesc.getActivityId(), 0);
+        indexHelper.open();
+        IIndex index = indexHelper.getIndexInstance();
+        try {
+            IIndexBulkLoader bulkLoader = index.createBulkLoader(1.0f, verifyInput, numElementsHint,
+                    checkIfEmptyIndex);
+            // Partitioned indexes keep the number of tokens of a document next to each token.
+            boolean addNumTokensKey = index instanceof PartitionedLSMInvertedIndex
+                    || index instanceof IPartitionedInvertedIndex;
+            loader = new InvertedIndexTokenizingBulkLoader(ctx, bulkLoader, recDesc, opDesc.getTokenizerFactory(),
+                    docField, keyFields, addNumTokensKey, opDesc.getTokenComparatorFactories(),
+                    opDesc.getInvListsComparatorFactories(), tokenizerParallelism, framesLimit);
+            loader.open();
+        } catch (Exception e) {
+            indexHelper.close();
+            throw new HyracksDataException(e);
+        }
+        writer.open();
+    }
+
+    @Override
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        loader.nextFrame(buffer);
+        FrameUtils.flushFrame(buffer, writer);
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        try {
+            loader.end();
+        } catch (Exception e) {
+            throw new HyracksDataException(e);
+        } finally {
+            indexHelper.close();
+        }
+        writer.close();
+    }
+
+    @Override
+    public void fail() throws HyracksDataException {
+        try {
+            if (loader != null) {
+                loader.abort();
+            }
+        } finally {
+            writer.fail();
+        }
+    }
+}
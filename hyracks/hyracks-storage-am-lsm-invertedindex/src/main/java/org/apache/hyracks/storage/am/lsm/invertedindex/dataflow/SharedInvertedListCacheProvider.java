@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.dataflow;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.hyracks.api.application.INCApplicationContext;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCacheProvider;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.InvertedListCache;
+
+/**
+ * Provides an inverted-list cache that is shared by all inverted indexes of a node controller that use the same
+ * cache sizes. Providers with different sizes get different caches.
+ */
+public class SharedInvertedListCacheProvider implements IInvertedListCacheProvider {
+
+    private static final long serialVersionUID = 1L;
+
+    // Caches by node controller and sizes.
+    private static final Map<INCApplicationContext, Map<String, InvertedListCache>> CACHES =
+            new WeakHashMap<INCApplicationContext, Map<String, InvertedListCache>>();
+
+    private final long capacityBytes;
+    private final int maxListBytes;
+
+    public SharedInvertedListCacheProvider(long capacityBytes, int maxListBytes) {
+        if (capacityBytes <= 0 || maxListBytes < 0) {
+            throw new IllegalArgumentException("Invalid inverted-list cache sizes: " + capacityBytes + ", "
+                    + maxListBytes);
+        }
+        this.capacityBytes = capacityBytes;
+        this.maxListBytes = maxListBytes;
+    }
+
+    @Override
+    public InvertedListCache getInvertedListCache(IHyracksTaskContext ctx) {
+        return getInvertedListCache(ctx.getJobletContext().getApplicationContext());
+    }
+
+    public InvertedListCache getInvertedListCache(INCApplicationContext appCtx) {
+        String key = capacityBytes + "/" + maxListBytes;
+        synchronized (CACHES) {
+            Map<String, InvertedListCache> caches = CACHES.get(appCtx);
+            if (caches == null) {
+                caches = new HashMap<String, InvertedListCache>();
+                CACHES.put(appCtx, caches);
+            }
+            InvertedListCache cache = caches.get(key);
+            if (cache == null) {
+                cache = new InvertedListCache(capacityBytes, maxListBytes);
+                caches.put(key, cache);
+            }
+            return cache;
+        }
+    }
+}
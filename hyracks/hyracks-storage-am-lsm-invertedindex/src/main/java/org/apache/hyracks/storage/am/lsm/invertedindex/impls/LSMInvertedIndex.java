@@ -76,10 +76,12 @@ import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbac
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFileReferences;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeThrottle;
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndex;
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
 import org.apache.hyracks.storage.am.lsm.invertedindex.inmemory.InMemoryInvertedIndex;
 import org.apache.hyracks.storage.am.lsm.invertedindex.inmemory.InMemoryInvertedIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.InvertedListCache;
 import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.OnDiskInvertedIndex;
 import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.OnDiskInvertedIndexFactory;
 import org.apache.hyracks.storage.am.lsm.invertedindex.search.InvertedIndexSearchPredicate;
@@ -104,6 +106,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
     private final int[] invertedIndexFields;
     private final int[] filterFieldsForNonBulkLoadOps;
     private final int[] invertedIndexFieldsForNonBulkLoadOps;
+    private final OnDiskInvertedIndexFactory diskInvIndexFactory;
 
     public LSMInvertedIndex(List<IVirtualBufferCache> virtualBufferCaches,
             OnDiskInvertedIndexFactory diskInvIndexFactory, BTreeFactory deletedKeysBTreeFactory,
@@ -129,6 +132,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         this.invertedIndexFields = invertedIndexFields;
         this.filterFieldsForNonBulkLoadOps = filterFieldsForNonBulkLoadOps;
         this.invertedIndexFieldsForNonBulkLoadOps = invertedIndexFieldsForNonBulkLoadOps;
+        this.diskInvIndexFactory = diskInvIndexFactory;
 
         componentFactory = new LSMInvertedIndexDiskComponentFactory(diskInvIndexFactory, deletedKeysBTreeFactory,
                 bloomFilterFactory, filterFactory);
@@ -149,6 +153,15 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
         }
     }
 
+    /**
+     * Makes the disk components cache their inverted lists in the given cache. Only affects disk components that are
+     * created or loaded afterwards, so it is set before the index is activated. Partitioned disk components look up
+     * their lists by partition and do not use the cache.
+     */
+    public void setInvertedListCache(InvertedListCache invListCache) {
+        diskInvIndexFactory.setInvertedListCache(invListCache);
+    }
+
     @Override
     public synchronized void create() throws HyracksDataException {
         if (isActivated) {
@@ -654,6 +667,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
                     ITupleReference tuple = btreeCursor.getTuple();
                     btreeBulkLoader.add(tuple);
                     builder.add(tuple);
+                    LSMMergeThrottle.throttle(tuple);
                 }
             } finally {
                 btreeCursor.close();
@@ -668,6 +682,7 @@ public class LSMInvertedIndex extends AbstractLSMIndex implements IInvertedIndex
                 cursor.next();
                 ITupleReference tuple = cursor.getTuple();
                 invIndexBulkLoader.add(tuple);
+                LSMMergeThrottle.throttle(tuple);
             }
         } finally {
             cursor.close();
@@ -45,6 +45,7 @@ public class InMemoryInvertedListCursor implements IInvertedListCursor {
     private BTreeAccessor btreeAccessor;
     private IIndexCursor btreeCursor;
     private boolean cursorNeedsClose = false;
+    private boolean hasCurrentElement = false;
     private IIndexCursor countingCursor;
     private MultiComparator tokenFieldsCmp;
     private MultiComparator btreeCmp;
@@ -111,6 +112,7 @@ public class InMemoryInvertedListCursor implements IInvertedListCursor {
         btreePred.setHighKey(tokenTuple, true);
         btreeAccessor.search(btreeCursor, btreePred);
         cursorNeedsClose = true;
+        hasCurrentElement = false;
     }
 
     @Override
@@ -129,6 +131,7 @@ public class InMemoryInvertedListCursor implements IInvertedListCursor {
     @Override
     public void next() throws HyracksDataException {
         btreeCursor.next();
+        hasCurrentElement = true;
     }
 
     @Override
@@ -210,6 +213,42 @@ public class InMemoryInvertedListCursor implements IInvertedListCursor {
         return containsKey;
     }
 
+    @Override
+    public boolean seek(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException,
+            IndexException {
+        if (hasCurrentElement && invListCmp.compare(searchTuple, getTuple()) <= 0) {
+            return true;
+        }
+        // The next element is tried first, since dense keys usually hit it.
+        if (!btreeCursor.hasNext()) {
+            hasCurrentElement = false;
+            return false;
+        }
+        next();
+        if (invListCmp.compare(searchTuple, getTuple()) <= 0) {
+            return true;
+        }
+        // Otherwise descend the BTree again, from the token and the key to the end of the token's list.
+        unpinPages();
+        btreeSearchTuple.addTuple(searchTuple);
+        btreePred.setLowKeyComparator(btreeCmp);
+        btreePred.setHighKeyComparator(tokenFieldsCmp);
+        btreePred.setLowKey(btreeSearchTuple, true);
+        btreePred.setHighKey(tokenTuple, true);
+        try {
+            btreeAccessor.search(btreeCursor, btreePred);
+            cursorNeedsClose = true;
+        } finally {
+            btreeSearchTuple.removeLastTuple();
+        }
+        hasCurrentElement = false;
+        if (!btreeCursor.hasNext()) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
     @SuppressWarnings("rawtypes")
     @Override
     public String printInvList(ISerializerDeserializer[] serdes) throws HyracksDataException, IndexException {
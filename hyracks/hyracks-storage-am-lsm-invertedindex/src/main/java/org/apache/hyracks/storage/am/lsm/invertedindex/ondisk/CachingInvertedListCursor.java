@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.InvertedListCache.CachedInvertedList;
+
+/**
+ * Reads an inverted list from the elements held by an {@link InvertedListCache}, or from disk through the wrapped
+ * cursor if the list is not held decoded.
+ */
+public class CachingInvertedListCursor implements IInvertedListCursor {
+
+    private final IInvertedListCursor diskCursor;
+    private final FixedSizeTupleReference tuple;
+    private final int elementSize;
+    private byte[] elements;
+    private int startPageId;
+    private int endPageId;
+    private int startOff;
+    private int numElements;
+    // Index of the next element; the current one (if any) is at currentElementIx - 1.
+    private int currentElementIx;
+
+    public CachingInvertedListCursor(IInvertedListCursor diskCursor, ITypeTraits[] invListFields) {
+        this.diskCursor = diskCursor;
+        this.tuple = new FixedSizeTupleReference(invListFields);
+        int size = 0;
+        for (int i = 0; i < invListFields.length; i++) {
+            size += invListFields[i].getFixedLength();
+        }
+        this.elementSize = size;
+    }
+
+    public IInvertedListCursor getDiskCursor() {
+        return diskCursor;
+    }
+
+    public boolean isCached() {
+        return elements != null;
+    }
+
+    /**
+     * Positions the cursor on a list found in the cache.
+     */
+    public void reset(CachedInvertedList list) {
+        reset(list.getStartPageId(), list.getEndPageId(), list.getStartOff(), list.getNumElements());
+        elements = list.getElements();
+    }
+
+    @Override
+    public void reset(int startPageId, int endPageId, int startOff, int numElements) {
+        this.startPageId = startPageId;
+        this.endPageId = endPageId;
+        this.startOff = startOff;
+        this.numElements = numElements;
+        this.currentElementIx = 0;
+        this.elements = null;
+        diskCursor.reset(startPageId, endPageId, startOff, numElements);
+    }
+
+    @Override
+    public void pinPages() throws HyracksDataException, IndexException {
+        if (elements == null) {
+            diskCursor.pinPages();
+        }
+    }
+
+    @Override
+    public void unpinPages() throws HyracksDataException {
+        if (elements == null) {
+            diskCursor.unpinPages();
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws HyracksDataException, IndexException {
+        if (elements == null) {
+            return diskCursor.hasNext();
+        }
+        return currentElementIx < numElements;
+    }
+
+    @Override
+    public void next() throws HyracksDataException {
+        if (elements == null) {
+            diskCursor.next();
+            return;
+        }
+        tuple.reset(elements, currentElementIx * elementSize);
+        currentElementIx++;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        if (elements == null) {
+            return diskCursor.getTuple();
+        }
+        return tuple;
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+
+    @Override
+    public int getStartPageId() {
+        return startPageId;
+    }
+
+    @Override
+    public int getEndPageId() {
+        return endPageId;
+    }
+
+    @Override
+    public int getStartOff() {
+        return startOff;
+    }
+
+    @Override
+    public boolean containsKey(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException,
+            IndexException {
+        if (elements == null) {
+            return diskCursor.containsKey(searchTuple, invListCmp);
+        }
+        int begin = 0;
+        int end = numElements - 1;
+        while (begin <= end) {
+            int mid = (begin + end) >>> 1;
+            int cmp = compareAt(searchTuple, invListCmp, mid);
+            if (cmp < 0) {
+                end = mid - 1;
+            } else if (cmp > 0) {
+                begin = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean seek(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException,
+            IndexException {
+        if (elements == null) {
+            return diskCursor.seek(searchTuple, invListCmp);
+        }
+        if (currentElementIx > 0 && compareAt(searchTuple, invListCmp, currentElementIx - 1) <= 0) {
+            tuple.reset(elements, (currentElementIx - 1) * elementSize);
+            return true;
+        }
+        int begin = currentElementIx;
+        // Gallop ahead until an element is not smaller than the search key, then binary search the last gap.
+        int step = 1;
+        while (begin + step - 1 < numElements && compareAt(searchTuple, invListCmp, begin + step - 1) > 0) {
+            begin += step;
+            step <<= 1;
+        }
+        int end = Math.min(begin + step - 1, numElements);
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (compareAt(searchTuple, invListCmp, mid) > 0) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        if (begin >= numElements) {
+            currentElementIx = numElements;
+            return false;
+        }
+        tuple.reset(elements, begin * elementSize);
+        currentElementIx = begin + 1;
+        return true;
+    }
+
+    private int compareAt(ITupleReference searchTuple, MultiComparator invListCmp, int elementIx)
+            throws HyracksDataException {
+        tuple.reset(elements, elementIx * elementSize);
+        return invListCmp.compare(searchTuple, tuple);
+    }
+
+    @Override
+    public int compareTo(IInvertedListCursor invListCursor) {
+        return numElements - invListCursor.size();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public String printInvList(ISerializerDeserializer[] serdes) throws HyracksDataException, IndexException {
+        if (elements == null) {
+            return diskCursor.printInvList(serdes);
+        }
+        StringBuilder strBuilder = new StringBuilder();
+        for (int i = 0; i < numElements; i++) {
+            tuple.reset(elements, i * elementSize);
+            strBuilder.append(printTuple(serdes));
+            strBuilder.append(" ");
+        }
+        return strBuilder.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public String printCurrentElement(ISerializerDeserializer[] serdes) throws HyracksDataException {
+        if (elements == null) {
+            return diskCursor.printCurrentElement(serdes);
+        }
+        return printTuple(serdes);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private String printTuple(ISerializerDeserializer[] serdes) throws HyracksDataException {
+        StringBuilder strBuilder = new StringBuilder();
+        for (int i = 0; i < tuple.getFieldCount(); i++) {
+            ByteArrayInputStream inStream = new ByteArrayInputStream(tuple.getFieldData(i), tuple.getFieldStart(i),
+                    tuple.getFieldLength(i));
+            DataInput dataIn = new DataInputStream(inStream);
+            Object o = serdes[i].deserialize(dataIn);
+            strBuilder.append(o.toString());
+            if (i + 1 < tuple.getFieldCount()) {
+                strBuilder.append(",");
+            }
+        }
+        return strBuilder.toString();
+    }
+}
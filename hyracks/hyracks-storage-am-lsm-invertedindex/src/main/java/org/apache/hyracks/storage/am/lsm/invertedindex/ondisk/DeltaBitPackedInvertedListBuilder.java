@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListBuilder;
+
+/**
+ * Writes inverted lists whose elements are a single integer field in blocks of up to {@link #MAX_BLOCK_SIZE}
+ * elements. A block starts with a header holding its element count, the bit width of its deltas, and its first and
+ * last element. The header is followed by the differences between consecutive elements, packed with that bit width.
+ * The last element in the header lets a cursor skip a whole block without decoding it. A block of a single element,
+ * as for the many rare tokens of a text corpus, stores neither its last element nor deltas.
+ * A block never spans pages. If a block does not fit into the rest of a page, a zero element count marks the end of
+ * the page and the block is written to the next one.
+ */
+public class DeltaBitPackedInvertedListBuilder implements IInvertedListBuilder {
+    public static final int MAX_BLOCK_SIZE = 128;
+    // Element count (1 byte), bit width (1 byte), first element (4 bytes), last element (4 bytes).
+    public static final int BLOCK_HEADER_SIZE = 10;
+    public static final int SINGLETON_BLOCK_SIZE = 6;
+    protected static final int COUNT_OFF = 0;
+    protected static final int BIT_WIDTH_OFF = 1;
+    protected static final int FIRST_ELEMENT_OFF = 2;
+    protected static final int LAST_ELEMENT_OFF = 6;
+
+    private final int[] block = new int[MAX_BLOCK_SIZE];
+    private int blockSize = 0;
+    private int blockCapacity = MAX_BLOCK_SIZE;
+    private int listSize = 0;
+
+    private byte[] targetBuf;
+    private int pos;
+
+    public DeltaBitPackedInvertedListBuilder(ITypeTraits[] invListFields) {
+        if (!isSupported(invListFields)) {
+            throw new IllegalArgumentException(
+                    "Compressed inverted lists only support elements of a single 4-byte integer field.");
+        }
+    }
+
+    public static boolean isSupported(ITypeTraits[] invListFields) {
+        return invListFields.length == 1 && invListFields[0].isFixedLength()
+                && invListFields[0].getFixedLength() == 4;
+    }
+
+    @Override
+    public boolean startNewList(ITupleReference tuple, int numTokenFields) {
+        if (pos + SINGLETON_BLOCK_SIZE > targetBuf.length) {
+            return false;
+        } else {
+            listSize = 0;
+            blockSize = 0;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean appendElement(ITupleReference tuple, int numTokenFields, int numElementFields) {
+        if (blockSize == blockCapacity && !writeBlock()) {
+            return false;
+        }
+        block[blockSize++] = IntegerPointable.getInteger(tuple.getFieldData(numTokenFields),
+                tuple.getFieldStart(numTokenFields));
+        listSize++;
+        return true;
+    }
+
+    @Override
+    public boolean endList() {
+        return blockSize == 0 || writeBlock();
+    }
+
+    private boolean writeBlock() {
+        // The elements are sorted, so the deltas are non-negative when read as unsigned integers.
+        int deltaBits = 0;
+        for (int i = 1; i < blockSize; i++) {
+            deltaBits |= block[i] - block[i - 1];
+        }
+        int bitWidth = 32 - Integer.numberOfLeadingZeros(deltaBits);
+        int blockBytes = getBlockSize(blockSize, bitWidth);
+        if (pos + blockBytes > targetBuf.length) {
+            if (pos < targetBuf.length) {
+                targetBuf[pos] = 0;
+            }
+            return false;
+        }
+        targetBuf[pos + COUNT_OFF] = (byte) blockSize;
+        targetBuf[pos + BIT_WIDTH_OFF] = (byte) bitWidth;
+        IntegerPointable.setInteger(targetBuf, pos + FIRST_ELEMENT_OFF, block[0]);
+        if (blockSize > 1) {
+            IntegerPointable.setInteger(targetBuf, pos + LAST_ELEMENT_OFF, block[blockSize - 1]);
+        }
+        int packedStart = pos + BLOCK_HEADER_SIZE;
+        int packedEnd = pos + blockBytes;
+        for (int i = packedStart; i < packedEnd; i++) {
+            targetBuf[i] = 0;
+        }
+        long bitPos = 0;
+        for (int i = 1; i < blockSize; i++) {
+            long delta = (block[i] - block[i - 1]) & 0xFFFFFFFFL;
+            int byteIx = packedStart + (int) (bitPos >>> 3);
+            int shift = (int) (bitPos & 7);
+            long bits = delta << shift;
+            // A value of up to 32 bits shifted by up to 7 bits touches at most 5 bytes.
+            for (int b = 0; b < 5 && byteIx + b < packedEnd; b++) {
+                targetBuf[byteIx + b] |= (byte) (bits >>> (b * 8));
+            }
+            bitPos += bitWidth;
+        }
+        pos = packedEnd;
+        blockSize = 0;
+        return true;
+    }
+
+    public static int getBlockSize(int count, int bitWidth) {
+        if (count == 1) {
+            return SINGLETON_BLOCK_SIZE;
+        }
+        return BLOCK_HEADER_SIZE + ((count - 1) * bitWidth + 7) / 8;
+    }
+
+    @Override
+    public void setTargetBuffer(byte[] targetBuf, int startPos) {
+        this.targetBuf = targetBuf;
+        this.pos = startPos;
+        // A full block of 32-bit deltas must fit into an empty page.
+        this.blockCapacity = Math.min(MAX_BLOCK_SIZE, (targetBuf.length - BLOCK_HEADER_SIZE) / 4 + 1);
+    }
+
+    @Override
+    public int getListSize() {
+        return listSize;
+    }
+
+    @Override
+    public int getPos() {
+        return pos;
+    }
+}
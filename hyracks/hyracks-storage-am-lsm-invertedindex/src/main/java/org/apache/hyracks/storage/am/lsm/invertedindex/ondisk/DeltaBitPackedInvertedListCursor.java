@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.BIT_WIDTH_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.BLOCK_HEADER_SIZE;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.COUNT_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.FIRST_ELEMENT_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.LAST_ELEMENT_OFF;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.MAX_BLOCK_SIZE;
+import static org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.DeltaBitPackedInvertedListBuilder.SINGLETON_BLOCK_SIZE;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.util.Arrays;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Reads inverted lists written by {@link DeltaBitPackedInvertedListBuilder}. A scan decodes one block at a time.
+ * Probes with {@link #containsKey(ITupleReference, MultiComparator)} binary search the last elements of the blocks
+ * and only decode the block that may contain the key. {@link #seek(ITupleReference, MultiComparator)} steps over
+ * whole blocks by the last element in their header, so skipped blocks are never decoded.
+ */
+public class DeltaBitPackedInvertedListCursor implements IInvertedListCursor {
+
+    private final IBufferCache bufferCache;
+    private final int fileId;
+
+    private int startPageId;
+    private int endPageId;
+    private int startOff;
+    private int numElements;
+
+    private ICachedPage[] pages = new ICachedPage[10];
+    private boolean pinned = false;
+
+    // The decoded block the cursor is positioned in.
+    private final int[] blockElements = new int[MAX_BLOCK_SIZE];
+    private int blockCount;
+    private int blockElementIx;
+    private int currentBlockIx;
+    private int nextBlockPageIx;
+    private int nextBlockOff;
+    private int currentElementIx;
+
+    // Location and last element of every block, collected on the first probe.
+    private boolean hasBlockDirectory;
+    private int numBlocks;
+    private int[] blockPageIxs = new int[10];
+    private int[] blockOffs = new int[10];
+    private int[] blockFirstElementIxs = new int[10];
+    private int[] blockLastElements = new int[10];
+
+    private final byte[] tupleBuf = new byte[4];
+    private final FixedSizeTupleReference tuple;
+    private final byte[] keyBuf = new byte[4];
+    private final FixedSizeTupleReference keyTuple;
+
+    public DeltaBitPackedInvertedListCursor(IBufferCache bufferCache, int fileId, ITypeTraits[] invListFields) {
+        this.bufferCache = bufferCache;
+        this.fileId = fileId;
+        this.tuple = new FixedSizeTupleReference(invListFields);
+        this.tuple.reset(tupleBuf, 0);
+        this.keyTuple = new FixedSizeTupleReference(invListFields);
+        this.keyTuple.reset(keyBuf, 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return currentElementIx < numElements;
+    }
+
+    @Override
+    public void next() {
+        if (++blockElementIx >= blockCount) {
+            loadBlock(nextBlockPageIx, nextBlockOff, currentBlockIx + 1);
+        }
+        currentElementIx++;
+        IntegerPointable.setInteger(tupleBuf, 0, blockElements[blockElementIx]);
+    }
+
+    @Override
+    public void pinPages() throws HyracksDataException {
+        if (pinned) {
+            return;
+        }
+        int pix = 0;
+        for (int i = startPageId; i <= endPageId; i++) {
+            pages[pix] = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+            pages[pix].acquireReadLatch();
+            pix++;
+        }
+        pinned = true;
+    }
+
+    @Override
+    public void unpinPages() throws HyracksDataException {
+        if (!pinned) {
+            return;
+        }
+        int numPages = endPageId - startPageId + 1;
+        for (int i = 0; i < numPages; i++) {
+            pages[i].releaseReadLatch();
+            bufferCache.unpin(pages[i]);
+        }
+        pinned = false;
+    }
+
+    private boolean isEndOfPage(int pageIx, int off) {
+        return off + SINGLETON_BLOCK_SIZE > bufferCache.getPageSize()
+                || pages[pageIx].getBuffer().array()[off + COUNT_OFF] == 0;
+    }
+
+    private void loadBlock(int pageIx, int off, int blockIx) {
+        if (isEndOfPage(pageIx, off)) {
+            pageIx++;
+            off = 0;
+        }
+        byte[] buf = pages[pageIx].getBuffer().array();
+        blockCount = decodeBlock(buf, off, blockElements);
+        blockElementIx = 0;
+        currentBlockIx = blockIx;
+        nextBlockPageIx = pageIx;
+        nextBlockOff = off + getBlockSize(buf, off);
+    }
+
+    private static int getBlockSize(byte[] buf, int off) {
+        return DeltaBitPackedInvertedListBuilder.getBlockSize(buf[off + COUNT_OFF] & 0xFF, buf[off + BIT_WIDTH_OFF]);
+    }
+
+    private static int getLastElement(byte[] buf, int off) {
+        if ((buf[off + COUNT_OFF] & 0xFF) == 1) {
+            return IntegerPointable.getInteger(buf, off + FIRST_ELEMENT_OFF);
+        }
+        return IntegerPointable.getInteger(buf, off + LAST_ELEMENT_OFF);
+    }
+
+    private static int decodeBlock(byte[] buf, int off, int[] elements) {
+        int count = buf[off + COUNT_OFF] & 0xFF;
+        int bitWidth = buf[off + BIT_WIDTH_OFF];
+        long mask = (1L << bitWidth) - 1;
+        int packedStart = off + BLOCK_HEADER_SIZE;
+        int packedEnd = off + DeltaBitPackedInvertedListBuilder.getBlockSize(count, bitWidth);
+        int element = IntegerPointable.getInteger(buf, off + FIRST_ELEMENT_OFF);
+        elements[0] = element;
+        long bitPos = 0;
+        for (int i = 1; i < count; i++) {
+            int byteIx = packedStart + (int) (bitPos >>> 3);
+            long bits = 0;
+            for (int b = 0; b < 5 && byteIx + b < packedEnd; b++) {
+                bits |= (buf[byteIx + b] & 0xFFL) << (b * 8);
+            }
+            element += (int) ((bits >>> (bitPos & 7)) & mask);
+            elements[i] = element;
+            bitPos += bitWidth;
+        }
+        return count;
+    }
+
+    private void ensureBlockDirectory() {
+        if (hasBlockDirectory) {
+            return;
+        }
+        numBlocks = 0;
+        int pageIx = 0;
+        int off = startOff;
+        int elementIx = 0;
+        while (elementIx < numElements) {
+            if (isEndOfPage(pageIx, off)) {
+                pageIx++;
+                off = 0;
+            }
+            byte[] buf = pages[pageIx].getBuffer().array();
+            if (numBlocks == blockPageIxs.length) {
+                int newLength = blockPageIxs.length * 2;
+                blockPageIxs = Arrays.copyOf(blockPageIxs, newLength);
+                blockOffs = Arrays.copyOf(blockOffs, newLength);
+                blockFirstElementIxs = Arrays.copyOf(blockFirstElementIxs, newLength);
+                blockLastElements = Arrays.copyOf(blockLastElements, newLength);
+            }
+            blockPageIxs[numBlocks] = pageIx;
+            blockOffs[numBlocks] = off;
+            blockFirstElementIxs[numBlocks] = elementIx;
+            blockLastElements[numBlocks] = getLastElement(buf, off);
+            numBlocks++;
+            elementIx += buf[off + COUNT_OFF] & 0xFF;
+            off += getBlockSize(buf, off);
+        }
+        hasBlockDirectory = true;
+    }
+
+    private int compareToElement(ITupleReference searchTuple, int element, MultiComparator invListCmp)
+            throws HyracksDataException {
+        IntegerPointable.setInteger(keyBuf, 0, element);
+        return invListCmp.compare(searchTuple, keyTuple);
+    }
+
+    @Override
+    public boolean containsKey(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException {
+        ensureBlockDirectory();
+        if (numBlocks == 0) {
+            return false;
+        }
+        // Find the first block whose last element is not smaller than the key, without decoding any block.
+        int begin = 0;
+        int end = numBlocks - 1;
+        while (begin < end) {
+            int mid = (begin + end) / 2;
+            if (compareToElement(searchTuple, blockLastElements[mid], invListCmp) > 0) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        if (compareToElement(searchTuple, blockLastElements[begin], invListCmp) > 0) {
+            return false;
+        }
+        int blockIx = begin;
+        if (currentBlockIx != blockIx) {
+            loadBlock(blockPageIxs[blockIx], blockOffs[blockIx], blockIx);
+        }
+        begin = 0;
+        end = blockCount - 1;
+        while (begin <= end) {
+            int mid = (begin + end) / 2;
+            int cmp = compareToElement(searchTuple, blockElements[mid], invListCmp);
+            if (cmp < 0) {
+                end = mid - 1;
+            } else if (cmp > 0) {
+                begin = mid + 1;
+            } else {
+                positionInBlock(blockIx, mid);
+                return true;
+            }
+        }
+        positionInBlock(blockIx, end);
+        return false;
+    }
+
+    @Override
+    public boolean seek(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException {
+        if (blockElementIx >= 0 && currentElementIx > 0 && invListCmp.compare(searchTuple, tuple) <= 0) {
+            return true;
+        }
+        int blockFirstElementIx = currentElementIx - blockElementIx - 1;
+        int begin = blockElementIx + 1;
+        if (begin >= blockCount
+                || compareToElement(searchTuple, blockElements[blockCount - 1], invListCmp) > 0) {
+            // The key lies beyond the current block. Skip blocks whose last element is smaller than the key.
+            int elementIx = blockFirstElementIx + blockCount;
+            int pageIx = nextBlockPageIx;
+            int off = nextBlockOff;
+            int blockIx = currentBlockIx + 1;
+            while (true) {
+                if (elementIx >= numElements) {
+                    currentElementIx = numElements;
+                    return false;
+                }
+                if (isEndOfPage(pageIx, off)) {
+                    pageIx++;
+                    off = 0;
+                }
+                byte[] buf = pages[pageIx].getBuffer().array();
+                if (compareToElement(searchTuple, getLastElement(buf, off), invListCmp) <= 0) {
+                    break;
+                }
+                elementIx += buf[off + COUNT_OFF] & 0xFF;
+                off += getBlockSize(buf, off);
+                blockIx++;
+            }
+            loadBlock(pageIx, off, blockIx);
+            blockFirstElementIx = elementIx;
+            begin = 0;
+        }
+        // The last element of the block is not smaller than the key.
+        int end = blockCount - 1;
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (compareToElement(searchTuple, blockElements[mid], invListCmp) > 0) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        blockElementIx = begin;
+        currentElementIx = blockFirstElementIx + begin + 1;
+        IntegerPointable.setInteger(tupleBuf, 0, blockElements[begin]);
+        return true;
+    }
+
+    private void positionInBlock(int blockIx, int elementIx) {
+        blockElementIx = elementIx;
+        currentElementIx = blockFirstElementIxs[blockIx] + elementIx + 1;
+        if (elementIx >= 0) {
+            IntegerPointable.setInteger(tupleBuf, 0, blockElements[elementIx]);
+        }
+    }
+
+    @Override
+    public void reset(int startPageId, int endPageId, int startOff, int numElements) {
+        this.startPageId = startPageId;
+        this.endPageId = endPageId;
+        this.startOff = startOff;
+        this.numElements = numElements;
+        this.currentElementIx = 0;
+        this.blockCount = 0;
+        this.blockElementIx = -1;
+        this.currentBlockIx = -1;
+        this.nextBlockPageIx = 0;
+        this.nextBlockOff = startOff;
+        this.hasBlockDirectory = false;
+
+        int numPages = endPageId - startPageId + 1;
+        if (numPages > pages.length) {
+            pages = new ICachedPage[numPages];
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public String printInvList(ISerializerDeserializer[] serdes) throws HyracksDataException {
+        StringBuilder strBuilder = new StringBuilder();
+        int[] elements = new int[MAX_BLOCK_SIZE];
+        byte[] elementBuf = new byte[4];
+        int pageIx = 0;
+        int off = startOff;
+        int elementIx = 0;
+        while (elementIx < numElements) {
+            if (isEndOfPage(pageIx, off)) {
+                pageIx++;
+                off = 0;
+            }
+            byte[] buf = pages[pageIx].getBuffer().array();
+            int count = decodeBlock(buf, off, elements);
+            for (int i = 0; i < count; i++) {
+                IntegerPointable.setInteger(elementBuf, 0, elements[i]);
+                DataInput dataIn = new DataInputStream(new ByteArrayInputStream(elementBuf));
+                strBuilder.append(serdes[0].deserialize(dataIn).toString());
+                strBuilder.append(" ");
+            }
+            elementIx += count;
+            off += getBlockSize(buf, off);
+        }
+        return strBuilder.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public String printCurrentElement(ISerializerDeserializer[] serdes) throws HyracksDataException {
+        DataInput dataIn = new DataInputStream(new ByteArrayInputStream(tupleBuf));
+        return serdes[0].deserialize(dataIn).toString();
+    }
+
+    @Override
+    public int compareTo(IInvertedListCursor invListCursor) {
+        return numElements - invListCursor.size();
+    }
+
+    @Override
+    public int getEndPageId() {
+        return endPageId;
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+
+    @Override
+    public int getStartOff() {
+        return startOff;
+    }
+
+    @Override
+    public int getStartPageId() {
+        return startPageId;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return tuple;
+    }
+}
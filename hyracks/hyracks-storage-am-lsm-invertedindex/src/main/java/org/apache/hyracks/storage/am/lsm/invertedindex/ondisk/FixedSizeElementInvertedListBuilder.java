@@ -66,6 +66,12 @@ public class FixedSizeElementInvertedListBuilder implements IInvertedListBuilder
         return true;
     }
 
+    @Override
+    public boolean endList() {
+        // Elements are written as they are appended.
+        return true;
+    }
+
     @Override
     public void setTargetBuffer(byte[] targetBuf, int startPos) {
         this.targetBuf = targetBuf;
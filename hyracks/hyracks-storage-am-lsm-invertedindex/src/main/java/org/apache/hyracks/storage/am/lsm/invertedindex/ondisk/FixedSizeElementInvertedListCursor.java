@@ -104,6 +104,9 @@ public class FixedSizeElementInvertedListCursor implements IInvertedListCursor {
 
     @Override
     public void unpinPages() throws HyracksDataException {
+        if (!pinned) {
+            return;
+        }
         int numPages = endPageId - startPageId + 1;
         for (int i = 0; i < numPages; i++) {
             pages[i].releaseReadLatch();
@@ -154,6 +157,47 @@ public class FixedSizeElementInvertedListCursor implements IInvertedListCursor {
         return false;
     }
 
+    @Override
+    public boolean seek(ITupleReference searchTuple, MultiComparator invListCmp) throws HyracksDataException {
+        // The current element (if any) is at currentElementIx - 1.
+        if (currentElementIx > 0 && invListCmp.compare(searchTuple, tuple) <= 0) {
+            return true;
+        }
+        int begin = currentElementIx;
+        if (begin >= numElements) {
+            return false;
+        }
+        // Gallop ahead until an element is not smaller than the search key, then binary search the last gap.
+        int end = begin;
+        int step = 1;
+        while (compareAt(searchTuple, invListCmp, end) > 0) {
+            begin = end + 1;
+            if (end == numElements - 1) {
+                currentElementIx = numElements;
+                return false;
+            }
+            end = Math.min(end + step, numElements - 1);
+            step <<= 1;
+        }
+        while (begin < end) {
+            int mid = (begin + end) >>> 1;
+            if (compareAt(searchTuple, invListCmp, mid) > 0) {
+                begin = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        positionCursor(begin);
+        currentElementIx = begin + 1;
+        return true;
+    }
+
+    private int compareAt(ITupleReference searchTuple, MultiComparator invListCmp, int elementIx)
+            throws HyracksDataException {
+        positionCursor(elementIx);
+        return invListCmp.compare(searchTuple, tuple);
+    }
+
     @Override
     public void reset(int startPageId, int endPageId, int startOff, int numElements) {
         this.startPageId = startPageId;
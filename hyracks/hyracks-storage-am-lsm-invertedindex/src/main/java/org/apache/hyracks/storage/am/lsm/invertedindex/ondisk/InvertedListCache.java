@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+
+/**
+ * A cache of inverted lists shared by all on-disk inverted indexes of a node controller, keyed by (index, token).
+ * An entry holds the position and length of the token's list, so that looking up a popular token does not descend
+ * the token BTree again. Lists of at most maxListBytes bytes are also held decoded, as fixed-size elements, so that
+ * searching them touches neither the buffer cache nor the decoder of compressed lists.
+ * Entries are evicted in least-recently-used order once the cached bytes exceed the capacity. An index invalidates
+ * its entries when it is deactivated or destroyed, e.g., when its LSM component is merged away.
+ */
+public class InvertedListCache {
+    // Rough per-entry overhead of the map entry, the key and the list objects.
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long capacityBytes;
+    private final int maxListBytes;
+    private final LinkedHashMap<Key, CachedInvertedList> lists;
+    // The keys of each index, so that invalidating an index does not scan the entries of all others.
+    private final Map<Object, Set<Key>> keysByIndex;
+    private long cachedBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacityBytes
+     *            - the number of bytes the cached entries may take
+     * @param maxListBytes
+     *            - the size of the largest list that is held decoded; larger lists only have their position cached
+     */
+    public InvertedListCache(long capacityBytes, int maxListBytes) {
+        this.capacityBytes = capacityBytes;
+        this.maxListBytes = maxListBytes;
+        this.lists = new LinkedHashMap<Key, CachedInvertedList>(16, 0.75f, true);
+        this.keysByIndex = new IdentityHashMap<Object, Set<Key>>();
+    }
+
+    public int getMaxListBytes() {
+        return maxListBytes;
+    }
+
+    /**
+     * Returns the cached list of the token in the given index, or null.
+     */
+    public synchronized CachedInvertedList get(Object index, ITupleReference token, int numTokenFields) {
+        CachedInvertedList list = lists.get(new Key(index, token, numTokenFields));
+        if (list == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return list;
+    }
+
+    public synchronized void put(Object index, ITupleReference token, int numTokenFields, CachedInvertedList list) {
+        Key key = new Key(index, token, numTokenFields);
+        long entryBytes = getEntryBytes(key, list);
+        if (entryBytes > capacityBytes) {
+            return;
+        }
+        CachedInvertedList oldList = lists.put(key, list);
+        if (oldList != null) {
+            cachedBytes -= getEntryBytes(key, oldList);
+        } else {
+            Set<Key> keys = keysByIndex.get(index);
+            if (keys == null) {
+                keys = new HashSet<Key>();
+                keysByIndex.put(index, keys);
+            }
+            keys.add(key);
+        }
+        cachedBytes += entryBytes;
+        Iterator<Map.Entry<Key, CachedInvertedList>> iter = lists.entrySet().iterator();
+        while (cachedBytes > capacityBytes && iter.hasNext()) {
+            Map.Entry<Key, CachedInvertedList> eldest = iter.next();
+            Key eldestKey = eldest.getKey();
+            cachedBytes -= getEntryBytes(eldestKey, eldest.getValue());
+            iter.remove();
+            Set<Key> keys = keysByIndex.get(eldestKey.index);
+            keys.remove(eldestKey);
+            if (keys.isEmpty()) {
+                keysByIndex.remove(eldestKey.index);
+            }
+        }
+    }
+
+    /**
+     * Drops all lists of the given index.
+     */
+    public synchronized void invalidate(Object index) {
+        Set<Key> keys = keysByIndex.remove(index);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            cachedBytes -= getEntryBytes(key, lists.remove(key));
+        }
+    }
+
+    public synchronized int size() {
+        return lists.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    private static long getEntryBytes(Key key, CachedInvertedList list) {
+        long bytes = ENTRY_OVERHEAD_BYTES + key.token.length;
+        if (list.getElements() != null) {
+            bytes += list.getElements().length;
+        }
+        return bytes;
+    }
+
+    /**
+     * The position and length of an inverted list, and its elements if the list is small enough to be held decoded.
+     */
+    public static class CachedInvertedList {
+        private final int startPageId;
+        private final int endPageId;
+        private final int startOff;
+        private final int numElements;
+        private final byte[] elements;
+
+        public CachedInvertedList(int startPageId, int endPageId, int startOff, int numElements, byte[] elements) {
+            this.startPageId = startPageId;
+            this.endPageId = endPageId;
+            this.startOff = startOff;
+            this.numElements = numElements;
+            this.elements = elements;
+        }
+
+        public int getStartPageId() {
+            return startPageId;
+        }
+
+        public int getEndPageId() {
+            return endPageId;
+        }
+
+        public int getStartOff() {
+            return startOff;
+        }
+
+        public int getNumElements() {
+            return numElements;
+        }
+
+        /**
+         * @return the fixed-size elements of the list, one after another, or null if the list is not held decoded
+         */
+        public byte[] getElements() {
+            return elements;
+        }
+    }
+
+    private static class Key {
+        private final Object index;
+        private final byte[] token;
+        private final int hash;
+
+        public Key(Object index, ITupleReference tuple, int numTokenFields) {
+            this.index = index;
+            int length = 0;
+            for (int i = 0; i < numTokenFields; i++) {
+                length += tuple.getFieldLength(i);
+            }
+            token = new byte[length];
+            int off = 0;
+            for (int i = 0; i < numTokenFields; i++) {
+                System.arraycopy(tuple.getFieldData(i), tuple.getFieldStart(i), token, off, tuple.getFieldLength(i));
+                off += tuple.getFieldLength(i);
+            }
+            hash = 31 * System.identityHashCode(index) + Arrays.hashCode(token);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return index == other.index && Arrays.equals(token, other.token);
+        }
+    }
+}
@@ -58,6 +58,7 @@ import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexSearche
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListBuilder;
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
 import org.apache.hyracks.storage.am.lsm.invertedindex.exceptions.InvertedIndexException;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.InvertedListCache.CachedInvertedList;
 import org.apache.hyracks.storage.am.lsm.invertedindex.search.InvertedIndexSearchPredicate;
 import org.apache.hyracks.storage.am.lsm.invertedindex.search.TOccurrenceSearcher;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
@@ -110,6 +111,8 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
     // Last page id of inverted-lists file (inclusive). Set during bulk load.
     protected int invListsMaxPageId = -1;
     protected boolean isOpen = false;
+    // Shared with the other indexes of the node controller; null if inverted lists are not cached.
+    protected InvertedListCache invListCache;
 
     public OnDiskInvertedIndex(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
             IInvertedListBuilder invListBuilder, ITypeTraits[] invListTypeTraits,
@@ -134,6 +137,10 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
         this.invListNumElementsField = numTokenFields + 3;
     }
 
+    public void setInvertedListCache(InvertedListCache invListCache) {
+        this.invListCache = invListCache;
+    }
+
     @Override
     public synchronized void create() throws HyracksDataException {
         if (isOpen) {
@@ -199,6 +206,9 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
 
         btree.deactivate();
         bufferCache.closeFile(fileId);
+        if (invListCache != null) {
+            invListCache.invalidate(this);
+        }
 
         isOpen = false;
     }
@@ -225,6 +235,9 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
             throw new HyracksDataException("Failed to clear since index is not open.");
         }
         btree.clear();
+        if (invListCache != null) {
+            invListCache.invalidate(this);
+        }
         bufferCache.closeFile(fileId);
         bufferCache.deleteFile(fileId, false);
         invListsFile.getFile().delete();
@@ -251,12 +264,71 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
 
     @Override
     public IInvertedListCursor createInvertedListCursor() {
-        return new FixedSizeElementInvertedListCursor(bufferCache, fileId, invListTypeTraits);
+        IInvertedListCursor diskCursor;
+        if (invListBuilder instanceof DeltaBitPackedInvertedListBuilder) {
+            diskCursor = new DeltaBitPackedInvertedListCursor(bufferCache, fileId, invListTypeTraits);
+        } else {
+            diskCursor = new FixedSizeElementInvertedListCursor(bufferCache, fileId, invListTypeTraits);
+        }
+        if (invListCache != null) {
+            return new CachingInvertedListCursor(diskCursor, invListTypeTraits);
+        }
+        return diskCursor;
     }
 
     @Override
     public void openInvertedListCursor(IInvertedListCursor listCursor, ITupleReference searchKey,
             IIndexOperationContext ictx) throws HyracksDataException, IndexException {
+        if (invListCache != null && listCursor instanceof CachingInvertedListCursor) {
+            CachingInvertedListCursor cachingCursor = (CachingInvertedListCursor) listCursor;
+            CachedInvertedList list = invListCache.get(this, searchKey, numTokenFields);
+            if (list == null) {
+                list = loadInvertedList(cachingCursor, searchKey, ictx);
+                invListCache.put(this, searchKey, numTokenFields, list);
+            }
+            cachingCursor.reset(list);
+            return;
+        }
+        searchInvertedList(listCursor, searchKey, ictx);
+    }
+
+    /**
+     * Looks up the list of the token and decodes its elements if the list is small enough to be cached with them.
+     */
+    private CachedInvertedList loadInvertedList(CachingInvertedListCursor cachingCursor, ITupleReference searchKey,
+            IIndexOperationContext ictx) throws HyracksDataException, IndexException {
+        IInvertedListCursor diskCursor = cachingCursor.getDiskCursor();
+        searchInvertedList(diskCursor, searchKey, ictx);
+        int numElements = diskCursor.size();
+        int elementSize = 0;
+        for (int i = 0; i < invListTypeTraits.length; i++) {
+            elementSize += invListTypeTraits[i].getFixedLength();
+        }
+        byte[] elements = null;
+        if (numElements > 0 && (long) numElements * elementSize <= invListCache.getMaxListBytes()) {
+            elements = new byte[numElements * elementSize];
+            int off = 0;
+            diskCursor.pinPages();
+            try {
+                while (diskCursor.hasNext()) {
+                    diskCursor.next();
+                    ITupleReference element = diskCursor.getTuple();
+                    for (int i = 0; i < element.getFieldCount(); i++) {
+                        System.arraycopy(element.getFieldData(i), element.getFieldStart(i), elements, off,
+                                element.getFieldLength(i));
+                        off += element.getFieldLength(i);
+                    }
+                }
+            } finally {
+                diskCursor.unpinPages();
+            }
+        }
+        return new CachedInvertedList(diskCursor.getStartPageId(), diskCursor.getEndPageId(),
+                diskCursor.getStartOff(), numElements, elements);
+    }
+
+    private void searchInvertedList(IInvertedListCursor listCursor, ITupleReference searchKey,
+            IIndexOperationContext ictx) throws HyracksDataException, IndexException {
         OnDiskInvertedIndexOpContext ctx = (OnDiskInvertedIndexOpContext) ictx;
         ctx.btreePred.setLowKeyComparator(ctx.searchCmp);
         ctx.btreePred.setHighKeyComparator(ctx.searchCmp);
@@ -332,6 +404,16 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
             currentPage.acquireWriteLatch();
         }
 
+        private void endInvList() throws HyracksDataException {
+            if (!invListBuilder.endList()) {
+                pinNextPage();
+                invListBuilder.setTargetBuffer(currentPage.getBuffer().array(), 0);
+                if (!invListBuilder.endList()) {
+                    throw new IllegalStateException("Failed to end inverted list after switching to a new page.");
+                }
+            }
+        }
+
         private void createAndInsertBTreeTuple() throws IndexException, HyracksDataException {
             // Build tuple.        
             btreeTupleBuilder.reset();
@@ -380,6 +462,7 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
             if (startNewList) {
                 if (!firstElement) {
                     // Create entry in btree for last inverted list.
+                    endInvList();
                     createAndInsertBTreeTuple();
                 }
                 if (!invListBuilder.startNewList(tuple, numTokenFields)) {
@@ -427,6 +510,7 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
         public void end() throws IndexException, HyracksDataException {
             // The last tuple builder is empty if add() was never called.
             if (lastTupleBuilder.getSize() != 0) {
+                endInvList();
                 createAndInsertBTreeTuple();
             }
             btreeBulkloader.end();
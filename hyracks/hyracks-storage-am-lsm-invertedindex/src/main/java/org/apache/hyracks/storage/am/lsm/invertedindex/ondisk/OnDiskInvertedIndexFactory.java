@@ -40,6 +40,7 @@ public class OnDiskInvertedIndexFactory extends IndexFactory<IInvertedIndex> {
     protected final ITypeTraits[] tokenTypeTraits;
     protected final IBinaryComparatorFactory[] tokenCmpFactories;
     protected final IInvertedIndexFileNameMapper fileNameMapper;
+    protected InvertedListCache invListCache;
 
     public OnDiskInvertedIndexFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
             IInvertedListBuilderFactory invListBuilderFactory, ITypeTraits[] invListTypeTraits,
@@ -54,12 +55,19 @@ public class OnDiskInvertedIndexFactory extends IndexFactory<IInvertedIndex> {
         this.fileNameMapper = fileNameMapper;
     }
 
+    public void setInvertedListCache(InvertedListCache invListCache) {
+        this.invListCache = invListCache;
+    }
+
     @Override
     public IInvertedIndex createIndexInstance(FileReference dictBTreeFile) throws IndexException {
         String invListsFilePath = fileNameMapper.getInvListsFilePath(dictBTreeFile.getFile().getPath());
         FileReference invListsFile = new FileReference(new File(invListsFilePath));
         IInvertedListBuilder invListBuilder = invListBuilderFactory.create();
-        return new OnDiskInvertedIndex(bufferCache, fileMapProvider, invListBuilder, invListTypeTraits,
-                invListCmpFactories, tokenTypeTraits, tokenCmpFactories, dictBTreeFile, invListsFile);
+        OnDiskInvertedIndex invIndex = new OnDiskInvertedIndex(bufferCache, fileMapProvider, invListBuilder,
+                invListTypeTraits, invListCmpFactories, tokenTypeTraits, tokenCmpFactories, dictBTreeFile,
+                invListsFile);
+        invIndex.setInvertedListCache(invListCache);
+        return invIndex;
     }
 }
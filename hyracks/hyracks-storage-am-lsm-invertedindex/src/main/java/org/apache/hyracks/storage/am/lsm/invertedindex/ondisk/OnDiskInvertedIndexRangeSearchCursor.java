@@ -65,7 +65,12 @@ public class OnDiskInvertedIndexRangeSearchCursor implements IIndexCursor {
         tokenTuple = new PermutingTupleReference(fieldPermutation);
         btreeCursor = btreeAccessor.createSearchCursor(false);
         concatTuple = new ConcatenatingTupleReference(2);
-        invListCursor = invIndex.createInvertedListCursor();
+        IInvertedListCursor cursor = invIndex.createInvertedListCursor();
+        // A scan reads every list once; caching the lists would only evict the ones searches need.
+        if (cursor instanceof CachingInvertedListCursor) {
+            cursor = ((CachingInvertedListCursor) cursor).getDiskCursor();
+        }
+        invListCursor = cursor;
         unpinNeeded = false;
     }
 
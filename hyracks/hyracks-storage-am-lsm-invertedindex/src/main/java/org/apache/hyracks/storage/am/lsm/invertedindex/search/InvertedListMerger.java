@@ -66,6 +66,14 @@ public class InvertedListMerger {
                 // When merging the last list, append results to the final search result.
                 result = searchResult;
             }
+            if (i >= numPrefixLists && prevSearchResult.getNumResults() == 0) {
+                // No candidate is left that could reach the occurrence threshold, so the remaining lists are not read.
+                // They may have been pinned up front by the caller.
+                for (int j = i; j < numInvLists; j++) {
+                    invListCursors.get(j).unpinPages();
+                }
+                break;
+            }
             IInvertedListCursor invListCursor = invListCursors.get(i);
             invListCursor.pinPages();
             if (i < numPrefixLists) {
@@ -73,20 +81,18 @@ public class InvertedListMerger {
                 mergePrefixList(invListCursor, prevSearchResult, result);
             } else {
                 // Merge suffix list.
-                int numInvListElements = invListCursor.size();
-                int currentNumResults = prevSearchResult.getNumResults();
-                // Should we binary search the next list or should we sort-merge it?
-                if (currentNumResults * Math.log(numInvListElements) < currentNumResults + numInvListElements) {
-                    mergeSuffixListProbe(invListCursor, prevSearchResult, result, i, numInvLists, occurrenceThreshold);
-                } else {
-                    mergeSuffixListScan(invListCursor, prevSearchResult, result, i, numInvLists, occurrenceThreshold);
-                }
+                mergeSuffixList(invListCursor, prevSearchResult, result, i, numInvLists, occurrenceThreshold);
             }
             invListCursor.unpinPages();
         }
     }
 
-    protected void mergeSuffixListProbe(IInvertedListCursor invListCursor, SearchResult prevSearchResult,
+    /**
+     * Intersects the candidates with a suffix list. The cursor seeks to each candidate in turn, so the elements
+     * between two candidates are skipped rather than read. Every candidate kept in the result can still reach the
+     * occurrence threshold with the lists that follow.
+     */
+    protected void mergeSuffixList(IInvertedListCursor invListCursor, SearchResult prevSearchResult,
             SearchResult newSearchResult, int invListIx, int numInvLists, int occurrenceThreshold)
             throws HyracksDataException, IndexException {
 
@@ -97,6 +103,7 @@ public class InvertedListMerger {
         FixedSizeFrameTupleAccessor resultFrameTupleAcc = prevSearchResult.getAccessor();
         FixedSizeTupleReference resultTuple = prevSearchResult.getTuple();
 
+        boolean invListExhausted = false;
         int resultTidx = 0;
 
         resultFrameTupleAcc.reset(prevCurrentBuffer);
@@ -104,9 +111,13 @@ public class InvertedListMerger {
         while (resultTidx < resultFrameTupleAcc.getTupleCount()) {
 
             resultTuple.reset(prevCurrentBuffer.array(), resultFrameTupleAcc.getTupleStartOffset(resultTidx));
-            int count = IntegerPointable.getInteger(resultTuple.getFieldData(0), resultTuple.getFieldStart(resultTuple.getFieldCount() - 1));
+            int count = IntegerPointable.getInteger(resultTuple.getFieldData(0),
+                    resultTuple.getFieldStart(resultTuple.getFieldCount() - 1));
 
-            if (invListCursor.containsKey(resultTuple, invListCmp)) {
+            if (!invListExhausted && !invListCursor.seek(resultTuple, invListCmp)) {
+                invListExhausted = true;
+            }
+            if (!invListExhausted && invListCmp.compare(resultTuple, invListCursor.getTuple()) == 0) {
                 count++;
                 newSearchResult.append(resultTuple, count);
             } else {
@@ -127,97 +138,6 @@ public class InvertedListMerger {
         }
     }
 
-    protected void mergeSuffixListScan(IInvertedListCursor invListCursor, SearchResult prevSearchResult,
-            SearchResult newSearchResult, int invListIx, int numInvLists, int occurrenceThreshold)
-            throws HyracksDataException, IndexException {
-
-        int prevBufIdx = 0;
-        int maxPrevBufIdx = prevSearchResult.getCurrentBufferIndex();
-        ByteBuffer prevCurrentBuffer = prevSearchResult.getBuffers().get(0);
-
-        FixedSizeFrameTupleAccessor resultFrameTupleAcc = prevSearchResult.getAccessor();
-        FixedSizeTupleReference resultTuple = prevSearchResult.getTuple();
-
-        boolean advanceCursor = true;
-        boolean advancePrevResult = false;
-        int resultTidx = 0;
-
-        resultFrameTupleAcc.reset(prevCurrentBuffer);
-
-        int invListTidx = 0;
-        int invListNumTuples = invListCursor.size();
-
-        if (invListCursor.hasNext())
-            invListCursor.next();
-
-        while (invListTidx < invListNumTuples && resultTidx < resultFrameTupleAcc.getTupleCount()) {
-
-            ITupleReference invListTuple = invListCursor.getTuple();
-
-            resultTuple.reset(prevCurrentBuffer.array(), resultFrameTupleAcc.getTupleStartOffset(resultTidx));
-
-            int cmp = invListCmp.compare(invListTuple, resultTuple);
-            if (cmp == 0) {
-                int count = IntegerPointable.getInteger(resultTuple.getFieldData(0), resultTuple.getFieldStart(resultTuple.getFieldCount() - 1)) + 1;
-                newSearchResult.append(resultTuple, count);
-                advanceCursor = true;
-                advancePrevResult = true;
-            } else {
-                if (cmp < 0) {
-                    advanceCursor = true;
-                    advancePrevResult = false;
-                } else {
-                    int count = IntegerPointable.getInteger(resultTuple.getFieldData(0), resultTuple.getFieldStart(resultTuple.getFieldCount() - 1));
-                    if (count + numInvLists - invListIx > occurrenceThreshold) {
-                        newSearchResult.append(resultTuple, count);
-                    }
-                    advanceCursor = false;
-                    advancePrevResult = true;
-                }
-            }
-
-            if (advancePrevResult) {
-                resultTidx++;
-                if (resultTidx >= resultFrameTupleAcc.getTupleCount()) {
-                    prevBufIdx++;
-                    if (prevBufIdx <= maxPrevBufIdx) {
-                        prevCurrentBuffer = prevSearchResult.getBuffers().get(prevBufIdx);
-                        resultFrameTupleAcc.reset(prevCurrentBuffer);
-                        resultTidx = 0;
-                    }
-                }
-            }
-
-            if (advanceCursor) {
-                invListTidx++;
-                if (invListCursor.hasNext()) {
-                    invListCursor.next();
-                }
-            }
-        }
-
-        // append remaining elements from previous result set
-        while (resultTidx < resultFrameTupleAcc.getTupleCount()) {
-
-            resultTuple.reset(prevCurrentBuffer.array(), resultFrameTupleAcc.getTupleStartOffset(resultTidx));
-
-            int count = IntegerPointable.getInteger(resultTuple.getFieldData(0), resultTuple.getFieldStart(resultTuple.getFieldCount() - 1));
-            if (count + numInvLists - invListIx > occurrenceThreshold) {
-                newSearchResult.append(resultTuple, count);
-            }
-
-            resultTidx++;
-            if (resultTidx >= resultFrameTupleAcc.getTupleCount()) {
-                prevBufIdx++;
-                if (prevBufIdx <= maxPrevBufIdx) {
-                    prevCurrentBuffer = prevSearchResult.getBuffers().get(prevBufIdx);
-                    resultFrameTupleAcc.reset(prevCurrentBuffer);
-                    resultTidx = 0;
-                }
-            }
-        }
-    }
-
     protected void mergePrefixList(IInvertedListCursor invListCursor, SearchResult prevSearchResult,
             SearchResult newSearchResult) throws HyracksDataException, IndexException {
 
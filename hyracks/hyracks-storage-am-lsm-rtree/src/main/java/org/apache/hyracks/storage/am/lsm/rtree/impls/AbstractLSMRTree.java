@@ -60,6 +60,7 @@ import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeInteriorFrame;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeLeafFrame;
 import org.apache.hyracks.storage.am.rtree.impls.RTree;
+import org.apache.hyracks.storage.am.rtree.impls.RTreePackingType;
 import org.apache.hyracks.storage.common.buffercache.IBufferCache;
 import org.apache.hyracks.storage.common.file.IFileMapProvider;
 
@@ -83,6 +84,9 @@ public abstract class AbstractLSMRTree extends AbstractLSMIndex implements ITree
     protected final ITreeIndexFrameFactory btreeLeafFrameFactory;
     protected final int[] rtreeFields;
 
+    // How flushes, merges and bulk loads pack the leaves of new disk RTrees.
+    protected RTreePackingType packingType = RTreePackingType.NONE;
+
     public AbstractLSMRTree(List<IVirtualBufferCache> virtualBufferCaches,
             ITreeIndexFrameFactory rtreeInteriorFrameFactory, ITreeIndexFrameFactory rtreeLeafFrameFactory,
             ITreeIndexFrameFactory btreeInteriorFrameFactory, ITreeIndexFrameFactory btreeLeafFrameFactory,
@@ -153,6 +157,10 @@ public abstract class AbstractLSMRTree extends AbstractLSMIndex implements ITree
         this.rtreeFields = null;
     }
 
+    public void setPackingType(RTreePackingType packingType) {
+        this.packingType = packingType;
+    }
+
     @Override
     public synchronized void create() throws HyracksDataException {
         if (isActivated) {
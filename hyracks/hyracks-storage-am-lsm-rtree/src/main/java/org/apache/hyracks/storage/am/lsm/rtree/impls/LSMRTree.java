@@ -68,8 +68,10 @@ import org.apache.hyracks.storage.am.lsm.common.api.ILSMOperationTracker;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFileReferences;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeThrottle;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMTreeIndexAccessor;
 import org.apache.hyracks.storage.am.lsm.common.impls.TreeIndexFactory;
+import org.apache.hyracks.storage.am.rtree.api.INearestNeighborSearchAccessor;
 import org.apache.hyracks.storage.am.rtree.impls.RTree;
 import org.apache.hyracks.storage.am.rtree.impls.RTreeSearchCursor;
 import org.apache.hyracks.storage.am.rtree.impls.SearchPredicate;
@@ -259,7 +261,7 @@ public class LSMRTree extends AbstractLSMRTree {
         if (!isEmpty) {
             rTreeTupleSorter.sort();
 
-            rTreeBulkloader = diskRTree.createBulkLoader(1.0f, false, 0L, false);
+            rTreeBulkloader = diskRTree.createBulkLoader(1.0f, false, 0L, false, packingType);
             cursor = rTreeTupleSorter;
 
             try {
@@ -385,6 +387,7 @@ public class LSMRTree extends AbstractLSMRTree {
                     ITupleReference tuple = btreeCursor.getTuple();
                     btreeBulkLoader.add(tuple);
                     builder.add(tuple);
+                    LSMMergeThrottle.throttle(tuple);
                 }
             } finally {
                 btreeCursor.close();
@@ -393,12 +396,13 @@ public class LSMRTree extends AbstractLSMRTree {
             btreeBulkLoader.end();
         }
 
-        IIndexBulkLoader bulkLoader = mergedComponent.getRTree().createBulkLoader(1.0f, false, 0L, false);
+        IIndexBulkLoader bulkLoader = mergedComponent.getRTree().createBulkLoader(1.0f, false, 0L, false, packingType);
         try {
             while (cursor.hasNext()) {
                 cursor.next();
                 ITupleReference frameTuple = cursor.getTuple();
                 bulkLoader.add(frameTuple);
+                LSMMergeThrottle.throttle(frameTuple);
             }
         } finally {
             cursor.close();
@@ -424,7 +428,7 @@ public class LSMRTree extends AbstractLSMRTree {
         return new LSMRTreeAccessor(lsmHarness, createOpContext(modificationCallback));
     }
 
-    public class LSMRTreeAccessor extends LSMTreeIndexAccessor {
+    public class LSMRTreeAccessor extends LSMTreeIndexAccessor implements INearestNeighborSearchAccessor {
         private final DualTupleReference dualTuple;
 
         public LSMRTreeAccessor(ILSMHarness lsmHarness, ILSMIndexOperationContext ctx) {
@@ -437,6 +441,11 @@ public class LSMRTree extends AbstractLSMRTree {
             return new LSMRTreeSearchCursor(ctx, buddyBTreeFields);
         }
 
+        @Override
+        public ITreeIndexCursor createNearestNeighborSearchCursor() {
+            return new LSMRTreeNearestNeighborSearchCursor(ctx, buddyBTreeFields);
+        }
+
         @Override
         public void delete(ITupleReference tuple) throws HyracksDataException, IndexException {
             ctx.setOperation(IndexOperation.DELETE);
@@ -539,7 +548,7 @@ public class LSMRTree extends AbstractLSMRTree {
                 throw new TreeIndexException(e);
             }
             bulkLoader = ((LSMRTreeDiskComponent) component).getRTree().createBulkLoader(fillFactor, verifyInput,
-                    numElementsHint, false);
+                    numElementsHint, false, packingType);
 
             if (filterFields != null) {
                 indexTuple = new PermutingTupleReference(rtreeFields);
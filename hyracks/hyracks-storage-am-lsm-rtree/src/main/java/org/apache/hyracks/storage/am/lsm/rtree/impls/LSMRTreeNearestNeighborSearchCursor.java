@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.rtree.impls;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.btree.api.IBTreeLeafFrame;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.BTreeRangeSearchCursor;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.common.tuples.PermutingTupleReference;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentType;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMHarness;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMTreeTupleReference;
+import org.apache.hyracks.storage.am.lsm.common.impls.BloomFilterAwareBTreePointSearchCursor;
+import org.apache.hyracks.storage.am.rtree.api.IRTreeInteriorFrame;
+import org.apache.hyracks.storage.am.rtree.api.IRTreeLeafFrame;
+import org.apache.hyracks.storage.am.rtree.impls.NearestNeighborSearchPredicate;
+import org.apache.hyracks.storage.am.rtree.impls.RTree;
+import org.apache.hyracks.storage.am.rtree.impls.RTreeNearestNeighborSearchCursor;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+
+/**
+ * Returns the k entries of an LSM RTree closest to the query point of a NearestNeighborSearchPredicate. Every
+ * component is searched best-first on its own, and the components' results are merged by distance. A result is
+ * dropped when its key is in the BTree of a newer component, as in LSMRTreeSearchCursor. With antimatter tuples, a
+ * matter tuple and the antimatter tuple that cancels it have the same MBR, hence the same distance; the results at
+ * one distance are therefore gathered from all components, and only the newest tuple of each key is kept. Dropped
+ * results do not count towards k.
+ */
+public class LSMRTreeNearestNeighborSearchCursor implements ITreeIndexCursor {
+
+    private final ILSMIndexOperationContext opCtx;
+    private final boolean reconcileAntimatter;
+    private final PermutingTupleReference btreeTuple;
+    private final PermutingTupleReference otherBTreeTuple;
+
+    private boolean open;
+    private ILSMHarness lsmHarness;
+    private int numberOfTrees;
+    private RTreeNearestNeighborSearchCursor[] rtreeCursors;
+    private ITreeIndexCursor[] btreeCursors;
+    private ITreeIndexAccessor[] btreeAccessors;
+    private MultiComparator btreeCmp;
+    private RangePredicate btreeRangePredicate;
+    private PriorityQueue<Integer> queue;
+
+    // The results of all components at the current distance, ordered from the newest component to the oldest.
+    private final List<BatchEntry> batch = new ArrayList<BatchEntry>();
+    private int batchSize;
+    private int batchPos;
+    private double batchDistance;
+
+    private int k;
+    private int returned;
+    private boolean foundNext;
+    private ITupleReference frameTuple;
+
+    /**
+     * Creates a cursor for an LSMRTree, whose components keep the deleted keys in a buddy BTree.
+     *
+     * @param buddyBTreeFields
+     *            - the fields of an RTree tuple that form its key in the buddy BTrees
+     */
+    public LSMRTreeNearestNeighborSearchCursor(ILSMIndexOperationContext opCtx, int[] buddyBTreeFields) {
+        this.opCtx = opCtx;
+        this.reconcileAntimatter = buddyBTreeFields == null;
+        this.btreeTuple = buddyBTreeFields != null ? new PermutingTupleReference(buddyBTreeFields) : null;
+        this.otherBTreeTuple = buddyBTreeFields != null ? new PermutingTupleReference(buddyBTreeFields) : null;
+    }
+
+    /**
+     * Creates a cursor for an LSMRTreeWithAntiMatterTuples, whose disk components keep antimatter tuples.
+     */
+    public LSMRTreeNearestNeighborSearchCursor(ILSMIndexOperationContext opCtx) {
+        this(opCtx, null);
+    }
+
+    @Override
+    public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws HyracksDataException,
+            IndexException {
+        LSMRTreeCursorInitialState lsmInitialState = (LSMRTreeCursorInitialState) initialState;
+        btreeCmp = lsmInitialState.getBTreeCmp();
+        lsmHarness = lsmInitialState.getLSMHarness();
+        List<ILSMComponent> operationalComponents = lsmInitialState.getOperationalComponents();
+        numberOfTrees = operationalComponents.size();
+
+        NearestNeighborSearchPredicate pred = (NearestNeighborSearchPredicate) searchPred;
+        k = pred.getK();
+        // Results dropped during reconciliation do not count, so no component can stop at k on its own.
+        NearestNeighborSearchPredicate componentPred = new NearestNeighborSearchPredicate(pred.getQueryPoint(),
+                Integer.MAX_VALUE, pred.getLowKeyComparator());
+
+        rtreeCursors = new RTreeNearestNeighborSearchCursor[numberOfTrees];
+        btreeCursors = new ITreeIndexCursor[numberOfTrees];
+        btreeAccessors = new ITreeIndexAccessor[numberOfTrees];
+        queue = new PriorityQueue<Integer>(Math.max(numberOfTrees, 1), new CursorComparator());
+        open = true;
+
+        for (int i = 0; i < numberOfTrees; i++) {
+            ILSMComponent component = operationalComponents.get(i);
+            RTree rtree;
+            BTree btree;
+            if (component.getType() == LSMComponentType.MEMORY) {
+                rtree = (RTree) ((LSMRTreeMemoryComponent) component).getRTree();
+                btree = (BTree) ((LSMRTreeMemoryComponent) component).getBTree();
+                btreeCursors[i] = new BTreeRangeSearchCursor((IBTreeLeafFrame) lsmInitialState
+                        .getBTreeLeafFrameFactory().createFrame(), false);
+            } else {
+                rtree = (RTree) ((LSMRTreeDiskComponent) component).getRTree();
+                btree = (BTree) ((LSMRTreeDiskComponent) component).getBTree();
+                if (btree != null) {
+                    btreeCursors[i] = new BloomFilterAwareBTreePointSearchCursor((IBTreeLeafFrame) lsmInitialState
+                            .getBTreeLeafFrameFactory().createFrame(), false,
+                            ((LSMRTreeDiskComponent) component).getBloomFilter());
+                }
+            }
+            if (btree != null) {
+                btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                        NoOpOperationCallback.INSTANCE);
+            }
+            rtreeCursors[i] = new RTreeNearestNeighborSearchCursor((IRTreeInteriorFrame) lsmInitialState
+                    .getRTreeInteriorFrameFactory().createFrame(), (IRTreeLeafFrame) lsmInitialState
+                    .getRTreeLeafFrameFactory().createFrame());
+            ITreeIndexAccessor rtreeAccessor = rtree.createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+            rtreeAccessor.search(rtreeCursors[i], componentPred);
+            pushNext(i);
+        }
+        btreeRangePredicate = new RangePredicate(null, null, true, true, btreeCmp, btreeCmp);
+
+        batchSize = 0;
+        batchPos = 0;
+        returned = 0;
+        foundNext = false;
+    }
+
+    private void pushNext(int cursorIndex) throws HyracksDataException, IndexException {
+        if (rtreeCursors[cursorIndex].hasNext()) {
+            rtreeCursors[cursorIndex].next();
+            queue.add(cursorIndex);
+        } else {
+            rtreeCursors[cursorIndex].close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws HyracksDataException, IndexException {
+        if (foundNext) {
+            return true;
+        }
+        while (returned < k) {
+            if (batchPos == batchSize && !fillBatch()) {
+                return false;
+            }
+            BatchEntry entry = batch.get(batchPos++);
+            if (entry.antimatter || isShadowed(batchPos - 1) || isDeleted(entry)) {
+                continue;
+            }
+            frameTuple = entry.tuple;
+            foundNext = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Copies the results of all components at the next smallest distance into the batch.
+     */
+    private boolean fillBatch() throws HyracksDataException, IndexException {
+        if (queue.isEmpty()) {
+            return false;
+        }
+        batchSize = 0;
+        batchPos = 0;
+        batchDistance = rtreeCursors[queue.peek()].getDistance();
+        while (!queue.isEmpty() && rtreeCursors[queue.peek()].getDistance() == batchDistance) {
+            int cursorIndex = queue.poll();
+            ITupleReference tuple = rtreeCursors[cursorIndex].getTuple();
+            if (batchSize == batch.size()) {
+                batch.add(new BatchEntry(tuple.getFieldCount()));
+            }
+            batch.get(batchSize++).reset(tuple, cursorIndex);
+            pushNext(cursorIndex);
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a newer component holds a tuple with the same key at the same distance
+     */
+    private boolean isShadowed(int entryIndex) throws HyracksDataException {
+        if (!reconcileAntimatter) {
+            return false;
+        }
+        BatchEntry entry = batch.get(entryIndex);
+        for (int i = 0; i < entryIndex; i++) {
+            BatchEntry newer = batch.get(i);
+            if (newer.cursorIndex < entry.cursorIndex && btreeCmp.compare(newer.tuple, entry.tuple) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the BTree of a newer component holds the key of the tuple
+     */
+    private boolean isDeleted(BatchEntry entry) throws HyracksDataException, IndexException {
+        ITupleReference key = entry.tuple;
+        if (btreeTuple != null) {
+            btreeTuple.reset(entry.tuple);
+            key = btreeTuple;
+        }
+        for (int i = 0; i < entry.cursorIndex; i++) {
+            if (btreeAccessors[i] == null) {
+                continue;
+            }
+            btreeCursors[i].reset();
+            btreeRangePredicate.setHighKey(key, true);
+            btreeRangePredicate.setLowKey(key, true);
+            btreeAccessors[i].search(btreeCursors[i], btreeRangePredicate);
+            try {
+                if (btreeCursors[i].hasNext()) {
+                    return true;
+                }
+            } finally {
+                btreeCursors[i].close();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void next() throws HyracksDataException {
+        foundNext = false;
+        returned++;
+    }
+
+    /**
+     * @return the distance from the query point to the MBR of the current tuple
+     */
+    public double getDistance() {
+        return batchDistance;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return frameTuple;
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        if (!open) {
+            return;
+        }
+        try {
+            for (int i = 0; i < numberOfTrees; i++) {
+                if (rtreeCursors[i] != null) {
+                    rtreeCursors[i].close();
+                }
+                if (btreeCursors[i] != null) {
+                    btreeCursors[i].close();
+                }
+            }
+            rtreeCursors = null;
+            btreeCursors = null;
+            queue = null;
+        } finally {
+            lsmHarness.endSearch(opCtx);
+        }
+        foundNext = false;
+        open = false;
+    }
+
+    @Override
+    public void reset() throws HyracksDataException {
+        close();
+    }
+
+    @Override
+    public ICachedPage getPage() {
+        // do nothing
+        return null;
+    }
+
+    @Override
+    public void setBufferCache(IBufferCache bufferCache) {
+        // do nothing
+    }
+
+    @Override
+    public void setFileId(int fileId) {
+        // do nothing
+    }
+
+    @Override
+    public boolean exclusiveLatchNodes() {
+        return false;
+    }
+
+    @Override
+    public void markCurrentTupleAsUpdated() throws HyracksDataException {
+        throw new HyracksDataException("Updating tuples is not supported with this cursor.");
+    }
+
+    private class CursorComparator implements Comparator<Integer> {
+        @Override
+        public int compare(Integer a, Integer b) {
+            int c = Double.compare(rtreeCursors[a].getDistance(), rtreeCursors[b].getDistance());
+            // At equal distance, the newer component comes first.
+            return c != 0 ? c : a - b;
+        }
+    }
+
+    private static class BatchEntry {
+        private final ArrayTupleBuilder tupleBuilder;
+        private final ArrayTupleReference tuple = new ArrayTupleReference();
+        private int cursorIndex;
+        private boolean antimatter;
+
+        public BatchEntry(int fieldCount) {
+            tupleBuilder = new ArrayTupleBuilder(fieldCount);
+        }
+
+        public void reset(ITupleReference source, int cursorIndex) throws HyracksDataException {
+            tupleBuilder.reset();
+            for (int i = 0; i < source.getFieldCount(); i++) {
+                tupleBuilder.addField(source.getFieldData(i), source.getFieldStart(i), source.getFieldLength(i));
+            }
+            tuple.reset(tupleBuilder.getFieldEndOffsets(), tupleBuilder.getByteArray());
+            this.cursorIndex = cursorIndex;
+            this.antimatter = source instanceof ILSMTreeTupleReference
+                    && ((ILSMTreeTupleReference) source).isAntimatter();
+        }
+    }
+}
@@ -60,9 +60,12 @@ import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFileReferences;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeThrottle;
 import org.apache.hyracks.storage.am.lsm.common.impls.LSMTreeIndexAccessor;
 import org.apache.hyracks.storage.am.lsm.common.impls.TreeIndexFactory;
+import org.apache.hyracks.storage.am.rtree.api.INearestNeighborSearchAccessor;
 import org.apache.hyracks.storage.am.rtree.impls.RTree;
+import org.apache.hyracks.storage.am.rtree.impls.RTreePackingType;
 import org.apache.hyracks.storage.am.rtree.impls.RTreeSearchCursor;
 import org.apache.hyracks.storage.am.rtree.impls.SearchPredicate;
 import org.apache.hyracks.storage.common.file.IFileMapProvider;
@@ -94,6 +97,19 @@ public class LSMRTreeWithAntiMatterTuples extends AbstractLSMRTree {
                 filterFactory);
     }
 
+    /**
+     * The search cursor reconciles matter and antimatter tuples by merging the components' RTrees in linearizer
+     * order, so disk RTrees must keep the order in which flushes, merges and bulk loads write their leaves. Only
+     * {@link RTreePackingType#NONE} is accepted.
+     */
+    @Override
+    public void setPackingType(RTreePackingType packingType) {
+        if (packingType != RTreePackingType.NONE) {
+            throw new IllegalArgumentException("An LSM RTree with antimatter tuples cannot use " + packingType
+                    + " packing");
+        }
+    }
+
     @Override
     public synchronized void activate() throws HyracksDataException {
         super.activate();
@@ -233,7 +249,7 @@ public class LSMRTreeWithAntiMatterTuples extends AbstractLSMRTree {
             bTreeTupleSorter.sort();
         }
 
-        IIndexBulkLoader rTreeBulkloader = diskRTree.createBulkLoader(1.0f, false, 0L, false);
+        IIndexBulkLoader rTreeBulkloader = diskRTree.createBulkLoader(1.0f, false, 0L, false, RTreePackingType.NONE);
         LSMRTreeWithAntiMatterTuplesFlushCursor cursor = new LSMRTreeWithAntiMatterTuplesFlushCursor(rTreeTupleSorter,
                 bTreeTupleSorter, comparatorFields, linearizerArray);
         cursor.open(null, null);
@@ -293,12 +309,13 @@ public class LSMRTreeWithAntiMatterTuples extends AbstractLSMRTree {
         LSMRTreeDiskComponent component = createDiskComponent(componentFactory, mergeOp.getRTreeMergeTarget(), null,
                 null, true);
         RTree mergedRTree = component.getRTree();
-        IIndexBulkLoader bulkloader = mergedRTree.createBulkLoader(1.0f, false, 0L, false);
+        IIndexBulkLoader bulkloader = mergedRTree.createBulkLoader(1.0f, false, 0L, false, RTreePackingType.NONE);
         try {
             while (cursor.hasNext()) {
                 cursor.next();
                 ITupleReference frameTuple = cursor.getTuple();
                 bulkloader.add(frameTuple);
+                LSMMergeThrottle.throttle(frameTuple);
             }
         } finally {
             cursor.close();
@@ -324,7 +341,8 @@ public class LSMRTreeWithAntiMatterTuples extends AbstractLSMRTree {
         return new LSMRTreeWithAntiMatterTuplesAccessor(lsmHarness, createOpContext(modificationCallback));
     }
 
-    public class LSMRTreeWithAntiMatterTuplesAccessor extends LSMTreeIndexAccessor {
+    public class LSMRTreeWithAntiMatterTuplesAccessor extends LSMTreeIndexAccessor implements
+            INearestNeighborSearchAccessor {
         public LSMRTreeWithAntiMatterTuplesAccessor(ILSMHarness lsmHarness, ILSMIndexOperationContext ctx) {
             super(lsmHarness, ctx);
         }
@@ -334,6 +352,11 @@ public class LSMRTreeWithAntiMatterTuples extends AbstractLSMRTree {
             return new LSMRTreeWithAntiMatterTuplesSearchCursor(ctx);
         }
 
+        @Override
+        public ITreeIndexCursor createNearestNeighborSearchCursor() {
+            return new LSMRTreeNearestNeighborSearchCursor(ctx);
+        }
+
         public MultiComparator getMultiComparator() {
             LSMRTreeOpContext concreteCtx = (LSMRTreeOpContext) ctx;
             return concreteCtx.currentRTreeOpContext.cmp;
@@ -379,7 +402,7 @@ public class LSMRTreeWithAntiMatterTuples extends AbstractLSMRTree {
                 throw new TreeIndexException(e);
             }
             bulkLoader = ((LSMRTreeDiskComponent) component).getRTree().createBulkLoader(fillFactor, verifyInput,
-                    numElementsHint, false);
+                    numElementsHint, false, RTreePackingType.NONE);
 
             if (filterFields != null) {
                 indexTuple = new PermutingTupleReference(rtreeFields);
@@ -25,6 +25,7 @@ import org.apache.hyracks.storage.am.common.dataflow.IIndexDataflowHelperFactory
 import org.apache.hyracks.storage.am.common.dataflow.IIndexOperatorDescriptor;
 import org.apache.hyracks.storage.am.common.dataflow.IndexDataflowHelper;
 import org.apache.hyracks.storage.am.rtree.frames.RTreePolicyType;
+import org.apache.hyracks.storage.am.rtree.impls.RTreePackingType;
 
 public class RTreeDataflowHelperFactory implements IIndexDataflowHelperFactory {
 
@@ -33,17 +34,31 @@ public class RTreeDataflowHelperFactory implements IIndexDataflowHelperFactory {
     private final IPrimitiveValueProviderFactory[] valueProviderFactories;
     private final RTreePolicyType rtreePolicyType;
     private final boolean durable;
+    private final RTreePackingType packingType;
 
     public RTreeDataflowHelperFactory(IPrimitiveValueProviderFactory[] valueProviderFactories,
             RTreePolicyType rtreePolicyType, boolean durable) {
+        this(valueProviderFactories, rtreePolicyType, durable, RTreePackingType.NONE);
+    }
+
+    /**
+     * @param packingType
+     *            - how bulk loads pack the leaves of the RTree
+     */
+    public RTreeDataflowHelperFactory(IPrimitiveValueProviderFactory[] valueProviderFactories,
+            RTreePolicyType rtreePolicyType, boolean durable, RTreePackingType packingType) {
         this.valueProviderFactories = valueProviderFactories;
         this.rtreePolicyType = rtreePolicyType;
         this.durable = durable;
+        this.packingType = packingType;
     }
 
     @Override
     public IndexDataflowHelper createIndexDataflowHelper(IIndexOperatorDescriptor opDesc, IHyracksTaskContext ctx,
             int partition) {
-        return new RTreeDataflowHelper(opDesc, ctx, partition, valueProviderFactories, rtreePolicyType, durable);
+        RTreeDataflowHelper helper = new RTreeDataflowHelper(opDesc, ctx, partition, valueProviderFactories,
+                rtreePolicyType, durable);
+        helper.setPackingType(packingType);
+        return helper;
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree.dataflow;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
+import org.apache.hyracks.storage.am.common.dataflow.AbstractTreeIndexOperatorDescriptor;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.rtree.api.INearestNeighborSearchAccessor;
+import org.apache.hyracks.storage.am.rtree.impls.NearestNeighborSearchPredicate;
+
+public class RTreeNearestNeighborSearchOperatorNodePushable extends RTreeSearchOperatorNodePushable {
+    private final int k;
+
+    public RTreeNearestNeighborSearchOperatorNodePushable(AbstractTreeIndexOperatorDescriptor opDesc,
+            IHyracksTaskContext ctx, int partition, IRecordDescriptorProvider recordDescProvider,
+            int[] queryPointFields, int k) {
+        super(opDesc, ctx, partition, recordDescProvider, queryPointFields, null, null);
+        this.k = k;
+    }
+
+    @Override
+    protected ISearchPredicate createSearchPredicate() {
+        cmp = MultiComparator.create(((ITreeIndex) index).getComparatorFactories());
+        return new NearestNeighborSearchPredicate(searchKey, k, cmp);
+    }
+
+    @Override
+    protected IIndexCursor createCursor() {
+        return ((INearestNeighborSearchAccessor) indexAccessor).createNearestNeighborSearchCursor();
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree.dataflow;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hyracks.api.comm.IFrame;
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import org.apache.hyracks.dataflow.common.comm.util.FrameUtils;
+import org.apache.hyracks.dataflow.common.io.RunFileReader;
+import org.apache.hyracks.dataflow.common.io.RunFileWriter;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProvider;
+
+/**
+ * Joins two inputs on the intersection of two-dimensional MBRs. The build input is kept in memory and partitioned
+ * into the cells of a grid; an MBR goes into every cell it overlaps. Every frame of the probe input is partitioned
+ * into the same grid, and each cell is joined with a plane sweep over the MBRs sorted by their low x coordinate. A
+ * pair found in several cells is only reported in the cell that holds the low corner of its intersection (the
+ * reference point), so every pair is reported exactly once.
+ * The build input is kept in memory as long as it fits into the frame budget. When it does not, the MBRs cached so
+ * far define a coarse grid of partitions, and both inputs are written to one run file per partition; an MBR goes into
+ * every partition it overlaps. Each partition is then joined on its own, in chunks of build frames that fit the
+ * budget, and a pair is only reported in the partition that holds its reference point.
+ * The MBR fields of a tuple are its low x, low y, high x and high y coordinates, in that order.
+ */
+public class SpatialJoin {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final IHyracksTaskContext ctx;
+    private final FrameTupleAccessor accessorProbe;
+    private final FrameTupleAccessor accessorBuild;
+    private final int[] probeMbrFields;
+    private final int[] buildMbrFields;
+    private final IPrimitiveValueProvider[] probeValueProviders;
+    private final IPrimitiveValueProvider[] buildValueProviders;
+    private final SpatialJoinGridType gridType;
+    private final int tuplesPerCell;
+    private final int buildFrameLimit;
+    private final FrameTupleAppender appender;
+
+    private final List<ByteBuffer> buildFrames = new ArrayList<ByteBuffer>();
+    private final MbrList build = new MbrList();
+    private final MbrList probe = new MbrList();
+
+    // The inner cell boundaries of each axis; cell i of an axis covers [bounds[i - 1], bounds[i]).
+    private double[] xBounds;
+    private double[] yBounds;
+    // The build entries of cell c are buildCellEntries[buildCellStart[c]] to buildCellEntries[buildCellStart[c + 1]],
+    // sorted by their low x coordinate.
+    private int[] buildCellStart;
+    private int[] buildCellEntries;
+    private int buildFrameCount;
+
+    // The inner partition boundaries of each axis, once the build input has been spilled.
+    private double[] xPartitionBounds;
+    private double[] yPartitionBounds;
+    private FrameTupleAppender[] partitionAppenders;
+    private RunFileWriter[] buildRuns;
+    private RunFileWriter[] probeRuns;
+    // The partition being joined from the run files, or -1 while the build input is in memory.
+    private int partition = -1;
+
+    /**
+     * @param probeMbrFields
+     *            - the MBR fields of the probe (outer) input
+     * @param buildMbrFields
+     *            - the MBR fields of the build (inner) input
+     * @param tuplesPerCell
+     *            - the number of build tuples the grid aims to put into one cell
+     * @param memSizeInFrames
+     *            - the number of frames the join may use; one is kept for the output and one for reading
+     */
+    public SpatialJoin(IHyracksTaskContext ctx, FrameTupleAccessor accessorProbe, FrameTupleAccessor accessorBuild,
+            int[] probeMbrFields, int[] buildMbrFields, IPrimitiveValueProvider[] probeValueProviders,
+            IPrimitiveValueProvider[] buildValueProviders, SpatialJoinGridType gridType, int tuplesPerCell,
+            int memSizeInFrames) throws HyracksDataException {
+        if (memSizeInFrames < 3) {
+            throw new HyracksDataException("Not enough memory is available for Spatial Join");
+        }
+        this.ctx = ctx;
+        this.accessorProbe = accessorProbe;
+        this.accessorBuild = accessorBuild;
+        this.probeMbrFields = probeMbrFields;
+        this.buildMbrFields = buildMbrFields;
+        this.probeValueProviders = probeValueProviders;
+        this.buildValueProviders = buildValueProviders;
+        this.gridType = gridType;
+        this.tuplesPerCell = Math.max(1, tuplesPerCell);
+        this.buildFrameLimit = memSizeInFrames - 2;
+        this.appender = new FrameTupleAppender(new VSizeFrame(ctx), true);
+    }
+
+    public void cache(ByteBuffer buffer) throws HyracksDataException {
+        if (buildRuns == null && buildFrameCount + frameCount(buffer) > buildFrameLimit) {
+            spillBuild();
+        }
+        if (buildRuns != null) {
+            accessorBuild.reset(buffer);
+            build.clear();
+            build.addAll(accessorBuild, 0, buildMbrFields, buildValueProviders);
+            for (int i = 0; i < build.size; i++) {
+                spill(build, i, accessorBuild, buildRuns, "SpatialJoinBuild");
+            }
+            return;
+        }
+        addBuildFrame(buffer);
+    }
+
+    private void addBuildFrame(ByteBuffer buffer) throws HyracksDataException {
+        ByteBuffer copyBuffer = ctx.allocateFrame(buffer.capacity());
+        FrameUtils.copyAndFlip(buffer, copyBuffer);
+        int frameIndex = buildFrames.size();
+        buildFrames.add(copyBuffer);
+        buildFrameCount += frameCount(buffer);
+        accessorBuild.reset(copyBuffer);
+        build.addAll(accessorBuild, frameIndex, buildMbrFields, buildValueProviders);
+    }
+
+    private int frameCount(ByteBuffer buffer) {
+        return Math.max(1, buffer.capacity() / ctx.getInitialFrameSize());
+    }
+
+    /**
+     * Places the partition boundaries with the MBRs cached so far and moves the cached tuples into the run files of
+     * the partitions. Every partition keeps one frame for its run file, so there are at most as many partitions as
+     * build frames fit into the budget.
+     */
+    private void spillBuild() throws HyracksDataException {
+        int partitionsPerAxis = (int) Math.max(1, Math.floor(Math.sqrt(buildFrameLimit)));
+        xPartitionBounds = computeBounds(build, build.xLow, build.xHigh, partitionsPerAxis);
+        yPartitionBounds = computeBounds(build, build.yLow, build.yHigh, partitionsPerAxis);
+        int numPartitions = (xPartitionBounds.length + 1) * (yPartitionBounds.length + 1);
+        partitionAppenders = new FrameTupleAppender[numPartitions];
+        buildRuns = new RunFileWriter[numPartitions];
+        for (int i = 0; i < build.size; i++) {
+            if (i == 0 || build.frameIndex[i] != build.frameIndex[i - 1]) {
+                if (i > 0) {
+                    buildFrames.set(build.frameIndex[i - 1], null);
+                }
+                accessorBuild.reset(buildFrames.get(build.frameIndex[i]));
+            }
+            spill(build, i, accessorBuild, buildRuns, "SpatialJoinBuild");
+        }
+        clearBuild();
+    }
+
+    /**
+     * Appends the tuple of an entry to the run file of every partition that its MBR overlaps.
+     */
+    private void spill(MbrList mbrs, int entry, FrameTupleAccessor accessor, RunFileWriter[] runs, String prefix)
+            throws HyracksDataException {
+        int xFrom = cellOf(mbrs.xLow[entry], xPartitionBounds);
+        int xTo = cellOf(mbrs.xHigh[entry], xPartitionBounds);
+        int yFrom = cellOf(mbrs.yLow[entry], yPartitionBounds);
+        int yTo = cellOf(mbrs.yHigh[entry], yPartitionBounds);
+        int partitionsX = xPartitionBounds.length + 1;
+        for (int y = yFrom; y <= yTo; y++) {
+            for (int x = xFrom; x <= xTo; x++) {
+                int p = y * partitionsX + x;
+                if (runs[p] == null) {
+                    FileReference file = ctx.getJobletContext().createManagedWorkspaceFile(prefix);
+                    runs[p] = new RunFileWriter(file, ctx.getIOManager());
+                    runs[p].open();
+                }
+                if (partitionAppenders[p] == null) {
+                    partitionAppenders[p] = new FrameTupleAppender(new VSizeFrame(ctx), true);
+                }
+                FrameUtils.appendToWriter(runs[p], partitionAppenders[p], accessor, mbrs.tupleIndex[entry]);
+            }
+        }
+    }
+
+    private void closeRuns(RunFileWriter[] runs) throws HyracksDataException {
+        for (int p = 0; p < runs.length; p++) {
+            if (runs[p] != null) {
+                partitionAppenders[p].flush(runs[p], true);
+                runs[p].close();
+            }
+        }
+    }
+
+    private void clearBuild() {
+        buildFrames.clear();
+        buildFrameCount = 0;
+        build.clear();
+    }
+
+    public void closeCache() throws HyracksDataException {
+        if (buildRuns != null) {
+            closeRuns(buildRuns);
+            probeRuns = new RunFileWriter[buildRuns.length];
+            return;
+        }
+        buildGrid();
+    }
+
+    private void buildGrid() {
+        int cellsPerAxis = (int) Math.max(1, Math.ceil(Math.sqrt((double) build.size / tuplesPerCell)));
+        xBounds = computeBounds(build, build.xLow, build.xHigh, cellsPerAxis);
+        yBounds = computeBounds(build, build.yLow, build.yHigh, cellsPerAxis);
+        int numCells = (xBounds.length + 1) * (yBounds.length + 1);
+
+        int[] order = sortedByLowX(build);
+        buildCellStart = new int[numCells + 1];
+        for (int i = 0; i < build.size; i++) {
+            forEachCell(build, i, null, buildCellStart, 0);
+        }
+        for (int c = 0; c < numCells; c++) {
+            buildCellStart[c + 1] += buildCellStart[c];
+        }
+        buildCellEntries = new int[buildCellStart[numCells]];
+        // Filling the cells in order of the low x coordinate keeps every cell sorted by it.
+        int[] fill = Arrays.copyOf(buildCellStart, numCells);
+        for (int i = 0; i < order.length; i++) {
+            forEachCell(build, order[i], buildCellEntries, fill, order[i]);
+        }
+    }
+
+    private double[] computeBounds(MbrList mbrs, double[] low, double[] high, int cells) {
+        double[] bounds = new double[cells - 1];
+        if (bounds.length == 0) {
+            return bounds;
+        }
+        int n = mbrs.size;
+        if (gridType == SpatialJoinGridType.ADAPTIVE) {
+            double[] centers = new double[n];
+            for (int i = 0; i < n; i++) {
+                centers[i] = (low[i] + high[i]) / 2.0;
+            }
+            Arrays.sort(centers);
+            for (int i = 1; i < cells; i++) {
+                bounds[i - 1] = centers[(int) ((long) i * n / cells)];
+            }
+        } else {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                min = Math.min(min, low[i]);
+                max = Math.max(max, high[i]);
+            }
+            for (int i = 1; i < cells; i++) {
+                bounds[i - 1] = min + (max - min) * i / cells;
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * @return the cell of an axis that holds the value: the number of boundaries that are not larger than it
+     */
+    private static int cellOf(double value, double[] bounds) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Visits the cells that the MBR of an entry overlaps. With a null target the visit counts the entry into
+     * positions[cell + 1]; otherwise it writes the value to target[positions[cell]++].
+     */
+    private void forEachCell(MbrList mbrs, int entry, int[] target, int[] positions, int value) {
+        int xFrom = cellOf(mbrs.xLow[entry], xBounds);
+        int xTo = cellOf(mbrs.xHigh[entry], xBounds);
+        int yFrom = cellOf(mbrs.yLow[entry], yBounds);
+        int yTo = cellOf(mbrs.yHigh[entry], yBounds);
+        int cellsX = xBounds.length + 1;
+        for (int y = yFrom; y <= yTo; y++) {
+            for (int x = xFrom; x <= xTo; x++) {
+                int cell = y * cellsX + x;
+                if (target == null) {
+                    positions[cell + 1]++;
+                } else {
+                    target[positions[cell]++] = value;
+                }
+            }
+        }
+    }
+
+    public void join(ByteBuffer buffer, IFrameWriter writer) throws HyracksDataException {
+        accessorProbe.reset(buffer);
+        probe.clear();
+        probe.addAll(accessorProbe, 0, probeMbrFields, probeValueProviders);
+        if (probeRuns != null) {
+            for (int i = 0; i < probe.size; i++) {
+                spill(probe, i, accessorProbe, probeRuns, "SpatialJoinProbe");
+            }
+            return;
+        }
+        probe(writer);
+    }
+
+    private void probe(IFrameWriter writer) throws HyracksDataException {
+        if (probe.size == 0 || build.size == 0) {
+            return;
+        }
+        // Each (cell, rank) pair packs the cell into the upper and the rank by low x into the lower half, so sorting
+        // the pairs groups them by cell and keeps every group sorted by low x.
+        int[] order = sortedByLowX(probe);
+        int numPairs = 0;
+        long[] pairs = new long[Math.max(16, probe.size * 2)];
+        int cellsX = xBounds.length + 1;
+        for (int rank = 0; rank < order.length; rank++) {
+            int entry = order[rank];
+            int xFrom = cellOf(probe.xLow[entry], xBounds);
+            int xTo = cellOf(probe.xHigh[entry], xBounds);
+            int yFrom = cellOf(probe.yLow[entry], yBounds);
+            int yTo = cellOf(probe.yHigh[entry], yBounds);
+            for (int y = yFrom; y <= yTo; y++) {
+                for (int x = xFrom; x <= xTo; x++) {
+                    if (numPairs == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[numPairs++] = ((long) (y * cellsX + x) << 32) | rank;
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, numPairs);
+        int[] cellEntries = new int[numPairs];
+        int groupStart = 0;
+        while (groupStart < numPairs) {
+            int cell = (int) (pairs[groupStart] >>> 32);
+            int groupEnd = groupStart;
+            while (groupEnd < numPairs && (int) (pairs[groupEnd] >>> 32) == cell) {
+                cellEntries[groupEnd] = order[(int) pairs[groupEnd]];
+                groupEnd++;
+            }
+            sweep(cell, cellEntries, groupStart, groupEnd, buildCellStart[cell], buildCellStart[cell + 1], writer);
+            groupStart = groupEnd;
+        }
+    }
+
+    /**
+     * Reports the intersecting pairs of one cell. Both sides are sorted by their low x coordinate; the side with the
+     * smaller one is taken and matched with the entries of the other side that start before it ends on the x axis.
+     */
+    private void sweep(int cell, int[] probeEntries, int probeFrom, int probeTo, int buildFrom, int buildTo,
+            IFrameWriter writer) throws HyracksDataException {
+        int i = probeFrom;
+        int j = buildFrom;
+        while (i < probeTo && j < buildTo) {
+            int p = probeEntries[i];
+            int b = buildCellEntries[j];
+            if (probe.xLow[p] <= build.xLow[b]) {
+                for (int k = j; k < buildTo && build.xLow[buildCellEntries[k]] <= probe.xHigh[p]; k++) {
+                    report(cell, p, buildCellEntries[k], writer);
+                }
+                i++;
+            } else {
+                for (int k = i; k < probeTo && probe.xLow[probeEntries[k]] <= build.xHigh[b]; k++) {
+                    report(cell, probeEntries[k], b, writer);
+                }
+                j++;
+            }
+        }
+    }
+
+    private void report(int cell, int p, int b, IFrameWriter writer) throws HyracksDataException {
+        if (probe.yLow[p] > build.yHigh[b] || build.yLow[b] > probe.yHigh[p]) {
+            return;
+        }
+        int cellsX = xBounds.length + 1;
+        double refX = Math.max(probe.xLow[p], build.xLow[b]);
+        double refY = Math.max(probe.yLow[p], build.yLow[b]);
+        if (cellOf(refX, xBounds) != cell % cellsX || cellOf(refY, yBounds) != cell / cellsX) {
+            return;
+        }
+        if (partition >= 0) {
+            int partitionsX = xPartitionBounds.length + 1;
+            if (cellOf(refX, xPartitionBounds) != partition % partitionsX
+                    || cellOf(refY, yPartitionBounds) != partition / partitionsX) {
+                return;
+            }
+        }
+        accessorBuild.reset(buildFrames.get(build.frameIndex[b]));
+        FrameUtils.appendConcatToWriter(writer, appender, accessorProbe, probe.tupleIndex[p], accessorBuild,
+                build.tupleIndex[b]);
+    }
+
+    public void closeJoin(IFrameWriter writer) throws HyracksDataException {
+        if (probeRuns != null) {
+            closeRuns(probeRuns);
+            for (int p = 0; p < probeRuns.length; p++) {
+                joinPartition(p, writer);
+            }
+        }
+        appender.flush(writer, true);
+        clearBuild();
+    }
+
+    /**
+     * Joins the run files of a partition. The build run is read in chunks that fit the budget; the probe run is read
+     * once for every chunk.
+     */
+    private void joinPartition(int p, IFrameWriter writer) throws HyracksDataException {
+        RunFileWriter buildRun = buildRuns[p];
+        RunFileWriter probeRun = probeRuns[p];
+        buildRuns[p] = null;
+        probeRuns[p] = null;
+        if (buildRun == null || probeRun == null) {
+            deleteRun(buildRun);
+            deleteRun(probeRun);
+            return;
+        }
+        partition = p;
+        IFrame frame = new VSizeFrame(ctx);
+        RunFileReader buildReader = buildRun.createDeleteOnCloseReader();
+        buildReader.open();
+        try {
+            while (true) {
+                clearBuild();
+                while (buildFrameCount < buildFrameLimit && buildReader.nextFrame(frame)) {
+                    addBuildFrame(frame.getBuffer());
+                }
+                if (buildFrames.isEmpty()) {
+                    break;
+                }
+                buildGrid();
+                RunFileReader probeReader = probeRun.createReader();
+                probeReader.open();
+                try {
+                    while (probeReader.nextFrame(frame)) {
+                        accessorProbe.reset(frame.getBuffer());
+                        probe.clear();
+                        probe.addAll(accessorProbe, 0, probeMbrFields, probeValueProviders);
+                        probe(writer);
+                    }
+                } finally {
+                    probeReader.close();
+                }
+            }
+        } finally {
+            buildReader.close();
+            deleteRun(probeRun);
+            partition = -1;
+        }
+    }
+
+    private static void deleteRun(RunFileWriter run) {
+        if (run != null) {
+            run.getFileReference().delete();
+        }
+    }
+
+    private static int[] sortedByLowX(MbrList mbrs) {
+        int[] order = new int[mbrs.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        sort(order, mbrs.xLow, 0, order.length - 1);
+        return order;
+    }
+
+    private static void sort(int[] order, double[] key, int low, int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            double pivot = key[order[(low + high) >>> 1]];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (key[order[i]] < pivot) {
+                    i++;
+                }
+                while (key[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            // Recurse into the smaller partition to bound the stack depth.
+            if (j - low < high - i) {
+                sort(order, key, low, j);
+                low = i;
+            } else {
+                sort(order, key, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int e = order[i];
+            int j = i - 1;
+            while (j >= low && key[order[j]] > key[e]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = e;
+        }
+    }
+
+    private static class MbrList {
+        private int size;
+        private double[] xLow = new double[64];
+        private double[] yLow = new double[64];
+        private double[] xHigh = new double[64];
+        private double[] yHigh = new double[64];
+        private int[] frameIndex = new int[64];
+        private int[] tupleIndex = new int[64];
+
+        public void clear() {
+            size = 0;
+        }
+
+        public void addAll(FrameTupleAccessor accessor, int frame, int[] mbrFields,
+                IPrimitiveValueProvider[] valueProviders) {
+            byte[] data = accessor.getBuffer().array();
+            int tupleCount = accessor.getTupleCount();
+            if (size + tupleCount > xLow.length) {
+                int capacity = Math.max(xLow.length * 2, size + tupleCount);
+                xLow = Arrays.copyOf(xLow, capacity);
+                yLow = Arrays.copyOf(yLow, capacity);
+                xHigh = Arrays.copyOf(xHigh, capacity);
+                yHigh = Arrays.copyOf(yHigh, capacity);
+                frameIndex = Arrays.copyOf(frameIndex, capacity);
+                tupleIndex = Arrays.copyOf(tupleIndex, capacity);
+            }
+            for (int t = 0; t < tupleCount; t++) {
+                xLow[size] = valueProviders[0].getValue(data, accessor.getAbsoluteFieldStartOffset(t, mbrFields[0]));
+                yLow[size] = valueProviders[1].getValue(data, accessor.getAbsoluteFieldStartOffset(t, mbrFields[1]));
+                xHigh[size] = valueProviders[2].getValue(data, accessor.getAbsoluteFieldStartOffset(t, mbrFields[2]));
+                yHigh[size] = valueProviders[3].getValue(data, accessor.getAbsoluteFieldStartOffset(t, mbrFields[3]));
+                frameIndex[size] = frame;
+                tupleIndex[size] = t;
+                size++;
+            }
+        }
+    }
+}
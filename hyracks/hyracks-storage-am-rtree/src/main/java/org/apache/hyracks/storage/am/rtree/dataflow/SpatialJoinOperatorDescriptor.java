@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree.dataflow;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.IActivityGraphBuilder;
+import org.apache.hyracks.api.dataflow.IOperatorNodePushable;
+import org.apache.hyracks.api.dataflow.TaskId;
+import org.apache.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.job.IOperatorDescriptorRegistry;
+import org.apache.hyracks.api.job.JobId;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.std.base.AbstractActivityNode;
+import org.apache.hyracks.dataflow.std.base.AbstractOperatorDescriptor;
+import org.apache.hyracks.dataflow.std.base.AbstractStateObject;
+import org.apache.hyracks.dataflow.std.base.AbstractUnaryInputSinkOperatorNodePushable;
+import org.apache.hyracks.dataflow.std.base.AbstractUnaryInputUnaryOutputOperatorNodePushable;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProvider;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProviderFactory;
+
+/**
+ * Joins the tuples of input 0 (probe) with the tuples of input 1 (build) whose two-dimensional MBRs intersect. The
+ * build input is partitioned into a grid in memory, and spilled to run files when it does not fit into the frame
+ * budget; see {@link SpatialJoin}. The output tuples are the probe fields followed by the build fields.
+ * When the build side is an RTree, an {@link RTreeSearchOperatorDescriptor} that retains its input and takes the
+ * probe MBR fields as its search key joins each probe tuple through the index instead.
+ */
+public class SpatialJoinOperatorDescriptor extends AbstractOperatorDescriptor {
+    private static final int JOIN_CACHE_ACTIVITY_ID = 0;
+    private static final int SPATIAL_JOIN_ACTIVITY_ID = 1;
+
+    private static final long serialVersionUID = 1L;
+    private final int[] probeMbrFields;
+    private final int[] buildMbrFields;
+    private final IPrimitiveValueProviderFactory[] probeValueProviderFactories;
+    private final IPrimitiveValueProviderFactory[] buildValueProviderFactories;
+    private final SpatialJoinGridType gridType;
+    private final int tuplesPerCell;
+    private final int memSizeInFrames;
+
+    /**
+     * @param probeMbrFields
+     *            - the low x, low y, high x and high y fields of input 0
+     * @param buildMbrFields
+     *            - the low x, low y, high x and high y fields of input 1
+     * @param gridType
+     *            - how the boundaries of the grid are placed
+     * @param tuplesPerCell
+     *            - the number of build tuples the grid aims to put into one cell
+     * @param memSizeInFrames
+     *            - the number of frames the join may use, at least 3
+     */
+    public SpatialJoinOperatorDescriptor(IOperatorDescriptorRegistry spec, RecordDescriptor recordDescriptor,
+            int[] probeMbrFields, int[] buildMbrFields, IPrimitiveValueProviderFactory[] probeValueProviderFactories,
+            IPrimitiveValueProviderFactory[] buildValueProviderFactories, SpatialJoinGridType gridType,
+            int tuplesPerCell, int memSizeInFrames) {
+        super(spec, 2, 1);
+        this.recordDescriptors[0] = recordDescriptor;
+        this.probeMbrFields = probeMbrFields;
+        this.buildMbrFields = buildMbrFields;
+        this.probeValueProviderFactories = probeValueProviderFactories;
+        this.buildValueProviderFactories = buildValueProviderFactories;
+        this.gridType = gridType;
+        this.tuplesPerCell = tuplesPerCell;
+        this.memSizeInFrames = memSizeInFrames;
+    }
+
+    @Override
+    public void contributeActivities(IActivityGraphBuilder builder) {
+        ActivityId jcaId = new ActivityId(getOperatorId(), JOIN_CACHE_ACTIVITY_ID);
+        ActivityId sjAid = new ActivityId(getOperatorId(), SPATIAL_JOIN_ACTIVITY_ID);
+        JoinCacheActivityNode jc = new JoinCacheActivityNode(jcaId, sjAid);
+        SpatialJoinActivityNode sj = new SpatialJoinActivityNode(sjAid);
+
+        builder.addActivity(this, jc);
+        builder.addSourceEdge(1, jc, 0);
+
+        builder.addActivity(this, sj);
+        builder.addSourceEdge(0, sj, 0);
+
+        builder.addTargetEdge(0, sj, 0);
+        builder.addBlockingEdge(jc, sj);
+    }
+
+    private static IPrimitiveValueProvider[] createValueProviders(IPrimitiveValueProviderFactory[] factories) {
+        IPrimitiveValueProvider[] valueProviders = new IPrimitiveValueProvider[factories.length];
+        for (int i = 0; i < factories.length; i++) {
+            valueProviders[i] = factories[i].createPrimitiveValueProvider();
+        }
+        return valueProviders;
+    }
+
+    public static class JoinCacheTaskState extends AbstractStateObject {
+        private SpatialJoin joiner;
+
+        public JoinCacheTaskState() {
+        }
+
+        private JoinCacheTaskState(JobId jobId, TaskId taskId) {
+            super(jobId, taskId);
+        }
+
+        @Override
+        public void toBytes(DataOutput out) throws IOException {
+
+        }
+
+        @Override
+        public void fromBytes(DataInput in) throws IOException {
+
+        }
+    }
+
+    private class JoinCacheActivityNode extends AbstractActivityNode {
+        private static final long serialVersionUID = 1L;
+
+        private final ActivityId sjAid;
+
+        public JoinCacheActivityNode(ActivityId id, ActivityId sjAid) {
+            super(id);
+            this.sjAid = sjAid;
+        }
+
+        @Override
+        public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
+                IRecordDescriptorProvider recordDescProvider, final int partition, int nPartitions) {
+            final RecordDescriptor rd0 = recordDescProvider.getInputRecordDescriptor(sjAid, 0);
+            final RecordDescriptor rd1 = recordDescProvider.getInputRecordDescriptor(getActivityId(), 0);
+
+            IOperatorNodePushable op = new AbstractUnaryInputSinkOperatorNodePushable() {
+                private JoinCacheTaskState state;
+
+                @Override
+                public void open() throws HyracksDataException {
+                    state = new JoinCacheTaskState(ctx.getJobletContext().getJobId(), new TaskId(getActivityId(),
+                            partition));
+                    state.joiner = new SpatialJoin(ctx, new FrameTupleAccessor(rd0), new FrameTupleAccessor(rd1),
+                            probeMbrFields, buildMbrFields, createValueProviders(probeValueProviderFactories),
+                            createValueProviders(buildValueProviderFactories), gridType, tuplesPerCell,
+                            memSizeInFrames);
+                }
+
+                @Override
+                public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+                    state.joiner.cache(buffer);
+                }
+
+                @Override
+                public void close() throws HyracksDataException {
+                    state.joiner.closeCache();
+                    ctx.setStateObject(state);
+                }
+
+                @Override
+                public void fail() throws HyracksDataException {
+                }
+            };
+            return op;
+        }
+    }
+
+    private class SpatialJoinActivityNode extends AbstractActivityNode {
+        private static final long serialVersionUID = 1L;
+
+        public SpatialJoinActivityNode(ActivityId id) {
+            super(id);
+        }
+
+        @Override
+        public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
+                IRecordDescriptorProvider recordDescProvider, final int partition, int nPartitions) {
+
+            IOperatorNodePushable op = new AbstractUnaryInputUnaryOutputOperatorNodePushable() {
+                private JoinCacheTaskState state;
+
+                @Override
+                public void open() throws HyracksDataException {
+                    state = (JoinCacheTaskState) ctx.getStateObject(new TaskId(new ActivityId(getOperatorId(),
+                            JOIN_CACHE_ACTIVITY_ID), partition));
+                    writer.open();
+                }
+
+                @Override
+                public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+                    state.joiner.join(buffer, writer);
+                }
+
+                @Override
+                public void close() throws HyracksDataException {
+                    state.joiner.closeJoin(writer);
+                    writer.close();
+                }
+
+                @Override
+                public void fail() throws HyracksDataException {
+                    writer.fail();
+                }
+            };
+            return op;
+        }
+    }
+}
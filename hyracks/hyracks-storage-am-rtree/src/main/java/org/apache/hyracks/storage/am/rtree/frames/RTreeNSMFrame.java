@@ -115,6 +115,10 @@ public abstract class RTreeNSMFrame extends TreeIndexNSMFrame implements IRTreeF
         return tuples;
     }
 
+    public IPrimitiveValueProvider[] getKeyValueProviders() {
+        return keyValueProviders;
+    }
+
     @Override
     public void split(ITreeIndexFrame rightFrame, ITupleReference tuple, ISplitKey splitKey)
             throws HyracksDataException {
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree.impls;
+
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+
+/**
+ * Asks for the k entries closest to a query point. The query point has one field per dimension, of the same types as
+ * the key fields of the RTree. Distances are Euclidean, and are measured from the point to the MBR of an entry.
+ */
+public class NearestNeighborSearchPredicate extends SearchPredicate {
+
+    private static final long serialVersionUID = 1L;
+
+    protected ITupleReference queryPoint;
+    protected int k;
+
+    public NearestNeighborSearchPredicate(ITupleReference queryPoint, int k, MultiComparator cmp) {
+        super(null, cmp);
+        this.queryPoint = queryPoint;
+        this.k = k;
+    }
+
+    public NearestNeighborSearchPredicate(ITupleReference queryPoint, int k, MultiComparator cmp,
+            ITupleReference minFilterTuple, ITupleReference maxFilterTuple) {
+        super(null, cmp, minFilterTuple, maxFilterTuple);
+        this.queryPoint = queryPoint;
+        this.k = k;
+    }
+
+    public ITupleReference getQueryPoint() {
+        return queryPoint;
+    }
+
+    public void setQueryPoint(ITupleReference queryPoint) {
+        this.queryPoint = queryPoint;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public void setK(int k) {
+        this.k = k;
+    }
+}
@@ -49,6 +49,7 @@ import org.apache.hyracks.storage.am.common.impls.TreeIndexDiskOrderScanCursor;
 import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.util.TreeIndexUtils;
+import org.apache.hyracks.storage.am.rtree.api.INearestNeighborSearchAccessor;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeFrame;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeInteriorFrame;
 import org.apache.hyracks.storage.am.rtree.api.IRTreeLeafFrame;
@@ -67,6 +68,8 @@ public class RTree extends AbstractTreeIndex {
 
     private final int maxTupleSize;
 
+    private RTreePackingType packingType = RTreePackingType.NONE;
+
     public RTree(IBufferCache bufferCache, IFileMapProvider fileMapProvider, IFreePageManager freePageManager,
             ITreeIndexFrameFactory interiorFrameFactory, ITreeIndexFrameFactory leafFrameFactory,
             IBinaryComparatorFactory[] cmpFactories, int fieldCount, FileReference file) {
@@ -79,6 +82,17 @@ public class RTree extends AbstractTreeIndex {
                 interiorFrame.getMaxTupleSize(bufferCache.getPageSize()));
     }
 
+    /**
+     * Sets how bulk loads that do not ask for a packing themselves order their input into the leaves.
+     */
+    public void setPackingType(RTreePackingType packingType) {
+        this.packingType = packingType;
+    }
+
+    public RTreePackingType getPackingType() {
+        return packingType;
+    }
+
     private long incrementGlobalNsn() {
         return globalNsn.incrementAndGet();
     }
@@ -800,7 +814,7 @@ public class RTree extends AbstractTreeIndex {
         return new RTreeAccessor(this, modificationCallback, searchCallback);
     }
 
-    public class RTreeAccessor implements ITreeIndexAccessor {
+    public class RTreeAccessor implements ITreeIndexAccessor, INearestNeighborSearchAccessor {
         private RTree rtree;
         private RTreeOpContext ctx;
 
@@ -834,6 +848,12 @@ public class RTree extends AbstractTreeIndex {
                     (IRTreeLeafFrame) leafFrameFactory.createFrame());
         }
 
+        @Override
+        public ITreeIndexCursor createNearestNeighborSearchCursor() {
+            return new RTreeNearestNeighborSearchCursor((IRTreeInteriorFrame) interiorFrameFactory.createFrame(),
+                    (IRTreeLeafFrame) leafFrameFactory.createFrame());
+        }
+
         @Override
         public void search(IIndexCursor cursor, ISearchPredicate searchPred) throws HyracksDataException,
                 IndexException {
@@ -866,9 +886,26 @@ public class RTree extends AbstractTreeIndex {
     @Override
     public IIndexBulkLoader createBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint,
             boolean checkIfEmptyIndex) throws TreeIndexException {
+        return createBulkLoader(fillFactor, verifyInput, numElementsHint, checkIfEmptyIndex, packingType);
+    }
+
+    /**
+     * @param packingType
+     *            - the order in which the input is packed into the leaves; NONE keeps the input order
+     */
+    public IIndexBulkLoader createBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint,
+            boolean checkIfEmptyIndex, RTreePackingType packingType) throws TreeIndexException {
         // TODO: verifyInput currently does nothing.
+        if (packingType == RTreePackingType.HILBERT && cmpFactories.length != 4) {
+            throw new TreeIndexException("Hilbert packing supports two dimensions only");
+        }
         try {
-            return new RTreeBulkLoader(fillFactor);
+            RTreeBulkLoader bulkLoader = new RTreeBulkLoader(fillFactor);
+            if (packingType == RTreePackingType.NONE) {
+                return bulkLoader;
+            }
+            return new RTreePackingBulkLoader(bulkLoader, (RTreeNSMFrame) leafFrameFactory.createFrame(),
+                    packingType, fillFactor, bufferCache.getPageSize(), RTreePackingBulkLoader.DEFAULT_BUFFER_BYTES);
         } catch (HyracksDataException e) {
             throw new TreeIndexException(e);
         }
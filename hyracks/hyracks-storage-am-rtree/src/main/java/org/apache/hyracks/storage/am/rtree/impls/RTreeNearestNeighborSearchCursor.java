@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree.impls;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProvider;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.rtree.api.IRTreeInteriorFrame;
+import org.apache.hyracks.storage.am.rtree.api.IRTreeLeafFrame;
+import org.apache.hyracks.storage.am.rtree.frames.RTreeNSMFrame;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Returns the entries of an RTree in increasing distance from the query point of a NearestNeighborSearchPredicate,
+ * and stops after k of them. Nodes and leaf entries share one priority queue ordered by their minimum distance to the
+ * point, so only the nodes whose MBR is closer than the k-th result are ever read. A node is latched only while its
+ * entries are added to the queue; leaf entries are copied, so a result stays valid until the next call to hasNext().
+ */
+public class RTreeNearestNeighborSearchCursor implements ITreeIndexCursor {
+
+    private int fileId = -1;
+    private IBufferCache bufferCache = null;
+    private final IRTreeInteriorFrame interiorFrame;
+    private final IRTreeLeafFrame leafFrame;
+    private final IPrimitiveValueProvider[] keyValueProviders;
+    private final ITreeIndexTupleReference interiorTuple;
+    private final ITreeIndexTupleReference leafTuple;
+    private final ITreeIndexTupleReference frameTuple;
+
+    private final PriorityQueue<QueueElement> queue = new PriorityQueue<QueueElement>(64, new ElementComparator());
+    private final double[] point;
+    private int rootPage;
+    private int k;
+    private int returned;
+    private double distance;
+    private boolean foundNext;
+
+    public RTreeNearestNeighborSearchCursor(IRTreeInteriorFrame interiorFrame, IRTreeLeafFrame leafFrame) {
+        this.interiorFrame = interiorFrame;
+        this.leafFrame = leafFrame;
+        this.keyValueProviders = ((RTreeNSMFrame) leafFrame).getKeyValueProviders();
+        this.interiorTuple = interiorFrame.createTupleReference();
+        this.leafTuple = leafFrame.createTupleReference();
+        this.frameTuple = leafFrame.createTupleReference();
+        this.point = new double[keyValueProviders.length / 2];
+    }
+
+    @Override
+    public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws HyracksDataException {
+        NearestNeighborSearchPredicate pred = (NearestNeighborSearchPredicate) searchPred;
+        ITupleReference queryPoint = pred.getQueryPoint();
+        if (queryPoint.getFieldCount() < point.length) {
+            throw new IllegalArgumentException("The query point has " + queryPoint.getFieldCount()
+                    + " fields, but the RTree has " + point.length + " dimensions.");
+        }
+        for (int i = 0; i < point.length; i++) {
+            point[i] = keyValueProviders[i].getValue(queryPoint.getFieldData(i), queryPoint.getFieldStart(i));
+        }
+        k = pred.getK();
+        rootPage = ((RTreeCursorInitialState) initialState).getRootPage();
+        returned = 0;
+        foundNext = false;
+        queue.clear();
+        queue.add(new QueueElement(0.0, rootPage, -1, null));
+    }
+
+    @Override
+    public boolean hasNext() throws HyracksDataException {
+        if (foundNext) {
+            return true;
+        }
+        if (returned >= k) {
+            return false;
+        }
+        while (!queue.isEmpty()) {
+            QueueElement e = queue.poll();
+            if (e.tuple != null) {
+                frameTuple.resetByTupleOffset(ByteBuffer.wrap(e.tuple), 0);
+                distance = Math.sqrt(e.distance);
+                foundNext = true;
+                return true;
+            }
+            expand(e);
+        }
+        return false;
+    }
+
+    private void expand(QueueElement e) throws HyracksDataException {
+        ICachedPage node = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, e.pageId), false);
+        node.acquireReadLatch();
+        try {
+            interiorFrame.setPage(node);
+            if (e.pageId != rootPage && e.parentLsn < interiorFrame.getPageNsn()) {
+                // Concurrent split detected. The right page holds part of what this node held, so the distance of
+                // this node is a lower bound for it.
+                int rightPage = interiorFrame.getRightPage();
+                if (rightPage != -1) {
+                    queue.add(new QueueElement(e.distance, rightPage, e.parentLsn, null));
+                }
+            }
+            if (!interiorFrame.isLeaf()) {
+                long pageLsn = interiorFrame.getPageLsn();
+                for (int i = 0; i < interiorFrame.getTupleCount(); i++) {
+                    interiorTuple.resetByTupleIndex(interiorFrame, i);
+                    queue.add(new QueueElement(minDistance(interiorTuple), interiorFrame.getChildPageId(i), pageLsn,
+                            null));
+                }
+            } else {
+                leafFrame.setPage(node);
+                byte[] pageData = node.getBuffer().array();
+                for (int i = 0; i < leafFrame.getTupleCount(); i++) {
+                    leafTuple.resetByTupleIndex(leafFrame, i);
+                    int tupleSize = ((RTreeNSMFrame) leafFrame).getTupleSize(leafTuple);
+                    byte[] tuple = new byte[tupleSize];
+                    System.arraycopy(pageData, leafFrame.getTupleOffset(i), tuple, 0, tupleSize);
+                    queue.add(new QueueElement(minDistance(leafTuple), -1, -1, tuple));
+                }
+            }
+        } finally {
+            node.releaseReadLatch();
+            bufferCache.unpin(node);
+        }
+    }
+
+    /**
+     * @return the squared distance from the query point to the MBR in the key fields of the tuple
+     */
+    private double minDistance(ITupleReference tuple) {
+        double sum = 0.0;
+        for (int i = 0; i < point.length; i++) {
+            int j = i + point.length;
+            double low = keyValueProviders[i].getValue(tuple.getFieldData(i), tuple.getFieldStart(i));
+            double high = keyValueProviders[j].getValue(tuple.getFieldData(j), tuple.getFieldStart(j));
+            double diff = 0.0;
+            if (point[i] < low) {
+                diff = low - point[i];
+            } else if (point[i] > high) {
+                diff = point[i] - high;
+            }
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public void next() throws HyracksDataException {
+        foundNext = false;
+        returned++;
+    }
+
+    /**
+     * @return the distance from the query point to the MBR of the current tuple
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public ITupleReference getTuple() {
+        return frameTuple;
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        queue.clear();
+        foundNext = false;
+    }
+
+    @Override
+    public void reset() throws HyracksDataException {
+        close();
+    }
+
+    @Override
+    public ICachedPage getPage() {
+        return null;
+    }
+
+    @Override
+    public void setBufferCache(IBufferCache bufferCache) {
+        this.bufferCache = bufferCache;
+    }
+
+    @Override
+    public void setFileId(int fileId) {
+        this.fileId = fileId;
+    }
+
+    @Override
+    public boolean exclusiveLatchNodes() {
+        return false;
+    }
+
+    @Override
+    public void markCurrentTupleAsUpdated() throws HyracksDataException {
+        throw new HyracksDataException("Updating tuples is not supported with this cursor.");
+    }
+
+    private static class QueueElement {
+        private final double distance;
+        private final int pageId;
+        private final long parentLsn;
+        // The copied leaf tuple, or null for a node.
+        private final byte[] tuple;
+
+        public QueueElement(double distance, int pageId, long parentLsn, byte[] tuple) {
+            this.distance = distance;
+            this.pageId = pageId;
+            this.parentLsn = parentLsn;
+            this.tuple = tuple;
+        }
+    }
+
+    private static class ElementComparator implements Comparator<QueueElement> {
+        @Override
+        public int compare(QueueElement a, QueueElement b) {
+            int c = Double.compare(a.distance, b.distance);
+            if (c != 0) {
+                return c;
+            }
+            // At equal distance, entries come out before the nodes that still have to be read.
+            if (a.tuple != null) {
+                return b.tuple != null ? 0 : -1;
+            }
+            return b.tuple != null ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.storage.am.rtree.impls;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProvider;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleWriter;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.rtree.frames.RTreeNSMFrame;
+
+/**
+ * Packs the leaves of an RTree that is bulk loaded bottom-up. The tuples are buffered in the leaf format of the tree
+ * and, whenever the buffer is full and at the end, reordered by the centers of their MBRs before they are handed to
+ * the underlying bulk loader, which fills one leaf after the other and builds the interior levels from the leaf MBRs.
+ * With STR, the buffered entries are sorted on the first dimension and cut into slices of whole leaves, each slice is
+ * tiled on the next dimension and so on, so that every leaf covers a compact, nearly disjoint tile. With HILBERT, the
+ * entries are sorted by the Hilbert value of their centers on a grid spanning the buffered entries.
+ * The buffer bounds the memory used by a bulk load; inputs that are larger are packed one buffer at a time, which
+ * still yields tight leaves when the input arrives in a spatial order, as it does during flushes and merges.
+ */
+public class RTreePackingBulkLoader implements IIndexBulkLoader {
+    public static final int DEFAULT_BUFFER_BYTES = 32 * 1024 * 1024;
+
+    private static final int HILBERT_ORDER = 16;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final IIndexBulkLoader bulkLoader;
+    private final RTreePackingType packingType;
+    private final ITreeIndexTupleWriter tupleWriter;
+    private final ITreeIndexTupleReference bufferedTuple;
+    private final IPrimitiveValueProvider[] keyValueProviders;
+    private final int numDims;
+    private final int slotSize;
+    private final int leafPayloadBytes;
+    private final int bufferBytes;
+
+    private byte[] data = new byte[64 * 1024];
+    private int dataLength;
+    private int[] tupleOffsets = new int[1024];
+    private double[] centers;
+    private int numTuples;
+    private int[] order;
+
+    public RTreePackingBulkLoader(IIndexBulkLoader bulkLoader, RTreeNSMFrame leafFrame, RTreePackingType packingType,
+            float fillFactor, int pageSize, int bufferBytes) {
+        this.bulkLoader = bulkLoader;
+        this.packingType = packingType;
+        this.tupleWriter = leafFrame.getTupleWriter();
+        this.bufferedTuple = tupleWriter.createTupleReference();
+        this.keyValueProviders = leafFrame.getKeyValueProviders();
+        this.numDims = keyValueProviders.length / 2;
+        if (packingType == RTreePackingType.HILBERT && numDims != 2) {
+            throw new IllegalArgumentException("Hilbert packing supports two dimensions only, not " + numDims);
+        }
+        this.slotSize = leafFrame.getSlotSize();
+        this.leafPayloadBytes = (int) ((float) pageSize * fillFactor) - leafFrame.getPageHeaderSize();
+        this.bufferBytes = bufferBytes;
+        this.centers = new double[1024 * numDims];
+    }
+
+    @Override
+    public void add(ITupleReference tuple) throws IndexException, HyracksDataException {
+        int tupleSize = tupleWriter.bytesRequired(tuple);
+        if (numTuples > 0 && dataLength + tupleSize > bufferBytes) {
+            packAndLoad();
+        }
+        ensureCapacity(tupleSize);
+        tupleOffsets[numTuples] = dataLength;
+        dataLength += tupleWriter.writeTuple(tuple, data, dataLength);
+        int centerOff = numTuples * numDims;
+        for (int i = 0; i < numDims; i++) {
+            double low = keyValueProviders[i].getValue(tuple.getFieldData(i), tuple.getFieldStart(i));
+            double high = keyValueProviders[i + numDims].getValue(tuple.getFieldData(i + numDims),
+                    tuple.getFieldStart(i + numDims));
+            centers[centerOff + i] = (low + high) / 2.0;
+        }
+        numTuples++;
+    }
+
+    @Override
+    public void end() throws IndexException, HyracksDataException {
+        packAndLoad();
+        bulkLoader.end();
+    }
+
+    private void ensureCapacity(int tupleSize) {
+        if (dataLength + tupleSize > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + tupleSize));
+        }
+        if (numTuples == tupleOffsets.length) {
+            tupleOffsets = Arrays.copyOf(tupleOffsets, numTuples * 2);
+            centers = Arrays.copyOf(centers, numTuples * 2 * numDims);
+        }
+    }
+
+    private void packAndLoad() throws IndexException, HyracksDataException {
+        if (numTuples == 0) {
+            return;
+        }
+        if (order == null || order.length < numTuples) {
+            order = new int[tupleOffsets.length];
+        }
+        for (int i = 0; i < numTuples; i++) {
+            order[i] = i;
+        }
+        if (packingType == RTreePackingType.STR) {
+            int avgEntryBytes = dataLength / numTuples + slotSize;
+            tile(0, numTuples, 0, Math.max(1, leafPayloadBytes / avgEntryBytes));
+        } else if (packingType == RTreePackingType.HILBERT) {
+            sortByHilbertValue();
+        }
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        for (int i = 0; i < numTuples; i++) {
+            bufferedTuple.resetByTupleOffset(buf, tupleOffsets[order[i]]);
+            bulkLoader.add(bufferedTuple);
+        }
+        numTuples = 0;
+        dataLength = 0;
+    }
+
+    /**
+     * Sorts order[from, to) on the given dimension and, unless it is the last one, cuts the range into
+     * ceil(P^(1/k)) slices of whole leaves, where P is the number of leaves of the range and k the number of
+     * dimensions left, and tiles every slice on the next dimension.
+     */
+    private void tile(int from, int to, int dim, int leafCapacity) {
+        sortByCenter(from, to - 1, dim);
+        if (dim == numDims - 1) {
+            return;
+        }
+        int numLeaves = (to - from + leafCapacity - 1) / leafCapacity;
+        int numSlices = (int) Math.ceil(Math.pow(numLeaves, 1.0 / (numDims - dim)));
+        int sliceSize = ((numLeaves + numSlices - 1) / numSlices) * leafCapacity;
+        for (int sliceStart = from; sliceStart < to; sliceStart += sliceSize) {
+            tile(sliceStart, Math.min(sliceStart + sliceSize, to), dim + 1, leafCapacity);
+        }
+    }
+
+    private void sortByCenter(int low, int high, int dim) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            double pivot = medianOfThree(center(low, dim), center(mid, dim), center(high, dim));
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (center(i, dim) < pivot) {
+                    i++;
+                }
+                while (center(j, dim) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // Recurse into the smaller partition to bound the stack depth.
+            if (j - low < high - i) {
+                sortByCenter(low, j, dim);
+                low = i;
+            } else {
+                sortByCenter(i, high, dim);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int entry = order[i];
+            double value = centers[entry * numDims + dim];
+            int j = i - 1;
+            while (j >= low && center(j, dim) > value) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = entry;
+        }
+    }
+
+    private double center(int orderIx, int dim) {
+        return centers[order[orderIx] * numDims + dim];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        if (a < b) {
+            return b < c ? b : (a < c ? c : a);
+        }
+        return a < c ? a : (b < c ? c : b);
+    }
+
+    private void swap(int i, int j) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+
+    private void sortByHilbertValue() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < numTuples; i++) {
+            minX = Math.min(minX, centers[i * 2]);
+            maxX = Math.max(maxX, centers[i * 2]);
+            minY = Math.min(minY, centers[i * 2 + 1]);
+            maxY = Math.max(maxY, centers[i * 2 + 1]);
+        }
+        int gridMax = (1 << HILBERT_ORDER) - 1;
+        double scaleX = maxX > minX ? gridMax / (maxX - minX) : 0.0;
+        double scaleY = maxY > minY ? gridMax / (maxY - minY) : 0.0;
+        // The Hilbert value takes the upper 32 bits and the entry the lower 31 bits of each sort key.
+        long[] keys = new long[numTuples];
+        for (int i = 0; i < numTuples; i++) {
+            int x = (int) ((centers[i * 2] - minX) * scaleX);
+            int y = (int) ((centers[i * 2 + 1] - minY) * scaleY);
+            keys[i] = (hilbertValue(x, y) << 31) | i;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < numTuples; i++) {
+            order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Returns the distance of the cell (x, y) along the Hilbert curve that fills the 2^HILBERT_ORDER grid.
+     */
+    static long hilbertValue(int x, int y) {
+        int n = 1 << HILBERT_ORDER;
+        long d = 0;
+        for (int s = n >>> 1; s > 0; s >>>= 1) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant so that the curve in it starts and ends where the curve of the parent expects.
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+}
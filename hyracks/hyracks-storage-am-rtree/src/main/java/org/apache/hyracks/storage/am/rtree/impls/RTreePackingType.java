@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.storage.am.rtree.impls;
+
+/**
+ * The order in which a bulk load places its input into the leaves of an RTree.
+ * NONE keeps the input order, STR tiles the centers of the MBRs slice by slice (Sort-Tile-Recursive) and HILBERT
+ * orders them along a two-dimensional Hilbert curve.
+ * STR and HILBERT reorder the input, so indexes that read their leaves back in input order, like the LSM RTree with
+ * antimatter tuples, only support NONE.
+ */
+public enum RTreePackingType {
+    NONE, STR, HILBERT
+}
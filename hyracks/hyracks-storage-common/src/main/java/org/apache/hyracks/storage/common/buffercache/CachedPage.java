@@ -21,8 +21,8 @@ package org.apache.hyracks.storage.common.buffercache;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * @author yingyib
@@ -32,7 +32,10 @@ class CachedPage implements ICachedPageInternal {
     final ByteBuffer buffer;
     final AtomicInteger pinCount;
     final AtomicBoolean dirty;
-    final ReadWriteLock latch;
+    final ReentrantReadWriteLock latch;
+    // Versions the page for optimistic readers; writers hold it while they hold the write latch.
+    private final StampedLock versionLock;
+    private long writeStamp;
     private final Object replacementStrategyObject;
     private final IPageReplacementStrategy pageReplacementStrategy;
     volatile long dpid;
@@ -47,6 +50,7 @@ class CachedPage implements ICachedPageInternal {
         pinCount = new AtomicInteger();
         dirty = new AtomicBoolean();
         latch = new ReentrantReadWriteLock(true);
+        versionLock = new StampedLock();
         replacementStrategyObject = pageReplacementStrategy.createPerPageStrategyObject(cpid);
         dpid = -1;
         valid = false;
@@ -95,6 +99,9 @@ class CachedPage implements ICachedPageInternal {
     @Override
     public void acquireWriteLatch() {
         latch.writeLock().lock();
+        if (latch.getWriteHoldCount() == 1) {
+            writeStamp = versionLock.writeLock();
+        }
     }
 
     @Override
@@ -109,6 +116,19 @@ class CachedPage implements ICachedPageInternal {
                 pinCount.incrementAndGet();
             }
         }
+        if (latch.getWriteHoldCount() == 1) {
+            versionLock.unlockWrite(writeStamp);
+        }
         latch.writeLock().unlock();
     }
+
+    @Override
+    public long getOptimisticReadVersion() {
+        return versionLock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validateOptimisticRead(long version) {
+        return versionLock.validate(version);
+    }
 }
@@ -30,4 +30,19 @@ public interface ICachedPage {
     public void acquireWriteLatch();
 
     public void releaseWriteLatch(boolean markDirty);
+
+    /**
+     * Starts a read of the page that takes no latch. The read must be checked with
+     * {@link #validateOptimisticRead(long)} before anything it returned is used.
+     *
+     * @return the version of the page, or 0 if a writer holds the write latch
+     */
+    public long getOptimisticReadVersion();
+
+    /**
+     * @param version
+     *            - a version returned by {@link #getOptimisticReadVersion()}
+     * @return whether no writer has latched the page since the version was taken
+     */
+    public boolean validateOptimisticRead(long version);
 }
\ No newline at end of file
@@ -20,7 +20,10 @@ package org.apache.hyracks.storage.am.rtree;
 
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Random;
@@ -40,6 +43,8 @@ import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
 import org.apache.hyracks.storage.am.common.api.TreeIndexException;
 import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.common.util.HashMultiSet;
+import org.apache.hyracks.storage.am.rtree.api.INearestNeighborSearchAccessor;
+import org.apache.hyracks.storage.am.rtree.impls.NearestNeighborSearchPredicate;
 import org.apache.hyracks.storage.am.rtree.impls.SearchPredicate;
 import org.apache.hyracks.storage.am.rtree.util.RTreeUtils;
 
@@ -86,6 +91,76 @@ public class RTreeTestUtils extends TreeIndexTestUtils {
         checkExpectedResults(searchCursor, expectedResult, ctx.getFieldSerdes(), ctx.getKeyFieldCount(), null);
     }
 
+    /**
+     * Runs a k-nearest-neighbour search from the given point and checks it against the distances of all expected
+     * tuples. Among tuples at the same distance any may be returned, so only the distances are compared in order.
+     */
+    public void checkNearestNeighborSearch(IIndexTestContext ictx, ITupleReference queryPoint, int k)
+            throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Testing Nearest Neighbor Search.");
+        }
+        AbstractRTreeTestContext ctx = (AbstractRTreeTestContext) ictx;
+        int numDims = ctx.getKeyFieldCount() / 2;
+        double[] point = new double[numDims];
+        for (int i = 0; i < numDims; i++) {
+            point[i] = ((Number) ctx.getFieldSerdes()[i].deserialize(new DataInputStream(new ByteArrayInputStream(
+                    queryPoint.getFieldData(i), queryPoint.getFieldStart(i), queryPoint.getFieldLength(i)))))
+                    .doubleValue();
+        }
+
+        double[] expectedDistances = new double[ctx.getCheckTuples().size()];
+        int j = 0;
+        for (RTreeCheckTuple t : ctx.getCheckTuples()) {
+            expectedDistances[j++] = getDistance(t, point);
+        }
+        Arrays.sort(expectedDistances);
+        int expectedCount = Math.min(k, expectedDistances.length);
+
+        ITreeIndexCursor searchCursor = ((INearestNeighborSearchAccessor) ctx.getIndexAccessor())
+                .createNearestNeighborSearchCursor();
+        NearestNeighborSearchPredicate searchPred = new NearestNeighborSearchPredicate(queryPoint, k,
+                MultiComparator.create(ctx.getComparatorFactories()));
+        ctx.getIndexAccessor().search(searchCursor, searchPred);
+        int actualCount = 0;
+        try {
+            while (searchCursor.hasNext()) {
+                searchCursor.next();
+                RTreeCheckTuple checkTuple = (RTreeCheckTuple) createCheckTupleFromTuple(searchCursor.getTuple(),
+                        ctx.getFieldSerdes(), ctx.getKeyFieldCount());
+                if (!ctx.getCheckTuples().contains(checkTuple)) {
+                    fail("Nearest neighbor search returned unexpected answer: " + checkTuple.toString());
+                }
+                if (actualCount >= expectedCount) {
+                    fail("Nearest neighbor search returned more answers than expected.\nExpected: " + expectedCount);
+                }
+                double distance = getDistance(checkTuple, point);
+                if (Math.abs(distance - expectedDistances[actualCount]) > 1e-9) {
+                    fail("Nearest neighbor search returned answer " + actualCount + " at distance " + distance
+                            + " instead of " + expectedDistances[actualCount]);
+                }
+                actualCount++;
+            }
+            if (actualCount < expectedCount) {
+                fail("Nearest neighbor search returned fewer answers than expected.\nExpected: " + expectedCount
+                        + "\nActual  : " + actualCount);
+            }
+        } finally {
+            searchCursor.close();
+        }
+    }
+
+    private double getDistance(RTreeCheckTuple checkTuple, double[] point) {
+        double sum = 0.0;
+        for (int i = 0; i < point.length; i++) {
+            double low = ((Number) checkTuple.getField(i)).doubleValue();
+            double high = ((Number) checkTuple.getField(i + point.length)).doubleValue();
+            double diff = point[i] < low ? low - point[i] : (point[i] > high ? point[i] - high : 0.0);
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum);
+    }
+
     @SuppressWarnings("unchecked")
     public void insertDoubleTuples(IIndexTestContext ctx, int numTuples, Random rnd) throws Exception {
         int fieldCount = ctx.getFieldCount();
@@ -37,6 +37,7 @@ public class TestNCApplicationContext implements INCApplicationContext {
 
     private Serializable distributedState;
     private Object appObject;
+    private ThreadFactory threadFactory;
 
     private final IMemoryManager mm;
 
@@ -113,11 +114,12 @@ public class TestNCApplicationContext implements INCApplicationContext {
 
     @Override
     public ThreadFactory getThreadFactory() {
-        return null;
+        return threadFactory;
     }
 
     @Override
     public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
     }
 
     @Override
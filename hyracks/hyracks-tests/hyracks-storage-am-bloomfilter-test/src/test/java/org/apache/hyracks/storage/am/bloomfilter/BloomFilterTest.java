@@ -168,4 +168,62 @@ public class BloomFilterTest extends AbstractBloomFilterTest {
         bf.deactivate();
         bf.destroy();
     }
+
+    @Test
+    public void blockedTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING BLOCKED BLOOM FILTER");
+        }
+
+        IBufferCache bufferCache = harness.getBufferCache();
+
+        int numElements = 10000;
+        int[] keyFields = { 0 };
+
+        BloomFilter bf = new BloomFilter(bufferCache, harness.getFileMapProvider(), harness.getFileReference(),
+                keyFields, true);
+
+        double acceptanleFalsePositiveRate = 0.1;
+        int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(numElements);
+        BloomFilterSpecification bloomFilterSpec = BloomCalculations.computeBloomSpec(maxBucketsPerElement,
+                acceptanleFalsePositiveRate);
+
+        bf.create();
+        bf.activate();
+        IIndexBulkLoader builder = bf.createBuilder(numElements, bloomFilterSpec.getNumHashes(),
+                bloomFilterSpec.getNumBucketsPerElements());
+
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(2);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+
+        // Even keys are inserted, odd keys are not.
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i * 2, i);
+            builder.add(tuple);
+        }
+        builder.end();
+
+        // The layout is read back from the metadata page.
+        bf.deactivate();
+        bf.activate();
+        Assert.assertTrue(bf.isBlocked());
+
+        long[] hashes = new long[2];
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i * 2, i);
+            bf.computeHashes(tuple, hashes);
+            Assert.assertTrue(bf.contains(hashes));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < numElements; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i * 2 + 1, i);
+            if (bf.contains(tuple, hashes)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue(falsePositives < numElements * acceptanleFalsePositiveRate * 2);
+
+        bf.deactivate();
+        bf.destroy();
+    }
 }
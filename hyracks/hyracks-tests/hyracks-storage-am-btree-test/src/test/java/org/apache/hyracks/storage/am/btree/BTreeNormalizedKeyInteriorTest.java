@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.normalizers.IntegerNormalizedKeyComputerFactory;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.btree.util.AbstractBTreeTest;
+import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+
+/**
+ * Builds BTrees whose interior frames keep normalized key prefixes in their slots, by inserts and by bulk load, and
+ * checks point and range searches. The first key field has few distinct values, so most prefixes tie and the
+ * searches fall back to comparing whole keys.
+ */
+public class BTreeNormalizedKeyInteriorTest extends AbstractBTreeTest {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 10000;
+    private static final int MAX_OPEN_FILES = 10;
+    private static final int HYRACKS_FRAME_SIZE = 128;
+    private static final int NUM_TUPLES = 20000;
+    private static final int NUM_PREFIXES = 200;
+
+    public BTreeNormalizedKeyInteriorTest() {
+        super(PAGE_SIZE, NUM_PAGES, MAX_OPEN_FILES, HYRACKS_FRAME_SIZE);
+    }
+
+    @Test
+    public void insertTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING NORMALIZED KEY INTERIOR FRAMES WITH INSERTS");
+        }
+        List<int[]> keys = createKeys();
+        BTree btree = createBTree();
+        ITreeIndexAccessor accessor = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(3);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        for (int[] key : keys) {
+            TupleUtils.createIntegerTuple(tb, tuple, key[0], key[1], key[0] + key[1]);
+            accessor.insert(tuple);
+        }
+        checkBTree(btree, keys);
+        btree.deactivate();
+        btree.destroy();
+    }
+
+    @Test
+    public void bulkLoadTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING NORMALIZED KEY INTERIOR FRAMES WITH BULK LOAD");
+        }
+        List<int[]> keys = createKeys();
+        sortKeys(keys);
+        BTree btree = createBTree();
+        IIndexBulkLoader bulkLoader = btree.createBulkLoader(0.7f, true, NUM_TUPLES, true);
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(3);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        for (int[] key : keys) {
+            TupleUtils.createIntegerTuple(tb, tuple, key[0], key[1], key[0] + key[1]);
+            bulkLoader.add(tuple);
+        }
+        bulkLoader.end();
+        checkBTree(btree, keys);
+        btree.deactivate();
+        btree.destroy();
+    }
+
+    private BTree createBTree() throws Exception {
+        ITypeTraits[] typeTraits = new ITypeTraits[] { IntegerPointable.TYPE_TRAITS, IntegerPointable.TYPE_TRAITS,
+                IntegerPointable.TYPE_TRAITS };
+        IBinaryComparatorFactory[] cmpFactories = new IBinaryComparatorFactory[] {
+                PointableBinaryComparatorFactory.of(IntegerPointable.FACTORY),
+                PointableBinaryComparatorFactory.of(IntegerPointable.FACTORY) };
+        BTree btree = BTreeUtils.createBTree(harness.getBufferCache(), harness.getFileMapProvider(), typeTraits,
+                cmpFactories, BTreeLeafFrameType.REGULAR_NSM, harness.getFileReference(),
+                new IntegerNormalizedKeyComputerFactory());
+        btree.create();
+        btree.activate();
+        return btree;
+    }
+
+    private List<int[]> createKeys() {
+        // Prefixes straddle zero, so the unsigned order of the normalized keys must match the signed key order.
+        Random rnd = new Random(49);
+        List<int[]> keys = new ArrayList<int[]>();
+        for (int i = 0; i < NUM_TUPLES; i++) {
+            keys.add(new int[] { (i % NUM_PREFIXES) - NUM_PREFIXES / 2, i });
+        }
+        Collections.shuffle(keys, rnd);
+        return keys;
+    }
+
+    private void sortKeys(List<int[]> keys) {
+        Collections.sort(keys, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]);
+            }
+        });
+    }
+
+    private void checkBTree(BTree btree, List<int[]> keys) throws Exception {
+        btree.validate();
+        ITreeIndexAccessor accessor = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        MultiComparator cmp = MultiComparator.create(btree.getComparatorFactories());
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+        ArrayTupleReference key = new ArrayTupleReference();
+
+        // Point searches for every key, and for keys between and around the inserted ones.
+        RangePredicate pointPred = new RangePredicate(key, key, true, true, cmp, cmp);
+        for (int[] k : keys) {
+            TupleUtils.createIntegerTuple(tb, key, k[0], k[1]);
+            Assert.assertEquals(1, countResults(accessor, cursor, pointPred));
+            TupleUtils.createIntegerTuple(tb, key, k[0], k[1] + NUM_TUPLES);
+            Assert.assertEquals(0, countResults(accessor, cursor, pointPred));
+        }
+        TupleUtils.createIntegerTuple(tb, key, Integer.MIN_VALUE, 0);
+        Assert.assertEquals(0, countResults(accessor, cursor, pointPred));
+        TupleUtils.createIntegerTuple(tb, key, Integer.MAX_VALUE, 0);
+        Assert.assertEquals(0, countResults(accessor, cursor, pointPred));
+
+        // Range searches on the first key field select all tuples of a span of prefixes.
+        MultiComparator prefixCmp = MultiComparator.create(new IBinaryComparatorFactory[] {
+                btree.getComparatorFactories()[0] });
+        ArrayTupleBuilder prefixTb = new ArrayTupleBuilder(1);
+        ArrayTupleReference lowKey = new ArrayTupleReference();
+        ArrayTupleBuilder highTb = new ArrayTupleBuilder(1);
+        ArrayTupleReference highKey = new ArrayTupleReference();
+        int perPrefix = NUM_TUPLES / NUM_PREFIXES;
+        for (int low = -NUM_PREFIXES / 2 - 1; low <= NUM_PREFIXES / 2; low += 7) {
+            int high = low + 3;
+            TupleUtils.createIntegerTuple(prefixTb, lowKey, low);
+            TupleUtils.createIntegerTuple(highTb, highKey, high);
+            int expected = 0;
+            for (int p = Math.max(low, -NUM_PREFIXES / 2); p <= Math.min(high, NUM_PREFIXES / 2 - 1); p++) {
+                expected += perPrefix;
+            }
+            RangePredicate rangePred = new RangePredicate(lowKey, highKey, true, true, prefixCmp, prefixCmp);
+            Assert.assertEquals(expected, countResults(accessor, cursor, rangePred));
+            rangePred = new RangePredicate(lowKey, highKey, false, false, prefixCmp, prefixCmp);
+            Assert.assertEquals(Math.max(0, expected - countPrefix(low) - countPrefix(high)),
+                    countResults(accessor, cursor, rangePred));
+        }
+    }
+
+    private int countPrefix(int prefix) {
+        return prefix >= -NUM_PREFIXES / 2 && prefix < NUM_PREFIXES / 2 ? NUM_TUPLES / NUM_PREFIXES : 0;
+    }
+
+    private int countResults(ITreeIndexAccessor accessor, IIndexCursor cursor, RangePredicate pred)
+            throws Exception {
+        int count = 0;
+        accessor.search(cursor, pred);
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                ITupleReference tuple = cursor.getTuple();
+                int k0 = IntegerPointable.getInteger(tuple.getFieldData(0), tuple.getFieldStart(0));
+                int k1 = IntegerPointable.getInteger(tuple.getFieldData(1), tuple.getFieldStart(1));
+                int v = IntegerPointable.getInteger(tuple.getFieldData(2), tuple.getFieldStart(2));
+                Assert.assertEquals(k0 + k1, v);
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return count;
+    }
+}
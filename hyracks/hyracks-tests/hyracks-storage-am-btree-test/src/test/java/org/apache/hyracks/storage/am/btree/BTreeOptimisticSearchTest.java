@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.btree.util.AbstractBTreeTest;
+import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+
+/**
+ * Runs point searches, which descend without latching interior nodes, while other threads insert keys and split
+ * nodes, and checks that every search finds a key that was inserted before it started.
+ */
+public class BTreeOptimisticSearchTest extends AbstractBTreeTest {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 10000;
+    private static final int MAX_OPEN_FILES = 10;
+    private static final int HYRACKS_FRAME_SIZE = 128;
+    private static final int NUM_KEYS = 40000;
+    private static final int NUM_WRITERS = 4;
+    private static final int NUM_READERS = 4;
+
+    public BTreeOptimisticSearchTest() {
+        super(PAGE_SIZE, NUM_PAGES, MAX_OPEN_FILES, HYRACKS_FRAME_SIZE);
+    }
+
+    @Test
+    public void concurrentInsertSearchTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING OPTIMISTIC SEARCHES DURING CONCURRENT INSERTS");
+        }
+        ITypeTraits[] typeTraits = new ITypeTraits[] { IntegerPointable.TYPE_TRAITS, IntegerPointable.TYPE_TRAITS };
+        IBinaryComparatorFactory[] cmpFactories = new IBinaryComparatorFactory[] { PointableBinaryComparatorFactory
+                .of(IntegerPointable.FACTORY) };
+        final BTree btree = BTreeUtils.createBTree(harness.getBufferCache(), harness.getFileMapProvider(),
+                typeTraits, cmpFactories, BTreeLeafFrameType.REGULAR_NSM, harness.getFileReference());
+        // Optimistic searches are opt-in.
+        Assert.assertFalse(btree.isOptimisticSearch());
+        btree.setOptimisticSearch(true);
+        btree.create();
+        btree.activate();
+
+        List<Integer> keys = new ArrayList<Integer>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(50));
+        final int[] insertOrder = new int[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            insertOrder[i] = keys.get(i);
+        }
+        final AtomicIntegerArray inserted = new AtomicIntegerArray(NUM_KEYS);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final int[] numChecked = new int[NUM_READERS];
+
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int w = 0; w < NUM_WRITERS; w++) {
+            final int writer = w;
+            writers.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        ITreeIndexAccessor accessor = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                                NoOpOperationCallback.INSTANCE);
+                        ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+                        ArrayTupleReference tuple = new ArrayTupleReference();
+                        for (int i = writer; i < NUM_KEYS; i += NUM_WRITERS) {
+                            int key = insertOrder[i];
+                            TupleUtils.createIntegerTuple(tb, tuple, key, -key);
+                            accessor.insert(tuple);
+                            inserted.set(key, 1);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        List<Thread> readers = new ArrayList<Thread>();
+        for (int r = 0; r < NUM_READERS; r++) {
+            final int reader = r;
+            readers.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Random rnd = new Random(reader);
+                        ITreeIndexAccessor accessor = btree.createAccessor(NoOpOperationCallback.INSTANCE,
+                                NoOpOperationCallback.INSTANCE);
+                        IIndexCursor cursor = accessor.createSearchCursor(false);
+                        MultiComparator cmp = MultiComparator.create(btree.getComparatorFactories());
+                        ArrayTupleBuilder tb = new ArrayTupleBuilder(1);
+                        ArrayTupleReference key = new ArrayTupleReference();
+                        RangePredicate pred = new RangePredicate(key, key, true, true, cmp, cmp);
+                        int checked = 0;
+                        while (failure.get() == null && checked < NUM_KEYS) {
+                            int k = rnd.nextInt(NUM_KEYS);
+                            boolean wasInserted = inserted.get(k) == 1;
+                            TupleUtils.createIntegerTuple(tb, key, k);
+                            accessor.search(cursor, pred);
+                            try {
+                                if (cursor.hasNext()) {
+                                    cursor.next();
+                                    ITupleReference tuple = cursor.getTuple();
+                                    int value = IntegerPointable.getInteger(tuple.getFieldData(1),
+                                            tuple.getFieldStart(1));
+                                    Assert.assertEquals(-k, value);
+                                } else {
+                                    Assert.assertFalse("key " + k + " was not found", wasInserted);
+                                }
+                            } finally {
+                                cursor.close();
+                            }
+                            checked++;
+                        }
+                        numChecked[reader] = checked;
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        try {
+            for (Thread t : writers) {
+                t.start();
+            }
+            for (Thread t : readers) {
+                t.start();
+            }
+            for (Thread t : writers) {
+                t.join();
+            }
+            for (Thread t : readers) {
+                t.join();
+            }
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+            for (int r = 0; r < NUM_READERS; r++) {
+                Assert.assertEquals(NUM_KEYS, numChecked[r]);
+            }
+            btree.validate();
+        } finally {
+            btree.deactivate();
+            btree.destroy();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.data.std.primitive.UTF8StringPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.frames.BTreeLeafFrameType;
+import org.apache.hyracks.storage.am.btree.impls.BTree;
+import org.apache.hyracks.storage.am.btree.impls.BTreeParallelBulkLoader;
+import org.apache.hyracks.storage.am.btree.util.AbstractBTreeTest;
+import org.apache.hyracks.storage.am.btree.util.BTreeUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexFrame;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexMetaDataFrame;
+import org.apache.hyracks.storage.am.common.api.UnsortedInputException;
+import org.apache.hyracks.storage.am.common.frames.LIFOMetaDataFrame;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+import org.apache.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Bulk loads sorted input with leaves written by a thread pool, and checks that every page of the file holds the
+ * same node as the page the sequential bulk loader writes for the same input. Each input is loaded with enough
+ * buffer pages for all of it, and with so few that the loader has to wait for the leaf writers.
+ */
+@SuppressWarnings("rawtypes")
+public class BTreeParallelBulkLoadTest extends AbstractBTreeTest {
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 10000;
+    private static final int MAX_OPEN_FILES = 10;
+    private static final int HYRACKS_FRAME_SIZE = 128;
+    private static final float FILL_FACTOR = 0.7f;
+    private static final int NUM_LEAF_WRITERS = 3;
+    private static final int[] BUFFERED_PAGES = new int[] { NUM_PAGES, 2, 1 };
+
+    public BTreeParallelBulkLoadTest() {
+        super(PAGE_SIZE, NUM_PAGES, MAX_OPEN_FILES, HYRACKS_FRAME_SIZE);
+    }
+
+    @Test
+    public void intKeysTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING PARALLEL BULK LOAD WITH INT KEYS");
+        }
+        ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+                IntegerSerializerDeserializer.INSTANCE };
+        List<Object[]> tuples = new ArrayList<Object[]>();
+        for (int i = 0; i < 30000; i++) {
+            tuples.add(new Object[] { i * 2 - 30000, i });
+        }
+        loadAndCompare(fieldSerdes, tuples);
+    }
+
+    @Test
+    public void stringKeysTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING PARALLEL BULK LOAD WITH STRING KEYS");
+        }
+        ISerializerDeserializer[] fieldSerdes = { UTF8StringSerializerDeserializer.INSTANCE,
+                UTF8StringSerializerDeserializer.INSTANCE };
+        Random rnd = new Random(50);
+        List<Object[]> tuples = new ArrayList<Object[]>();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder value = new StringBuilder();
+            for (int j = rnd.nextInt(40); j >= 0; j--) {
+                value.append((char) ('a' + rnd.nextInt(26)));
+            }
+            tuples.add(new Object[] { String.format("%08d", i), value.toString() });
+        }
+        loadAndCompare(fieldSerdes, tuples);
+    }
+
+    @Test
+    public void smallInputTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING PARALLEL BULK LOAD OF A SINGLE LEAF AND OF NOTHING");
+        }
+        ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+                IntegerSerializerDeserializer.INSTANCE };
+        List<Object[]> tuples = new ArrayList<Object[]>();
+        for (int i = 0; i < 3; i++) {
+            tuples.add(new Object[] { i, i });
+        }
+        loadAndCompare(fieldSerdes, tuples);
+        loadAndCompare(fieldSerdes, new ArrayList<Object[]>());
+    }
+
+    @Test
+    public void unsortedInputTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING PARALLEL BULK LOAD OF UNSORTED INPUT");
+        }
+        BTree btree = createBTree(IntegerSerializerDeserializer.INSTANCE, harness.getFileReference());
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_LEAF_WRITERS);
+        try {
+            BTreeParallelBulkLoader bulkLoader = btree.createParallelBulkLoader(FILL_FACTOR, true, 2, executor);
+            ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+            ArrayTupleReference tuple = new ArrayTupleReference();
+            for (int i = 0; i < 1000; i++) {
+                TupleUtils.createIntegerTuple(tb, tuple, i, i);
+                bulkLoader.add(tuple);
+            }
+            TupleUtils.createIntegerTuple(tb, tuple, 500, 0);
+            try {
+                bulkLoader.add(tuple);
+                Assert.fail("Unsorted input was loaded.");
+            } catch (UnsortedInputException e) {
+                // expected
+            }
+        } finally {
+            executor.shutdown();
+        }
+        btree.deactivate();
+        btree.destroy();
+    }
+
+    @Test
+    public void bufferedPagesTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING THAT A PARALLEL BULK LOAD WAITS FOR ITS LEAF WRITERS");
+        }
+        final BTree btree = createBTree(IntegerSerializerDeserializer.INSTANCE, harness.getFileReference());
+        // Holds the leaf writers until this thread runs them.
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                synchronized (tasks) {
+                    tasks.add(task);
+                }
+            }
+        };
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread loader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    // The loader latches pages for the thread that creates it.
+                    BTreeParallelBulkLoader bulkLoader = btree.createParallelBulkLoader(FILL_FACTOR, true, 2,
+                            executor);
+                    ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+                    ArrayTupleReference tuple = new ArrayTupleReference();
+                    for (int i = 0; i < 1000; i++) {
+                        TupleUtils.createIntegerTuple(tb, tuple, i, i);
+                        bulkLoader.add(tuple);
+                    }
+                    bulkLoader.end();
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        };
+        loader.start();
+        while (loader.getState() != Thread.State.WAITING && loader.isAlive()) {
+            Thread.sleep(10);
+        }
+        // The loader writes the first leaf itself, and the next two hold both pages until their tasks run.
+        synchronized (tasks) {
+            Assert.assertEquals(2, tasks.size());
+        }
+        Assert.assertTrue(loader.isAlive());
+        while (loader.isAlive()) {
+            Runnable task = null;
+            synchronized (tasks) {
+                if (!tasks.isEmpty()) {
+                    task = tasks.remove(0);
+                }
+            }
+            if (task != null) {
+                task.run();
+            } else {
+                loader.join(10);
+            }
+        }
+        if (failure.get() != null) {
+            throw new Exception(failure.get());
+        }
+        btree.validate();
+        btree.deactivate();
+        btree.destroy();
+    }
+
+    private void loadAndCompare(ISerializerDeserializer[] fieldSerdes, List<Object[]> tuples) throws Exception {
+        for (int bufferedPages : BUFFERED_PAGES) {
+            ExecutorService executor = Executors.newFixedThreadPool(NUM_LEAF_WRITERS);
+            try {
+                loadAndCompare(fieldSerdes, tuples, bufferedPages, executor);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private void loadAndCompare(ISerializerDeserializer[] fieldSerdes, List<Object[]> tuples, int bufferedPages,
+            Executor executor) throws Exception {
+        FileReference sequentialFile = new FileReference(new File(harness.getFileName() + "_sequential"));
+        BTree sequentialBTree = createBTree(fieldSerdes[0], sequentialFile);
+        IIndexBulkLoader sequentialLoader = sequentialBTree.createBulkLoader(FILL_FACTOR, true, tuples.size(), true);
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(fieldSerdes.length);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        for (Object[] fields : tuples) {
+            TupleUtils.createTuple(tb, tuple, fieldSerdes, fields);
+            sequentialLoader.add(tuple);
+        }
+        sequentialLoader.end();
+
+        BTree btree = createBTree(fieldSerdes[0], harness.getFileReference());
+        BTreeParallelBulkLoader bulkLoader = btree.createParallelBulkLoader(FILL_FACTOR, true, bufferedPages,
+                executor);
+        for (Object[] fields : tuples) {
+            TupleUtils.createTuple(tb, tuple, fieldSerdes, fields);
+            bulkLoader.add(tuple);
+        }
+        bulkLoader.end();
+        btree.validate();
+
+        ITreeIndexMetaDataFrame metaFrame = btree.getFreePageManager().getMetaDataFrameFactory().createFrame();
+        int maxPage = btree.getFreePageManager().getMaxPage(metaFrame);
+        Assert.assertEquals(sequentialBTree.getFreePageManager().getMaxPage(metaFrame), maxPage);
+        IBufferCache bufferCache = harness.getBufferCache();
+        ITreeIndexFrame frame = btree.getLeafFrameFactory().createFrame();
+        ITreeIndexFrame sequentialFrame = sequentialBTree.getLeafFrameFactory().createFrame();
+        int metaPage = btree.getFreePageManager().getFirstMetadataPage();
+        for (int i = 0; i <= maxPage; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(btree.getFileId(), i), false);
+            ICachedPage sequentialPage = bufferCache.pin(
+                    BufferedFileHandle.getDiskPageId(sequentialBTree.getFileId(), i), false);
+            try {
+                byte[] bytes = page.getBuffer().array();
+                byte[] sequentialBytes = sequentialPage.getBuffer().array();
+                if (i == metaPage) {
+                    // Only the header fields and the free page list of the meta page are written: the tuple count,
+                    // the free space offset and the max page, then the level, the next page, the valid flag and
+                    // the filter page, and the free pages after the LSN.
+                    int freeSpaceOff = page.getBuffer().getInt(4);
+                    Assert.assertEquals("meta page", sequentialPage.getBuffer().getInt(4), freeSpaceOff);
+                    assertRangeEquals("meta page differs", sequentialBytes, bytes, 0, 12);
+                    assertRangeEquals("meta page differs", sequentialBytes, bytes, 20, LIFOMetaDataFrame.lsnOff);
+                    assertRangeEquals("meta page differs", sequentialBytes, bytes, LIFOMetaDataFrame.lsnOff + 8,
+                            freeSpaceOff);
+                    continue;
+                }
+                // Pages come from the buffer cache without being cleared, so only the used parts of a node are
+                // compared: the header and tuples at the start, and the slots at the end.
+                frame.setPage(page);
+                sequentialFrame.setPage(sequentialPage);
+                int freeSpaceOff = frame.getFreeSpaceOff();
+                int slotsOff = bytes.length - frame.getTupleCount() * frame.getSlotSize();
+                Assert.assertEquals("page " + i, sequentialFrame.getFreeSpaceOff(), freeSpaceOff);
+                Assert.assertEquals("page " + i, sequentialFrame.getTupleCount(), frame.getTupleCount());
+                Assert.assertTrue("page " + i + " differs",
+                        Arrays.equals(Arrays.copyOfRange(sequentialBytes, 0, freeSpaceOff),
+                                Arrays.copyOfRange(bytes, 0, freeSpaceOff))
+                                && Arrays.equals(Arrays.copyOfRange(sequentialBytes, slotsOff, bytes.length),
+                                        Arrays.copyOfRange(bytes, slotsOff, bytes.length)));
+            } finally {
+                bufferCache.unpin(page);
+                bufferCache.unpin(sequentialPage);
+            }
+        }
+
+        btree.deactivate();
+        btree.destroy();
+        sequentialBTree.deactivate();
+        sequentialBTree.destroy();
+    }
+
+    private static void assertRangeEquals(String message, byte[] expected, byte[] actual, int from, int to) {
+        Assert.assertTrue(message, Arrays.equals(Arrays.copyOfRange(expected, from, to),
+                Arrays.copyOfRange(actual, from, to)));
+    }
+
+    private BTree createBTree(ISerializerDeserializer keySerde, FileReference file) throws Exception {
+        ITypeTraits[] typeTraits;
+        IBinaryComparatorFactory[] cmpFactories;
+        if (keySerde instanceof UTF8StringSerializerDeserializer) {
+            typeTraits = new ITypeTraits[] { UTF8StringPointable.TYPE_TRAITS, UTF8StringPointable.TYPE_TRAITS };
+            cmpFactories = new IBinaryComparatorFactory[] { PointableBinaryComparatorFactory
+                    .of(UTF8StringPointable.FACTORY) };
+        } else {
+            typeTraits = new ITypeTraits[] { IntegerPointable.TYPE_TRAITS, IntegerPointable.TYPE_TRAITS };
+            cmpFactories = new IBinaryComparatorFactory[] { PointableBinaryComparatorFactory
+                    .of(IntegerPointable.FACTORY) };
+        }
+        BTree btree = BTreeUtils.createBTree(harness.getBufferCache(), harness.getFileMapProvider(), typeTraits,
+                cmpFactories, BTreeLeafFrameType.REGULAR_NSM, file);
+        btree.create();
+        btree.activate();
+        return btree;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.btree;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.ActivityId;
+import org.apache.hyracks.api.dataflow.IOperatorNodePushable;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.INullWriter;
+import org.apache.hyracks.api.dataflow.value.INullWriterFactory;
+import org.apache.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.api.job.JobSpecification;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.dataflow.std.file.ConstantFileSplitProvider;
+import org.apache.hyracks.dataflow.std.file.FileSplit;
+import org.apache.hyracks.dataflow.std.file.IFileSplitProvider;
+import org.apache.hyracks.storage.am.btree.dataflow.BTreeDataflowHelperFactory;
+import org.apache.hyracks.storage.am.btree.dataflow.BTreeSearchOperatorDescriptor;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexDataflowHelper;
+import org.apache.hyracks.storage.am.common.api.ITreeIndex;
+import org.apache.hyracks.storage.am.common.dataflow.TreeIndexCreateOperatorDescriptor;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallbackFactory;
+import org.apache.hyracks.storage.common.file.TransientLocalResourceFactoryProvider;
+import org.apache.hyracks.test.support.TestIndexLifecycleManagerProvider;
+import org.apache.hyracks.test.support.TestStorageManagerComponentHolder;
+import org.apache.hyracks.test.support.TestStorageManagerInterface;
+import org.apache.hyracks.test.support.TestUtils;
+
+/**
+ * Runs the BTree search operator on a single partition and checks that only the projected index fields are
+ * written for matches and for the null tuples of an outer search.
+ */
+@SuppressWarnings("rawtypes")
+public class BTreeSearchOperatorProjectionTest {
+    private static final int PAGE_SIZE = 4096;
+    private static final int NUM_PAGES = 100;
+    private static final int MAX_OPEN_FILES = 10;
+    private static final int HYRACKS_FRAME_SIZE = 32768;
+
+    private static final int NUM_TUPLES = 1000;
+    private static final int NULL_VALUE = Integer.MIN_VALUE;
+
+    private final ISerializerDeserializer[] indexSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE };
+    private final ITypeTraits[] typeTraits = { IntegerPointable.TYPE_TRAITS, IntegerPointable.TYPE_TRAITS,
+            IntegerPointable.TYPE_TRAITS };
+    private final IBinaryComparatorFactory[] cmpFactories = { PointableBinaryComparatorFactory
+            .of(IntegerPointable.FACTORY) };
+    private final RecordDescriptor keyRecDesc = new RecordDescriptor(new ISerializerDeserializer[] {
+            IntegerSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE });
+
+    private IHyracksTaskContext ctx;
+    private IFileSplitProvider fileSplitProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        TestStorageManagerComponentHolder.init(PAGE_SIZE, NUM_PAGES, MAX_OPEN_FILES);
+        ctx = TestUtils.create(HYRACKS_FRAME_SIZE);
+        File file = File.createTempFile("btree_projection_", ".idx");
+        file.delete();
+        file.deleteOnExit();
+        fileSplitProvider = new ConstantFileSplitProvider(new FileSplit[] { new FileSplit("nc1",
+                new FileReference(file)) });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BTreeSearchOperatorDescriptor opDesc = createSearchOperator(null, false, false);
+        opDesc.getIndexDataflowHelperFactory().createIndexDataflowHelper(opDesc, ctx, 0).destroy();
+    }
+
+    @Test
+    public void projectsMatches() throws Exception {
+        loadIndex();
+        int[] projectedFields = { 2, 0 };
+        List<int[]> results = search(createSearchOperator(projectedFields, false, false), 10, 19);
+        Assert.assertEquals(10, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            int key = 10 + i;
+            Assert.assertArrayEquals(new int[] { key * 100, key }, results.get(i));
+        }
+    }
+
+    @Test
+    public void writesAllFieldsWithoutProjection() throws Exception {
+        loadIndex();
+        List<int[]> results = search(createSearchOperator(null, false, false), 5, 6);
+        Assert.assertEquals(2, results.size());
+        Assert.assertArrayEquals(new int[] { 5, 50, 500 }, results.get(0));
+        Assert.assertArrayEquals(new int[] { 6, 60, 600 }, results.get(1));
+    }
+
+    @Test
+    public void projectsAfterRetainedInput() throws Exception {
+        loadIndex();
+        int[] projectedFields = { 1 };
+        List<int[]> results = search(createSearchOperator(projectedFields, true, true), 7, 7);
+        Assert.assertEquals(1, results.size());
+        Assert.assertArrayEquals(new int[] { 7, 7, 70 }, results.get(0));
+    }
+
+    @Test
+    public void nullTupleMatchesProjectedWidth() throws Exception {
+        loadIndex();
+        int[] projectedFields = { 1 };
+        List<int[]> results = search(createSearchOperator(projectedFields, true, true), NUM_TUPLES + 1,
+                NUM_TUPLES + 5);
+        Assert.assertEquals(1, results.size());
+        Assert.assertArrayEquals(new int[] { NUM_TUPLES + 1, NUM_TUPLES + 5, NULL_VALUE }, results.get(0));
+    }
+
+    private BTreeSearchOperatorDescriptor createSearchOperator(int[] projectedFields, boolean retainInput,
+            boolean retainNull) {
+        int outputFieldCount = (retainInput ? keyRecDesc.getFieldCount() : 0)
+                + (projectedFields != null ? projectedFields.length : indexSerdes.length);
+        ISerializerDeserializer[] outputSerdes = new ISerializerDeserializer[outputFieldCount];
+        for (int i = 0; i < outputFieldCount; i++) {
+            outputSerdes[i] = IntegerSerializerDeserializer.INSTANCE;
+        }
+        return new BTreeSearchOperatorDescriptor(new JobSpecification(), new RecordDescriptor(outputSerdes),
+                new TestStorageManagerInterface(), new TestIndexLifecycleManagerProvider(), fileSplitProvider,
+                typeTraits, cmpFactories, null, new int[] { 0 }, new int[] { 1 }, true, true,
+                new BTreeDataflowHelperFactory(true), retainInput, retainNull, new IntegerNullWriterFactory(),
+                NoOpOperationCallbackFactory.INSTANCE, null, null, projectedFields);
+    }
+
+    private void loadIndex() throws Exception {
+        TreeIndexCreateOperatorDescriptor createOp = new TreeIndexCreateOperatorDescriptor(new JobSpecification(),
+                new TestStorageManagerInterface(), new TestIndexLifecycleManagerProvider(), fileSplitProvider,
+                typeTraits, cmpFactories, null, new BTreeDataflowHelperFactory(true),
+                new TransientLocalResourceFactoryProvider(), NoOpOperationCallbackFactory.INSTANCE);
+        createOp.getIndexDataflowHelperFactory().createIndexDataflowHelper(createOp, ctx, 0).create();
+
+        BTreeSearchOperatorDescriptor opDesc = createSearchOperator(null, false, false);
+        IIndexDataflowHelper helper = opDesc.getIndexDataflowHelperFactory().createIndexDataflowHelper(opDesc, ctx,
+                0);
+        helper.open();
+        try {
+            ITreeIndex index = (ITreeIndex) helper.getIndexInstance();
+            IIndexBulkLoader bulkLoader = index.createBulkLoader(0.7f, false, NUM_TUPLES, true);
+            for (int i = 0; i < NUM_TUPLES; i++) {
+                bulkLoader.add(TupleUtils.createIntegerTuple(i, i * 10, i * 100));
+            }
+            bulkLoader.end();
+        } finally {
+            helper.close();
+        }
+    }
+
+    private List<int[]> search(BTreeSearchOperatorDescriptor opDesc, int lowKey, int highKey) throws Exception {
+        final RecordDescriptor outRecDesc = opDesc.getOutputRecordDescriptors()[0];
+        IRecordDescriptorProvider recordDescProvider = new IRecordDescriptorProvider() {
+            @Override
+            public RecordDescriptor getInputRecordDescriptor(ActivityId aid, int inputIndex) {
+                return keyRecDesc;
+            }
+
+            @Override
+            public RecordDescriptor getOutputRecordDescriptor(ActivityId aid, int outputIndex) {
+                return outRecDesc;
+            }
+        };
+        IOperatorNodePushable pushable = opDesc.createPushRuntime(ctx, recordDescProvider, 0, 1);
+        CollectingWriter collector = new CollectingWriter(outRecDesc);
+        pushable.setOutputFrameWriter(0, collector, outRecDesc);
+
+        VSizeFrame frame = new VSizeFrame(ctx);
+        FrameTupleAppender appender = new FrameTupleAppender(frame);
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(keyRecDesc.getFieldCount());
+        tb.addField(IntegerSerializerDeserializer.INSTANCE, lowKey);
+        tb.addField(IntegerSerializerDeserializer.INSTANCE, highKey);
+        Assert.assertTrue(appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize()));
+
+        IFrameWriter input = pushable.getInputFrameWriter(0);
+        input.open();
+        try {
+            input.nextFrame(frame.getBuffer());
+        } finally {
+            input.close();
+        }
+        Assert.assertTrue(collector.closed);
+        return collector.tuples;
+    }
+
+    private static class CollectingWriter implements IFrameWriter {
+        private final FrameTupleAccessor accessor;
+        private final List<int[]> tuples = new ArrayList<int[]>();
+        private boolean closed;
+
+        CollectingWriter(RecordDescriptor recDesc) {
+            accessor = new FrameTupleAccessor(recDesc);
+        }
+
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            accessor.reset(buffer);
+            for (int i = 0; i < accessor.getTupleCount(); i++) {
+                int[] fields = new int[accessor.getFieldCount()];
+                for (int j = 0; j < fields.length; j++) {
+                    int start = accessor.getTupleStartOffset(i) + accessor.getFieldSlotsLength()
+                            + accessor.getFieldStartOffset(i, j);
+                    int length = accessor.getFieldLength(i, j);
+                    DataInput in = new DataInputStream(new ByteArrayInputStream(buffer.array(), start, length));
+                    fields[j] = IntegerSerializerDeserializer.INSTANCE.deserialize(in);
+                }
+                tuples.add(fields);
+            }
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            closed = true;
+        }
+    }
+
+    private static class IntegerNullWriterFactory implements INullWriterFactory {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public INullWriter createNullWriter() {
+            return new INullWriter() {
+                @Override
+                public void writeNull(DataOutput out) throws HyracksDataException {
+                    try {
+                        out.writeInt(NULL_VALUE);
+                    } catch (IOException e) {
+                        throw new HyracksDataException(e);
+                    }
+                }
+            };
+        }
+    }
+}
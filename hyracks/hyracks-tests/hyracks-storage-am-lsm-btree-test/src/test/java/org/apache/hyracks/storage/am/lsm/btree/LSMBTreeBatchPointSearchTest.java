@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IBatchPointSearchAccessor;
+import org.apache.hyracks.storage.am.common.api.IBatchPointSearchConsumer;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpOperationTrackerProvider;
+
+@SuppressWarnings("rawtypes")
+public class LSMBTreeBatchPointSearchTest {
+    private static final int NUM_KEYS = 1200;
+
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE };
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final BlockingIOOperationCallbackWrapper ioOpCallback = new BlockingIOOperationCallbackWrapper(
+            NoOpIOOperationCallback.INSTANCE);
+    private LSMBTree lsmBTree;
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+        lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(),
+                SerdeUtils.serdesToTypeTraits(fieldSerdes), SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1),
+                new int[] { 0 }, harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                NoOpOperationTrackerProvider.INSTANCE.getOperationTracker(null), harness.getIOScheduler(),
+                harness.getIOOperationCallback(), true, null, null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        harness.tearDown();
+    }
+
+    @Test
+    public void batchPointSearchTest() throws Exception {
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        // Even keys are spread over two disk components and the memory component, the value is the key times 10.
+        // Every tenth key is then deleted again from the memory component.
+        for (int i = 0; i < NUM_KEYS; i += 2) {
+            accessor.insert(TupleUtils.createIntegerTuple(i, i * 10));
+            if (i == NUM_KEYS / 3 || i == 2 * NUM_KEYS / 3) {
+                accessor.scheduleFlush(ioOpCallback);
+                ioOpCallback.waitForIO();
+            }
+        }
+        for (int i = 0; i < NUM_KEYS; i += 10) {
+            accessor.delete(TupleUtils.createIntegerTuple(i, i * 10));
+        }
+
+        ITupleReference[] sortedKeys = new ITupleReference[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            sortedKeys[i] = TupleUtils.createIntegerTuple(i);
+        }
+        checkBatch(accessor, sortedKeys);
+
+        // Unsorted keys with duplicates are answered as well.
+        Random rnd = new Random(50);
+        ITupleReference[] randomKeys = new ITupleReference[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            randomKeys[i] = TupleUtils.createIntegerTuple(rnd.nextInt(NUM_KEYS + 10) - 5);
+        }
+        checkBatch(accessor, randomKeys);
+    }
+
+    private void checkBatch(ILSMIndexAccessor accessor, final ITupleReference[] keys) throws Exception {
+        final int[] numResults = new int[1];
+        ((IBatchPointSearchAccessor) accessor).batchPointSearch(keys, keys.length, new IBatchPointSearchConsumer() {
+            @Override
+            public void accept(int keyIndex, ITupleReference tuple) throws HyracksDataException {
+                Assert.assertEquals(numResults[0]++, keyIndex);
+                int key = getInt(keys[keyIndex], 0);
+                boolean expected = key >= 0 && key < NUM_KEYS && key % 2 == 0 && key % 10 != 0;
+                if (expected) {
+                    Assert.assertNotNull("key " + key, tuple);
+                    Assert.assertEquals(key, getInt(tuple, 0));
+                    Assert.assertEquals(key * 10, getInt(tuple, 1));
+                } else {
+                    Assert.assertNull("key " + key, tuple);
+                }
+            }
+        });
+        Assert.assertEquals(keys.length, numResults[0]);
+    }
+
+    private static int getInt(ITupleReference tuple, int field) {
+        return IntegerPointable.getInteger(tuple.getFieldData(field), tuple.getFieldStart(field));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpOperationTrackerProvider;
+
+/**
+ * A secondary index on (secondary key, primary key) that carries one included field. Searches on the secondary key
+ * return the included field, and deleting an entry removes it together with its included field.
+ */
+@SuppressWarnings("rawtypes")
+public class LSMBTreeIncludedFieldsTest {
+    private static final int NUM_KEYS = 20;
+    private static final int NUM_SECONDARY_KEYS = 5;
+
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE };
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final BlockingIOOperationCallbackWrapper ioOpCallback = new BlockingIOOperationCallbackWrapper(
+            NoOpIOOperationCallback.INSTANCE);
+    private final MultiComparator secondaryKeyCmp = MultiComparator.create(SerdeUtils.serdesToComparatorFactories(
+            fieldSerdes, 1));
+    private LSMBTree lsmBTree;
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+        // All three fields are stored, only the first two are compared.
+        lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(),
+                SerdeUtils.serdesToTypeTraits(fieldSerdes), SerdeUtils.serdesToComparatorFactories(fieldSerdes, 2),
+                new int[] { 0 }, harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                NoOpOperationTrackerProvider.INSTANCE.getOperationTracker(null), harness.getIOScheduler(),
+                harness.getIOOperationCallback(), false, null, null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        harness.tearDown();
+    }
+
+    @Test
+    public void includedFieldsTest() throws Exception {
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        Assert.assertEquals(3, lsmBTree.getFieldCount());
+        for (int pk = 0; pk < NUM_KEYS; pk++) {
+            accessor.insert(TupleUtils.createIntegerTuple(pk % NUM_SECONDARY_KEYS, pk, pk * 10));
+        }
+        flush(accessor);
+
+        // An update of the included field is a delete of the old entry followed by an insert of the new one.
+        accessor.delete(TupleUtils.createIntegerTuple(3, 3, 30));
+        accessor.insert(TupleUtils.createIntegerTuple(3, 3, 31));
+        accessor.delete(TupleUtils.createIntegerTuple(2, 7, 70));
+        accessor.insert(TupleUtils.createIntegerTuple(0, 20, 200));
+        accessor.delete(TupleUtils.createIntegerTuple(0, 20, 200));
+        accessor.insert(TupleUtils.createIntegerTuple(0, 20, 201));
+        checkSearchResults(accessor);
+
+        flush(accessor);
+        checkSearchResults(accessor);
+    }
+
+    private void checkSearchResults(ILSMIndexAccessor accessor) throws Exception {
+        Assert.assertEquals(Arrays.asList(0, 0, 5, 50, 10, 100, 15, 150, 20, 201), search(accessor, 0));
+        Assert.assertEquals(Arrays.asList(2, 20, 12, 120, 17, 170), search(accessor, 2));
+        Assert.assertEquals(Arrays.asList(3, 31, 8, 80, 13, 130, 18, 180), search(accessor, 3));
+    }
+
+    private void flush(ILSMIndexAccessor accessor) throws Exception {
+        accessor.scheduleFlush(ioOpCallback);
+        ioOpCallback.waitForIO();
+    }
+
+    /**
+     * @return the primary key and the included field of every entry with the given secondary key
+     */
+    private List<Integer> search(ILSMIndexAccessor accessor, int secondaryKey) throws Exception {
+        ITupleReference key = TupleUtils.createIntegerTuple(secondaryKey);
+        RangePredicate pred = new RangePredicate(key, key, true, true, secondaryKeyCmp, secondaryKeyCmp);
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, pred);
+        List<Integer> results = new ArrayList<Integer>();
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                ITupleReference tuple = cursor.getTuple();
+                Assert.assertEquals(3, tuple.getFieldCount());
+                results.add(IntegerPointable.getInteger(tuple.getFieldData(1), tuple.getFieldStart(1)));
+                results.add(IntegerPointable.getInteger(tuple.getFieldData(2), tuple.getFieldStart(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeDiskComponent;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeKeyRange;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpOperationTrackerProvider;
+
+@SuppressWarnings("rawtypes")
+public class LSMBTreeKeyRangeTest {
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE };
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final BlockingIOOperationCallbackWrapper ioOpCallback = new BlockingIOOperationCallbackWrapper(
+            NoOpIOOperationCallback.INSTANCE);
+    private final MultiComparator cmp = MultiComparator.create(SerdeUtils.serdesToComparatorFactories(fieldSerdes,
+            1));
+    private LSMBTree lsmBTree;
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+        lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(),
+                SerdeUtils.serdesToTypeTraits(fieldSerdes), SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1),
+                new int[] { 0 }, harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                NoOpOperationTrackerProvider.INSTANCE.getOperationTracker(null), harness.getIOScheduler(),
+                harness.getIOOperationCallback(), true, null, null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        harness.tearDown();
+    }
+
+    @Test
+    public void keyRangePruningTest() throws Exception {
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        for (int i = 0; i < 10; i++) {
+            accessor.insert(TupleUtils.createIntegerTuple(i, i));
+        }
+        flush(accessor);
+        for (int i = 100; i < 110; i++) {
+            accessor.insert(TupleUtils.createIntegerTuple(i, i));
+        }
+        flush(accessor);
+        accessor.delete(TupleUtils.createIntegerTuple(100, 100));
+        flush(accessor);
+
+        // Newest component first: the antimatter of key 100, then [100, 109], then [0, 9].
+        List<ILSMComponent> components = lsmBTree.getImmutableComponents();
+        Assert.assertEquals(3, components.size());
+        checkKeyRange(components.get(0), 100, 100);
+        checkKeyRange(components.get(1), 100, 109);
+        checkKeyRange(components.get(2), 0, 9);
+
+        LSMBTreeKeyRange range = ((LSMBTreeDiskComponent) components.get(2)).getKeyRange();
+        Assert.assertTrue(range.intersects(createPredicate(9, true, 50, true)));
+        Assert.assertFalse(range.intersects(createPredicate(9, false, 50, true)));
+        Assert.assertFalse(range.intersects(createPredicate(-5, true, 0, false)));
+        Assert.assertTrue(range.intersects(createPredicate(-5, true, 0, true)));
+
+        Assert.assertEquals(0, count(accessor, 20, 90));
+        Assert.assertEquals(4, count(accessor, 100, 104));
+        Assert.assertEquals(10, count(accessor, 5, 105));
+        Assert.assertEquals(19, count(accessor, -1, 200));
+    }
+
+    private void flush(ILSMIndexAccessor accessor) throws Exception {
+        accessor.scheduleFlush(ioOpCallback);
+        ioOpCallback.waitForIO();
+    }
+
+    private void checkKeyRange(ILSMComponent component, int expectedMin, int expectedMax) throws Exception {
+        LSMBTreeKeyRange range = ((LSMBTreeDiskComponent) component).getKeyRange();
+        Assert.assertFalse(range.isEmpty());
+        Assert.assertEquals(expectedMin, getKey(range.getMinKey()));
+        Assert.assertEquals(expectedMax, getKey(range.getMaxKey()));
+    }
+
+    private int getKey(ITupleReference tuple) {
+        return IntegerPointable.getInteger(tuple.getFieldData(0), tuple.getFieldStart(0));
+    }
+
+    private RangePredicate createPredicate(int low, boolean lowInclusive, int high, boolean highInclusive)
+            throws Exception {
+        return new RangePredicate(TupleUtils.createIntegerTuple(low), TupleUtils.createIntegerTuple(high),
+                lowInclusive, highInclusive, cmp, cmp);
+    }
+
+    private int count(ILSMIndexAccessor accessor, int low, int high) throws Exception {
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, createPredicate(low, true, high, true));
+        int count = 0;
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexTupleReference;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.IndexOperation;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeDiskComponent;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeOpContext;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeRangePartitionedMergeCursor;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeRangeSearchCursor;
+import org.apache.hyracks.storage.am.lsm.btree.tuples.LSMBTreeTupleReference;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpOperationTrackerProvider;
+
+/**
+ * Checks that merging key-range slices in parallel yields the same tuples, antimatter tuples included, as merging the
+ * components sequentially, whether the components are combined with a priority queue or a tournament tree, and that
+ * the failure of a slice is reported to the merge. Also checks flushes, merges and bulk loads whose components are
+ * loaded with the leaves written in parallel, and that the threads of both go away when the index is deactivated.
+ */
+@SuppressWarnings("rawtypes")
+public class LSMBTreeParallelMergeTest {
+    private static final int NUM_BULK_LOADED = 20000;
+    private static final int NUM_SLICES = 4;
+    // Every INSERT_STRIDE-th odd key is inserted and every DELETE_STRIDE-th key is deleted.
+    private static final int INSERT_STRIDE = 41;
+    private static final int DELETE_STRIDE = 79;
+
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE };
+    private final IBinaryComparatorFactory[] cmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1);
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final BlockingIOOperationCallbackWrapper ioOpCallback = new BlockingIOOperationCallbackWrapper(
+            NoOpIOOperationCallback.INSTANCE);
+    private LSMBTree lsmBTree;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+        lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(),
+                SerdeUtils.serdesToTypeTraits(fieldSerdes), cmpFactories, new int[] { 0 },
+                harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                NoOpOperationTrackerProvider.INSTANCE.getOperationTracker(null), harness.getIOScheduler(),
+                harness.getIOOperationCallback(), true, null, null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+        // Fewer threads than slices, so that some slices wait for others to complete.
+        executor = Executors.newFixedThreadPool(2);
+        loadComponents();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        harness.tearDown();
+    }
+
+    /**
+     * Creates a bulk loaded component with the even keys, a flushed component with the odd keys and a flushed
+     * component that deletes some of both.
+     */
+    private void loadComponents() throws Exception {
+        IIndexBulkLoader bulkLoader = lsmBTree.createBulkLoader(1.0f, false, NUM_BULK_LOADED, true);
+        for (int i = 0; i < NUM_BULK_LOADED; i++) {
+            bulkLoader.add(TupleUtils.createIntegerTuple(2 * i, i));
+        }
+        bulkLoader.end();
+        ILSMIndexAccessor accessor = createAccessor();
+        for (int i = 0; i < NUM_BULK_LOADED; i += INSERT_STRIDE) {
+            accessor.insert(TupleUtils.createIntegerTuple(2 * i + 1, i));
+        }
+        flush(accessor);
+        for (int i = 0; i < 2 * NUM_BULK_LOADED; i += DELETE_STRIDE) {
+            accessor.delete(TupleUtils.createIntegerTuple(i, i / 2));
+        }
+        flush(accessor);
+        Assert.assertEquals(3, lsmBTree.getImmutableComponents().size());
+    }
+
+    @Test
+    public void parallelMergeReturnsSerialMergeOutput() throws Exception {
+        List<ILSMComponent> components = lsmBTree.getImmutableComponents();
+        List<ITupleReference> separators = LSMBTreeRangePartitionedMergeCursor.getSeparators(components,
+                cmpFactories, NUM_SLICES);
+        Assert.assertEquals(NUM_SLICES - 1, separators.size());
+        for (boolean returnDeletedTuples : new boolean[] { true, false }) {
+            LSMBTreeOpContext opCtx = createMergeContext(components);
+            LSMBTreeRangeSearchCursor serialCursor = new LSMBTreeRangeSearchCursor(opCtx, returnDeletedTuples);
+            lsmBTree.search(opCtx, serialCursor, new RangePredicate(null, null, true, true, null, null));
+            List<String> expected = drain(serialCursor);
+            Assert.assertFalse(serialCursor.isUseTournamentTree());
+            Assert.assertEquals(returnDeletedTuples, expected.contains("0-"));
+
+            // Merging the components with the tournament tree gives the same result.
+            lsmBTree.setUseTournamentTree(true);
+            opCtx = createMergeContext(components);
+            serialCursor = new LSMBTreeRangeSearchCursor(opCtx, returnDeletedTuples);
+            lsmBTree.search(opCtx, serialCursor, new RangePredicate(null, null, true, true, null, null));
+            Assert.assertTrue(serialCursor.isUseTournamentTree());
+            Assert.assertEquals(expected, drain(serialCursor));
+            lsmBTree.setUseTournamentTree(false);
+
+            LSMBTreeRangePartitionedMergeCursor parallelCursor = new LSMBTreeRangePartitionedMergeCursor(lsmBTree,
+                    components, separators, returnDeletedTuples, createMergedTuple(components), executor);
+            Assert.assertEquals(NUM_SLICES, parallelCursor.getNumSlices());
+            parallelCursor.open(null, null);
+            Assert.assertEquals(expected, drain(parallelCursor));
+        }
+    }
+
+    @Test
+    public void parallelMergeOfTheIndex() throws Exception {
+        lsmBTree.setMergeParallelism(NUM_SLICES);
+        ILSMIndexAccessor accessor = createAccessor();
+        accessor.scheduleMerge(ioOpCallback, lsmBTree.getImmutableComponents());
+        ioOpCallback.waitForIO();
+        Assert.assertEquals(1, lsmBTree.getImmutableComponents().size());
+
+        List<String> expected = new ArrayList<String>();
+        for (int key = 0; key < 2 * NUM_BULK_LOADED; key++) {
+            boolean inserted = key % 2 == 0 || (key / 2) % INSERT_STRIDE == 0;
+            if (inserted && key % DELETE_STRIDE != 0) {
+                expected.add(key + "," + key / 2);
+            }
+        }
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, new RangePredicate(null, null, true, true, null, null));
+        Assert.assertEquals(expected, drain(cursor));
+    }
+
+    @Test
+    public void parallelBulkLoadOfFlushAndMerge() throws Exception {
+        // Two buffered pages, so that the flush and the merge wait for leaves to be written.
+        lsmBTree.setBulkLoadParallelism(3, 2);
+        Assert.assertEquals(3, lsmBTree.getBulkLoadParallelism());
+        ILSMIndexAccessor accessor = createAccessor();
+        for (int i = 1; i < NUM_BULK_LOADED; i += INSERT_STRIDE) {
+            accessor.insert(TupleUtils.createIntegerTuple(2 * i + 1, i));
+        }
+        flush(accessor);
+        Assert.assertEquals(4, lsmBTree.getImmutableComponents().size());
+        List<String> expected = new ArrayList<String>();
+        for (int key = 0; key < 2 * NUM_BULK_LOADED; key++) {
+            int i = key / 2;
+            boolean inserted = key % 2 == 0 || i % INSERT_STRIDE == 0 || i % INSERT_STRIDE == 1;
+            // The deletes were flushed before the last inserts, which replace them.
+            if (inserted && (key % DELETE_STRIDE != 0 || (key % 2 == 1 && i % INSERT_STRIDE == 1))) {
+                expected.add(key + "," + i);
+            }
+        }
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, new RangePredicate(null, null, true, true, null, null));
+        Assert.assertEquals(expected, drain(cursor));
+
+        accessor.scheduleMerge(ioOpCallback, lsmBTree.getImmutableComponents());
+        ioOpCallback.waitForIO();
+        Assert.assertEquals(1, lsmBTree.getImmutableComponents().size());
+        cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, new RangePredicate(null, null, true, true, null, null));
+        Assert.assertEquals(expected, drain(cursor));
+    }
+
+    @Test
+    public void parallelBulkLoadOfAComponent() throws Exception {
+        // The path of the bulk load operator; a single buffered page makes every leaf wait for the previous one.
+        List<Thread> threads = new ArrayList<Thread>();
+        lsmBTree.setThreadFactory(createRecordingThreadFactory(threads));
+        lsmBTree.setBulkLoadParallelism(2, 1);
+        IIndexBulkLoader bulkLoader = lsmBTree.createBulkLoader(0.7f, true, NUM_BULK_LOADED, false);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < NUM_BULK_LOADED; i++) {
+            bulkLoader.add(TupleUtils.createIntegerTuple(2 * NUM_BULK_LOADED + i, i));
+            expected.add((2 * NUM_BULK_LOADED + i) + "," + i);
+        }
+        bulkLoader.end();
+        Assert.assertEquals(4, lsmBTree.getImmutableComponents().size());
+        Assert.assertFalse(threads.isEmpty());
+
+        ILSMIndexAccessor accessor = createAccessor();
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, new RangePredicate(null, null, true, true, null, null));
+        List<String> tuples = drain(cursor);
+        Assert.assertEquals(expected, tuples.subList(tuples.size() - NUM_BULK_LOADED, tuples.size()));
+    }
+
+    @Test
+    public void threadPoolsStopWhenTheIndexIsDeactivated() throws Exception {
+        List<Thread> threads = new ArrayList<Thread>();
+        lsmBTree.setThreadFactory(createRecordingThreadFactory(threads));
+        lsmBTree.setMergeParallelism(NUM_SLICES);
+        lsmBTree.setBulkLoadParallelism(2, 2);
+        ILSMIndexAccessor accessor = createAccessor();
+        accessor.scheduleMerge(ioOpCallback, lsmBTree.getImmutableComponents());
+        ioOpCallback.waitForIO();
+        Assert.assertEquals(1, lsmBTree.getImmutableComponents().size());
+        Assert.assertFalse(threads.isEmpty());
+
+        lsmBTree.deactivate();
+        for (Thread thread : threads) {
+            thread.join(10000);
+            Assert.assertFalse(thread.isAlive());
+        }
+        lsmBTree.activate();
+    }
+
+    @Test
+    public void sliceFailureIsPropagated() throws Exception {
+        List<ILSMComponent> components = lsmBTree.getImmutableComponents();
+        List<ITupleReference> separators = new ArrayList<ITupleReference>();
+        separators.add(TupleUtils.createIntegerTuple(NUM_BULK_LOADED / 2));
+        separators.add(new ITupleReference() {
+            @Override
+            public int getFieldCount() {
+                return 1;
+            }
+
+            @Override
+            public byte[] getFieldData(int fIdx) {
+                throw new IllegalStateException("broken separator");
+            }
+
+            @Override
+            public int getFieldStart(int fIdx) {
+                return 0;
+            }
+
+            @Override
+            public int getFieldLength(int fIdx) {
+                return 4;
+            }
+        });
+        LSMBTreeRangePartitionedMergeCursor cursor = new LSMBTreeRangePartitionedMergeCursor(lsmBTree, components,
+                separators, true, createMergedTuple(components), executor);
+        cursor.open(null, null);
+        int count = 0;
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+            Assert.fail("The failure of a slice was not reported");
+        } catch (HyracksDataException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        } finally {
+            cursor.close();
+        }
+        // The tuples of the first slice, which does not use the broken separator, are returned before the failure.
+        Assert.assertTrue(count > 0);
+    }
+
+    private LSMBTreeOpContext createMergeContext(List<ILSMComponent> components) {
+        LSMBTreeOpContext opCtx = lsmBTree.createOpContext(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        opCtx.setOperation(IndexOperation.MERGE);
+        opCtx.getComponentHolder().addAll(components);
+        return opCtx;
+    }
+
+    private ITreeIndexTupleReference createMergedTuple(List<ILSMComponent> components) {
+        return ((LSMBTreeDiskComponent) components.get(0)).getBTree().getLeafFrameFactory().createFrame()
+                .createTupleReference();
+    }
+
+    private static ThreadFactory createRecordingThreadFactory(final List<Thread> threads) {
+        return new ThreadFactory() {
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                threads.add(thread);
+                return thread;
+            }
+        };
+    }
+
+    private ILSMIndexAccessor createAccessor() {
+        return (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+    }
+
+    private void flush(ILSMIndexAccessor accessor) throws Exception {
+        accessor.scheduleFlush(ioOpCallback);
+        ioOpCallback.waitForIO();
+    }
+
+    /**
+     * Returns the tuples of the cursor as "key,value" strings, with a "-" suffix for antimatter tuples.
+     */
+    private static List<String> drain(IIndexCursor cursor) throws Exception {
+        List<String> tuples = new ArrayList<String>();
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                ITupleReference tuple = cursor.getTuple();
+                String s = String.valueOf(IntegerPointable.getInteger(tuple.getFieldData(0), tuple.getFieldStart(0)));
+                if (tuple instanceof LSMBTreeTupleReference && ((LSMBTreeTupleReference) tuple).isAntimatter()) {
+                    s += "-";
+                } else {
+                    s += "," + IntegerPointable.getInteger(tuple.getFieldData(1), tuple.getFieldStart(1));
+                }
+                tuples.add(s);
+            }
+        } finally {
+            cursor.close();
+        }
+        return tuples;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTreeDiskComponent;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.AbstractLSMIndexFileManager;
+import org.apache.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentStatistics;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpOperationTrackerProvider;
+
+/**
+ * Checks the statistics that bulk loads, flushes and merges keep for the components of a secondary index on
+ * (secondary key, primary key), that entries written to several components count once, and that the statistics are
+ * read when the index is activated.
+ */
+@SuppressWarnings("rawtypes")
+public class LSMBTreeStatisticsTest {
+    private static final int NUM_BULK_LOADED = 4000;
+    private static final int NUM_INSERTED = 400;
+    private static final int NUM_SECONDARY_KEYS = 1000;
+
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE };
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final BlockingIOOperationCallbackWrapper ioOpCallback = new BlockingIOOperationCallbackWrapper(
+            NoOpIOOperationCallback.INSTANCE);
+    private LSMBTree lsmBTree;
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+        // The bloom filter key, i.e. the secondary key, is the key whose distinct values are counted.
+        lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(),
+                SerdeUtils.serdesToTypeTraits(fieldSerdes), SerdeUtils.serdesToComparatorFactories(fieldSerdes, 2),
+                new int[] { 0 }, harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                NoOpOperationTrackerProvider.INSTANCE.getOperationTracker(null), harness.getIOScheduler(),
+                harness.getIOOperationCallback(), false, null, null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        harness.tearDown();
+    }
+
+    @Test
+    public void statisticsTest() throws Exception {
+        // Primary keys 0 .. NUM_BULK_LOADED - 1, four per secondary key.
+        IIndexBulkLoader bulkLoader = lsmBTree.createBulkLoader(1.0f, false, NUM_BULK_LOADED, true);
+        for (int pk = 0; pk < NUM_BULK_LOADED; pk++) {
+            bulkLoader.add(TupleUtils.createIntegerTuple(pk / 4, pk));
+        }
+        bulkLoader.end();
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        // Entries with new secondary keys, then the deletion of some bulk loaded ones.
+        for (int i = 0; i < NUM_INSERTED; i++) {
+            accessor.insert(TupleUtils.createIntegerTuple(NUM_SECONDARY_KEYS + i, NUM_BULK_LOADED + i));
+        }
+        flush(accessor);
+        for (int pk = 0; pk < 100; pk++) {
+            accessor.delete(TupleUtils.createIntegerTuple(pk / 4, pk));
+        }
+        flush(accessor);
+        // Bulk loaded entries written again, e.g. by updates that keep their keys.
+        for (int pk = 1000; pk < 1400; pk++) {
+            accessor.insert(TupleUtils.createIntegerTuple(pk / 4, pk));
+        }
+        flush(accessor);
+
+        List<ILSMComponent> components = lsmBTree.getImmutableComponents();
+        Assert.assertEquals(4, components.size());
+        Assert.assertEquals(400, ((LSMBTreeDiskComponent) components.get(0)).getStatistics().getTupleCount());
+        LSMComponentStatistics deletes = ((LSMBTreeDiskComponent) components.get(1)).getStatistics();
+        Assert.assertEquals(0, deletes.getTupleCount());
+        Assert.assertEquals(100, deletes.getAntimatterCount());
+        Assert.assertEquals(NUM_INSERTED, ((LSMBTreeDiskComponent) components.get(2)).getStatistics()
+                .getTupleCount());
+        Assert.assertEquals(NUM_BULK_LOADED, ((LSMBTreeDiskComponent) components.get(3)).getStatistics()
+                .getTupleCount());
+        checkEstimates(NUM_BULK_LOADED + NUM_INSERTED - 100);
+
+        accessor.scheduleMerge(ioOpCallback, lsmBTree.getImmutableComponents());
+        ioOpCallback.waitForIO();
+        Assert.assertEquals(1, lsmBTree.getImmutableComponents().size());
+        Assert.assertEquals(0, ((LSMBTreeDiskComponent) lsmBTree.getImmutableComponents().get(0)).getStatistics()
+                .getAntimatterCount());
+        checkEstimates(NUM_BULK_LOADED + NUM_INSERTED - 100);
+
+        // The statistics of the merged component are read back from its statistics file when the index is activated,
+        // so estimates no longer need the file.
+        lsmBTree.deactivate();
+        lsmBTree.activate();
+        for (ILSMComponent c : lsmBTree.getImmutableComponents()) {
+            File statisticsFile = AbstractLSMIndexFileManager.getStatisticsFileReference(
+                    ((LSMBTreeDiskComponent) c).getBTree().getFileReference()).getFile();
+            Assert.assertTrue(statisticsFile.delete());
+        }
+        checkEstimates(NUM_BULK_LOADED + NUM_INSERTED - 100);
+    }
+
+    private void checkEstimates(long expectedCardinality) throws Exception {
+        long cardinality = lsmBTree.estimateCardinality();
+        Assert.assertTrue("estimated " + cardinality, Math.abs(cardinality - expectedCardinality) < 0.05
+                * expectedCardinality);
+        long distinctKeys = NUM_SECONDARY_KEYS + NUM_INSERTED;
+        Assert.assertTrue(Math.abs(lsmBTree.estimateDistinctKeys() - distinctKeys) < 0.05 * distinctKeys);
+        long inserted = lsmBTree.estimateRangeCardinality(TupleUtils.createIntegerTuple(NUM_SECONDARY_KEYS), true,
+                null, true);
+        Assert.assertTrue("estimated " + inserted, Math.abs(inserted - NUM_INSERTED) < 0.2 * NUM_INSERTED);
+        long upperHalf = lsmBTree.estimateRangeCardinality(TupleUtils.createIntegerTuple(NUM_SECONDARY_KEYS / 2),
+                true, TupleUtils.createIntegerTuple(NUM_SECONDARY_KEYS), false);
+        Assert.assertTrue("estimated " + upperHalf, Math.abs(upperHalf - NUM_BULK_LOADED / 2) < 0.1 * NUM_BULK_LOADED);
+    }
+
+    private void flush(ILSMIndexAccessor accessor) throws Exception {
+        accessor.scheduleFlush(ioOpCallback);
+        ioOpCallback.waitForIO();
+    }
+}
@@ -37,7 +37,7 @@ import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
 
 public class LSMBTreeMultiThreadTest extends OrderedIndexMultiThreadTest {
 
-    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    protected final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
 
     private final LSMBTreeTestWorkerFactory workerFactory = new LSMBTreeTestWorkerFactory();
 
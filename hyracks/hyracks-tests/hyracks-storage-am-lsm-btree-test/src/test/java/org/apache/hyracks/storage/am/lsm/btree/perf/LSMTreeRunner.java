@@ -34,16 +34,22 @@ import org.apache.hyracks.api.exceptions.HyracksException;
 import org.apache.hyracks.api.io.FileReference;
 import org.apache.hyracks.control.nc.io.IOManager;
 import org.apache.hyracks.storage.am.btree.exceptions.BTreeException;
+import org.apache.hyracks.storage.am.btree.impls.RangePredicate;
 import org.apache.hyracks.storage.am.common.api.IIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
 import org.apache.hyracks.storage.am.common.api.TreeIndexException;
 import org.apache.hyracks.storage.am.common.datagen.DataGenThread;
 import org.apache.hyracks.storage.am.common.datagen.TupleBatch;
 import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
 import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import org.apache.hyracks.storage.am.lsm.btree.impls.LSMBTree.LSMBTreeAccessor;
 import org.apache.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
 import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
 import org.apache.hyracks.storage.am.lsm.common.api.IVirtualBufferCache;
 import org.apache.hyracks.storage.am.lsm.common.impls.AsynchronousScheduler;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMAmplificationCounters;
 import org.apache.hyracks.storage.am.lsm.common.impls.NoMergePolicy;
 import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
 import org.apache.hyracks.storage.am.lsm.common.impls.ThreadCountingTracker;
@@ -87,6 +93,13 @@ public class LSMTreeRunner implements IExperimentRunner {
     public LSMTreeRunner(int numBatches, int inMemPageSize, int inMemNumPages, int onDiskPageSize, int onDiskNumPages,
             ITypeTraits[] typeTraits, IBinaryComparatorFactory[] cmpFactories, int[] bloomFilterKeyFields,
             double bloomFilterFalsePositiveRate) throws BTreeException, HyracksException {
+        this(numBatches, inMemPageSize, inMemNumPages, onDiskPageSize, onDiskNumPages, typeTraits, cmpFactories,
+                bloomFilterKeyFields, bloomFilterFalsePositiveRate, new NoMergePolicy());
+    }
+
+    public LSMTreeRunner(int numBatches, int inMemPageSize, int inMemNumPages, int onDiskPageSize, int onDiskNumPages,
+            ITypeTraits[] typeTraits, IBinaryComparatorFactory[] cmpFactories, int[] bloomFilterKeyFields,
+            double bloomFilterFalsePositiveRate, ILSMMergePolicy mergePolicy) throws BTreeException, HyracksException {
         this.numBatches = numBatches;
 
         this.onDiskPageSize = onDiskPageSize;
@@ -113,7 +126,7 @@ public class LSMTreeRunner implements IExperimentRunner {
         AsynchronousScheduler.INSTANCE.init(threadFactory);
 
         lsmtree = LSMBTreeUtils.createLSMTree(virtualBufferCaches, file, bufferCache, fmp, typeTraits, cmpFactories,
-                bloomFilterKeyFields, bloomFilterFalsePositiveRate, new NoMergePolicy(), new ThreadCountingTracker(),
+                bloomFilterKeyFields, bloomFilterFalsePositiveRate, mergePolicy, new ThreadCountingTracker(),
                 ioScheduler, NoOpIOOperationCallback.INSTANCE, true, null, null, null, null, true);
     }
 
@@ -160,12 +173,114 @@ public class LSMTreeRunner implements IExperimentRunner {
 
         lsmtree.create();
         lsmtree.activate();
+        lsmtree.getAmplificationCounters().reset();
+    }
+
+    /**
+     * Looks up the keys of the given number of batches, one at a time.
+     *
+     * @return the time it took to perform all lookups in milliseconds
+     */
+    public long runPointQueries(DataGenThread dataGen, int numThreads, int numQueryBatches) throws Exception {
+        LSMTreeQueryThread[] threads = new LSMTreeQueryThread[numThreads];
+        int threadNumBatches = numQueryBatches / numThreads;
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new LSMTreeQueryThread(dataGen, lsmtree, threadNumBatches);
+        }
+        while (dataGen.tupleBatchQueue.remainingCapacity() != 0) {
+            Thread.sleep(10);
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numThreads; i++) {
+            threads[i].start();
+        }
+        for (int i = 0; i < numThreads; i++) {
+            threads[i].join();
+        }
+        long end = System.currentTimeMillis();
+        return end - start;
+    }
+
+    /**
+     * Scans the whole index the given number of times.
+     *
+     * @return the time it took to perform all scans in milliseconds
+     */
+    public long runRangeScans(int numScans) throws Exception {
+        LSMBTreeAccessor lsmTreeAccessor = (LSMBTreeAccessor) lsmtree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        IIndexCursor searchCursor = lsmTreeAccessor.createSearchCursor(false);
+        RangePredicate rangePred = new RangePredicate(null, null, true, true, null, null);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numScans; i++) {
+            searchCursor.reset();
+            lsmTreeAccessor.search(searchCursor, rangePred);
+            try {
+                while (searchCursor.hasNext()) {
+                    searchCursor.next();
+                }
+            } finally {
+                searchCursor.close();
+            }
+        }
+        long end = System.currentTimeMillis();
+        return end - start;
+    }
+
+    public int getNumDiskComponents() {
+        return lsmtree.getImmutableComponents().size();
+    }
+
+    public LSMAmplificationCounters getAmplificationCounters() {
+        return lsmtree.getAmplificationCounters();
     }
 
     @Override
     public void deinit() throws Exception {
     }
 
+    public class LSMTreeQueryThread extends Thread {
+        private final DataGenThread dataGen;
+        private final int numBatches;
+        private final LSMBTreeAccessor lsmTreeAccessor;
+
+        public LSMTreeQueryThread(DataGenThread dataGen, LSMBTree lsmTree, int numBatches) {
+            this.dataGen = dataGen;
+            this.numBatches = numBatches;
+            lsmTreeAccessor = (LSMBTreeAccessor) lsmTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                    NoOpOperationCallback.INSTANCE);
+        }
+
+        @Override
+        public void run() {
+            try {
+                IIndexCursor searchCursor = lsmTreeAccessor.createSearchCursor(false);
+                MultiComparator cmp = lsmTreeAccessor.getMultiComparator();
+                RangePredicate rangePred = new RangePredicate(null, null, true, true, cmp, cmp);
+                for (int i = 0; i < numBatches; i++) {
+                    TupleBatch batch = dataGen.tupleBatchQueue.take();
+                    for (int j = 0; j < batch.size(); j++) {
+                        searchCursor.reset();
+                        rangePred.setLowKey(batch.get(j), true);
+                        rangePred.setHighKey(batch.get(j), true);
+                        lsmTreeAccessor.search(searchCursor, rangePred);
+                        try {
+                            while (searchCursor.hasNext()) {
+                                searchCursor.next();
+                            }
+                        } finally {
+                            searchCursor.close();
+                        }
+                    }
+                    dataGen.releaseBatch(batch);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     public class LSMTreeThread extends Thread {
         private final DataGenThread dataGen;
         private final int numBatches;
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.perf;
+
+import java.util.Enumeration;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.storage.am.common.datagen.DataGenThread;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoMergePolicy;
+
+/**
+ * Compares the tournament tree and the priority queue LSM search cursors can merge their component cursors with.
+ * Ingests random keys into an LSM BTree with small memory components and no merges, so that the index ends up with
+ * many disk components, then times full scans with each merge structure. Random keys make every component cover the
+ * whole key space, sorted keys make the components disjoint so that each of them contributes one long run.
+ * Usage: MergeCursorPerf [numTuples] [numScans] [inMemNumPages] [sorted]
+ */
+public class MergeCursorPerf {
+    public static void main(String[] args) throws Exception {
+        // Disable logging so we can better see the output times.
+        Enumeration<String> loggers = LogManager.getLogManager().getLoggerNames();
+        while (loggers.hasMoreElements()) {
+            String loggerName = loggers.nextElement();
+            Logger logger = LogManager.getLogManager().getLogger(loggerName);
+            logger.setLevel(Level.OFF);
+        }
+        int numTuples = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int numScans = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int inMemNumPages = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        boolean sorted = args.length > 3 ? Boolean.parseBoolean(args[3]) : false;
+        int batchSize = 10000;
+        int numBatches = numTuples / batchSize;
+        int numRounds = 3;
+
+        int payLoadSize = 32;
+        ISerializerDeserializer[] fieldSerdes = new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE };
+        ITypeTraits[] typeTraits = SerdeUtils.serdesToTypeTraits(fieldSerdes, payLoadSize);
+
+        IBinaryComparatorFactory[] cmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes,
+                fieldSerdes.length);
+        int[] bloomFilterKeyFields = new int[cmpFactories.length];
+        for (int i = 0; i < bloomFilterKeyFields.length; i++) {
+            bloomFilterKeyFields[i] = i;
+        }
+        double bloomFilterFalsePositiveRate = 0.01;
+
+        int inMemPageSize = 131072; // 128kb
+        int onDiskPageSize = inMemPageSize;
+        int onDiskNumPages = 4096; // 512MB
+
+        LSMTreeRunner runner = new LSMTreeRunner(numBatches, inMemPageSize, inMemNumPages, onDiskPageSize,
+                onDiskNumPages, typeTraits, cmpFactories, bloomFilterKeyFields, bloomFilterFalsePositiveRate,
+                new NoMergePolicy());
+        runner.reset();
+        DataGenThread dataGen = new DataGenThread(1, numBatches, batchSize, fieldSerdes, payLoadSize, 50, 10, sorted);
+        dataGen.start();
+        runner.runExperiment(dataGen, 1);
+        System.out.println("COMPONENTS: " + runner.getNumDiskComponents());
+
+        // Alternate between the two structures so that both profit from a warm buffer cache and JIT.
+        for (int round = 0; round < numRounds; round++) {
+            runner.lsmtree.setUseTournamentTree(false);
+            long pqTime = runner.runRangeScans(numScans);
+            runner.lsmtree.setUseTournamentTree(true);
+            long treeTime = runner.runRangeScans(numScans);
+            System.out.println("ROUND " + round + ": PRIORITY QUEUE " + pqTime + " ms, TOURNAMENT TREE " + treeTime
+                    + " ms");
+        }
+        runner.reset();
+        runner.deinit();
+    }
+}
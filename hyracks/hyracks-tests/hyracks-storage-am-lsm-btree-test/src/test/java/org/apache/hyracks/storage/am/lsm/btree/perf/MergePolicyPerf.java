@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.btree.perf;
+
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.storage.am.common.datagen.DataGenThread;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.ConstantMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMAmplificationCounters;
+import org.apache.hyracks.storage.am.lsm.common.impls.LeveledMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.PrefixMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.SizeTieredMergePolicy;
+
+/**
+ * Compares merge policies by ingesting the same generated workload into an LSM BTree with each of them, then replaying
+ * the generated keys as point lookups. Reports ingest throughput, lookup latency and the write and read amplification
+ * of each policy.
+ * Usage: MergePolicyPerf [numTuples] [numQueries] [numThreads]
+ */
+public class MergePolicyPerf {
+    public static void main(String[] args) throws Exception {
+        // Disable logging so we can better see the output times.
+        Enumeration<String> loggers = LogManager.getLogManager().getLoggerNames();
+        while (loggers.hasMoreElements()) {
+            String loggerName = loggers.nextElement();
+            Logger logger = LogManager.getLogManager().getLogger(loggerName);
+            logger.setLevel(Level.OFF);
+        }
+        int numTuples = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int numQueries = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int batchSize = 10000;
+        int numBatches = numTuples / batchSize;
+        int numQueryBatches = numQueries / batchSize;
+        int rndSeed = 50;
+
+        int payLoadSize = 240;
+        ISerializerDeserializer[] fieldSerdes = new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE };
+        ITypeTraits[] typeTraits = SerdeUtils.serdesToTypeTraits(fieldSerdes, payLoadSize);
+
+        IBinaryComparatorFactory[] cmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes,
+                fieldSerdes.length);
+        int[] bloomFilterKeyFields = new int[cmpFactories.length];
+        for (int i = 0; i < bloomFilterKeyFields.length; i++) {
+            bloomFilterKeyFields[i] = i;
+        }
+        double bloomFilterFalsePositiveRate = 0.01;
+
+        int inMemPageSize = 131072; // 128kb
+        int onDiskPageSize = inMemPageSize;
+        int inMemNumPages = 256; // 32MB
+        int onDiskNumPages = 4096; // 512MB
+
+        for (Map.Entry<String, ILSMMergePolicy> e : createMergePolicies().entrySet()) {
+            LSMTreeRunner runner = new LSMTreeRunner(numBatches, inMemPageSize, inMemNumPages, onDiskPageSize,
+                    onDiskNumPages, typeTraits, cmpFactories, bloomFilterKeyFields, bloomFilterFalsePositiveRate,
+                    e.getValue());
+            runner.reset();
+            DataGenThread dataGen = new DataGenThread(numThreads, numBatches, batchSize, fieldSerdes, payLoadSize,
+                    rndSeed, 10, false);
+            dataGen.start();
+            long ingestTime = runner.runExperiment(dataGen, numThreads);
+            // Replay the keys that have been ingested.
+            DataGenThread queryGen = new DataGenThread(numThreads, numQueryBatches, batchSize, fieldSerdes,
+                    payLoadSize, rndSeed, 10, false);
+            queryGen.start();
+            long queryTime = runner.runPointQueries(queryGen, numThreads, numQueryBatches);
+            LSMAmplificationCounters counters = runner.getAmplificationCounters();
+            System.out.println(e.getKey() + ": INGEST " + (numTuples * 1000L / Math.max(1, ingestTime))
+                    + " tuples/s, LOOKUP " + (queryTime * 1000.0 / Math.max(1, numQueries)) + " us, WRITE AMP "
+                    + counters.getWriteAmplification() + ", READ AMP " + counters.getReadAmplification() + ", "
+                    + counters.getMergeCount() + " merges");
+            runner.reset();
+            runner.deinit();
+        }
+    }
+
+    private static Map<String, ILSMMergePolicy> createMergePolicies() {
+        Map<String, ILSMMergePolicy> policies = new LinkedHashMap<String, ILSMMergePolicy>();
+        policies.put("no-merge", new NoMergePolicy());
+
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("max-mergable-component-size", String.valueOf(1L << 30));
+        properties.put("max-tolerance-component-count", "5");
+        ILSMMergePolicy prefix = new PrefixMergePolicy();
+        prefix.configure(properties);
+        policies.put("prefix", prefix);
+
+        properties = new HashMap<String, String>();
+        properties.put("num-components", "5");
+        ILSMMergePolicy constant = new ConstantMergePolicy();
+        constant.configure(properties);
+        policies.put("constant", constant);
+
+        properties = new HashMap<String, String>();
+        properties.put("size-ratio", "2");
+        properties.put("min-merge-component-count", "4");
+        properties.put("max-merge-component-count", "10");
+        ILSMMergePolicy sizeTiered = new SizeTieredMergePolicy();
+        sizeTiered.configure(properties);
+        policies.put("size-tiered", sizeTiered);
+
+        properties = new HashMap<String, String>();
+        properties.put("size-ratio", "10");
+        ILSMMergePolicy leveled = new LeveledMergePolicy();
+        leveled.configure(properties);
+        policies.put("leveled", leveled);
+        return policies;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.IModificationOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ISearchOperationCallback;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMOperationTracker;
+import org.apache.hyracks.storage.am.lsm.common.api.LSMOperationType;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMAmplificationCounters;
+import org.apache.hyracks.storage.common.buffercache.IBufferCache;
+
+/**
+ * An LSM index that only has a list of disk components, and that is its own accessor. It records the merges scheduled
+ * on it instead of running them; every other operation is unsupported.
+ */
+public class DummyLSMIndex implements ILSMIndex, ILSMIndexAccessor {
+    private final List<ILSMComponent> components;
+
+    private final List<List<ILSMComponent>> scheduledMerges;
+
+    private int fullMergeCount;
+
+    public DummyLSMIndex(List<ILSMComponent> components) {
+        this.components = components;
+        scheduledMerges = new ArrayList<List<ILSMComponent>>();
+    }
+
+    public List<List<ILSMComponent>> getScheduledMerges() {
+        return scheduledMerges;
+    }
+
+    public int getFullMergeCount() {
+        return fullMergeCount;
+    }
+
+    @Override
+    public List<ILSMComponent> getImmutableComponents() {
+        return components;
+    }
+
+    @Override
+    public ILSMIndexAccessor createAccessor(IModificationOperationCallback modificationCallback,
+            ISearchOperationCallback searchCallback) {
+        return this;
+    }
+
+    @Override
+    public ILSMIOOperationCallback getIOOperationCallback() {
+        return null;
+    }
+
+    @Override
+    public void scheduleMerge(ILSMIOOperationCallback callback, List<ILSMComponent> components) {
+        scheduledMerges.add(components);
+    }
+
+    @Override
+    public void scheduleFullMerge(ILSMIOOperationCallback callback) {
+        fullMergeCount++;
+    }
+
+    @Override
+    public void create() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void activate() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deactivate() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deactivate(boolean flushOnExit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void destroy() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void validate() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IBufferCache getBufferCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getMemoryAllocationSize() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IIndexBulkLoader createBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint,
+            boolean checkIfEmptyIndex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasMemoryComponents() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ILSMOperationTracker getOperationTracker() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ILSMIOOperationScheduler getIOScheduler() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isPrimaryIndex() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LSMAmplificationCounters getAmplificationCounters() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void scheduleFlush(ILSMIOOperationCallback callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void insert(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void update(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void upsert(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IIndexCursor createSearchCursor(boolean exclusive) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void search(IIndexCursor cursor, ISearchPredicate searchPred) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void physicalDelete(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryInsert(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryDelete(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryUpdate(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean tryUpsert(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void forcePhysicalDelete(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void forceInsert(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void forceDelete(ITupleReference tuple) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void scheduleReplication(List<ILSMComponent> lsmComponents, boolean bulkload, LSMOperationType opType) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparator;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.lsm.common.impls.HyperLogLog;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMComponentStatistics;
+
+public class LSMComponentStatisticsTest {
+
+    private final IBinaryComparator cmp = PointableBinaryComparatorFactory.of(IntegerPointable.FACTORY)
+            .createBinaryComparator();
+
+    @Test
+    public void hyperLogLogTest() {
+        Random rnd = new Random(7);
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 100000; i++) {
+            long hash = rnd.nextLong();
+            first.add(hash);
+            // Every value is added twice, duplicates must not count.
+            first.add(hash);
+            if (i >= 50000) {
+                second.add(hash);
+            }
+        }
+        assertWithin(100000, first.estimate(), 0.05);
+        assertWithin(50000, second.estimate(), 0.05);
+        second.merge(first);
+        assertWithin(100000, second.estimate(), 0.05);
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    public void histogramTest() throws Exception {
+        // Keys 0, 2, 4, ..., each with three secondary entries.
+        int numKeys = 5000;
+        LSMComponentStatistics.Builder builder = new LSMComponentStatistics.Builder(new int[] { 0 }, 16);
+        for (int i = 0; i < numKeys; i++) {
+            for (int j = 0; j < 3; j++) {
+                builder.add(TupleUtils.createIntegerTuple(2 * i, j));
+            }
+        }
+        LSMComponentStatistics statistics = builder.build();
+        assertEquals(3 * numKeys, statistics.getTupleCount());
+        assertEquals(0, statistics.getAntimatterCount());
+        assertTrue(statistics.getNumBuckets() >= 16 && statistics.getNumBuckets() <= 32);
+        assertWithin(numKeys, statistics.estimateDistinctKeys(), 0.05);
+        checkRanges(statistics, numKeys);
+
+        File file = File.createTempFile("lsm-statistics", null);
+        try {
+            FileReference fileRef = new FileReference(file);
+            statistics.write(fileRef);
+            LSMComponentStatistics readStatistics = LSMComponentStatistics.read(fileRef);
+            assertEquals(statistics.getTupleCount(), readStatistics.getTupleCount());
+            assertEquals(statistics.getNumBuckets(), readStatistics.getNumBuckets());
+            assertEquals(statistics.estimateDistinctKeys(), readStatistics.estimateDistinctKeys());
+            checkRanges(readStatistics, numKeys);
+        } finally {
+            file.delete();
+        }
+        assertNull(LSMComponentStatistics.read(new FileReference(file)));
+    }
+
+    @Test
+    public void corruptFileTest() throws Exception {
+        LSMComponentStatistics.Builder builder = new LSMComponentStatistics.Builder(new int[] { 0 }, 4);
+        for (int i = 0; i < 100; i++) {
+            builder.add(TupleUtils.createIntegerTuple(i));
+        }
+        File dir = Files.createTempDirectory("lsm-statistics").toFile();
+        File file = new File(dir, "statistics");
+        try {
+            FileReference fileRef = new FileReference(file);
+            builder.build().write(fileRef);
+            // The temporary file has been renamed over the target.
+            assertEquals(1, dir.list().length);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            assertEquals(100, LSMComponentStatistics.read(fileRef).getTupleCount());
+
+            // Every truncation of the file, including an empty one, reads as no statistics.
+            for (int length = 0; length < bytes.length; length++) {
+                Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+                assertNull(LSMComponentStatistics.read(fileRef));
+            }
+            byte[] badMagic = bytes.clone();
+            badMagic[0] ^= 1;
+            Files.write(file.toPath(), badMagic);
+            assertNull(LSMComponentStatistics.read(fileRef));
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length + 1));
+            assertNull(LSMComponentStatistics.read(fileRef));
+
+            // A new write replaces the corrupt file.
+            builder.build().write(fileRef);
+            assertEquals(100, LSMComponentStatistics.read(fileRef).getTupleCount());
+            assertEquals(1, dir.list().length);
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        LSMComponentStatistics statistics = new LSMComponentStatistics.Builder(new int[] { 0 }).build();
+        assertEquals(0, statistics.getTupleCount());
+        assertEquals(0, statistics.getNumBuckets());
+        assertEquals(0, statistics.estimateRangeCardinality(null, true, null, true, cmp));
+    }
+
+    private void checkRanges(LSMComponentStatistics statistics, int numKeys) throws Exception {
+        long total = 3L * numKeys;
+        // A bucket holds at most 1/16th of the tuples, and only the two buckets at the ends of a range are guessed.
+        double tolerance = 2.0 / 16;
+        assertEquals(total, statistics.estimateRangeCardinality(null, true, null, true, cmp));
+        assertWithin(total / 2, statistics.estimateRangeCardinality(null, true, key(numKeys), false, cmp), tolerance);
+        assertWithin(total / 4, statistics.estimateRangeCardinality(key(numKeys / 2), true, key(numKeys), false, cmp),
+                tolerance);
+        assertEquals(0, statistics.estimateRangeCardinality(key(-10), true, key(-1), true, cmp));
+        assertEquals(0, statistics.estimateRangeCardinality(key(2 * numKeys), true, null, true, cmp));
+    }
+
+    private static ITupleReference key(int value) throws Exception {
+        return TupleUtils.createIntegerTuple(value);
+    }
+
+    private static void assertWithin(long expected, long actual, double tolerance) {
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= tolerance
+                * Math.max(expected, 1) || (expected == 0 && actual == 0));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.common.api.ICursorInitialState;
+import org.apache.hyracks.storage.am.common.api.IIndexCursor;
+import org.apache.hyracks.storage.am.common.api.ISearchPredicate;
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor.PriorityQueueElement;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeTournamentTree;
+
+public class LSMMergeTournamentTreeTest {
+
+    private static final int NUM_RUNS = 200;
+
+    private final LSMIndexSearchCursor cursor = new LSMIndexSearchCursor(null, false) {
+        @Override
+        public void open(ICursorInitialState initialState, ISearchPredicate searchPred) {
+        }
+    };
+
+    /**
+     * Merges sorted runs the way LSM search cursors do and checks that the tournament tree returns the same sequence
+     * as a priority queue using the same comparator.
+     */
+    private void testMerge(int numCursors, int maxRunLength, int maxKeyGap, long seed) {
+        Random rnd = new Random(seed);
+        int[][] runs = new int[numCursors][];
+        for (int i = 0; i < numCursors; i++) {
+            runs[i] = new int[rnd.nextInt(maxRunLength + 1)];
+            int key = 0;
+            for (int j = 0; j < runs[i].length; j++) {
+                key += rnd.nextInt(maxKeyGap + 1);
+                runs[i][j] = key;
+            }
+        }
+        int[] expectedPositions = new int[numCursors];
+        List<Integer> expected = merge(new PriorityQueue<PriorityQueueElement>(numCursors, new KeyComparator(runs,
+                expectedPositions)), runs, expectedPositions, new Random(seed));
+        int[] actualPositions = new int[numCursors];
+        List<Integer> actual = merge(new LSMMergeTournamentTree(numCursors, new KeyComparator(runs, actualPositions)),
+                runs, actualPositions, new Random(seed));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Polls the head, peeks at the next one and re-inserts the polled element after advancing its run, occasionally
+     * taking an element out through the iterator and putting it back like LSMBTreeRangeSearchCursor does.
+     * Returns the sequence of (cursor, key) pairs encoded as cursor * 2^20 + key.
+     */
+    private List<Integer> merge(Queue<PriorityQueueElement> queue, int[][] runs, int[] positions, Random rnd) {
+        List<Integer> output = new ArrayList<Integer>();
+        for (int i = 0; i < runs.length; i++) {
+            if (runs[i].length > 0) {
+                queue.offer(cursor.new PriorityQueueElement(i));
+            }
+        }
+        while (!queue.isEmpty()) {
+            if (rnd.nextInt(10) == 0) {
+                int victim = rnd.nextInt(runs.length);
+                Iterator<PriorityQueueElement> it = queue.iterator();
+                while (it.hasNext()) {
+                    PriorityQueueElement e = it.next();
+                    if (e.getCursorIndex() == victim) {
+                        it.remove();
+                        queue.offer(e);
+                        break;
+                    }
+                }
+            }
+            PriorityQueueElement head = queue.poll();
+            int index = head.getCursorIndex();
+            output.add((index << 20) + runs[index][positions[index]]);
+            PriorityQueueElement next = queue.peek();
+            if (next != null) {
+                output.add((next.getCursorIndex() << 20) + runs[next.getCursorIndex()][positions[next
+                        .getCursorIndex()]]);
+            }
+            if (++positions[index] < runs[index].length) {
+                queue.offer(head);
+            }
+        }
+        assertNull(queue.poll());
+        return output;
+    }
+
+    /**
+     * A cursor without component cursors that exposes the structure it merges them with.
+     */
+    private static class EmptyMergeCursor extends LSMIndexSearchCursor {
+        public EmptyMergeCursor() {
+            super(null, false);
+        }
+
+        @Override
+        public void open(ICursorInitialState initialState, ISearchPredicate searchPred) {
+        }
+
+        public Queue<PriorityQueueElement> createQueue() throws HyracksDataException, IndexException {
+            rangeCursors = new IIndexCursor[0];
+            initPriorityQueue();
+            return outputPriorityQueue;
+        }
+    }
+
+    @Test
+    public void testQueueSelection() throws Exception {
+        EmptyMergeCursor mergeCursor = new EmptyMergeCursor();
+        assertFalse(mergeCursor.isUseTournamentTree());
+        assertTrue(mergeCursor.createQueue() instanceof PriorityQueue);
+        mergeCursor.setUseTournamentTree(true);
+        assertTrue(mergeCursor.createQueue() instanceof LSMMergeTournamentTree);
+        // The option belongs to the cursor.
+        assertTrue(new EmptyMergeCursor().createQueue() instanceof PriorityQueue);
+    }
+
+    @Test
+    public void testSingleCursor() {
+        testMerge(1, 100, 5, 1);
+    }
+
+    @Test
+    public void testDisjointRuns() {
+        // Large gaps make long runs from the same cursor, which exercises the runner-up shortcut.
+        for (int i = 0; i < NUM_RUNS; i++) {
+            testMerge(2 + i % 30, 200, 1000, i);
+        }
+    }
+
+    @Test
+    public void testDuplicateKeys() {
+        for (int i = 0; i < NUM_RUNS; i++) {
+            testMerge(2 + i % 30, 200, 2, i);
+        }
+    }
+
+    @Test
+    public void testHeadIsStable() {
+        PriorityQueueElement[] elements = new PriorityQueueElement[3];
+        int[][] runs = new int[][] { { 1, 2, 3 }, { 5 }, { 4 } };
+        int[] positions = new int[3];
+        LSMMergeTournamentTree tree = new LSMMergeTournamentTree(3, new KeyComparator(runs, positions));
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = cursor.new PriorityQueueElement(i);
+            tree.offer(elements[i]);
+        }
+        assertSame(elements[0], tree.peek());
+        assertSame(elements[0], tree.poll());
+        assertSame(elements[2], tree.peek());
+        positions[0]++;
+        tree.offer(elements[0]);
+        assertSame(elements[0], tree.peek());
+        assertEquals(3, tree.size());
+    }
+
+    private class KeyComparator implements Comparator<PriorityQueueElement> {
+        private final int[][] runs;
+        private final int[] positions;
+
+        public KeyComparator(int[][] runs, int[] positions) {
+            this.runs = runs;
+            this.positions = positions;
+        }
+
+        @Override
+        public int compare(PriorityQueueElement a, PriorityQueueElement b) {
+            int keyA = runs[a.getCursorIndex()][positions[a.getCursorIndex()]];
+            int keyB = runs[b.getCursorIndex()][positions[b.getCursorIndex()]];
+            if (keyA != keyB) {
+                return keyA < keyB ? -1 : 1;
+            }
+            return a.getCursorIndex() > b.getCursorIndex() ? 1 : -1;
+        }
+    }
+}
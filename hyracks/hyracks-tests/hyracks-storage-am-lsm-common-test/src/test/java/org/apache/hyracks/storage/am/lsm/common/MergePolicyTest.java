@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.AbstractDiskLSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.impls.LeveledMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.LeveledMergePolicyFactory;
+import org.apache.hyracks.storage.am.lsm.common.impls.SizeTieredMergePolicy;
+import org.apache.hyracks.storage.am.lsm.common.impls.SizeTieredMergePolicyFactory;
+
+/**
+ * Feeds fixed sequences of disk component sizes (newest first) to the merge policies and checks which components
+ * they schedule for merging.
+ */
+public class MergePolicyTest {
+
+    private static class SizedComponent extends AbstractDiskLSMComponent {
+        private final long size;
+
+        public SizedComponent(long size) {
+            this.size = size;
+        }
+
+        public void setState(ComponentState state) {
+            this.state = state;
+        }
+
+        @Override
+        protected void destroy() throws HyracksDataException {
+        }
+
+        @Override
+        public long getComponentSize() {
+            return size;
+        }
+
+        @Override
+        public int getFileReferenceCount() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(size);
+        }
+    }
+
+    private static List<ILSMComponent> components(long... sizes) {
+        List<ILSMComponent> components = new ArrayList<ILSMComponent>();
+        for (long size : sizes) {
+            components.add(new SizedComponent(size));
+        }
+        return components;
+    }
+
+    private static List<Long> sizes(long... sizes) {
+        List<Long> list = new ArrayList<Long>();
+        for (long size : sizes) {
+            list.add(size);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the sizes of the components the policy merges: null if nothing was scheduled and empty for a full
+     * merge.
+     */
+    private static List<Long> run(ILSMMergePolicy policy, List<ILSMComponent> components, boolean fullMerge)
+            throws Exception {
+        DummyLSMIndex index = new DummyLSMIndex(components);
+        policy.diskComponentAdded(index, fullMerge);
+        assertTrue(index.getScheduledMerges().size() + index.getFullMergeCount() <= 1);
+        if (index.getFullMergeCount() > 0) {
+            return Collections.emptyList();
+        }
+        if (index.getScheduledMerges().isEmpty()) {
+            return null;
+        }
+        List<Long> mergedSizes = new ArrayList<Long>();
+        for (ILSMComponent c : index.getScheduledMerges().get(0)) {
+            mergedSizes.add(((AbstractDiskLSMComponent) c).getComponentSize());
+        }
+        return mergedSizes;
+    }
+
+    private static List<Long> selected(ILSMMergePolicy policy, long... componentSizes) throws Exception {
+        return run(policy, components(componentSizes), false);
+    }
+
+    private static ILSMMergePolicy sizeTiered(double sizeRatio, int minCount, int maxCount) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("size-ratio", String.valueOf(sizeRatio));
+        properties.put("min-merge-component-count", String.valueOf(minCount));
+        properties.put("max-merge-component-count", String.valueOf(maxCount));
+        ILSMMergePolicy policy = new SizeTieredMergePolicy();
+        policy.configure(properties);
+        return policy;
+    }
+
+    private static ILSMMergePolicy leveled(double sizeRatio) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("size-ratio", String.valueOf(sizeRatio));
+        ILSMMergePolicy policy = new LeveledMergePolicy();
+        policy.configure(properties);
+        return policy;
+    }
+
+    @Test
+    public void sizeTieredMergesNewestTierOnceItIsFull() throws Exception {
+        ILSMMergePolicy policy = sizeTiered(2, 3, 10);
+        assertNull(selected(policy));
+        assertNull(selected(policy, 10));
+        assertNull(selected(policy, 10, 12));
+        assertEquals(sizes(10, 12, 11), selected(policy, 10, 12, 11));
+        // The fourth component is too big to belong to the tier of the first three.
+        assertEquals(sizes(10, 12, 11), selected(policy, 10, 12, 11, 100));
+    }
+
+    @Test
+    public void sizeTieredSkipsIncompleteTiers() throws Exception {
+        ILSMMergePolicy policy = sizeTiered(2, 3, 10);
+        // The newest tier {5, 6} is too small, the next tier {40, 50, 60} is merged.
+        assertEquals(sizes(40, 50, 60), selected(policy, 5, 6, 40, 50, 60));
+        // {5, 6} and {40, 50} are both too small, and 1000 starts a tier on its own.
+        assertNull(selected(policy, 5, 6, 40, 50, 1000));
+    }
+
+    @Test
+    public void sizeTieredComparesAgainstTheWholeTier() throws Exception {
+        ILSMMergePolicy policy = sizeTiered(2, 3, 10);
+        // 16 is within the ratio of 13, but not within the ratio of 7 which is already in the tier.
+        assertEquals(sizes(10, 13, 7), selected(policy, 10, 13, 7, 16));
+        assertNull(selected(policy, 7, 10, 16, 30));
+    }
+
+    @Test
+    public void sizeTieredCapsTheNumberOfMergedComponents() throws Exception {
+        ILSMMergePolicy policy = sizeTiered(2, 3, 4);
+        assertEquals(sizes(10, 10, 10, 10), selected(policy, 10, 10, 10, 10, 10, 10));
+        // Empty components count as one byte and still form a tier.
+        assertEquals(sizes(0, 0, 1), selected(policy, 0, 0, 1));
+    }
+
+    @Test
+    public void sizeTieredHonorsMinimumComponentCountOfTwo() throws Exception {
+        ILSMMergePolicy policy = sizeTiered(2, 1, 1);
+        assertNull(selected(policy, 10));
+        assertEquals(sizes(10, 20), selected(policy, 10, 20));
+    }
+
+    @Test
+    public void leveledMergesNewestViolatingLevel() throws Exception {
+        ILSMMergePolicy policy = leveled(10);
+        assertNull(selected(policy, 10));
+        assertNull(selected(policy, 10, 100, 1000));
+        assertEquals(sizes(10, 50), selected(policy, 10, 50, 1000));
+        assertEquals(sizes(100, 500), selected(policy, 10, 100, 500));
+        assertEquals(sizes(10, 20), selected(policy, 10, 20, 30, 40));
+    }
+
+    @Test
+    public void fullMergeRequestIsForwarded() throws Exception {
+        List<Long> expected = new ArrayList<Long>();
+        assertEquals(expected, run(sizeTiered(2, 3, 10), components(10, 1000), true));
+        assertEquals(expected, run(leveled(10), components(10, 1000), true));
+    }
+
+    @Test
+    public void nothingIsScheduledWhileAComponentIsBusy() throws Exception {
+        ILSMMergePolicy[] policies = { sizeTiered(2, 3, 10), leveled(10) };
+        for (ILSMMergePolicy policy : policies) {
+            for (boolean fullMerge : new boolean[] { false, true }) {
+                List<ILSMComponent> components = components(10, 10, 10, 10);
+                ((SizedComponent) components.get(3)).setState(ILSMComponent.ComponentState.READABLE_MERGING);
+                assertNull(run(policy, components, fullMerge));
+            }
+        }
+    }
+
+    @Test
+    public void missingPropertiesTakeDefaults() throws Exception {
+        ILSMMergePolicy sizeTiered = new SizeTieredMergePolicy();
+        sizeTiered.configure(new HashMap<String, String>());
+        // Four components of a tier with a size ratio of 2.
+        assertNull(selected(sizeTiered, 10, 12, 11));
+        assertEquals(sizes(10, 12, 11, 15), selected(sizeTiered, 10, 12, 11, 15));
+        ILSMMergePolicy leveled = new LeveledMergePolicy();
+        leveled.configure(new HashMap<String, String>());
+        assertNull(selected(leveled, 10, 100));
+        assertEquals(sizes(10, 99), selected(leveled, 10, 99));
+    }
+
+    @Test
+    public void invalidPropertiesAreRejected() throws Exception {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(SizeTieredMergePolicyFactory.MIN_MERGE_COMPONENT_COUNT, "four");
+        try {
+            new SizeTieredMergePolicy().configure(properties);
+            fail("A non-numeric component count was accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains(SizeTieredMergePolicyFactory.MIN_MERGE_COMPONENT_COUNT));
+        }
+        properties.clear();
+        properties.put(LeveledMergePolicyFactory.SIZE_RATIO, "1");
+        try {
+            new LeveledMergePolicy().configure(properties);
+            fail("A size ratio of 1 was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.apache.hyracks.api.application.INCApplicationContext;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.io.IODeviceHandle;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperation;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.common.impls.LSMMergeThrottle;
+import org.apache.hyracks.storage.am.lsm.common.impls.PrioritizedIOOperationScheduler;
+import org.apache.hyracks.storage.am.lsm.common.impls.PrioritizedIOOperationSchedulerProvider;
+import org.apache.hyracks.test.support.TestNCApplicationContext;
+
+public class PrioritizedIOOperationSchedulerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final long NOT_STARTED_MILLIS = 200;
+
+    private final IODeviceHandle d0 = new IODeviceHandle(new File("d0"), ".");
+    private final IODeviceHandle d1 = new IODeviceHandle(new File("d1"), ".");
+    private final IODeviceHandle d2 = new IODeviceHandle(new File("d2"), ".");
+
+    private PrioritizedIOOperationScheduler scheduler;
+
+    /**
+     * An I/O operation that blocks until it is released.
+     */
+    private static class BlockingOperation implements ILSMIOOperation, Comparable<BlockingOperation> {
+        private final LSMIOOpertionType type;
+        private final String indexId;
+        private final Set<IODeviceHandle> readDevices;
+        private final Set<IODeviceHandle> writeDevices;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        public BlockingOperation(LSMIOOpertionType type, String indexId, Set<IODeviceHandle> readDevices,
+                Set<IODeviceHandle> writeDevices) {
+            this.type = type;
+            this.indexId = indexId;
+            this.readDevices = readDevices;
+            this.writeDevices = writeDevices;
+        }
+
+        @Override
+        public Set<IODeviceHandle> getReadDevices() {
+            return readDevices;
+        }
+
+        @Override
+        public Set<IODeviceHandle> getWriteDevices() {
+            return writeDevices;
+        }
+
+        @Override
+        public Boolean call() throws HyracksDataException {
+            started.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new HyracksDataException(e);
+            }
+            return true;
+        }
+
+        @Override
+        public ILSMIOOperationCallback getCallback() {
+            return null;
+        }
+
+        @Override
+        public String getIndexUniqueIdentifier() {
+            return indexId;
+        }
+
+        @Override
+        public LSMIOOpertionType getIOOpertionType() {
+            return type;
+        }
+
+        @Override
+        public int compareTo(BlockingOperation o) {
+            return 0;
+        }
+
+        public void release() {
+            released.countDown();
+        }
+
+        public void assertStarted() throws InterruptedException {
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        public void assertNotStarted() throws InterruptedException {
+            assertFalse(started.await(NOT_STARTED_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static Set<IODeviceHandle> devices(IODeviceHandle... devices) {
+        return new HashSet<IODeviceHandle>(Arrays.asList(devices));
+    }
+
+    private static BlockingOperation flush(String indexId, IODeviceHandle device) {
+        return new BlockingOperation(ILSMIOOperation.LSMIOOpertionType.FLUSH, indexId, devices(), devices(device));
+    }
+
+    private static BlockingOperation merge(String indexId, IODeviceHandle readDevice, IODeviceHandle writeDevice) {
+        return new BlockingOperation(ILSMIOOperation.LSMIOOpertionType.MERGE, indexId, devices(readDevice),
+                devices(writeDevice));
+    }
+
+    private void createScheduler(int maxConcurrentMergesPerDevice) {
+        createScheduler(maxConcurrentMergesPerDevice, TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS * 10));
+    }
+
+    private void createScheduler(int maxConcurrentMergesPerDevice, long maxMergeDelayMillis) {
+        scheduler = new PrioritizedIOOperationScheduler(Executors.defaultThreadFactory(), maxConcurrentMergesPerDevice,
+                0, maxMergeDelayMillis);
+    }
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void flushIsScheduledBeforeMergeOnTheSameDevice() throws Exception {
+        createScheduler(1);
+        BlockingOperation flush = flush("i0", d0);
+        scheduler.scheduleOperation(flush);
+        flush.assertStarted();
+        BlockingOperation merge = merge("i1", d1, d0);
+        scheduler.scheduleOperation(merge);
+        merge.assertNotStarted();
+        assertEquals(1, scheduler.getWaitingMergeCount());
+        flush.release();
+        merge.assertStarted();
+        assertEquals(0, scheduler.getWaitingMergeCount());
+        merge.release();
+    }
+
+    @Test
+    public void flushStartsWhileMergeIsRunning() throws Exception {
+        createScheduler(1);
+        BlockingOperation merge = merge("i0", d0, d0);
+        scheduler.scheduleOperation(merge);
+        merge.assertStarted();
+        BlockingOperation flush = flush("i0", d0);
+        scheduler.scheduleOperation(flush);
+        flush.assertStarted();
+        flush.release();
+        merge.release();
+    }
+
+    @Test
+    public void mergeOnAnotherDeviceRunsAlongsideFlush() throws Exception {
+        createScheduler(1);
+        BlockingOperation flush = flush("i0", d0);
+        scheduler.scheduleOperation(flush);
+        flush.assertStarted();
+        BlockingOperation merge = merge("i1", d0, d1);
+        scheduler.scheduleOperation(merge);
+        merge.assertStarted();
+        flush.release();
+        merge.release();
+    }
+
+    @Test
+    public void concurrentMergesPerDeviceAreBounded() throws Exception {
+        createScheduler(1);
+        BlockingOperation first = merge("i0", d0, d1);
+        BlockingOperation second = merge("i1", d0, d2);
+        BlockingOperation third = merge("i2", d2, d2);
+        scheduler.scheduleOperation(first);
+        scheduler.scheduleOperation(second);
+        first.assertStarted();
+        // The third merge may pass the second one since it does not share a device with the first one.
+        scheduler.scheduleOperation(third);
+        third.assertStarted();
+        second.assertNotStarted();
+        first.release();
+        third.release();
+        second.assertStarted();
+        second.release();
+    }
+
+    @Test
+    public void flushesOfAnIndexRunSerially() throws Exception {
+        createScheduler(1);
+        BlockingOperation first = flush("i0", d0);
+        BlockingOperation second = flush("i0", d0);
+        BlockingOperation other = flush("i1", d1);
+        scheduler.scheduleOperation(first);
+        scheduler.scheduleOperation(second);
+        scheduler.scheduleOperation(other);
+        first.assertStarted();
+        other.assertStarted();
+        second.assertNotStarted();
+        first.release();
+        second.assertStarted();
+        second.release();
+        other.release();
+    }
+
+    @Test
+    public void pausedMergesDoNotStart() throws Exception {
+        createScheduler(1);
+        scheduler.pauseMerges();
+        BlockingOperation merge = merge("i0", d0, d0);
+        scheduler.scheduleOperation(merge);
+        merge.assertNotStarted();
+        BlockingOperation flush = flush("i0", d1);
+        scheduler.scheduleOperation(flush);
+        flush.assertStarted();
+        flush.release();
+        merge.assertNotStarted();
+        scheduler.resumeMerges();
+        merge.assertStarted();
+        merge.release();
+    }
+
+    @Test
+    public void delayedMergeNoLongerGivesWayToFlushes() throws Exception {
+        createScheduler(1, NOT_STARTED_MILLIS);
+        BlockingOperation flush = flush("i0", d0);
+        scheduler.scheduleOperation(flush);
+        flush.assertStarted();
+        BlockingOperation merge = merge("i1", d1, d0);
+        scheduler.scheduleOperation(merge);
+        merge.assertNotStarted();
+        // The merge has waited long enough; the next scheduled operation starts it despite the running flushes.
+        Thread.sleep(NOT_STARTED_MILLIS);
+        BlockingOperation otherFlush = flush("i2", d0);
+        scheduler.scheduleOperation(otherFlush);
+        otherFlush.assertStarted();
+        merge.assertStarted();
+        flush.release();
+        otherFlush.release();
+        merge.release();
+    }
+
+    @Test
+    public void stoppedSchedulerDropsMergesAndRunsFlushesInline() throws Exception {
+        createScheduler(1);
+        BlockingOperation flush = flush("i0", d0);
+        scheduler.scheduleOperation(flush);
+        flush.assertStarted();
+        BlockingOperation waitingMerge = merge("i1", d1, d0);
+        scheduler.scheduleOperation(waitingMerge);
+        scheduler.stop(false, null);
+        assertEquals(0, scheduler.getWaitingMergeCount());
+        flush.release();
+        waitingMerge.assertNotStarted();
+        BlockingOperation merge = merge("i1", d1, d1);
+        scheduler.scheduleOperation(merge);
+        merge.assertNotStarted();
+        // Flushes scheduled after all threads are gone run on the calling thread.
+        BlockingOperation inlineFlush = flush("i0", d0);
+        inlineFlush.release();
+        scheduler.scheduleOperation(inlineFlush);
+        inlineFlush.assertStarted();
+    }
+
+    private static ITupleReference tuple(final int length) {
+        return new ITupleReference() {
+            @Override
+            public int getFieldCount() {
+                return 1;
+            }
+
+            @Override
+            public byte[] getFieldData(int fIdx) {
+                return null;
+            }
+
+            @Override
+            public int getFieldStart(int fIdx) {
+                return 0;
+            }
+
+            @Override
+            public int getFieldLength(int fIdx) {
+                return length;
+            }
+        };
+    }
+
+    private static long writeTuples(int count, int length) throws HyracksDataException {
+        long start = System.nanoTime();
+        ITupleReference tuple = tuple(length);
+        for (int i = 0; i < count; i++) {
+            LSMMergeThrottle.throttle(tuple);
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    @Test
+    public void throttleLimitsMergeBandwidth() throws Exception {
+        // Write 768KB at 1MB/s.
+        LSMMergeThrottle throttle = new LSMMergeThrottle(1024 * 1024);
+        LSMMergeThrottle.register(throttle);
+        try {
+            assertSame(throttle, LSMMergeThrottle.getRegistered());
+            long elapsedMillis = writeTuples(768, 1024);
+            assertTrue("elapsed " + elapsedMillis + "ms", elapsedMillis >= 600);
+        } finally {
+            LSMMergeThrottle.unregister();
+        }
+        // Threads that do not run a throttled merge are not limited.
+        assertNull(LSMMergeThrottle.getRegistered());
+        long elapsedMillis = writeTuples(768, 1024);
+        assertTrue("elapsed " + elapsedMillis + "ms", elapsedMillis < 600);
+    }
+
+    @Test
+    public void providerSharesSchedulerPerNodeAndConfiguration() throws Exception {
+        INCApplicationContext nc1 = createApplicationContext("nc1");
+        INCApplicationContext nc2 = createApplicationContext("nc2");
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(PrioritizedIOOperationSchedulerProvider.MAX_CONCURRENT_MERGES_PER_DEVICE, "2");
+        PrioritizedIOOperationSchedulerProvider provider = new PrioritizedIOOperationSchedulerProvider(properties);
+        assertEquals(2, provider.getMaxConcurrentMergesPerDevice());
+        assertEquals(0, provider.getMaxMergeMBPerSecond(), 0);
+        assertEquals(10000, provider.getMaxMergeDelayMillis());
+
+        PrioritizedIOOperationScheduler s = (PrioritizedIOOperationScheduler) provider.getIOScheduler(nc1);
+        assertSame(s, new PrioritizedIOOperationSchedulerProvider(2, 0, 10000).getIOScheduler(nc1));
+        assertNotSame(s, provider.getIOScheduler(nc2));
+        assertNotSame(s, new PrioritizedIOOperationSchedulerProvider(2, 10, 10000).getIOScheduler(nc1));
+        assertNotSame(s, new PrioritizedIOOperationSchedulerProvider(2, 0, 0).getIOScheduler(nc1));
+
+        properties.put("max-merges", "2");
+        try {
+            new PrioritizedIOOperationSchedulerProvider(properties);
+            fail("Unknown property accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void schedulersStopWithTheNode() throws Exception {
+        INCApplicationContext nc = createApplicationContext("nc1");
+        PrioritizedIOOperationSchedulerProvider provider = new PrioritizedIOOperationSchedulerProvider(1, 0, 0);
+        PrioritizedIOOperationScheduler s = (PrioritizedIOOperationScheduler) provider.getIOScheduler(nc);
+        nc.getLifeCycleComponentManager().stopAll(false);
+        BlockingOperation merge = merge("i0", d0, d0);
+        s.scheduleOperation(merge);
+        merge.assertNotStarted();
+        assertEquals(0, s.getWaitingMergeCount());
+    }
+
+    private static INCApplicationContext createApplicationContext(String nodeId) {
+        INCApplicationContext appCtx = new TestNCApplicationContext(null, nodeId);
+        appCtx.setThreadFactory(Executors.defaultThreadFactory());
+        appCtx.getLifeCycleComponentManager().configure(new HashMap<String, String>());
+        return appCtx;
+    }
+}
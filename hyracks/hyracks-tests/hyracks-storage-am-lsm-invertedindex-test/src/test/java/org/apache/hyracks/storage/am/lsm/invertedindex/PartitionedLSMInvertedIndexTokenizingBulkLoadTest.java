@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex;
+
+import java.io.IOException;
+
+import org.apache.hyracks.storage.am.common.api.IndexException;
+import org.apache.hyracks.storage.am.common.datagen.TupleGenerator;
+import org.apache.hyracks.storage.am.lsm.invertedindex.common.AbstractInvertedIndexLoadTest;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestContext;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestContext.InvertedIndexType;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestUtils;
+
+public class PartitionedLSMInvertedIndexTokenizingBulkLoadTest extends AbstractInvertedIndexLoadTest {
+
+    private static final int TOKENIZER_PARALLELISM = 4;
+    // Small enough for every tokenizer thread to spill several runs.
+    private static final int FRAMES_LIMIT = 2 * TOKENIZER_PARALLELISM + 1;
+
+    public PartitionedLSMInvertedIndexTokenizingBulkLoadTest() {
+        super(InvertedIndexType.PARTITIONED_LSM, true);
+    }
+
+    @Override
+    protected void loadInvIndex(LSMInvertedIndexTestContext testCtx, TupleGenerator tupleGen) throws IOException,
+            IndexException {
+        LSMInvertedIndexTestUtils.tokenizingBulkLoadInvIndex(testCtx, tupleGen, NUM_DOCS_TO_INSERT,
+                harness.getHyracksTastContext(), TOKENIZER_PARALLELISM, FRAMES_LIMIT);
+    }
+}
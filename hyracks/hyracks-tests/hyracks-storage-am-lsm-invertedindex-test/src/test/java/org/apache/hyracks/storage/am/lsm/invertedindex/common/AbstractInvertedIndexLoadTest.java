@@ -45,11 +45,7 @@ public abstract class AbstractInvertedIndexLoadTest extends AbstractInvertedInde
         invIndex.create();
         invIndex.activate();
 
-        if (bulkLoad) {
-            LSMInvertedIndexTestUtils.bulkLoadInvIndex(testCtx, tupleGen, NUM_DOCS_TO_INSERT);
-        } else {
-            LSMInvertedIndexTestUtils.insertIntoInvIndex(testCtx, tupleGen, NUM_DOCS_TO_INSERT);
-        }
+        loadInvIndex(testCtx, tupleGen);
         validateAndCheckIndex(testCtx);
         runTinySearchWorkload(testCtx, tupleGen);
 
@@ -57,6 +53,15 @@ public abstract class AbstractInvertedIndexLoadTest extends AbstractInvertedInde
         invIndex.destroy();
     }
 
+    protected void loadInvIndex(LSMInvertedIndexTestContext testCtx, TupleGenerator tupleGen) throws IOException,
+            IndexException {
+        if (bulkLoad) {
+            LSMInvertedIndexTestUtils.bulkLoadInvIndex(testCtx, tupleGen, NUM_DOCS_TO_INSERT);
+        } else {
+            LSMInvertedIndexTestUtils.insertIntoInvIndex(testCtx, tupleGen, NUM_DOCS_TO_INSERT);
+        }
+    }
+
     @Test
     public void wordTokensInvIndexTest() throws IOException, IndexException {
         LSMInvertedIndexTestContext testCtx = LSMInvertedIndexTestUtils.createWordInvIndexTestContext(harness,
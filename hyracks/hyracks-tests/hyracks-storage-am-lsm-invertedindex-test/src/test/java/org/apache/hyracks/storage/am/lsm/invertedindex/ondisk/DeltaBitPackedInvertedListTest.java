@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.datagen.TupleGenerator;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.config.AccessMethodTestsConfig;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexSearchModifier;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
+import org.apache.hyracks.storage.am.lsm.invertedindex.common.LSMInvertedIndexTestHarness;
+import org.apache.hyracks.storage.am.lsm.invertedindex.search.ConjunctiveSearchModifier;
+import org.apache.hyracks.storage.am.lsm.invertedindex.search.JaccardSearchModifier;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.DelimitedUTF8StringBinaryTokenizerFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.IBinaryTokenizerFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.UTF8WordTokenFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.InvertedIndexTokenizingTupleIterator;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.InvertedIndexUtils;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestContext;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestContext.InvertedIndexType;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("rawtypes")
+public class DeltaBitPackedInvertedListTest {
+    private static final int[] LIST_SIZES = { 1, 2, 127, 128, 129, 300, 1000, 3000 };
+
+    private final LSMInvertedIndexTestHarness harness = new LSMInvertedIndexTestHarness();
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE };
+    private final ITypeTraits[] tokenTypeTraits = { IntegerPointable.TYPE_TRAITS };
+    private final ITypeTraits[] invListTypeTraits = { IntegerPointable.TYPE_TRAITS };
+    private final IBinaryComparatorFactory[] cmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1);
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        harness.tearDown();
+    }
+
+    private List<int[]> createLists() {
+        Random rnd = harness.getRandom();
+        List<int[]> lists = new ArrayList<int[]>();
+        for (int i = 0; i < LIST_SIZES.length; i++) {
+            TreeSet<Integer> elements = new TreeSet<Integer>();
+            // Mix dense lists, lists with small gaps and lists spread over the whole (signed) integer domain.
+            int start = rnd.nextInt(1000);
+            while (elements.size() < LIST_SIZES[i]) {
+                switch (i % 3) {
+                    case 0:
+                        elements.add(start + elements.size());
+                        break;
+                    case 1:
+                        elements.add(start + rnd.nextInt(LIST_SIZES[i] * 20));
+                        break;
+                    default:
+                        elements.add(rnd.nextInt());
+                        break;
+                }
+            }
+            int[] list = new int[elements.size()];
+            int ix = 0;
+            for (Integer element : elements) {
+                list[ix++] = element;
+            }
+            lists.add(list);
+        }
+        return lists;
+    }
+
+    private OnDiskInvertedIndex createAndLoadIndex(FileReference invListsFile, List<int[]> lists,
+            boolean compressInvLists) throws Exception {
+        OnDiskInvertedIndex invIndex = InvertedIndexUtils.createOnDiskInvertedIndex(harness.getDiskBufferCache(),
+                harness.getDiskFileMapProvider(), invListTypeTraits, cmpFactories, tokenTypeTraits, cmpFactories,
+                invListsFile, compressInvLists);
+        invIndex.create();
+        invIndex.activate();
+        IIndexBulkLoader bulkLoader = invIndex.createBulkLoader(1.0f, true, 0, true);
+        for (int token = 0; token < lists.size(); token++) {
+            for (int element : lists.get(token)) {
+                bulkLoader.add(TupleUtils.createIntegerTuple(token, element));
+            }
+        }
+        bulkLoader.end();
+        return invIndex;
+    }
+
+    @Test
+    public void scanAndProbeTest() throws Exception {
+        List<int[]> lists = createLists();
+        OnDiskInvertedIndex invIndex = createAndLoadIndex(harness.getInvListsFileRef(), lists, true);
+        invIndex.validate();
+        IInvertedIndexAccessor accessor = (IInvertedIndexAccessor) invIndex.createAccessor(
+                NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
+        IInvertedListCursor listCursor = accessor.createInvertedListCursor();
+        assertTrue(listCursor instanceof DeltaBitPackedInvertedListCursor);
+        MultiComparator invListCmp = MultiComparator.create(cmpFactories);
+        for (int token = 0; token < lists.size(); token++) {
+            int[] list = lists.get(token);
+            accessor.openInvertedListCursor(listCursor, TupleUtils.createIntegerTuple(token));
+            assertEquals(list.length, listCursor.size());
+            listCursor.pinPages();
+            try {
+                for (int i = 0; i < list.length; i++) {
+                    assertTrue(listCursor.hasNext());
+                    listCursor.next();
+                    ITupleReference element = listCursor.getTuple();
+                    assertEquals(list[i], IntegerPointable.getInteger(element.getFieldData(0),
+                            element.getFieldStart(0)));
+                }
+                assertFalse(listCursor.hasNext());
+                // Probe every element and the values next to them, which are absent unless they are elements too.
+                for (int i = 0; i < list.length; i++) {
+                    assertTrue(listCursor.containsKey(TupleUtils.createIntegerTuple(list[i]), invListCmp));
+                    boolean nextIsElement = i + 1 < list.length && list[i + 1] == list[i] + 1;
+                    if (list[i] != Integer.MAX_VALUE) {
+                        assertEquals(nextIsElement,
+                                listCursor.containsKey(TupleUtils.createIntegerTuple(list[i] + 1), invListCmp));
+                    }
+                }
+                if (list[0] != Integer.MIN_VALUE) {
+                    assertFalse(listCursor.containsKey(TupleUtils.createIntegerTuple(list[0] - 1), invListCmp));
+                }
+            } finally {
+                listCursor.unpinPages();
+            }
+        }
+        invIndex.deactivate();
+        invIndex.destroy();
+    }
+
+    @Test
+    public void seekTest() throws Exception {
+        runSeekTest(true);
+    }
+
+    @Test
+    public void fixedSizeSeekTest() throws Exception {
+        runSeekTest(false);
+    }
+
+    private void runSeekTest(boolean compressInvLists) throws Exception {
+        List<int[]> lists = createLists();
+        OnDiskInvertedIndex invIndex = createAndLoadIndex(harness.getInvListsFileRef(), lists, compressInvLists);
+        IInvertedIndexAccessor accessor = (IInvertedIndexAccessor) invIndex.createAccessor(
+                NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
+        IInvertedListCursor listCursor = accessor.createInvertedListCursor();
+        MultiComparator invListCmp = MultiComparator.create(cmpFactories);
+        Random rnd = harness.getRandom();
+        for (int token = 0; token < lists.size(); token++) {
+            int[] list = lists.get(token);
+            // Seek to ascending keys with small and large gaps, some of them elements and some of them absent.
+            long key = Math.max((long) list[0] - 2, Integer.MIN_VALUE);
+            accessor.openInvertedListCursor(listCursor, TupleUtils.createIntegerTuple(token));
+            listCursor.pinPages();
+            try {
+                while (key <= Integer.MAX_VALUE) {
+                    int expectedIx = Arrays.binarySearch(list, (int) key);
+                    if (expectedIx < 0) {
+                        expectedIx = -expectedIx - 1;
+                    }
+                    boolean found = listCursor.seek(TupleUtils.createIntegerTuple((int) key), invListCmp);
+                    assertEquals(expectedIx < list.length, found);
+                    if (!found) {
+                        break;
+                    }
+                    ITupleReference element = listCursor.getTuple();
+                    assertEquals(list[expectedIx], IntegerPointable.getInteger(element.getFieldData(0),
+                            element.getFieldStart(0)));
+                    if (rnd.nextBoolean()) {
+                        key = list[expectedIx];
+                    } else {
+                        key += rnd.nextBoolean() ? rnd.nextInt(3) : rnd.nextInt(list.length * 40 + 1);
+                    }
+                    if (rnd.nextInt(4) == 0 && expectedIx + 1 < list.length) {
+                        // Plain iteration continues after the element the cursor was sought to.
+                        assertTrue(listCursor.hasNext());
+                        listCursor.next();
+                        element = listCursor.getTuple();
+                        assertEquals(list[expectedIx + 1], IntegerPointable.getInteger(element.getFieldData(0),
+                                element.getFieldStart(0)));
+                        key = Math.max(key, list[expectedIx + 1]);
+                    }
+                }
+            } finally {
+                listCursor.unpinPages();
+            }
+        }
+        invIndex.deactivate();
+        invIndex.destroy();
+    }
+
+    @Test
+    public void sizeTest() throws Exception {
+        List<int[]> lists = createLists();
+        FileReference fixedSizeInvListsFile = new FileReference(new File(harness.getInvListsFileRef().getFile()
+                .getPath() + "_fixed"));
+        OnDiskInvertedIndex fixedSizeIndex = createAndLoadIndex(fixedSizeInvListsFile, lists, false);
+        OnDiskInvertedIndex compressedIndex = createAndLoadIndex(harness.getInvListsFileRef(), lists, true);
+        // The dense lists and the lists with small gaps make up most of the elements.
+        assertTrue(compressedIndex.getInvListsMaxPageId() * 2 < fixedSizeIndex.getInvListsMaxPageId());
+        fixedSizeIndex.deactivate();
+        fixedSizeIndex.destroy();
+        compressedIndex.deactivate();
+        compressedIndex.destroy();
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        ISerializerDeserializer[] fieldSerdes = new ISerializerDeserializer[] {
+                UTF8StringSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE };
+        IBinaryTokenizerFactory tokenizerFactory = new DelimitedUTF8StringBinaryTokenizerFactory(true, false,
+                new UTF8WordTokenFactory());
+        OnDiskInvertedIndex invIndex = InvertedIndexUtils.createOnDiskInvertedIndex(harness.getDiskBufferCache(),
+                harness.getDiskFileMapProvider(), invListTypeTraits, SerdeUtils.serdesToComparatorFactories(
+                        new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE }, 1),
+                SerdeUtils.serdesToTypeTraits(new ISerializerDeserializer[] { fieldSerdes[0] }),
+                SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1), harness.getInvListsFileRef(), true);
+        InvertedIndexTokenizingTupleIterator indexTupleIter = new InvertedIndexTokenizingTupleIterator(1, 1,
+                tokenizerFactory.createTokenizer());
+        LSMInvertedIndexTestContext testCtx = new LSMInvertedIndexTestContext(fieldSerdes, invIndex,
+                tokenizerFactory, InvertedIndexType.ONDISK, indexTupleIter);
+        TupleGenerator tupleGen = LSMInvertedIndexTestUtils.createStringDocumentTupleGen(harness.getRandom());
+        invIndex.create();
+        invIndex.activate();
+        LSMInvertedIndexTestUtils.bulkLoadInvIndex(testCtx, tupleGen,
+                AccessMethodTestsConfig.LSM_INVINDEX_NUM_DOCS_TO_INSERT);
+        invIndex.validate();
+        LSMInvertedIndexTestUtils.compareActualAndExpectedIndexes(testCtx);
+        int[] scanCountArray = new int[AccessMethodTestsConfig.LSM_INVINDEX_SCAN_COUNT_ARRAY_SIZE];
+        IInvertedIndexSearchModifier[] searchModifiers = new IInvertedIndexSearchModifier[] {
+                new ConjunctiveSearchModifier(), new JaccardSearchModifier(0.8f), new JaccardSearchModifier(0.5f) };
+        for (IInvertedIndexSearchModifier searchModifier : searchModifiers) {
+            LSMInvertedIndexTestUtils.testIndexSearch(testCtx, tupleGen, harness.getRandom(),
+                    AccessMethodTestsConfig.LSM_INVINDEX_NUM_DOC_QUERIES,
+                    AccessMethodTestsConfig.LSM_INVINDEX_NUM_RANDOM_QUERIES, searchModifier, scanCountArray);
+        }
+        invIndex.deactivate();
+        invIndex.destroy();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.invertedindex.ondisk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.hyracks.api.application.INCApplicationContext;
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.datagen.TupleGenerator;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.config.AccessMethodTestsConfig;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexSearchModifier;
+import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
+import org.apache.hyracks.storage.am.lsm.invertedindex.common.LSMInvertedIndexTestHarness;
+import org.apache.hyracks.storage.am.lsm.invertedindex.dataflow.SharedInvertedListCacheProvider;
+import org.apache.hyracks.storage.am.lsm.invertedindex.ondisk.InvertedListCache.CachedInvertedList;
+import org.apache.hyracks.storage.am.lsm.invertedindex.search.ConjunctiveSearchModifier;
+import org.apache.hyracks.storage.am.lsm.invertedindex.search.JaccardSearchModifier;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.DelimitedUTF8StringBinaryTokenizerFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.IBinaryTokenizerFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.UTF8WordTokenFactory;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.InvertedIndexTokenizingTupleIterator;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.InvertedIndexUtils;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestContext;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestContext.InvertedIndexType;
+import org.apache.hyracks.storage.am.lsm.invertedindex.util.LSMInvertedIndexTestUtils;
+import org.apache.hyracks.test.support.TestNCApplicationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("rawtypes")
+public class InvertedListCacheTest {
+    private static final int[] LIST_SIZES = { 1, 5, 100, 2000 };
+    // Holds all lists but the largest one decoded.
+    private static final int MAX_LIST_BYTES = 1024;
+
+    private final LSMInvertedIndexTestHarness harness = new LSMInvertedIndexTestHarness();
+    private final ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+            IntegerSerializerDeserializer.INSTANCE };
+    private final ITypeTraits[] tokenTypeTraits = { IntegerPointable.TYPE_TRAITS };
+    private final ITypeTraits[] invListTypeTraits = { IntegerPointable.TYPE_TRAITS };
+    private final IBinaryComparatorFactory[] cmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1);
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        harness.tearDown();
+    }
+
+    @Test
+    public void fixedSizeListsTest() throws Exception {
+        runListsTest(false);
+    }
+
+    @Test
+    public void compressedListsTest() throws Exception {
+        runListsTest(true);
+    }
+
+    private void runListsTest(boolean compressInvLists) throws Exception {
+        InvertedListCache cache = new InvertedListCache(1 << 20, MAX_LIST_BYTES);
+        OnDiskInvertedIndex invIndex = InvertedIndexUtils.createOnDiskInvertedIndex(harness.getDiskBufferCache(),
+                harness.getDiskFileMapProvider(), invListTypeTraits, cmpFactories, tokenTypeTraits, cmpFactories,
+                harness.getInvListsFileRef(), compressInvLists);
+        invIndex.setInvertedListCache(cache);
+        invIndex.create();
+        invIndex.activate();
+        int[][] lists = new int[LIST_SIZES.length][];
+        IIndexBulkLoader bulkLoader = invIndex.createBulkLoader(1.0f, true, 0, true);
+        for (int token = 0; token < LIST_SIZES.length; token++) {
+            lists[token] = new int[LIST_SIZES[token]];
+            for (int i = 0; i < LIST_SIZES[token]; i++) {
+                lists[token][i] = i * 3 + token;
+                bulkLoader.add(TupleUtils.createIntegerTuple(token, lists[token][i]));
+            }
+        }
+        bulkLoader.end();
+
+        IInvertedIndexAccessor accessor = (IInvertedIndexAccessor) invIndex.createAccessor(
+                NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
+        IInvertedListCursor listCursor = accessor.createInvertedListCursor();
+        assertTrue(listCursor instanceof CachingInvertedListCursor);
+        MultiComparator invListCmp = MultiComparator.create(cmpFactories);
+        // The second round reads the lists from the cache.
+        for (int round = 0; round < 2; round++) {
+            for (int token = 0; token < lists.length; token++) {
+                int[] list = lists[token];
+                accessor.openInvertedListCursor(listCursor, TupleUtils.createIntegerTuple(token));
+                assertEquals(list.length * 4 <= MAX_LIST_BYTES, ((CachingInvertedListCursor) listCursor).isCached());
+                assertEquals(list.length, listCursor.size());
+                listCursor.pinPages();
+                try {
+                    for (int i = 0; i < list.length; i++) {
+                        assertTrue(listCursor.hasNext());
+                        listCursor.next();
+                        assertEquals(list[i], getElement(listCursor.getTuple()));
+                    }
+                    assertFalse(listCursor.hasNext());
+                    for (int i = 0; i < list.length; i++) {
+                        assertTrue(listCursor.containsKey(TupleUtils.createIntegerTuple(list[i]), invListCmp));
+                        assertFalse(listCursor.containsKey(TupleUtils.createIntegerTuple(list[i] + 1), invListCmp));
+                    }
+                } finally {
+                    listCursor.unpinPages();
+                }
+                // Seek to every other value; the ones in between the elements are absent.
+                accessor.openInvertedListCursor(listCursor, TupleUtils.createIntegerTuple(token));
+                listCursor.pinPages();
+                try {
+                    for (int key = list[0] - 1; key <= list[list.length - 1] + 1; key += 2) {
+                        int expectedIx = Arrays.binarySearch(list, key);
+                        if (expectedIx < 0) {
+                            expectedIx = -expectedIx - 1;
+                        }
+                        boolean found = listCursor.seek(TupleUtils.createIntegerTuple(key), invListCmp);
+                        assertEquals(expectedIx < list.length, found);
+                        if (found) {
+                            assertEquals(list[expectedIx], getElement(listCursor.getTuple()));
+                        }
+                    }
+                } finally {
+                    listCursor.unpinPages();
+                }
+            }
+        }
+        // Every list is opened twice per round, and only its first opening misses the cache.
+        assertEquals(lists.length, cache.size());
+        assertEquals(lists.length, cache.getMissCount());
+        assertEquals(lists.length * 3, cache.getHitCount());
+
+        // Deactivating the index drops its lists, as happens when an LSM component is merged away.
+        invIndex.deactivate();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCachedBytes());
+        invIndex.destroy();
+    }
+
+    @Test
+    public void evictionTest() throws Exception {
+        Object index = new Object();
+        byte[] elements = new byte[400];
+        InvertedListCache cache = new InvertedListCache(4 * (elements.length + 200), elements.length);
+        for (int token = 0; token < 4; token++) {
+            cache.put(index, TupleUtils.createIntegerTuple(token), 1, new CachedInvertedList(0, 0, 0, 100,
+                    elements));
+        }
+        // Token 0 becomes the most recently used one, so token 1 is evicted first.
+        assertNotNull(cache.get(index, TupleUtils.createIntegerTuple(0), 1));
+        for (int token = 4; token < 8; token++) {
+            cache.put(index, TupleUtils.createIntegerTuple(token), 1, new CachedInvertedList(0, 0, 0, 100,
+                    elements));
+            assertTrue(cache.getCachedBytes() <= 4 * (elements.length + 200));
+        }
+        assertNull(cache.get(index, TupleUtils.createIntegerTuple(1), 1));
+        assertNotNull(cache.get(index, TupleUtils.createIntegerTuple(7), 1));
+        // Lists of other indexes with the same token are kept apart.
+        assertNull(cache.get(new Object(), TupleUtils.createIntegerTuple(7), 1));
+    }
+
+    @Test
+    public void invalidateTest() throws Exception {
+        Object first = new Object();
+        Object second = new Object();
+        byte[] elements = new byte[100];
+        InvertedListCache cache = new InvertedListCache(10 * (elements.length + 200), elements.length);
+        for (int token = 0; token < 6; token++) {
+            Object index = token % 2 == 0 ? first : second;
+            cache.put(index, TupleUtils.createIntegerTuple(token), 1, new CachedInvertedList(0, 0, 0, 25,
+                    elements));
+        }
+        // Replacing a list keeps a single entry.
+        cache.put(first, TupleUtils.createIntegerTuple(0), 1, new CachedInvertedList(0, 0, 0, 25, elements));
+        assertEquals(6, cache.size());
+        long secondBytes = cache.getCachedBytes() / 2;
+        cache.invalidate(first);
+        assertEquals(3, cache.size());
+        assertEquals(secondBytes, cache.getCachedBytes());
+        assertNull(cache.get(first, TupleUtils.createIntegerTuple(0), 1));
+        assertNotNull(cache.get(second, TupleUtils.createIntegerTuple(1), 1));
+        // Invalidating an index without lists, or twice, does nothing.
+        cache.invalidate(first);
+        cache.invalidate(new Object());
+        assertEquals(3, cache.size());
+
+        // Lists evicted before the invalidation are not counted twice.
+        for (int token = 10; token < 30; token++) {
+            cache.put(first, TupleUtils.createIntegerTuple(token), 1, new CachedInvertedList(0, 0, 0, 25,
+                    elements));
+        }
+        assertNull(cache.get(second, TupleUtils.createIntegerTuple(1), 1));
+        cache.invalidate(second);
+        cache.invalidate(first);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCachedBytes());
+    }
+
+    @Test
+    public void sharedProviderTest() {
+        INCApplicationContext nc1 = new TestNCApplicationContext(null, "nc1");
+        INCApplicationContext nc2 = new TestNCApplicationContext(null, "nc2");
+        SharedInvertedListCacheProvider small = new SharedInvertedListCacheProvider(1 << 20, MAX_LIST_BYTES);
+        SharedInvertedListCacheProvider large = new SharedInvertedListCacheProvider(1 << 24, MAX_LIST_BYTES);
+        InvertedListCache cache = small.getInvertedListCache(nc1);
+        assertSame(cache, new SharedInvertedListCacheProvider(1 << 20, MAX_LIST_BYTES).getInvertedListCache(nc1));
+        assertNotSame(cache, small.getInvertedListCache(nc2));
+        // A provider with other sizes does not get the cache created first.
+        assertNotSame(cache, large.getInvertedListCache(nc1));
+        assertSame(large.getInvertedListCache(nc1), large.getInvertedListCache(nc1));
+        assertNotSame(cache, new SharedInvertedListCacheProvider(1 << 20, 2 * MAX_LIST_BYTES)
+                .getInvertedListCache(nc1));
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        ISerializerDeserializer[] fieldSerdes = new ISerializerDeserializer[] {
+                UTF8StringSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE };
+        IBinaryTokenizerFactory tokenizerFactory = new DelimitedUTF8StringBinaryTokenizerFactory(true, false,
+                new UTF8WordTokenFactory());
+        OnDiskInvertedIndex invIndex = InvertedIndexUtils.createOnDiskInvertedIndex(harness.getDiskBufferCache(),
+                harness.getDiskFileMapProvider(), invListTypeTraits, SerdeUtils.serdesToComparatorFactories(
+                        new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE }, 1),
+                SerdeUtils.serdesToTypeTraits(new ISerializerDeserializer[] { fieldSerdes[0] }),
+                SerdeUtils.serdesToComparatorFactories(fieldSerdes, 1), harness.getInvListsFileRef());
+        InvertedListCache cache = new InvertedListCache(1 << 20, MAX_LIST_BYTES);
+        invIndex.setInvertedListCache(cache);
+        InvertedIndexTokenizingTupleIterator indexTupleIter = new InvertedIndexTokenizingTupleIterator(1, 1,
+                tokenizerFactory.createTokenizer());
+        LSMInvertedIndexTestContext testCtx = new LSMInvertedIndexTestContext(fieldSerdes, invIndex,
+                tokenizerFactory, InvertedIndexType.ONDISK, indexTupleIter);
+        TupleGenerator tupleGen = LSMInvertedIndexTestUtils.createStringDocumentTupleGen(harness.getRandom());
+        invIndex.create();
+        invIndex.activate();
+        LSMInvertedIndexTestUtils.bulkLoadInvIndex(testCtx, tupleGen,
+                AccessMethodTestsConfig.LSM_INVINDEX_NUM_DOCS_TO_INSERT);
+        LSMInvertedIndexTestUtils.compareActualAndExpectedIndexes(testCtx);
+        int[] scanCountArray = new int[AccessMethodTestsConfig.LSM_INVINDEX_SCAN_COUNT_ARRAY_SIZE];
+        IInvertedIndexSearchModifier[] searchModifiers = new IInvertedIndexSearchModifier[] {
+                new ConjunctiveSearchModifier(), new JaccardSearchModifier(0.8f), new JaccardSearchModifier(0.5f) };
+        for (IInvertedIndexSearchModifier searchModifier : searchModifiers) {
+            LSMInvertedIndexTestUtils.testIndexSearch(testCtx, tupleGen, harness.getRandom(),
+                    AccessMethodTestsConfig.LSM_INVINDEX_NUM_DOC_QUERIES,
+                    AccessMethodTestsConfig.LSM_INVINDEX_NUM_RANDOM_QUERIES, searchModifier, scanCountArray);
+        }
+        // The same tokens are searched over and over.
+        assertTrue(cache.getHitCount() > cache.getMissCount());
+        invIndex.deactivate();
+        assertEquals(0, cache.size());
+        invIndex.destroy();
+    }
+
+    private static int getElement(ITupleReference element) {
+        return IntegerPointable.getInteger(element.getFieldData(0), element.getFieldStart(0));
+    }
+}
@@ -34,13 +34,17 @@ import java.util.Random;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
 import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
 import org.apache.hyracks.api.exceptions.HyracksDataException;
 import org.apache.hyracks.data.std.primitive.IntegerPointable;
 import org.apache.hyracks.data.std.util.GrowableArray;
 import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
 import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
 import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
 import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
 import org.apache.hyracks.dataflow.common.data.marshalling.ShortSerializerDeserializer;
@@ -64,6 +68,7 @@ import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexAccesso
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedIndexSearchModifier;
 import org.apache.hyracks.storage.am.lsm.invertedindex.api.IInvertedListCursor;
 import org.apache.hyracks.storage.am.lsm.invertedindex.common.LSMInvertedIndexTestHarness;
+import org.apache.hyracks.storage.am.lsm.invertedindex.dataflow.InvertedIndexTokenizingBulkLoader;
 import org.apache.hyracks.storage.am.lsm.invertedindex.exceptions.OccurrenceThresholdPanicException;
 import org.apache.hyracks.storage.am.lsm.invertedindex.search.InvertedIndexSearchPredicate;
 import org.apache.hyracks.storage.am.lsm.invertedindex.tokenizers.DelimitedUTF8StringBinaryTokenizerFactory;
@@ -225,6 +230,48 @@ public class LSMInvertedIndexTestUtils {
         testCtx.getCheckTuples().addAll(tmpMemIndex);
     }
 
+    /**
+     * Bulk loads the index from the unsorted documents through an {@link InvertedIndexTokenizingBulkLoader}.
+     */
+    public static void tokenizingBulkLoadInvIndex(LSMInvertedIndexTestContext testCtx, TupleGenerator tupleGen,
+            int numDocs, IHyracksTaskContext ctx, int parallelism, int framesLimit) throws IndexException,
+            IOException {
+        IInvertedIndex invIndex = (IInvertedIndex) testCtx.getIndex();
+        IIndexBulkLoader bulkLoader = invIndex.createBulkLoader(1.0f, false, numDocs, true);
+        InvertedIndexType invIndexType = testCtx.getInvertedIndexType();
+        boolean addNumTokensKey = invIndexType == InvertedIndexType.PARTITIONED_INMEMORY
+                || invIndexType == InvertedIndexType.PARTITIONED_ONDISK
+                || invIndexType == InvertedIndexType.PARTITIONED_LSM;
+        RecordDescriptor docRecDesc = new RecordDescriptor(new ISerializerDeserializer[] {
+                UTF8StringSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE });
+        InvertedIndexTokenizingBulkLoader loader = new InvertedIndexTokenizingBulkLoader(ctx, bulkLoader, docRecDesc,
+                testCtx.getTokenizerFactory(), 0, new int[] { 1 }, addNumTokensKey, invIndex.getTokenCmpFactories(),
+                invIndex.getInvListCmpFactories(), parallelism, framesLimit);
+        loader.open();
+        VSizeFrame frame = new VSizeFrame(ctx);
+        FrameTupleAppender appender = new FrameTupleAppender(frame, true);
+        ArrayTupleBuilder docBuilder = new ArrayTupleBuilder(docRecDesc.getFieldCount());
+        for (int i = 0; i < numDocs; i++) {
+            ITupleReference tuple = tupleGen.next();
+            // The expected index is generated by inserting the documents one-by-one.
+            testCtx.insertCheckTuples(tuple, testCtx.getCheckTuples());
+            docBuilder.reset();
+            for (int j = 0; j < docRecDesc.getFieldCount(); j++) {
+                docBuilder.addField(tuple.getFieldData(j), tuple.getFieldStart(j), tuple.getFieldLength(j));
+            }
+            int[] fieldEndOffsets = docBuilder.getFieldEndOffsets();
+            if (!appender.append(fieldEndOffsets, docBuilder.getByteArray(), 0, docBuilder.getSize())) {
+                loader.nextFrame(frame.getBuffer());
+                appender.reset(frame, true);
+                appender.append(fieldEndOffsets, docBuilder.getByteArray(), 0, docBuilder.getSize());
+            }
+        }
+        if (appender.getTupleCount() > 0) {
+            loader.nextFrame(frame.getBuffer());
+        }
+        loader.end();
+    }
+
     public static void insertIntoInvIndex(LSMInvertedIndexTestContext testCtx, TupleGenerator tupleGen, int numDocs)
             throws IOException, IndexException {
         // InMemoryInvertedIndex only supports insert.
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.rtree;
+
+import java.util.Random;
+
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProviderFactory;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.rtree.impls.AbstractLSMRTree;
+import org.apache.hyracks.storage.am.rtree.AbstractRTreeTestContext;
+import org.apache.hyracks.storage.am.rtree.AbstractRTreeTestDriver;
+import org.apache.hyracks.storage.am.rtree.RTreeCheckTuple;
+import org.apache.hyracks.storage.am.rtree.RTreeTestUtils;
+import org.apache.hyracks.storage.am.rtree.frames.RTreePolicyType;
+
+@SuppressWarnings("rawtypes")
+public abstract class LSMRTreeNearestNeighborSearchTestDriver extends AbstractRTreeTestDriver {
+
+    private static final int NUM_QUERY_POINTS = 5;
+    private static final int[] K_VALUES = { 1, 10, 100 };
+
+    private final RTreeTestUtils rTreeTestUtils;
+
+    public LSMRTreeNearestNeighborSearchTestDriver(boolean testRstarPolicy) {
+        super(testRstarPolicy);
+        this.rTreeTestUtils = new RTreeTestUtils();
+    }
+
+    @Override
+    protected void runTest(ISerializerDeserializer[] fieldSerdes,
+            IPrimitiveValueProviderFactory[] valueProviderFactories, int numKeys, ITupleReference key,
+            RTreePolicyType rtreePolicyType) throws Exception {
+
+        AbstractRTreeTestContext ctx = createTestContext(fieldSerdes, valueProviderFactories, numKeys, rtreePolicyType);
+        ctx.getIndex().create();
+        ctx.getIndex().activate();
+        // The disk components are created by flushes rather than by a bulk load, so that the merge below finds
+        // them in Hilbert order and can cancel the antimatter tuples.
+        boolean intKeys = fieldSerdes[0] instanceof IntegerSerializerDeserializer;
+        insertTuples(ctx, intKeys);
+        checkNearestNeighborSearch(ctx, intKeys);
+        // Deactivate and the re-activate the index to force it flush its in memory component.
+        ctx.getIndex().deactivate();
+        ctx.getIndex().activate();
+        checkNearestNeighborSearch(ctx, intKeys);
+
+        // Tuples in the memory component, some of them hiding deleted tuples of the disk component.
+        insertTuples(ctx, intKeys);
+        rTreeTestUtils.deleteTuples(ctx, numTuplesToInsert / 2, getRandom());
+        checkNearestNeighborSearch(ctx, intKeys);
+
+        ctx.getIndex().deactivate();
+        ctx.getIndex().activate();
+        checkNearestNeighborSearch(ctx, intKeys);
+
+        insertTuples(ctx, intKeys);
+        rTreeTestUtils.deleteTuples(ctx, numTuplesToInsert / 2, getRandom());
+        ctx.getIndex().deactivate();
+        ctx.getIndex().activate();
+        insertTuples(ctx, intKeys);
+        rTreeTestUtils.deleteTuples(ctx, numTuplesToInsert / 4, getRandom());
+        checkNearestNeighborSearch(ctx, intKeys);
+
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) ctx.getIndexAccessor();
+        accessor.scheduleMerge(NoOpIOOperationCallback.INSTANCE,
+                ((AbstractLSMRTree) ctx.getIndex()).getImmutableComponents());
+        checkNearestNeighborSearch(ctx, intKeys);
+
+        ctx.getIndex().deactivate();
+        ctx.getIndex().destroy();
+    }
+
+    private void insertTuples(AbstractRTreeTestContext ctx, boolean intKeys) throws Exception {
+        if (intKeys) {
+            rTreeTestUtils.insertIntTuples(ctx, numTuplesToInsert, getRandom());
+        } else {
+            rTreeTestUtils.insertDoubleTuples(ctx, numTuplesToInsert, getRandom());
+        }
+    }
+
+    private void checkNearestNeighborSearch(AbstractRTreeTestContext ctx, boolean intKeys) throws Exception {
+        RTreeCheckTuple[] checkTuples = ctx.getCheckTuples().toArray(new RTreeCheckTuple[0]);
+        int numDims = ctx.getKeyFieldCount() / 2;
+        Random rnd = getRandom();
+        for (int i = 0; i < NUM_QUERY_POINTS; i++) {
+            // The first point is the origin; the others are corners of indexed MBRs, which gives ties at distance 0.
+            RTreeCheckTuple corner = i == 0 || checkTuples.length == 0 ? null
+                    : checkTuples[rnd.nextInt(checkTuples.length)];
+            ITupleReference queryPoint;
+            if (intKeys) {
+                int[] coords = new int[numDims];
+                for (int j = 0; j < numDims; j++) {
+                    coords[j] = corner == null ? 0 : ((Number) corner.getField(j)).intValue();
+                }
+                queryPoint = TupleUtils.createIntegerTuple(coords);
+            } else {
+                double[] coords = new double[numDims];
+                for (int j = 0; j < numDims; j++) {
+                    coords[j] = corner == null ? 0.0 : ((Number) corner.getField(j)).doubleValue();
+                }
+                queryPoint = TupleUtils.createDoubleTuple(coords);
+            }
+            for (int k : K_VALUES) {
+                rTreeTestUtils.checkNearestNeighborSearch(ctx, queryPoint, k);
+            }
+        }
+    }
+
+    @Override
+    protected String getTestOpName() {
+        return "LSM Nearest Neighbor Search";
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.lsm.rtree;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.api.exceptions.HyracksException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.dataflow.common.util.SerdeUtils;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProviderFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.api.TreeIndexException;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.config.AccessMethodTestsConfig;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import org.apache.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import org.apache.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import org.apache.hyracks.storage.am.lsm.rtree.impls.AbstractLSMRTree;
+import org.apache.hyracks.storage.am.lsm.rtree.impls.LSMRTreeDiskComponent;
+import org.apache.hyracks.storage.am.lsm.rtree.utils.LSMRTreeUtils;
+import org.apache.hyracks.storage.am.lsm.rtree.util.LSMRTreeTestHarness;
+import org.apache.hyracks.storage.am.lsm.rtree.util.LSMRTreeWithAntiMatterTuplesTestContext;
+import org.apache.hyracks.storage.am.rtree.AbstractRTreeTestContext;
+import org.apache.hyracks.storage.am.rtree.AbstractRTreeTestDriver;
+import org.apache.hyracks.storage.am.rtree.RTreeTestUtils;
+import org.apache.hyracks.storage.am.rtree.frames.RTreePolicyType;
+import org.apache.hyracks.storage.am.rtree.impls.RTreePackingType;
+import org.apache.hyracks.storage.am.rtree.impls.SearchPredicate;
+import org.apache.hyracks.storage.am.rtree.util.RTreeUtils;
+
+/**
+ * Deletes tuples that live in several flushed components, flushes the resulting antimatter tuples and merges all
+ * components, checking after every step that the deleted tuples stay gone and that every disk RTree returns its
+ * tuples in linearizer order. The search cursor relies on that order to cancel matter against antimatter, which is
+ * why STR and Hilbert packing are not supported for this index.
+ */
+@SuppressWarnings("rawtypes")
+public class LSMRTreeWithAntiMatterTuplesDeleteMergeTest extends AbstractRTreeTestDriver {
+
+    private static final int NUM_ROUNDS = 3;
+
+    private final LSMRTreeTestHarness harness = new LSMRTreeTestHarness();
+    private final RTreeTestUtils rTreeTestUtils = new RTreeTestUtils();
+
+    public LSMRTreeWithAntiMatterTuplesDeleteMergeTest() {
+        super(AccessMethodTestsConfig.LSM_RTREE_TEST_RSTAR_POLICY);
+    }
+
+    @Before
+    public void setUp() throws HyracksException {
+        harness.setUp();
+    }
+
+    @After
+    public void tearDown() throws HyracksDataException {
+        harness.tearDown();
+    }
+
+    @Test
+    public void packingIsRejected() throws Exception {
+        ISerializerDeserializer[] fieldSerdes = { IntegerSerializerDeserializer.INSTANCE,
+                IntegerSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE,
+                IntegerSerializerDeserializer.INSTANCE, IntegerSerializerDeserializer.INSTANCE };
+        AbstractRTreeTestContext ctx = createTestContext(fieldSerdes,
+                RTreeUtils.createPrimitiveValueProviderFactories(4, IntegerPointable.FACTORY), 4,
+                RTreePolicyType.RTREE);
+        AbstractLSMRTree lsmRTree = (AbstractLSMRTree) ctx.getIndex();
+        lsmRTree.setPackingType(RTreePackingType.NONE);
+        for (RTreePackingType packingType : new RTreePackingType[] { RTreePackingType.STR, RTreePackingType.HILBERT }) {
+            try {
+                lsmRTree.setPackingType(packingType);
+                Assert.fail("Accepted " + packingType + " packing");
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Override
+    protected void runTest(ISerializerDeserializer[] fieldSerdes,
+            IPrimitiveValueProviderFactory[] valueProviderFactories, int numKeys, ITupleReference key,
+            RTreePolicyType rtreePolicyType) throws Exception {
+        AbstractRTreeTestContext ctx = createTestContext(fieldSerdes, valueProviderFactories, numKeys, rtreePolicyType);
+        AbstractLSMRTree lsmRTree = (AbstractLSMRTree) ctx.getIndex();
+        lsmRTree.create();
+        lsmRTree.activate();
+        // Tuples are only inserted: bulk loads expect their input in linearizer order, which the test tuples are not.
+        boolean intKeys = fieldSerdes[0] instanceof IntegerSerializerDeserializer;
+        MultiComparator linearizerCmp = createLinearizerComparator(fieldSerdes, numKeys);
+        int[] linearizerFields = createLinearizerFields(fieldSerdes, numKeys);
+        for (int i = 0; i < NUM_ROUNDS; i++) {
+            if (intKeys) {
+                rTreeTestUtils.insertIntTuples(ctx, numTuplesToInsert, getRandom());
+            } else {
+                rTreeTestUtils.insertDoubleTuples(ctx, numTuplesToInsert, getRandom());
+            }
+            flush(lsmRTree);
+            // The deleted tuples are spread over all disk components, and only their antimatter is flushed.
+            rTreeTestUtils.deleteTuples(ctx, ctx.getCheckTuples().size() / 3, getRandom());
+            flush(lsmRTree);
+            checkLinearizerOrder(lsmRTree, linearizerCmp, linearizerFields);
+            check(ctx, key);
+        }
+
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) ctx.getIndexAccessor();
+        accessor.scheduleMerge(NoOpIOOperationCallback.INSTANCE, lsmRTree.getImmutableComponents());
+        Assert.assertEquals(1, lsmRTree.getImmutableComponents().size());
+        checkLinearizerOrder(lsmRTree, linearizerCmp, linearizerFields);
+        check(ctx, key);
+        // The merged component is read back from disk.
+        flush(lsmRTree);
+        check(ctx, key);
+
+        lsmRTree.deactivate();
+        lsmRTree.destroy();
+    }
+
+    private void flush(AbstractLSMRTree lsmRTree) throws HyracksDataException {
+        // Deactivating the index flushes its in-memory component.
+        lsmRTree.deactivate();
+        lsmRTree.activate();
+    }
+
+    private void check(AbstractRTreeTestContext ctx, ITupleReference key) throws Exception {
+        rTreeTestUtils.checkScan(ctx);
+        rTreeTestUtils.checkDiskOrderScan(ctx);
+        rTreeTestUtils.checkRangeSearch(ctx, key);
+    }
+
+    private void checkLinearizerOrder(AbstractLSMRTree lsmRTree, MultiComparator linearizerCmp,
+            int[] linearizerFields) throws Exception {
+        for (ILSMComponent component : lsmRTree.getImmutableComponents()) {
+            ITreeIndexAccessor accessor = ((LSMRTreeDiskComponent) component).getRTree().createAccessor(
+                    NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
+            ITreeIndexCursor cursor = (ITreeIndexCursor) accessor.createSearchCursor(false);
+            accessor.search(cursor, new SearchPredicate(null, null));
+            try {
+                ITupleReference prevTuple = null;
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    ITupleReference tuple = cursor.getTuple();
+                    if (prevTuple != null) {
+                        Assert.assertTrue("Disk RTree is not in linearizer order",
+                                linearizerCmp.selectiveFieldCompare(prevTuple, tuple, linearizerFields) <= 0);
+                    }
+                    prevTuple = TupleUtils.copyTuple(tuple);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+
+    // Mirrors the linearizer that LSMRTreeUtils sets up for an LSM RTree with antimatter tuples: the curve value
+    // of the key, then the fields that follow the key.
+    private static MultiComparator createLinearizerComparator(ISerializerDeserializer[] fieldSerdes, int numKeys)
+            throws TreeIndexException {
+        IBinaryComparatorFactory[] fieldCmpFactories = SerdeUtils.serdesToComparatorFactories(fieldSerdes,
+                fieldSerdes.length);
+        IBinaryComparatorFactory[] cmpFactories = new IBinaryComparatorFactory[fieldSerdes.length - numKeys + 1];
+        cmpFactories[0] = LSMRTreeUtils.proposeBestLinearizer(SerdeUtils.serdesToTypeTraits(fieldSerdes), numKeys);
+        for (int i = 1; i < cmpFactories.length; i++) {
+            cmpFactories[i] = fieldCmpFactories[numKeys - 1 + i];
+        }
+        return MultiComparator.create(cmpFactories);
+    }
+
+    private static int[] createLinearizerFields(ISerializerDeserializer[] fieldSerdes, int numKeys) {
+        int[] fields = new int[fieldSerdes.length - numKeys + 1];
+        for (int i = 1; i < fields.length; i++) {
+            fields[i] = numKeys - 1 + i;
+        }
+        return fields;
+    }
+
+    @Override
+    protected AbstractRTreeTestContext createTestContext(ISerializerDeserializer[] fieldSerdes,
+            IPrimitiveValueProviderFactory[] valueProviderFactories, int numKeys, RTreePolicyType rtreePolicyType)
+            throws Exception {
+        return LSMRTreeWithAntiMatterTuplesTestContext.create(harness.getVirtualBufferCaches(),
+                harness.getFileReference(), harness.getDiskBufferCache(), harness.getDiskFileMapProvider(),
+                fieldSerdes, valueProviderFactories, numKeys, rtreePolicyType, harness.getMergePolicy(),
+                harness.getOperationTracker(), harness.getIOScheduler(), harness.getIOOperationCallback());
+    }
+
+    @Override
+    protected Random getRandom() {
+        return harness.getRandom();
+    }
+
+    @Override
+    protected String getTestOpName() {
+        return "LSM Delete and Merge";
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.hyracks.storage.am.rtree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import org.apache.hyracks.api.dataflow.value.ITypeTraits;
+import org.apache.hyracks.api.io.FileReference;
+import org.apache.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import org.apache.hyracks.dataflow.common.data.accessors.ITupleReference;
+import org.apache.hyracks.dataflow.common.util.TupleUtils;
+import org.apache.hyracks.storage.am.common.api.IIndexBulkLoader;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProviderFactory;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexAccessor;
+import org.apache.hyracks.storage.am.common.api.ITreeIndexCursor;
+import org.apache.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import org.apache.hyracks.storage.am.common.ophelpers.MultiComparator;
+import org.apache.hyracks.storage.am.rtree.frames.RTreePolicyType;
+import org.apache.hyracks.storage.am.rtree.impls.RTree;
+import org.apache.hyracks.storage.am.rtree.impls.RTreePackingType;
+import org.apache.hyracks.storage.am.rtree.impls.SearchPredicate;
+import org.apache.hyracks.storage.am.rtree.util.RTreeUtils;
+import org.apache.hyracks.storage.am.rtree.utils.AbstractRTreeTest;
+import org.apache.hyracks.storage.common.buffercache.ICachedPage;
+
+/**
+ * Bulk loads the same randomly ordered rectangles with and without packing and checks that the packed trees return
+ * the same answers while far fewer of their leaves overlap the query windows.
+ */
+public class RTreePackingBulkLoadTest extends AbstractRTreeTest {
+
+    private static final int NUM_TUPLES = 20000;
+    private static final int NUM_QUERIES = 200;
+    private static final int SPACE_SIZE = 1000000;
+    private static final int MAX_RECTANGLE_SIZE = 1000;
+    private static final int QUERY_SIZE = 20000;
+    private static final int FIELD_COUNT = 5;
+    private static final int KEY_FIELD_COUNT = 4;
+
+    private final Random rnd = new Random(50);
+
+    @Test
+    public void strPackingTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING STR PACKED BULK LOAD FOR RTREE");
+        }
+        runTest(RTreePackingType.STR);
+    }
+
+    @Test
+    public void hilbertPackingTest() throws Exception {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("TESTING HILBERT PACKED BULK LOAD FOR RTREE");
+        }
+        runTest(RTreePackingType.HILBERT);
+    }
+
+    private void runTest(RTreePackingType packingType) throws Exception {
+        int[][] rectangles = new int[NUM_TUPLES][];
+        for (int i = 0; i < NUM_TUPLES; i++) {
+            rectangles[i] = createRectangle(MAX_RECTANGLE_SIZE);
+        }
+        int[][] queries = new int[NUM_QUERIES][];
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            queries[i] = createRectangle(QUERY_SIZE);
+        }
+
+        RTree unpackedRTree = createRTree(harness.getFileReference());
+        RTree packedRTree = createRTree(new FileReference(new File(harness.getFileName() + "_" + packingType)));
+        try {
+            bulkLoad(unpackedRTree, rectangles, RTreePackingType.NONE);
+            bulkLoad(packedRTree, rectangles, packingType);
+
+            List<int[]> unpackedLeaves = getLeafMBRs(unpackedRTree);
+            List<int[]> packedLeaves = getLeafMBRs(packedRTree);
+            int unpackedLeafHits = 0;
+            int packedLeafHits = 0;
+            for (int[] query : queries) {
+                Assert.assertEquals(countResults(unpackedRTree, query), countResults(packedRTree, query));
+                unpackedLeafHits += countIntersecting(unpackedLeaves, query);
+                packedLeafHits += countIntersecting(packedLeaves, query);
+            }
+            if (LOGGER.isLoggable(Level.INFO)) {
+                LOGGER.info(packingType + " packing: " + packedLeaves.size() + " leaves, " + packedLeafHits
+                        + " leaf hits; input order: " + unpackedLeaves.size() + " leaves, " + unpackedLeafHits
+                        + " leaf hits");
+            }
+            Assert.assertTrue(packedLeafHits * 10 < unpackedLeafHits);
+        } finally {
+            unpackedRTree.deactivate();
+            unpackedRTree.destroy();
+            packedRTree.deactivate();
+            packedRTree.destroy();
+        }
+    }
+
+    private int[] createRectangle(int maxSize) {
+        int x = rnd.nextInt(SPACE_SIZE);
+        int y = rnd.nextInt(SPACE_SIZE);
+        return new int[] { x, y, x + rnd.nextInt(maxSize), y + rnd.nextInt(maxSize) };
+    }
+
+    private RTree createRTree(FileReference file) throws Exception {
+        ITypeTraits[] typeTraits = new ITypeTraits[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            typeTraits[i] = IntegerPointable.TYPE_TRAITS;
+        }
+        IBinaryComparatorFactory[] cmpFactories = new IBinaryComparatorFactory[KEY_FIELD_COUNT];
+        for (int i = 0; i < KEY_FIELD_COUNT; i++) {
+            cmpFactories[i] = PointableBinaryComparatorFactory.of(IntegerPointable.FACTORY);
+        }
+        IPrimitiveValueProviderFactory[] valueProviderFactories = RTreeUtils.createPrimitiveValueProviderFactories(
+                KEY_FIELD_COUNT, IntegerPointable.FACTORY);
+        RTree rtree = RTreeUtils.createRTree(harness.getBufferCache(), harness.getFileMapProvider(), typeTraits,
+                valueProviderFactories, cmpFactories, RTreePolicyType.RTREE, file, true);
+        rtree.create();
+        rtree.activate();
+        return rtree;
+    }
+
+    private void bulkLoad(RTree rtree, int[][] rectangles, RTreePackingType packingType) throws Exception {
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(FIELD_COUNT);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        IIndexBulkLoader bulkLoader = rtree.createBulkLoader(1.0f, false, 0L, true, packingType);
+        for (int i = 0; i < rectangles.length; i++) {
+            int[] r = rectangles[i];
+            TupleUtils.createIntegerTuple(tb, tuple, r[0], r[1], r[2], r[3], i);
+            bulkLoader.add(tuple);
+        }
+        bulkLoader.end();
+    }
+
+    private int countResults(RTree rtree, int[] query) throws Exception {
+        ArrayTupleBuilder keyTb = new ArrayTupleBuilder(KEY_FIELD_COUNT);
+        ArrayTupleReference key = new ArrayTupleReference();
+        TupleUtils.createIntegerTuple(keyTb, key, query[0], query[1], query[2], query[3]);
+        MultiComparator cmp = MultiComparator.create(rtree.getComparatorFactories());
+        ITreeIndexAccessor accessor = rtree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        ITreeIndexCursor cursor = (ITreeIndexCursor) accessor.createSearchCursor(false);
+        accessor.search(cursor, new SearchPredicate(key, cmp));
+        int count = 0;
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return count;
+    }
+
+    /**
+     * Scans the leaves in disk order and returns the MBR of every leaf.
+     */
+    private List<int[]> getLeafMBRs(RTree rtree) throws Exception {
+        ITreeIndexAccessor accessor = rtree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        ITreeIndexCursor cursor = accessor.createDiskOrderScanCursor();
+        accessor.diskOrderScan(cursor);
+        List<int[]> leaves = new ArrayList<int[]>();
+        int numTuples = 0;
+        ICachedPage leaf = null;
+        int[] mbr = null;
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                if (cursor.getPage() != leaf) {
+                    leaf = cursor.getPage();
+                    mbr = new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+                    leaves.add(mbr);
+                }
+                ITupleReference tuple = cursor.getTuple();
+                for (int i = 0; i < KEY_FIELD_COUNT; i++) {
+                    int value = IntegerPointable.getInteger(tuple.getFieldData(i), tuple.getFieldStart(i));
+                    mbr[i] = i < 2 ? Math.min(mbr[i], value) : Math.max(mbr[i], value);
+                }
+                numTuples++;
+            }
+        } finally {
+            cursor.close();
+        }
+        Assert.assertEquals(NUM_TUPLES, numTuples);
+        return leaves;
+    }
+
+    private int countIntersecting(List<int[]> mbrs, int[] query) {
+        int count = 0;
+        for (int[] mbr : mbrs) {
+            if (mbr[0] <= query[2] && query[0] <= mbr[2] && mbr[1] <= query[3] && query[1] <= mbr[3]) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
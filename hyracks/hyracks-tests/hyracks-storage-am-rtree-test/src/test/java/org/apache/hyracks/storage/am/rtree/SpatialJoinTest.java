@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hyracks.storage.am.rtree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.hyracks.api.comm.IFrameWriter;
+import org.apache.hyracks.api.comm.VSizeFrame;
+import org.apache.hyracks.api.context.IHyracksTaskContext;
+import org.apache.hyracks.api.dataflow.value.ISerializerDeserializer;
+import org.apache.hyracks.api.dataflow.value.RecordDescriptor;
+import org.apache.hyracks.api.exceptions.HyracksDataException;
+import org.apache.hyracks.data.std.primitive.IntegerPointable;
+import org.apache.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import org.apache.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import org.apache.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProvider;
+import org.apache.hyracks.storage.am.common.api.IPrimitiveValueProviderFactory;
+import org.apache.hyracks.storage.am.rtree.dataflow.SpatialJoin;
+import org.apache.hyracks.storage.am.rtree.dataflow.SpatialJoinGridType;
+import org.apache.hyracks.storage.am.rtree.util.RTreeUtils;
+import org.apache.hyracks.test.support.TestUtils;
+
+/**
+ * Joins random rectangles with both grid types and checks that every intersecting pair is reported exactly once,
+ * both with the build input in memory and with budgets that make it spill.
+ */
+public class SpatialJoinTest {
+
+    private static final int FRAME_SIZE = 32768;
+    private static final int NUM_PROBE_TUPLES = 3000;
+    private static final int NUM_BUILD_TUPLES = 5000;
+    private static final int SPACE_SIZE = 100000;
+    private static final int MAX_RECTANGLE_SIZE = 3000;
+    private static final int FIELD_COUNT = 5;
+    private static final int[] MBR_FIELDS = new int[] { 0, 1, 2, 3 };
+    private static final int UNBOUNDED_MEMORY = Integer.MAX_VALUE;
+    // The build input takes 7 frames; 6 frames make it spill into 4 partitions, 3 frames into a single partition
+    // that is joined one build frame at a time.
+    private static final int SPILLING_MEMORY = 6;
+    private static final int MINIMUM_MEMORY = 3;
+
+    private final Random rnd = new Random(50);
+
+    @Test
+    public void uniformGridTest() throws Exception {
+        runTest(SpatialJoinGridType.UNIFORM, false, UNBOUNDED_MEMORY);
+    }
+
+    @Test
+    public void adaptiveGridTest() throws Exception {
+        runTest(SpatialJoinGridType.ADAPTIVE, false, UNBOUNDED_MEMORY);
+    }
+
+    @Test
+    public void adaptiveGridSkewedTest() throws Exception {
+        runTest(SpatialJoinGridType.ADAPTIVE, true, UNBOUNDED_MEMORY);
+    }
+
+    @Test
+    public void uniformGridSpillTest() throws Exception {
+        runTest(SpatialJoinGridType.UNIFORM, false, SPILLING_MEMORY);
+    }
+
+    @Test
+    public void adaptiveGridSkewedSpillTest() throws Exception {
+        runTest(SpatialJoinGridType.ADAPTIVE, true, SPILLING_MEMORY);
+    }
+
+    @Test
+    public void minimumMemorySpillTest() throws Exception {
+        runTest(SpatialJoinGridType.UNIFORM, false, MINIMUM_MEMORY);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void runTest(SpatialJoinGridType gridType, boolean skewed, int memSizeInFrames) throws Exception {
+        IHyracksTaskContext ctx = TestUtils.create(FRAME_SIZE);
+        int[][] probe = createRectangles(NUM_PROBE_TUPLES, skewed);
+        int[][] build = createRectangles(NUM_BUILD_TUPLES, skewed);
+
+        ISerializerDeserializer[] fields = new ISerializerDeserializer[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            fields[i] = IntegerSerializerDeserializer.INSTANCE;
+        }
+        RecordDescriptor rd = new RecordDescriptor(fields);
+        IPrimitiveValueProviderFactory[] valueProviderFactories = RTreeUtils.createPrimitiveValueProviderFactories(
+                MBR_FIELDS.length, IntegerPointable.FACTORY);
+        IPrimitiveValueProvider[] probeValueProviders = new IPrimitiveValueProvider[MBR_FIELDS.length];
+        IPrimitiveValueProvider[] buildValueProviders = new IPrimitiveValueProvider[MBR_FIELDS.length];
+        for (int i = 0; i < MBR_FIELDS.length; i++) {
+            probeValueProviders[i] = valueProviderFactories[i].createPrimitiveValueProvider();
+            buildValueProviders[i] = valueProviderFactories[i].createPrimitiveValueProvider();
+        }
+        SpatialJoin join = new SpatialJoin(ctx, new FrameTupleAccessor(rd), new FrameTupleAccessor(rd), MBR_FIELDS,
+                MBR_FIELDS, probeValueProviders, buildValueProviders, gridType, 16, memSizeInFrames);
+
+        for (ByteBuffer frame : createFrames(ctx, build)) {
+            join.cache(frame);
+        }
+        join.closeCache();
+
+        final List<Long> results = new ArrayList<Long>();
+        final FrameTupleAccessor outAccessor = new FrameTupleAccessor(new RecordDescriptor(
+                new ISerializerDeserializer[FIELD_COUNT * 2]));
+        IFrameWriter writer = new IFrameWriter() {
+            @Override
+            public void open() throws HyracksDataException {
+            }
+
+            @Override
+            public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+                outAccessor.reset(buffer);
+                for (int t = 0; t < outAccessor.getTupleCount(); t++) {
+                    long probeId = getInt(outAccessor, t, FIELD_COUNT - 1);
+                    long buildId = getInt(outAccessor, t, FIELD_COUNT * 2 - 1);
+                    results.add(probeId * NUM_BUILD_TUPLES + buildId);
+                }
+            }
+
+            @Override
+            public void fail() throws HyracksDataException {
+            }
+
+            @Override
+            public void close() throws HyracksDataException {
+            }
+        };
+        for (ByteBuffer frame : createFrames(ctx, probe)) {
+            join.join(frame, writer);
+        }
+        join.closeJoin(writer);
+
+        Set<Long> expected = new HashSet<Long>();
+        for (int i = 0; i < probe.length; i++) {
+            for (int j = 0; j < build.length; j++) {
+                if (intersect(probe[i], build[j])) {
+                    expected.add((long) i * NUM_BUILD_TUPLES + j);
+                }
+            }
+        }
+        Set<Long> actual = new HashSet<Long>(results);
+        Assert.assertEquals("duplicate results", results.size(), actual.size());
+        Assert.assertEquals(expected, actual);
+    }
+
+    private int[][] createRectangles(int numRectangles, boolean skewed) {
+        int[][] rectangles = new int[numRectangles][];
+        for (int i = 0; i < numRectangles; i++) {
+            // Skewed rectangles crowd into the low corner of the space.
+            int x = skewed ? (int) (SPACE_SIZE * Math.pow(rnd.nextDouble(), 4)) : rnd.nextInt(SPACE_SIZE);
+            int y = skewed ? (int) (SPACE_SIZE * Math.pow(rnd.nextDouble(), 4)) : rnd.nextInt(SPACE_SIZE);
+            rectangles[i] = new int[] { x, y, x + rnd.nextInt(MAX_RECTANGLE_SIZE), y + rnd.nextInt(MAX_RECTANGLE_SIZE),
+                    i };
+        }
+        return rectangles;
+    }
+
+    private List<ByteBuffer> createFrames(IHyracksTaskContext ctx, int[][] rectangles) throws HyracksDataException {
+        List<ByteBuffer> frames = new ArrayList<ByteBuffer>();
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(FIELD_COUNT);
+        FrameTupleAppender appender = new FrameTupleAppender(new VSizeFrame(ctx), true);
+        for (int[] r : rectangles) {
+            tb.reset();
+            for (int f = 0; f < FIELD_COUNT; f++) {
+                tb.addField(IntegerSerializerDeserializer.INSTANCE, r[f]);
+            }
+            if (!appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize())) {
+                frames.add(copy(appender.getBuffer()));
+                appender.reset(new VSizeFrame(ctx), true);
+                appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize());
+            }
+        }
+        frames.add(copy(appender.getBuffer()));
+        return frames;
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.capacity());
+        copy.put(buffer.array(), 0, buffer.capacity());
+        copy.flip();
+        return copy;
+    }
+
+    private static int getInt(FrameTupleAccessor accessor, int tupleIndex, int field) {
+        return IntegerPointable.getInteger(accessor.getBuffer().array(),
+                accessor.getAbsoluteFieldStartOffset(tupleIndex, field));
+    }
+
+    private static boolean intersect(int[] a, int[] b) {
+        return a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3];
+    }
+}